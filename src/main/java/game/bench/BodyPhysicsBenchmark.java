@@ -0,0 +1,90 @@
+package game.bench; // Declares the package for this source file.
+
+import game.core.BodyPhysics;
+import game.core.Physics;
+import game.core.PlayerState;
+import game.core.Simulation;
+import game.systems.Bodies;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.TileMap;
+import game.utils.Constants;
+import game.utils.Theme;
+
+import java.util.Random;
+
+/**
+ * Measures the per-body cost of {@link BodyPhysics} as the number of bodies grows and compares it
+ * with one player step through {@link Physics#moveAndCollide}. Bodies start scattered in the air
+ * with random walking speeds, so the run covers falling, landing and wall hits.
+ * Args: {@code [steps] [seed]}.
+ */
+public class BodyPhysicsBenchmark { // Defines a class.
+
+    private static final int[] BODY_COUNTS = {1, 10, 100, 1_000, 10_000};
+    private static final double DT = 1.0 / Constants.SIM_RATE_HZ;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        Simulation level = new Simulation( // Executes: Simulation level = new Simulation(
+                ProceduralLevelGenerator.generate(10, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, seed), // Executes: ProceduralLevelGenerator.generate(10, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, seed),
+                Theme.NEUTRAL, seed, new PlayerState(0, 0)); // Executes: Theme.NEUTRAL, seed, new PlayerState(0, 0));
+        TileMap map = level.getTileMap();
+
+        double playerNs = timePlayer(map, level.getGroundTopY(), steps);
+        System.out.printf("player (Physics.moveAndCollide): %.1f ns/step%n", playerNs); // Executes: System.out.printf("player (Physics.moveAndCollide): %.1f ns/step%n", playerNs);
+
+        for (int count : BODY_COUNTS) { // Begins a method or constructor with its signature.
+            Bodies bodies = scatter(map, count, new Random(seed));
+            BodyPhysics physics = new BodyPhysics(Constants.GRAVITY, Constants.MAX_FALL_SPEED);
+            physics.setFloorY(level.getGroundTopY()); // Executes: physics.setFloorY(level.getGroundTopY());
+
+            // Same number of body-steps for every count, so small counts are not lost in timer noise
+            int rounds = Math.max(20, steps * 100 / count);
+            for (int i = 0; i < rounds; i++) physics.step(bodies, map, DT); // warm-up (also lets most bodies settle) // Executes: for (int i = 0; i < rounds; i++) physics.step(bodies, map, DT); // warm-up (also lets most bodies settle)
+
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) { // Begins a method or constructor with its signature.
+                physics.step(bodies, map, DT); // Executes: physics.step(bodies, map, DT);
+            } // Closes a code block.
+            double nsPerBody = (System.nanoTime() - start) / ((double) rounds * count);
+
+            int grounded = 0;
+            for (int i = 0; i < count; i++) if (bodies.has(i, Bodies.GROUNDED)) grounded++; // Executes: for (int i = 0; i < count; i++) if (bodies.has(i, Bodies.GROUNDED)) grounded++;
+            System.out.printf("%6d bodies: %.1f ns/body-step (%.2fx player), %d grounded at the end%n", // Executes: System.out.printf("%6d bodies: %.1f ns/body-step (%.2fx player), %d grounded at the end%n",
+                    count, nsPerBody, nsPerBody / playerNs, grounded); // Executes: count, nsPerBody, nsPerBody / playerNs, grounded);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private static Bodies scatter(TileMap map, int count, Random rng) { // Begins a method or constructor with its signature.
+        Bodies bodies = new Bodies(count);
+        for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+            double x = rng.nextDouble() * (map.getWidthInPixels() - 30);
+            double y = rng.nextDouble() * map.getHeightInPixels() * 0.5;
+            int b = bodies.slotOf(bodies.add(x, y, 30, 30));
+            bodies.setVelocityX(b, (rng.nextDouble() * 2 - 1) * 120); // Executes: bodies.setVelocityX(b, (rng.nextDouble() * 2 - 1) * 120);
+        } // Closes a code block.
+        return bodies;
+    } // Closes a code block.
+
+    private static double timePlayer(TileMap map, double floorY, int steps) { // Begins a method or constructor with its signature.
+        PlayerState p = new PlayerState(64, 0);
+        p.moveRight(); // Executes: p.moveRight();
+        int rounds = steps * 100;
+        for (int i = 0; i < rounds; i++) stepPlayer(p, map, floorY); // warm-up // Executes: for (int i = 0; i < rounds; i++) stepPlayer(p, map, floorY); // warm-up
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) { // Begins a method or constructor with its signature.
+            stepPlayer(p, map, floorY); // Executes: stepPlayer(p, map, floorY);
+        } // Closes a code block.
+        return (System.nanoTime() - start) / (double) rounds; // Returns a value from the method.
+    } // Closes a code block.
+
+    private static void stepPlayer(PlayerState p, TileMap map, double floorY) { // Begins a method or constructor with its signature.
+        if (p.getPlayerX() > map.getWidthInPixels() - 200) p.setPlayerX(64); // Evaluates a conditional branch.
+        Physics.moveAndCollide(p, map, DT); // Executes: Physics.moveAndCollide(p, map, DT);
+        Physics.checkGroundCollision(p, 0, floorY, map.getWidthInPixels(), Constants.GROUND_HEIGHT); // Executes: Physics.checkGroundCollision(p, 0, floorY, map.getWidthInPixels(), Constants.GROUND_HEIGHT);
+        p.moveRight(); // Executes: p.moveRight();
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,98 @@
+package game.bench; // Declares the package for this source file.
+
+import game.core.PlayerState;
+import game.core.Simulation;
+import game.systems.Camera;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.RenderCommandBuffer;
+import game.systems.ViewCulling;
+import game.systems.WorldRenderer;
+import game.utils.Constants;
+import game.utils.Theme;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+
+/**
+ * Per-frame cost of {@link WorldRenderer#render} with and without view culling, on generated levels
+ * from 110 to 10,000 tiles wide, drawn to an off-screen canvas while the camera scrolls right at
+ * running speed. Also prints how many entities of each layer the culling pass drew and skipped on
+ * an average frame, and how many commands the {@link RenderCommandBuffer} flushed and how many
+ * fill, stroke and line width changes its sorting saved. Args: {@code [frames] [seed]}.
+ */
+public class CullingBenchmark { // Defines a class.
+
+    private static final int[] WIDTHS = {Constants.LEVEL_WIDTH_TILES, 1_000, 10_000};
+    // Running speed at 60 fps
+    private static final double STEP_X = 280.0 / 60;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        Canvas canvas = new Canvas(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+
+        for (int width : WIDTHS) { // Begins a method or constructor with its signature.
+            long[] visible = new long[ViewCulling.LAYERS];
+            long[] culled = new long[ViewCulling.LAYERS];
+            long[] commands = new long[3];
+            double all = run(gc, width, seed, false, frames, visible, culled, commands);
+            double culledRun = run(gc, width, seed, true, frames, visible, culled, commands);
+            System.out.printf("%6d tiles: culled %.2f us/frame, all entities %.2f us/frame%n", // Executes: System.out.printf("%6d tiles: culled %.2f us/frame, all entities %.2f us/frame%n",
+                    width, culledRun / 1_000, all / 1_000); // Executes: width, culledRun / 1_000, all / 1_000);
+            System.out.printf("    %.1f commands per frame, %.1f of %.1f state changes saved%n", // Executes: System.out.printf("    %.1f commands per frame, %.1f of %.1f state changes saved%n",
+                    commands[0] / (double) frames, (commands[1] - commands[2]) / (double) frames, // Executes: commands[0] / (double) frames, (commands[1] - commands[2]) / (double) frames,
+                    commands[1] / (double) frames); // Executes: commands[1] / (double) frames);
+            for (int layer = 0; layer < ViewCulling.LAYERS; layer++) { // Begins a method or constructor with its signature.
+                System.out.printf("    %-9s %6.1f drawn, %7.1f culled per frame%n", ViewCulling.layerName(layer), // Executes: System.out.printf("    %-9s %6.1f drawn, %7.1f culled per frame%n", ViewCulling.layerName(layer),
+                        visible[layer] / (double) frames, culled[layer] / (double) frames); // Executes: visible[layer] / (double) frames, culled[layer] / (double) frames);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Returns ns per frame; visible and culled receive the per-layer totals of the measured pass,
+     * commands its {commands, state changes issued, state changes applied}.
+     */
+    private static double run(GraphicsContext gc, int width, long seed, boolean cull, int frames, // Executes: private static double run(GraphicsContext gc, int width, long seed, boolean cull, int frames,
+                              long[] visible, long[] culled, long[] commands) { // Executes: long[] visible, long[] culled, long[] commands) {
+        Simulation level = new Simulation( // Executes: Simulation level = new Simulation(
+                ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed), // Executes: ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed),
+                Theme.NEUTRAL, seed, new PlayerState(0, 0)); // Executes: Theme.NEUTRAL, seed, new PlayerState(0, 0));
+        WorldRenderer renderer = new WorldRenderer(level.getWorld());
+        renderer.setCullingEnabled(cull); // Executes: renderer.setCullingEnabled(cull);
+        Camera camera = level.getWorld().getCamera();
+        double maxX = Math.max(0, level.getTileMap().getWidthInPixels() - camera.getViewWidth());
+
+        long elapsed = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up // Begins a loop over a range or collection.
+            elapsed = 0; // Executes: elapsed = 0;
+            Arrays.fill(visible, 0); // Executes: Arrays.fill(visible, 0);
+            Arrays.fill(culled, 0); // Executes: Arrays.fill(culled, 0);
+            Arrays.fill(commands, 0); // Executes: Arrays.fill(commands, 0);
+            double x = 0;
+            for (int f = 0; f < frames; f++) { // Begins a method or constructor with its signature.
+                x = x + STEP_X > maxX ? 0 : x + STEP_X; // Executes: x = x + STEP_X > maxX ? 0 : x + STEP_X;
+                camera.snapTo(x, 0); // Executes: camera.snapTo(x, 0);
+                // A full clear lets the canvas drop the commands it queued so far
+                gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT); // Executes: gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+
+                long start = System.nanoTime();
+                renderer.render(gc, 1.0); // Executes: renderer.render(gc, 1.0);
+                elapsed += System.nanoTime() - start; // Executes: elapsed += System.nanoTime() - start;
+                if (!cull) continue; // Evaluates a conditional branch.
+                RenderCommandBuffer buffer = renderer.getCommands();
+                commands[0] += buffer.getLastCommandCount(); // Executes: commands[0] += buffer.getLastCommandCount();
+                commands[1] += buffer.getLastStateChangesIssued(); // Executes: commands[1] += buffer.getLastStateChangesIssued();
+                commands[2] += buffer.getLastStateChangesApplied(); // Executes: commands[2] += buffer.getLastStateChangesApplied();
+                for (int layer = 0; layer < ViewCulling.LAYERS; layer++) { // Begins a method or constructor with its signature.
+                    visible[layer] += renderer.getCulling().getVisible(layer); // Executes: visible[layer] += renderer.getCulling().getVisible(layer);
+                    culled[layer] += renderer.getCulling().getCulled(layer); // Executes: culled[layer] += renderer.getCulling().getCulled(layer);
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        return elapsed / (double) frames; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,81 @@
+package game.bench; // Declares the package for this source file.
+
+import com.sun.management.ThreadMXBean;
+import game.systems.Camera;
+import game.systems.EffectManager;
+import game.systems.RenderCommandBuffer;
+import game.utils.Constants;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Per-frame cost of {@link EffectManager} under load: every frame collects a burst of coins (a
+ * dozen sparkles each) and scores points, and every tenth frame lands (a puff), for 60 Hz frames
+ * drawn to an off-screen canvas. Prints the live particle count, the time spent updating, recording
+ * and flushing, and the bytes the effects allocate per frame (updating and recording; the canvas is
+ * left out, see {@link FrameAllocationCheck}) once the first pass has warmed everything up. Exits
+ * with status 1 if that is above 0. Args: {@code [frames] [coinsPerFrame]}.
+ */
+public class EffectsBenchmark { // Defines a class.
+
+    private static final double FRAME = 1.0 / 60;
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        int coinsPerFrame = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Canvas canvas = new Canvas(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        Camera camera = new Camera(Constants.VIEW_HEIGHT, Constants.VIEW_WIDTH);
+        EffectManager effects = new EffectManager();
+        RenderCommandBuffer commands = new RenderCommandBuffer(EffectManager.DEFAULT_PARTICLES * 2);
+        long tid = Thread.currentThread().threadId();
+        int score = 0; // Kept across passes: a score going down would take a path the warm-up never did // Executes: int score = 0; // Kept across passes: a score going down would take a path the warm-up never did
+        // The probe itself allocates once, when it gets compiled (~7,000 calls): get that over with first
+        for (int i = 0; i < 20_000; i++) THREADS.getThreadAllocatedBytes(tid); // Executes: for (int i = 0; i < 20_000; i++) THREADS.getThreadAllocatedBytes(tid);
+
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up // Begins a loop over a range or collection.
+            long update = 0;
+            long record = 0;
+            long flush = 0;
+            long particles = 0;
+            long bytes = 0;
+            for (int f = 0; f < frames; f++) { // Begins a method or constructor with its signature.
+                long before = THREADS.getThreadAllocatedBytes(tid);
+                effects.onCoinCollected(coinsPerFrame, 0); // Executes: effects.onCoinCollected(coinsPerFrame, 0);
+                score += coinsPerFrame * 10 + (f % 7 == 0 ? 1_000 : 0); // Some popups show four digits // Executes: score += coinsPerFrame * 10 + (f % 7 == 0 ? 1_000 : 0); // Some popups show four digits
+                effects.onScoreChanged(score); // Executes: effects.onScoreChanged(score);
+                // Airborne for nine frames, then landed
+                effects.update(FRAME, 600, 300, 74, 74, f % 10 == 0); // Executes: effects.update(FRAME, 600, 300, 74, 74, f % 10 == 0);
+                update += effects.getLastUpdateNanos(); // Executes: update += effects.getLastUpdateNanos();
+
+                commands.setLayer(RenderCommandBuffer.EFFECTS); // Executes: commands.setLayer(RenderCommandBuffer.EFFECTS);
+                effects.render(commands, camera); // Executes: effects.render(commands, camera);
+                record += effects.getLastRecordNanos(); // Executes: record += effects.getLastRecordNanos();
+                bytes += THREADS.getThreadAllocatedBytes(tid) - before; // Executes: bytes += THREADS.getThreadAllocatedBytes(tid) - before;
+
+                // A full clear lets the canvas drop the commands it queued so far
+                gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT); // Executes: gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+                long start = System.nanoTime();
+                commands.flush(gc); // Executes: commands.flush(gc);
+                flush += System.nanoTime() - start; // Executes: flush += System.nanoTime() - start;
+                particles += effects.getParticleCount(); // Executes: particles += effects.getParticleCount();
+            } // Closes a code block.
+            if (pass == 0) continue; // Evaluates a conditional branch.
+
+            System.out.printf("%d coins/frame: %.0f live particles of %d, %d dropped%n", coinsPerFrame, // Executes: System.out.printf("%d coins/frame: %.0f live particles of %d, %d dropped%n", coinsPerFrame,
+                    particles / (double) frames, effects.getParticleCapacity(), effects.getDroppedCount()); // Executes: particles / (double) frames, effects.getParticleCapacity(), effects.getDroppedCount());
+            System.out.printf("    update %.2f us, record %.2f us, flush %.2f us per frame%n", // Executes: System.out.printf("    update %.2f us, record %.2f us, flush %.2f us per frame%n",
+                    update / 1_000.0 / frames, record / 1_000.0 / frames, flush / 1_000.0 / frames); // Executes: update / 1_000.0 / frames, record / 1_000.0 / frames, flush / 1_000.0 / frames);
+            System.out.printf("    %.1f B allocated per frame%n", bytes / (double) frames); // Executes: System.out.printf("    %.1f B allocated per frame%n", bytes / (double) frames);
+            if (bytes > 0) { // Begins a method or constructor with its signature.
+                System.out.println("FAIL: the effects allocate after warm-up"); // Executes: System.out.println("FAIL: the effects allocate after warm-up");
+                System.exit(1); // Executes: System.exit(1);
+            } // Closes a code block.
+            System.out.println("OK"); // Executes: System.out.println("OK");
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,73 @@
+package game.bench; // Declares the package for this source file.
+
+import game.core.PlayerState;
+import game.core.Simulation;
+import game.systems.Camera;
+import game.systems.EnemyManager;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.TileMap;
+import game.utils.Constants;
+import game.utils.Theme;
+
+/**
+ * Per-tick cost of {@link EnemyManager#update} with and without the camera activity window, on
+ * generated levels from 110 to 10,000 tiles wide. The camera scrolls right at running speed and the
+ * player box rides above the level, so nobody dies and every tick does the same kind of work.
+ * Args: {@code [ticks] [seed]}.
+ */
+public class EnemyLodBenchmark { // Defines a class.
+
+    private static final int[] WIDTHS = {Constants.LEVEL_WIDTH_TILES, 1_000, 10_000};
+    private static final double DT = 1.0 / Constants.SIM_RATE_HZ;
+    // Running speed at 120 Hz
+    private static final double STEP_X = 280.0 * DT;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        for (int width : WIDTHS) { // Begins a method or constructor with its signature.
+            int[] counts = new int[2];
+            double full = run(width, seed, false, ticks, counts);
+            double windowed = run(width, seed, true, ticks, counts);
+            System.out.printf("%6d tiles, %4d enemies: activity window %.2f us/tick (%.1f moved per tick), all enemies %.2f us/tick%n", // Executes: System.out.printf("%6d tiles, %4d enemies: activity window %.2f us/tick (%.1f moved per tick), all enemies %.2f us/tick%n",
+                    width, counts[1], windowed / 1_000, counts[0] / (double) ticks, full / 1_000); // Executes: width, counts[1], windowed / 1_000, counts[0] / (double) ticks, full / 1_000);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Returns ns per update; counts receives {enemies moved over all ticks, enemies in the level}.
+     */
+    private static double run(int width, long seed, boolean lod, int ticks, int[] counts) { // Begins a method or constructor with its signature.
+        Simulation level = new Simulation( // Executes: Simulation level = new Simulation(
+                ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed), // Executes: ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed),
+                Theme.NEUTRAL, seed, new PlayerState(0, 0)); // Executes: Theme.NEUTRAL, seed, new PlayerState(0, 0));
+        TileMap map = level.getTileMap();
+        EnemyManager enemies = level.getWorld().getEnemyManager();
+        enemies.setLodEnabled(lod); // Executes: enemies.setLodEnabled(lod);
+        Camera camera = new Camera(Constants.VIEW_HEIGHT, Constants.VIEW_WIDTH);
+        PlayerState player = new PlayerState(0, -10_000);
+        double maxX = Math.max(0, map.getWidthInPixels() - camera.getViewWidth());
+
+        long elapsed = 0;
+        int updated = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up // Begins a loop over a range or collection.
+            elapsed = 0; // Executes: elapsed = 0;
+            updated = 0; // Executes: updated = 0;
+            double x = 0;
+            for (int t = 0; t < ticks; t++) { // Begins a method or constructor with its signature.
+                x = x + STEP_X > maxX ? 0 : x + STEP_X; // Executes: x = x + STEP_X > maxX ? 0 : x + STEP_X;
+                camera.snapTo(x, 0); // Executes: camera.snapTo(x, 0);
+                player.setPlayerX(x + camera.getViewWidth() / 2); // Executes: player.setPlayerX(x + camera.getViewWidth() / 2);
+
+                long start = System.nanoTime();
+                enemies.update(DT, player, map, camera); // Executes: enemies.update(DT, player, map, camera);
+                elapsed += System.nanoTime() - start; // Executes: elapsed += System.nanoTime() - start;
+                updated += enemies.getUpdatedCount(); // Executes: updated += enemies.getUpdatedCount();
+            } // Closes a code block.
+        } // Closes a code block.
+        counts[0] = updated; // Executes: counts[0] = updated;
+        counts[1] = enemies.size(); // Executes: counts[1] = enemies.size();
+        return elapsed / (double) ticks; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
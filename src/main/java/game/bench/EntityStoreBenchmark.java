@@ -0,0 +1,89 @@
+package game.bench; // Declares the package for this source file.
+
+import game.systems.CoinManager;
+import game.systems.EntityStore;
+import game.systems.TileMap;
+import game.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times one {@link CoinManager#updateAndCountCollected} call (the per-tick coin pass) on levels with
+ * 100 to 10,000 coins while a player-sized box runs across the level collecting some of them,
+ * then times raw {@link EntityStore} add / swap-remove churn through handles.
+ * Args: {@code [updates] [seed]}.
+ */
+public class EntityStoreBenchmark { // Defines a class.
+
+    private static final int[] COIN_COUNTS = {100, 1_000, 10_000};
+    private static final double LEVEL_WIDTH = (double) Constants.LEVEL_WIDTH_TILES * TileMap.TILE_SIZE;
+    private static final double PLAYER_SIZE = 74;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        for (int count : COIN_COUNTS) { // Begins a method or constructor with its signature.
+            List<double[]> positions = scatter(count, new Random(seed));
+            timeUpdates(positions, updates / 4); // warm-up // Executes: timeUpdates(positions, updates / 4); // warm-up
+            double ns = timeUpdates(positions, updates);
+            System.out.printf("%6d coins: %.2f us/update (%.1f ns/coin)%n", count, ns / 1_000.0, ns / count); // Executes: System.out.printf("%6d coins: %.2f us/update (%.1f ns/coin)%n", count, ns / 1_000.0, ns / count);
+        } // Closes a code block.
+
+        timeChurn(10_000, updates * 10, new Random(seed)); // warm-up // Executes: timeChurn(10_000, updates * 10, new Random(seed)); // warm-up
+        double churnNs = timeChurn(10_000, updates * 10, new Random(seed));
+        System.out.printf("store churn at 10000 entities: %.1f ns per remove+add%n", churnNs); // Executes: System.out.printf("store churn at 10000 entities: %.1f ns per remove+add%n", churnNs);
+    } // Closes a code block.
+
+    private static double timeUpdates(List<double[]> positions, int updates) { // Begins a method or constructor with its signature.
+        CoinManager coins = new CoinManager();
+        coins.spawnFrom(positions); // Executes: coins.spawnFrom(positions);
+        double px = 0;
+        int collected = 0;
+        long elapsed = 0;
+
+        for (int i = 0; i < updates; i++) { // Begins a method or constructor with its signature.
+            // Run right along the middle of the level, wrapping around at the end
+            px += 3; // Executes: px += 3;
+            if (px > LEVEL_WIDTH - PLAYER_SIZE) { // Begins a method or constructor with its signature.
+                px = 0; // Executes: px = 0;
+                coins.remove(); // Executes: coins.remove();
+                coins.spawnFrom(positions); // Executes: coins.spawnFrom(positions);
+            } // Closes a code block.
+            // Respawning is not part of the per-tick cost, so only the update is timed
+            long start = System.nanoTime();
+            collected += coins.updateAndCountCollected(px, Constants.VIEW_HEIGHT / 2.0, PLAYER_SIZE, PLAYER_SIZE); // Executes: collected += coins.updateAndCountCollected(px, Constants.VIEW_HEIGHT / 2.0, PLAYER_SIZE, PLAYER_SIZE);
+            elapsed += System.nanoTime() - start; // Executes: elapsed += System.nanoTime() - start;
+        } // Closes a code block.
+        if (collected < 0) System.out.println(collected); // keep the loop alive // Evaluates a conditional branch.
+        return elapsed / (double) updates; // Returns a value from the method.
+    } // Closes a code block.
+
+    private static double timeChurn(int count, int operations, Random rng) { // Begins a method or constructor with its signature.
+        EntityStore store = new EntityStore(count);
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+            handles[i] = store.add(rng.nextDouble() * LEVEL_WIDTH, 0, 20, 20, 0); // Executes: handles[i] = store.add(rng.nextDouble() * LEVEL_WIDTH, 0, 20, 20, 0);
+        } // Closes a code block.
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) { // Begins a method or constructor with its signature.
+            int k = rng.nextInt(count);
+            store.remove(handles[k]); // Executes: store.remove(handles[k]);
+            handles[k] = store.add(k, 0, 20, 20, 0); // Executes: handles[k] = store.add(k, 0, 20, 20, 0);
+        } // Closes a code block.
+        return (System.nanoTime() - start) / (double) operations; // Returns a value from the method.
+    } // Closes a code block.
+
+    private static List<double[]> scatter(int count, Random rng) { // Begins a method or constructor with its signature.
+        List<double[]> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+            positions.add(new double[]{ // Begins a method or constructor with its signature.
+                    rng.nextDouble() * (LEVEL_WIDTH - CoinManager.DEFAULT_SIZE), // Executes: rng.nextDouble() * (LEVEL_WIDTH - CoinManager.DEFAULT_SIZE),
+                    rng.nextDouble() * (Constants.VIEW_HEIGHT - CoinManager.DEFAULT_SIZE)}); // Executes: rng.nextDouble() * (Constants.VIEW_HEIGHT - CoinManager.DEFAULT_SIZE)});
+        } // Closes a code block.
+        return positions;
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,178 @@
+package game.bench; // Declares the package for this source file.
+
+import com.sun.management.ThreadMXBean;
+import game.core.GameLoop;
+import game.core.InputManager;
+import game.core.InputScript;
+import game.core.Player;
+import game.core.Simulation;
+import game.systems.GameEvents;
+import game.systems.PlayerSprite;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.WorldRenderer;
+import game.utils.Constants;
+import game.utils.Theme;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Allocation regression check for the frame path: drives {@link GameLoop#handle} with synthetic
+ * 60 Hz timestamps (fixed-timestep simulation, world and player sprite drawn to an off-screen canvas,
+ * a bot at the controls) and reads {@link ThreadMXBean#getThreadAllocatedBytes} around each batch of frames.
+ * The first levels are warm-up, and each measured level is played once unmeasured before the run
+ * that counts, so the paths it takes have all run once in the process. On the measured run the loop
+ * must not allocate once the first second of the level (lazy index builds) has passed.
+ *
+ * <p>An off-screen canvas never hands its command buffer to a render pulse, so JavaFX itself
+ * allocates a little when a full clear drops a large buffer. That cost is measured first, on frames
+ * of plain rectangles, and subtracted. What is left is runtime bookkeeping that does not come back on
+ * a rerun (a canvas buffer resize, a JIT deoptimization; about 1.3 KB in one batch now and then), so
+ * the check allows a stated noise floor: it fails when any batch goes over {@link #BATCH_NOISE_BYTES}
+ * or the measured levels together go over {@link #LEVEL_NOISE_BYTES} per level. One 16-byte object
+ * per frame is about 1 KB a batch and 10 KB over a typical level.
+ *
+ * <p>The player sprite is drawn from its atlas, which is loaded from the classpath resources first;
+ * without them the output says that the player draw was left out. The HUD is left out: it only
+ * rebuilds text when a value changes. Exits with status 1 on failure. Args: {@code [levels] [seed]}.
+ */
+public class FrameAllocationCheck { // Defines a class.
+
+    private static final long FRAME_NS = 1_000_000_000L / 60;
+    private static final int WARM_UP_LEVELS = 3;
+    private static final int BATCH = 60;
+    private static final int MAX_FRAMES = 60 * 60;
+    private static final int BASELINE_RECTS = 2_000;
+    // Noise floor: bytes over the canvas baseline allowed in one batch, and per measured level in total
+    private static final long BATCH_NOISE_BYTES = 2_048;
+    private static final long LEVEL_NOISE_BYTES = 2_048;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static int lastScore;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        Canvas canvas = new Canvas(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        long baseline = canvasBaseline(gc);
+        System.out.println(loadPlayerAtlas() // Executes: System.out.println(loadPlayerAtlas()
+                ? "player sprite: drawn from its atlas" // Executes: ? "player sprite: drawn from its atlas"
+                : "player sprite: atlas not loaded (resources not on the classpath), player draw not measured"); // Executes: : "player sprite: atlas not loaded (resources not on the classpath), player draw not measured");
+
+        for (int i = 0; i < WARM_UP_LEVELS; i++) runLevel(gc, seed + i, baseline); // Executes: for (int i = 0; i < WARM_UP_LEVELS; i++) runLevel(gc, seed + i, baseline);
+
+        long frames = 0;
+        long bytes = 0;
+        long worst = 0;
+        for (int i = 0; i < levels; i++) { // Begins a method or constructor with its signature.
+            long levelSeed = seed + WARM_UP_LEVELS + i;
+            // Played twice, measured the second time: the first play takes what is allocated once per
+            // process (loading a class, the platform paint of a color never drawn before)
+            runLevel(gc, levelSeed, baseline); // Executes: runLevel(gc, levelSeed, baseline);
+            long[] result = runLevel(gc, levelSeed, baseline);
+            System.out.printf("level %d: %d frames, score %d, %d bytes above baseline, worst batch %.1f B/frame%n", // Executes: System.out.printf("level %d: %d frames, score %d, %d bytes above baseline, worst batch %.1f B/frame%n",
+                    i + 1, result[0], lastScore, result[1], result[2] / (double) BATCH); // Executes: i + 1, result[0], lastScore, result[1], result[2] / (double) BATCH);
+            frames += result[0]; // Executes: frames += result[0];
+            bytes += result[1]; // Executes: bytes += result[1];
+            worst = Math.max(worst, result[2]); // Executes: worst = Math.max(worst, result[2]);
+        } // Closes a code block.
+        long floor = LEVEL_NOISE_BYTES * levels;
+        System.out.printf("canvas baseline %.1f B/frame; %d frames measured, %d bytes (floor %d), worst batch %d bytes (floor %d)%n", // Executes: System.out.printf("canvas baseline %.1f B/frame; %d frames measured, %d bytes (floor %d), worst batch %d bytes (floor %d)%n",
+                baseline / (double) BATCH, frames, bytes, floor, worst, BATCH_NOISE_BYTES); // Executes: baseline / (double) BATCH, frames, bytes, floor, worst, BATCH_NOISE_BYTES);
+        if (bytes > floor || worst > BATCH_NOISE_BYTES) { // Begins a method or constructor with its signature.
+            System.out.println("FAIL: the steady-state frame allocates"); // Executes: System.out.println("FAIL: the steady-state frame allocates");
+            System.exit(1); // Executes: System.exit(1);
+        } // Closes a code block.
+        System.out.println("OK: no allocation above the noise floor after warm-up"); // Executes: System.out.println("OK: no allocation above the noise floor after warm-up");
+    } // Closes a code block.
+
+    /**
+     * Loads the shared player atlas before the first frame; false when it cannot be loaded.
+     */
+    private static boolean loadPlayerAtlas() { // Begins a method or constructor with its signature.
+        try { // Attempts operations that might throw exceptions.
+            Image atlas = PlayerSprite.prepare().join();
+            return atlas != null; // Returns a value from the method.
+        } catch (CompletionException e) { // Begins a method or constructor with its signature.
+            return false;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Plays one level until it ends (or MAX_FRAMES). Returns {frames, total bytes over baseline,
+     * worst batch over baseline}.
+     */
+    private static long[] runLevel(GraphicsContext gc, long seed, long baseline) { // Begins a method or constructor with its signature.
+        Player player = new Player(0, 0);
+        Simulation simulation = new Simulation( // Executes: Simulation simulation = new Simulation(
+                ProceduralLevelGenerator.generate(10, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, seed), // Executes: ProceduralLevelGenerator.generate(10, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, seed),
+                Theme.values()[(int) (seed % Theme.values().length)], seed, player); // Executes: Theme.values()[(int) (seed % Theme.values().length)], seed, player);
+        // A listener makes the world queue and dispatch its events, so that path is measured too
+        lastScore = 0; // Executes: lastScore = 0;
+        simulation.getWorld().getEvents().addListener(new GameEvents.Listener() { // Begins a method or constructor with its signature.
+            @Override // Applies an annotation to the following element.
+            public void onScoreChanged(int score) { // Begins a method or constructor with its signature.
+                lastScore = score; // Executes: lastScore = score;
+            } // Closes a code block.
+        }); // Executes: });
+
+        GameLoop loop = new GameLoop(simulation, player, new InputManager(), // Executes: GameLoop loop = new GameLoop(simulation, player, new InputManager(),
+                Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT, // Executes: Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT,
+                new WorldRenderer(simulation.getWorld()), gc, null, null); // Executes: new WorldRenderer(simulation.getWorld()), gc, null, null);
+        loop.setFixedTimestep(Constants.SIM_RATE_HZ, Constants.MAX_CATCH_UP_STEPS); // Executes: loop.setFixedTimestep(Constants.SIM_RATE_HZ, Constants.MAX_CATCH_UP_STEPS);
+        loop.setInputScript(InputScript.runRight(45)); // Executes: loop.setInputScript(InputScript.runRight(45));
+
+        long tid = Thread.currentThread().threadId();
+        long now = FRAME_NS;
+        loop.handle(now); // first pulse only latches the clock // Executes: loop.handle(now); // first pulse only latches the clock
+
+        for (int f = 0; f < BATCH; f++) { // Begins a method or constructor with its signature.
+            now += FRAME_NS; // Executes: now += FRAME_NS;
+            loop.handle(now); // Executes: loop.handle(now);
+        } // Closes a code block.
+
+        long frames = 0;
+        long total = 0;
+        long worst = 0;
+        while (frames < MAX_FRAMES && !simulation.isGameOver() && !simulation.isLevelComplete()) { // Begins a method or constructor with its signature.
+            long before = THREADS.getThreadAllocatedBytes(tid);
+            for (int f = 0; f < BATCH; f++) { // Begins a method or constructor with its signature.
+                now += FRAME_NS; // Executes: now += FRAME_NS;
+                loop.handle(now); // Executes: loop.handle(now);
+            } // Closes a code block.
+            long bytes = Math.max(0, THREADS.getThreadAllocatedBytes(tid) - before - baseline);
+            // The batch the run ends in also logs and stops mid-way; don't count it
+            if (simulation.isGameOver() || simulation.isLevelComplete()) break; // Evaluates a conditional branch.
+            frames += BATCH; // Executes: frames += BATCH;
+            total += bytes; // Executes: total += bytes;
+            worst = Math.max(worst, bytes); // Executes: worst = Math.max(worst, bytes);
+        } // Closes a code block.
+        return new long[]{frames, total, worst}; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Bytes one batch of frames costs when each frame is a full clear plus a world-sized run of plain
+     * rectangles, which allocate nothing themselves.
+     */
+    private static long canvasBaseline(GraphicsContext gc) { // Begins a method or constructor with its signature.
+        long tid = Thread.currentThread().threadId();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 50; round++) { // Begins a method or constructor with its signature.
+            long before = THREADS.getThreadAllocatedBytes(tid);
+            for (int f = 0; f < BATCH; f++) { // Begins a method or constructor with its signature.
+                gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT); // Executes: gc.clearRect(0, 0, Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+                gc.setFill(Color.BLACK); // Executes: gc.setFill(Color.BLACK);
+                for (int i = 0; i < BASELINE_RECTS; i++) gc.fillRect(i, 0, 1, 1); // Executes: for (int i = 0; i < BASELINE_RECTS; i++) gc.fillRect(i, 0, 1, 1);
+            } // Closes a code block.
+            best = Math.min(best, THREADS.getThreadAllocatedBytes(tid) - before); // Executes: best = Math.min(best, THREADS.getThreadAllocatedBytes(tid) - before);
+        } // Closes a code block.
+        return best;
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,117 @@
+package game.bench; // Declares the package for this source file.
+
+import game.utils.Leaderboard;
+import game.utils.Theme;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Durability check for {@link Leaderboard}: plays thousands of sessions into a log in a temp
+ * directory (each run saved several times while its score climbs, as the game does), reopening the
+ * log between sessions, and prints the file size as it goes; compaction must keep it bounded. It then
+ * appends half a record, as a crash mid-write would, and checks that reopening drops exactly that
+ * tail and still answers the same bests. Last, it puts a file that is not a log at the path and checks
+ * that opening moves it aside and starts a fresh, writable log. Exits with status 1 on failure.
+ * Args: {@code [sessions] [seed]}.
+ */
+public class LeaderboardCheck { // Defines a class.
+
+    private static final int LEVELS = 5;
+    private static final int SEEDS_PER_LEVEL = 3;
+    private static final int RUNS_PER_SESSION = 4;
+    private static final int SAVES_PER_RUN = 6;
+
+    public static void main(String[] args) throws IOException { // Begins a method or constructor with its signature.
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        Path dir = Files.createTempDirectory("bb-leaderboard");
+        Path file = dir.resolve("leaderboard.log");
+        Random random = new Random(seed);
+        Theme[] themes = Theme.values();
+        int[][] expectedBest = new int[LEVELS + 1][themes.length];
+
+        long clock = 1_000_000L;
+        long appends = 0;
+        long biggest = 0;
+        long start = System.nanoTime();
+        for (int session = 1; session <= sessions; session++) { // Begins a method or constructor with its signature.
+            try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) { // Attempts operations that might throw exceptions.
+                for (int r = 0; r < RUNS_PER_SESSION; r++) { // Begins a method or constructor with its signature.
+                    int level = 1 + random.nextInt(LEVELS);
+                    Theme theme = themes[random.nextInt(themes.length)];
+                    long levelSeed = level * 1_000L + random.nextInt(SEEDS_PER_LEVEL);
+                    long startedAt = clock++;
+                    int score = 0;
+                    for (int save = 0; save < SAVES_PER_RUN; save++) { // Begins a method or constructor with its signature.
+                        score += 10 + random.nextInt(200); // Executes: score += 10 + random.nextInt(200);
+                        if (board.add(new Leaderboard.Entry(level, theme, levelSeed, score, startedAt, save * 1_000L))) { // Begins a method or constructor with its signature.
+                            appends++; // Executes: appends++;
+                        } // Closes a code block.
+                    } // Closes a code block.
+                    expectedBest[level][theme.ordinal()] = Math.max(expectedBest[level][theme.ordinal()], score); // Executes: expectedBest[level][theme.ordinal()] = Math.max(expectedBest[level][theme.ordinal()], score);
+                } // Closes a code block.
+            } // Closes a code block.
+            biggest = Math.max(biggest, Files.size(file)); // Executes: biggest = Math.max(biggest, Files.size(file));
+            if (session % (sessions / 5 == 0 ? 1 : sessions / 5) == 0) { // Begins a method or constructor with its signature.
+                System.out.printf("session %5d: %d records appended so far, log %,d bytes%n", session, appends, Files.size(file)); // Executes: System.out.printf("session %5d: %d records appended so far, log %,d bytes%n", session, appends, Files.size(file));
+            } // Closes a code block.
+        } // Closes a code block.
+        System.out.printf("%d sessions in %.1f ms; largest log %,d bytes%n", // Executes: System.out.printf("%d sessions in %.1f ms; largest log %,d bytes%n",
+                sessions, (System.nanoTime() - start) / 1e6, biggest); // Executes: sessions, (System.nanoTime() - start) / 1e6, biggest);
+
+        boolean ok = true;
+        long sizeBefore = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) { // Attempts operations that might throw exceptions.
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 37, 1, 2, 3, 4, 5, 6, 7})); // Executes: channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 37, 1, 2, 3, 4, 5, 6, 7}));
+        } // Closes a code block.
+        try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) { // Attempts operations that might throw exceptions.
+            System.out.printf("torn tail: dropped %d bytes, %d runs kept in %d records%n", // Executes: System.out.printf("torn tail: dropped %d bytes, %d runs kept in %d records%n",
+                    board.getRecoveredBytes(), board.size(), board.getLogRecordCount()); // Executes: board.getRecoveredBytes(), board.size(), board.getLogRecordCount());
+            if (Files.size(file) != sizeBefore) { // Begins a method or constructor with its signature.
+                System.out.println("FAIL: torn tail was not truncated"); // Executes: System.out.println("FAIL: torn tail was not truncated");
+                ok = false; // Executes: ok = false;
+            } // Closes a code block.
+            for (int level = 1; level <= LEVELS; level++) { // Begins a method or constructor with its signature.
+                for (Theme theme : themes) { // Begins a method or constructor with its signature.
+                    if (board.best(level, theme) != expectedBest[level][theme.ordinal()]) { // Begins a method or constructor with its signature.
+                        System.out.printf("FAIL: level %d %s best %d, expected %d%n", level, theme, // Executes: System.out.printf("FAIL: level %d %s best %d, expected %d%n", level, theme,
+                                board.best(level, theme), expectedBest[level][theme.ordinal()]); // Executes: board.best(level, theme), expectedBest[level][theme.ordinal()]);
+                        ok = false; // Executes: ok = false;
+                    } // Closes a code block.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+
+        Files.writeString(file, "not a leaderboard"); // Executes: Files.writeString(file, "not a leaderboard");
+        Path setAside;
+        try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) { // Attempts operations that might throw exceptions.
+            setAside = board.getSetAsideFile(); // Executes: setAside = board.getSetAsideFile();
+            boolean saved = board.add(new Leaderboard.Entry(1, themes[0], 1L, 100, clock, 0));
+            System.out.printf("foreign file: moved to %s, new log %d runs, save accepted %b%n", // Executes: System.out.printf("foreign file: moved to %s, new log %d runs, save accepted %b%n",
+                    setAside != null ? setAside.getFileName() : null, board.size(), saved); // Executes: setAside != null ? setAside.getFileName() : null, board.size(), saved);
+            if (setAside == null || !Files.exists(setAside) || board.size() != 1 || !saved) { // Begins a method or constructor with its signature.
+                System.out.println("FAIL: a foreign file did not give way to a fresh log"); // Executes: System.out.println("FAIL: a foreign file did not give way to a fresh log");
+                ok = false; // Executes: ok = false;
+            } // Closes a code block.
+        } // Closes a code block.
+        try (Leaderboard board = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K)) { // Attempts operations that might throw exceptions.
+            if (board.best(1, themes[0]) != 100) { // Begins a method or constructor with its signature.
+                System.out.println("FAIL: the fresh log did not keep its run"); // Executes: System.out.println("FAIL: the fresh log did not keep its run");
+                ok = false; // Executes: ok = false;
+            } // Closes a code block.
+        } // Closes a code block.
+
+        if (setAside != null) Files.deleteIfExists(setAside); // Evaluates a conditional branch.
+        Files.deleteIfExists(file); // Executes: Files.deleteIfExists(file);
+        Files.deleteIfExists(dir); // Executes: Files.deleteIfExists(dir);
+        if (!ok) System.exit(1); // Evaluates a conditional branch.
+        System.out.println("OK: log stays bounded, survives a torn write and replaces a foreign file"); // Executes: System.out.println("OK: log stays bounded, survives a torn write and replaces a foreign file");
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,118 @@
+package game.bench; // Declares the package for this source file.
+
+import game.core.Physics;
+import game.core.PlayerState;
+import game.core.Simulation;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.TileMap;
+import game.utils.Constants;
+import game.utils.Theme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the swept solver ({@link Physics#moveAndCollide}) with the old sub-step solver
+ * ({@link Physics#moveAndCollideSubstep}) on the same set of player moves taken from campaign levels:
+ * normal frames, lag frames and terminal-velocity falls.
+ *
+ * <p>Prints ns per call for each solver, how often they end in a different place, and how often the
+ * player ends up overlapping a solid tile (tunnelling). Args: {@code [moves] [rounds] [seed]}.
+ */
+public class PhysicsBenchmark { // Defines a class.
+
+    private static final double[] FRAME_TIMES = {1 / 120.0, 1 / 60.0, 0.05, 0.1};
+
+    private interface Solver { // Begins a method or constructor with its signature.
+        void move(PlayerState p, TileMap map, double dt); // Executes: void move(PlayerState p, TileMap map, double dt);
+    } // Closes a code block.
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int moves = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+        Random rng = new Random(seed);
+        List<TileMap> maps = new ArrayList<>();
+        for (int lvl = 1; lvl <= Constants.LEVEL_COUNT; lvl += 4) { // Begins a method or constructor with its signature.
+            List<String> lines = ProceduralLevelGenerator.generate(lvl, Constants.LEVEL_WIDTH_TILES, // Executes: List<String> lines = ProceduralLevelGenerator.generate(lvl, Constants.LEVEL_WIDTH_TILES,
+                    Constants.LEVEL_HEIGHT_TILES, ProceduralLevelGenerator.campaignLevelSeed(seed, lvl)); // Executes: Constants.LEVEL_HEIGHT_TILES, ProceduralLevelGenerator.campaignLevelSeed(seed, lvl));
+            maps.add(new Simulation(lines, Theme.NEUTRAL, seed, new PlayerState(0, 0)).getTileMap()); // Executes: maps.add(new Simulation(lines, Theme.NEUTRAL, seed, new PlayerState(0, 0)).getTileMap());
+        } // Closes a code block.
+
+        // Start states: x, y, vx, vy, dt, map index
+        double[][] starts = new double[moves][];
+        PlayerState probe = new PlayerState(0, 0);
+        int made = 0;
+        while (made < moves) { // Begins a method or constructor with its signature.
+            int m = rng.nextInt(maps.size());
+            TileMap map = maps.get(m);
+            double x = rng.nextDouble() * (map.getWidthInPixels() - probe.getWidth());
+            double y = rng.nextDouble() * (map.getHeightInPixels() - probe.getHeight());
+            if (overlapsSolid(map, x, y, probe.getWidth(), probe.getHeight())) continue; // Evaluates a conditional branch.
+            double vx = (rng.nextInt(3) - 1) * 280.0;
+            double vy = rng.nextInt(4) == 0 ? 1500.0 : -620 + rng.nextDouble() * 2120;
+            double dt = FRAME_TIMES[rng.nextInt(FRAME_TIMES.length)];
+            starts[made++] = new double[]{x, y, vx, vy, dt, m}; // Executes: starts[made++] = new double[]{x, y, vx, vy, dt, m};
+        } // Closes a code block.
+
+        double[][] sweptEnd = new double[moves][2];
+        double[][] substepEnd = new double[moves][2];
+
+        // Warm up both paths before timing either
+        run(Physics::moveAndCollide, maps, starts, sweptEnd, 3); // Executes: run(Physics::moveAndCollide, maps, starts, sweptEnd, 3);
+        run(Physics::moveAndCollideSubstep, maps, starts, substepEnd, 3); // Executes: run(Physics::moveAndCollideSubstep, maps, starts, substepEnd, 3);
+
+        long substepNanos = run(Physics::moveAndCollideSubstep, maps, starts, substepEnd, rounds);
+        long sweptNanos = run(Physics::moveAndCollide, maps, starts, sweptEnd, rounds);
+
+        int differ = 0;
+        int sweptTunnels = 0;
+        int substepTunnels = 0;
+        for (int i = 0; i < moves; i++) { // Begins a method or constructor with its signature.
+            TileMap map = maps.get((int) starts[i][5]);
+            if (Math.abs(sweptEnd[i][0] - substepEnd[i][0]) > 1 || Math.abs(sweptEnd[i][1] - substepEnd[i][1]) > 1) differ++; // Evaluates a conditional branch.
+            if (overlapsSolid(map, sweptEnd[i][0], sweptEnd[i][1], probe.getWidth(), probe.getHeight())) sweptTunnels++; // Evaluates a conditional branch.
+            if (overlapsSolid(map, substepEnd[i][0], substepEnd[i][1], probe.getWidth(), probe.getHeight())) substepTunnels++; // Evaluates a conditional branch.
+        } // Closes a code block.
+
+        double calls = (double) moves * rounds;
+        System.out.printf("%d moves x %d rounds on %d levels%n", moves, rounds, maps.size()); // Executes: System.out.printf("%d moves x %d rounds on %d levels%n", moves, rounds, maps.size());
+        System.out.printf("sub-step: %.1f ns/move, %d end inside a tile%n", substepNanos / calls, substepTunnels); // Executes: System.out.printf("sub-step: %.1f ns/move, %d end inside a tile%n", substepNanos / calls, substepTunnels);
+        System.out.printf("swept:    %.1f ns/move, %d end inside a tile%n", sweptNanos / calls, sweptTunnels); // Executes: System.out.printf("swept:    %.1f ns/move, %d end inside a tile%n", sweptNanos / calls, sweptTunnels);
+        System.out.printf("speedup %.2fx, %d moves (%.2f%%) end more than 1px apart%n", // Executes: System.out.printf("speedup %.2fx, %d moves (%.2f%%) end more than 1px apart%n",
+                (double) substepNanos / sweptNanos, differ, 100.0 * differ / moves); // Executes: (double) substepNanos / sweptNanos, differ, 100.0 * differ / moves);
+    } // Closes a code block.
+
+    private static long run(Solver solver, List<TileMap> maps, double[][] starts, double[][] ends, int rounds) { // Begins a method or constructor with its signature.
+        PlayerState p = new PlayerState(0, 0);
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) { // Begins a method or constructor with its signature.
+            for (int i = 0; i < starts.length; i++) { // Begins a method or constructor with its signature.
+                double[] s = starts[i];
+                p.setPlayerX(s[0]); // Executes: p.setPlayerX(s[0]);
+                p.setPlayerY(s[1]); // Executes: p.setPlayerY(s[1]);
+                p.setVelocityX(s[2]); // Executes: p.setVelocityX(s[2]);
+                p.setVelocityY(s[3]); // Executes: p.setVelocityY(s[3]);
+                solver.move(p, maps.get((int) s[5]), s[4]); // Executes: solver.move(p, maps.get((int) s[5]), s[4]);
+                ends[i][0] = p.getPlayerX(); // Executes: ends[i][0] = p.getPlayerX();
+                ends[i][1] = p.getPlayerY(); // Executes: ends[i][1] = p.getPlayerY();
+            } // Closes a code block.
+        } // Closes a code block.
+        return System.nanoTime() - start; // Returns a value from the method.
+    } // Closes a code block.
+
+    private static boolean overlapsSolid(TileMap map, double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        int left = (int) Math.floor(x / TileMap.TILE_SIZE);
+        int right = (int) Math.floor((x + w - 0.001) / TileMap.TILE_SIZE);
+        int top = (int) Math.floor(y / TileMap.TILE_SIZE);
+        int bottom = (int) Math.floor((y + h - 0.001) / TileMap.TILE_SIZE);
+        for (int ty = top; ty <= bottom; ty++) { // Begins a method or constructor with its signature.
+            for (int tx = left; tx <= right; tx++) { // Begins a method or constructor with its signature.
+                if (map.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+            } // Closes a code block.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+} // Closes a code block.
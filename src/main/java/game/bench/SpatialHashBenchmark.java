@@ -0,0 +1,119 @@
+package game.bench; // Declares the package for this source file.
+
+import game.systems.SpatialHash;
+import game.systems.TileMap;
+import game.utils.Constants;
+
+import java.util.Random;
+
+/**
+ * Per-frame cost of keeping a {@link SpatialHash} over moving enemies: incremental updates, one
+ * player-sized query and the overlapping-pair pass, next to the brute-force scans they replace.
+ * The level grows with the entity count (one enemy per two tiles of width), so a flat per-entity
+ * cost and a flat query cost are what the grid is meant to show.
+ * Args: {@code [frames] [seed]}.
+ */
+public class SpatialHashBenchmark { // Defines a class.
+
+    private static final int[] COUNTS = {100, 1_000, 10_000, 100_000};
+    // Beyond this the O(n²) pair scan takes seconds per frame, so it is skipped
+    private static final int BRUTE_PAIR_LIMIT = 10_000;
+    private static final double SIZE = 30;
+    private static final double PLAYER_SIZE = 74;
+    private static final double HEIGHT = Constants.LEVEL_HEIGHT_TILES * TileMap.TILE_SIZE;
+
+    private static long sink;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        for (int count : COUNTS) { // Begins a method or constructor with its signature.
+            double width = count * 2.0 * TileMap.TILE_SIZE;
+            double[] x = new double[count];
+            double[] y = new double[count];
+            double[] vx = new double[count];
+            Random rng = new Random(seed);
+            for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+                x[i] = rng.nextDouble() * (width - SIZE); // Executes: x[i] = rng.nextDouble() * (width - SIZE);
+                y[i] = rng.nextDouble() * (HEIGHT - SIZE); // Executes: y[i] = rng.nextDouble() * (HEIGHT - SIZE);
+                vx[i] = (rng.nextDouble() * 2 - 1) * 2; // Executes: vx[i] = (rng.nextDouble() * 2 - 1) * 2;
+            } // Closes a code block.
+
+            SpatialHash grid = new SpatialHash(TileMap.TILE_SIZE, count * 4);
+            for (int i = 0; i < count; i++) grid.update(i, x[i], y[i], SIZE, SIZE); // Executes: for (int i = 0; i < count; i++) grid.update(i, x[i], y[i], SIZE, SIZE);
+
+            runFrames(grid, x, y, vx, width, frames); // warm-up // Executes: runFrames(grid, x, y, vx, width, frames); // warm-up
+            long[] ns = runFrames(grid, x, y, vx, width, frames);
+
+            double update = ns[0] / (double) frames;
+            double query = ns[1] / (double) frames;
+            double pairs = ns[2] / (double) frames;
+            double bruteQuery = timeBruteQuery(x, y, width, frames);
+            System.out.printf("%7d enemies: update %.1f ns/enemy, player query %.2f us (brute %.2f us), pairs %.1f ns/enemy", // Executes: System.out.printf("%7d enemies: update %.1f ns/enemy, player query %.2f us (brute %.2f us), pairs %.1f ns/enemy",
+                    count, update / count, query / 1_000, bruteQuery / 1_000, pairs / count); // Executes: count, update / count, query / 1_000, bruteQuery / 1_000, pairs / count);
+            if (count <= BRUTE_PAIR_LIMIT) { // Begins a method or constructor with its signature.
+                System.out.printf(" (brute %.1f ns/enemy)", timeBrutePairs(x, y) / count); // Executes: System.out.printf(" (brute %.1f ns/enemy)", timeBrutePairs(x, y) / count);
+            } // Closes a code block.
+            System.out.println(); // Executes: System.out.println();
+        } // Closes a code block.
+        if (sink == 42) System.out.println(); // keep the results alive // Evaluates a conditional branch.
+    } // Closes a code block.
+
+    /**
+     * Moves every entity a little, refreshes the grid, then queries and enumerates pairs.
+     * Returns total nanoseconds spent in {update, query, pairs}.
+     */
+    private static long[] runFrames(SpatialHash grid, double[] x, double[] y, double[] vx, double width, int frames) { // Begins a method or constructor with its signature.
+        long[] ns = new long[3];
+        int n = x.length;
+        double px = 0;
+        for (int f = 0; f < frames; f++) { // Begins a method or constructor with its signature.
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) { // Begins a method or constructor with its signature.
+                x[i] += vx[i]; // Executes: x[i] += vx[i];
+                if (x[i] < 0 || x[i] > width - SIZE) vx[i] = -vx[i]; // Evaluates a conditional branch.
+                grid.update(i, x[i], y[i], SIZE, SIZE); // Executes: grid.update(i, x[i], y[i], SIZE, SIZE);
+            } // Closes a code block.
+            long t1 = System.nanoTime();
+            px = (px + 37) % (width - PLAYER_SIZE); // Executes: px = (px + 37) % (width - PLAYER_SIZE);
+            grid.query(px, HEIGHT - PLAYER_SIZE, PLAYER_SIZE, PLAYER_SIZE, id -> { // Begins a method or constructor with its signature.
+                sink += id; // Executes: sink += id;
+                return true;
+            }); // Executes: });
+            long t2 = System.nanoTime();
+            grid.forEachPair((a, b) -> sink += a ^ b); // Executes: grid.forEachPair((a, b) -> sink += a ^ b);
+            long t3 = System.nanoTime();
+            ns[0] += t1 - t0; // Executes: ns[0] += t1 - t0;
+            ns[1] += t2 - t1; // Executes: ns[1] += t2 - t1;
+            ns[2] += t3 - t2; // Executes: ns[2] += t3 - t2;
+        } // Closes a code block.
+        return ns;
+    } // Closes a code block.
+
+    private static double timeBruteQuery(double[] x, double[] y, double width, int frames) { // Begins a method or constructor with its signature.
+        double px = 0;
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) { // Begins a method or constructor with its signature.
+            px = (px + 37) % (width - PLAYER_SIZE); // Executes: px = (px + 37) % (width - PLAYER_SIZE);
+            double py = HEIGHT - PLAYER_SIZE;
+            for (int i = 0; i < x.length; i++) { // Begins a method or constructor with its signature.
+                if (px < x[i] + SIZE && px + PLAYER_SIZE > x[i] && py < y[i] + SIZE && py + PLAYER_SIZE > y[i]) sink += i; // Evaluates a conditional branch.
+            } // Closes a code block.
+        } // Closes a code block.
+        return (System.nanoTime() - start) / (double) frames; // Returns a value from the method.
+    } // Closes a code block.
+
+    private static double timeBrutePairs(double[] x, double[] y) { // Begins a method or constructor with its signature.
+        int rounds = 3;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) { // Begins a method or constructor with its signature.
+            for (int i = 0; i < x.length; i++) { // Begins a method or constructor with its signature.
+                for (int j = i + 1; j < x.length; j++) { // Begins a method or constructor with its signature.
+                    if (Math.abs(x[i] - x[j]) < SIZE && Math.abs(y[i] - y[j]) < SIZE) sink += i ^ j; // Evaluates a conditional branch.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        return (System.nanoTime() - start) / (double) rounds; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
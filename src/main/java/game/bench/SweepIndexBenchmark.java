@@ -0,0 +1,91 @@
+package game.bench; // Declares the package for this source file.
+
+import game.core.PlayerState;
+import game.core.Simulation;
+import game.systems.CoinManager;
+import game.systems.EntityStore;
+import game.systems.PowerUpManager;
+import game.systems.ProceduralLevelGenerator;
+import game.systems.SpikeManager;
+import game.utils.Constants;
+import game.utils.Theme;
+
+/**
+ * Per-tick cost of the static pickup and hazard checks (coins, power-ups, spikes) on generated levels
+ * from 110 to 10,000 tiles wide, with a player-sized box running along the ground. The managers go
+ * through their {@link game.systems.SweepIndex}; a plain scan over the same stores is timed next to
+ * them to show what the index saves as the level grows.
+ * Args: {@code [ticks] [seed]}.
+ */
+public class SweepIndexBenchmark { // Defines a class.
+
+    private static final int[] WIDTHS = {Constants.LEVEL_WIDTH_TILES, 1_000, 10_000};
+    private static final double PLAYER_SIZE = 74;
+    // Running speed at 120 Hz
+    private static final double STEP_X = 280.0 / Constants.SIM_RATE_HZ;
+
+    private static long sink;
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+
+        for (int width : WIDTHS) { // Begins a method or constructor with its signature.
+            Simulation level = new Simulation( // Executes: Simulation level = new Simulation(
+                    ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed), // Executes: ProceduralLevelGenerator.generate(20, width, Constants.LEVEL_HEIGHT_TILES, seed),
+                    Theme.NEUTRAL, seed, new PlayerState(0, 0)); // Executes: Theme.NEUTRAL, seed, new PlayerState(0, 0));
+            CoinManager coins = level.getWorld().getCoinManager();
+            PowerUpManager powerUps = level.getWorld().getPowerUpManager();
+            SpikeManager spikes = level.getWorld().getSpikeManager();
+            int entities = coins.getCount() + powerUps.getCount() + spikes.getCount();
+            double levelWidth = level.getTileMap().getWidthInPixels();
+            double py = level.getGroundTopY() - PLAYER_SIZE;
+
+            double scanNs = timeScan(level, levelWidth, py, ticks / 10);
+            timeIndexed(coins, powerUps, spikes, levelWidth, py, ticks / 4); // warm-up // Executes: timeIndexed(coins, powerUps, spikes, levelWidth, py, ticks / 4); // warm-up
+            double indexedNs = timeIndexed(coins, powerUps, spikes, levelWidth, py, ticks);
+            System.out.printf("%6d tiles, %6d pickups/hazards: indexed %.1f ns/tick, full scan %.1f ns/tick%n", // Executes: System.out.printf("%6d tiles, %6d pickups/hazards: indexed %.1f ns/tick, full scan %.1f ns/tick%n",
+                    width, entities, indexedNs, scanNs); // Executes: width, entities, indexedNs, scanNs);
+        } // Closes a code block.
+        if (sink == 42) System.out.println(); // keep the results alive // Evaluates a conditional branch.
+    } // Closes a code block.
+
+    private static double timeIndexed(CoinManager coins, PowerUpManager powerUps, SpikeManager spikes, // Executes: private static double timeIndexed(CoinManager coins, PowerUpManager powerUps, SpikeManager spikes,
+                                      double levelWidth, double py, int ticks) { // Executes: double levelWidth, double py, int ticks) {
+        double px = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) { // Begins a method or constructor with its signature.
+            px += STEP_X; // Executes: px += STEP_X;
+            if (px > levelWidth - PLAYER_SIZE) px = 0; // Evaluates a conditional branch.
+            sink += coins.updateAndCountCollected(px, py, PLAYER_SIZE, PLAYER_SIZE); // Executes: sink += coins.updateAndCountCollected(px, py, PLAYER_SIZE, PLAYER_SIZE);
+            sink += powerUps.updateAndGetCollected(px, py, PLAYER_SIZE, PLAYER_SIZE).size(); // Executes: sink += powerUps.updateAndGetCollected(px, py, PLAYER_SIZE, PLAYER_SIZE).size();
+            if (spikes.checkPlayerCollision(px, py, PLAYER_SIZE, PLAYER_SIZE)) sink++; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return (System.nanoTime() - start) / (double) ticks; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * The pre-index way: test every entity of every store, every tick (read-only, nothing is collected).
+     */
+    private static double timeScan(Simulation level, double levelWidth, double py, int ticks) { // Begins a method or constructor with its signature.
+        EntityStore[] stores = { // Executes: EntityStore[] stores = {
+                level.getWorld().getCoinManager().getCoins(), // Executes: level.getWorld().getCoinManager().getCoins(),
+                level.getWorld().getPowerUpManager().getPowerUps(), // Executes: level.getWorld().getPowerUpManager().getPowerUps(),
+                level.getWorld().getSpikeManager().getSpikes()}; // Executes: level.getWorld().getSpikeManager().getSpikes()};
+        double px = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up // Begins a loop over a range or collection.
+            long start = System.nanoTime();
+            for (int t = 0; t < ticks; t++) { // Begins a method or constructor with its signature.
+                px += STEP_X; // Executes: px += STEP_X;
+                if (px > levelWidth - PLAYER_SIZE) px = 0; // Evaluates a conditional branch.
+                for (EntityStore store : stores) { // Begins a method or constructor with its signature.
+                    for (int i = 0; i < store.size(); i++) { // Begins a method or constructor with its signature.
+                        if (store.overlaps(i, px, py, PLAYER_SIZE, PLAYER_SIZE)) sink++; // Evaluates a conditional branch.
+                    } // Closes a code block.
+                } // Closes a code block.
+            } // Closes a code block.
+            if (pass == 1) return (System.nanoTime() - start) / (double) ticks; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return 0; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,204 @@
+package game.core; // Declares the package for this source file.
+
+import game.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many headless {@link Simulation}s at once on a {@link ForkJoinPool}.
+ * Each job builds its own level, managers and world, so nothing is shared between threads
+ * and throughput grows with the number of cores.
+ *
+ * <p>Command line: {@code BatchRunner [campaignSeed] [threads] [--scaling]} simulates every level of the
+ * campaign {@code Game.start} generates, prints one line per level plus throughput, and exits with 1
+ * if any level crashed. {@code --scaling} first runs the same batch on one thread to report the speedup.
+ */
+public class BatchRunner { // Defines a class.
+
+    // Simulated seconds each campaign level may take before the run counts as a timeout
+    private static final double LEVEL_TIME_LIMIT_SECONDS = 180;
+    // The scripted bot presses jump this often (in steps) while holding right
+    private static final int BOT_JUMP_EVERY = 45;
+
+    private final int parallelism;
+
+    public BatchRunner(int parallelism) { // Begins a method or constructor with its signature.
+        this.parallelism = Math.max(1, parallelism); // Executes: this.parallelism = Math.max(1, parallelism);
+    } // Closes a code block.
+
+    public BatchRunner() { // Begins a method or constructor with its signature.
+        this(Runtime.getRuntime().availableProcessors()); // Executes: this(Runtime.getRuntime().availableProcessors());
+    } // Closes a code block.
+
+    /**
+     * Simulates all jobs and waits for them. Results come back in job order.
+     */
+    public Report run(List<SimulationJob> jobs) { // Begins a method or constructor with its signature.
+        List<Callable<SimulationResult>> tasks = new ArrayList<>();
+        for (SimulationJob job : jobs) { // Begins a method or constructor with its signature.
+            tasks.add(() -> runJob(job)); // Executes: tasks.add(() -> runJob(job));
+        } // Closes a code block.
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try { // Attempts operations that might throw exceptions.
+            List<SimulationResult> results = new ArrayList<>();
+            for (Future<SimulationResult> f : pool.invokeAll(tasks)) { // Begins a method or constructor with its signature.
+                results.add(f.get()); // Executes: results.add(f.get());
+            } // Closes a code block.
+            return new Report(results, System.nanoTime() - start, Math.min(parallelism, Math.max(1, jobs.size()))); // Returns a value from the method.
+        } catch (InterruptedException e) { // Begins a method or constructor with its signature.
+            Thread.currentThread().interrupt(); // Executes: Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch run interrupted", e); // Throws an exception.
+        } catch (ExecutionException e) { // Begins a method or constructor with its signature.
+            // runJob() catches everything itself, so this only happens on an Error
+            throw new IllegalStateException("Batch job crashed", e.getCause()); // Throws an exception.
+        } finally { // Begins a method or constructor with its signature.
+            pool.shutdown(); // Executes: pool.shutdown();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Runs one job to completion, game over or its step limit on the calling thread.
+     */
+    public static SimulationResult runJob(SimulationJob job) { // Begins a method or constructor with its signature.
+        long start = System.nanoTime();
+        long steps = 0;
+        try { // Attempts operations that might throw exceptions.
+            Simulation sim = job.createSimulation();
+            PlayerState player = sim.getPlayer();
+            InputScript script = job.getScript();
+            double dt = 1.0 / job.getSimRate();
+
+            while (steps < job.getMaxSteps() && !sim.isLevelComplete() && !sim.isGameOver()) { // Begins a method or constructor with its signature.
+                sim.step(dt, script.inputAt(steps, player)); // Executes: sim.step(dt, script.inputAt(steps, player));
+                steps++; // Executes: steps++;
+            } // Closes a code block.
+
+            return new SimulationResult(job, sim.isLevelComplete(), sim.isGameOver(), steps, // Returns a value from the method.
+                    sim.getWorld().getScore(), sim.getWorld().getCoins(), sim.getWorld().getLives(), // Executes: sim.getWorld().getScore(), sim.getWorld().getCoins(), sim.getWorld().getLives(),
+                    sim.getWorld().getDeaths(), sim.getWorld().getLastDeathX(), sim.getWorld().getLastDeathY(), // Executes: sim.getWorld().getDeaths(), sim.getWorld().getLastDeathX(), sim.getWorld().getLastDeathY(),
+                    player.getPlayerX(), player.getPlayerY(), // Executes: player.getPlayerX(), player.getPlayerY(),
+                    sim.stateHash(), System.nanoTime() - start, null); // Executes: sim.stateHash(), System.nanoTime() - start, null);
+        } catch (RuntimeException e) { // Begins a method or constructor with its signature.
+            return SimulationResult.failed(job, steps, System.nanoTime() - start, e); // Returns a value from the method.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * One job per campaign level, all driven by the same scripted bot.
+     */
+    public static List<SimulationJob> campaignJobs(long campaignSeed, InputScript script, double maxSeconds) { // Begins a method or constructor with its signature.
+        List<SimulationJob> jobs = new ArrayList<>();
+        for (int lvl = 1; lvl <= Constants.LEVEL_COUNT; lvl++) { // Begins a method or constructor with its signature.
+            jobs.add(SimulationJob.campaignLevel(campaignSeed, lvl, script, maxSeconds)); // Executes: jobs.add(SimulationJob.campaignLevel(campaignSeed, lvl, script, maxSeconds));
+        } // Closes a code block.
+        return jobs;
+    } // Closes a code block.
+
+    public static void main(String[] args) { // Begins a method or constructor with its signature.
+        long seed = System.currentTimeMillis();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean scaling = false;
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) { // Begins a method or constructor with its signature.
+            if (arg.equals("--scaling")) scaling = true; // Evaluates a conditional branch.
+            else positional.add(arg); // Handles the fallback branch.
+        } // Closes a code block.
+        if (positional.size() > 0) seed = Long.parseLong(positional.get(0)); // Evaluates a conditional branch.
+        if (positional.size() > 1) threads = Integer.parseInt(positional.get(1)); // Evaluates a conditional branch.
+
+        List<SimulationJob> jobs = campaignJobs(seed, InputScript.runRight(BOT_JUMP_EVERY), LEVEL_TIME_LIMIT_SECONDS);
+        System.out.println("Campaign seed " + seed + ", " + jobs.size() + " levels, " + threads + " threads"); // Executes: System.out.println("Campaign seed " + seed + ", " + jobs.size() + " levels, " + threads + " threads");
+
+        Report baseline = null;
+        if (scaling) { // Begins a method or constructor with its signature.
+            new BatchRunner(threads).run(jobs); // Warm-up pass so the JIT doesn't favour whichever run goes second // Executes: new BatchRunner(threads).run(jobs); // Warm-up pass so the JIT doesn't favour whichever run goes second
+            baseline = new BatchRunner(1).run(jobs); // Executes: baseline = new BatchRunner(1).run(jobs);
+        } // Closes a code block.
+        Report report = new BatchRunner(threads).run(jobs);
+
+        for (SimulationResult r : report.getResults()) { // Begins a method or constructor with its signature.
+            System.out.println(r); // Executes: System.out.println(r);
+        } // Closes a code block.
+        System.out.println(report.summary()); // Executes: System.out.println(report.summary());
+        if (baseline != null) { // Begins a method or constructor with its signature.
+            System.out.println("1 thread: " + baseline.summary()); // Executes: System.out.println("1 thread: " + baseline.summary());
+            System.out.printf("Speedup %.2fx on %d threads (%.0f%% of linear)%n", // Executes: System.out.printf("Speedup %.2fx on %d threads (%.0f%% of linear)%n",
+                    report.getStepsPerSecond() / baseline.getStepsPerSecond(), report.getThreads(), // Executes: report.getStepsPerSecond() / baseline.getStepsPerSecond(), report.getThreads(),
+                    100.0 * report.getStepsPerSecond() / (baseline.getStepsPerSecond() * report.getThreads())); // Executes: 100.0 * report.getStepsPerSecond() / (baseline.getStepsPerSecond() * report.getThreads()));
+        } // Closes a code block.
+
+        if (report.getFailureCount() > 0) { // Begins a method or constructor with its signature.
+            System.out.println(report.getFailureCount() + " level(s) FAILED"); // Executes: System.out.println(report.getFailureCount() + " level(s) FAILED");
+            System.exit(1); // Executes: System.exit(1);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Results of a batch plus throughput figures.
+     */
+    public static class Report { // Defines a class.
+        private final List<SimulationResult> results;
+        private final long wallNanos;
+        private final int threads;
+
+        Report(List<SimulationResult> results, long wallNanos, int threads) { // Begins a method or constructor with its signature.
+            this.results = results; // Executes: this.results = results;
+            this.wallNanos = wallNanos; // Executes: this.wallNanos = wallNanos;
+            this.threads = threads; // Executes: this.threads = threads;
+        } // Closes a code block.
+
+        public List<SimulationResult> getResults() { // Begins a method or constructor with its signature.
+            return results;
+        } // Closes a code block.
+
+        public long getWallNanos() { // Begins a method or constructor with its signature.
+            return wallNanos;
+        } // Closes a code block.
+
+        public int getThreads() { // Begins a method or constructor with its signature.
+            return threads;
+        } // Closes a code block.
+
+        public long getTotalSteps() { // Begins a method or constructor with its signature.
+            long total = 0;
+            for (SimulationResult r : results) total += r.getSteps(); // Executes: for (SimulationResult r : results) total += r.getSteps();
+            return total;
+        } // Closes a code block.
+
+        /**
+         * Aggregate simulation steps per wall-clock second across all threads.
+         */
+        public double getStepsPerSecond() { // Begins a method or constructor with its signature.
+            return wallNanos > 0 ? getTotalSteps() * 1e9 / wallNanos : 0; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getStepsPerSecondPerCore() { // Begins a method or constructor with its signature.
+            return getStepsPerSecond() / threads; // Returns a value from the method.
+        } // Closes a code block.
+
+        public int getCompletedCount() { // Begins a method or constructor with its signature.
+            int n = 0;
+            for (SimulationResult r : results) if (r.isCompleted()) n++; // Executes: for (SimulationResult r : results) if (r.isCompleted()) n++;
+            return n;
+        } // Closes a code block.
+
+        public int getFailureCount() { // Begins a method or constructor with its signature.
+            int n = 0;
+            for (SimulationResult r : results) if (r.isFailure()) n++; // Executes: for (SimulationResult r : results) if (r.isFailure()) n++;
+            return n;
+        } // Closes a code block.
+
+        public String summary() { // Begins a method or constructor with its signature.
+            return String.format("%d jobs (%d complete, %d failed), %d steps in %.1f ms: %.0f steps/s, %.0f steps/s per core", // Returns a value from the method.
+                    results.size(), getCompletedCount(), getFailureCount(), getTotalSteps(), // Executes: results.size(), getCompletedCount(), getFailureCount(), getTotalSteps(),
+                    wallNanos / 1e6, getStepsPerSecond(), getStepsPerSecondPerCore()); // Executes: wallNanos / 1e6, getStepsPerSecond(), getStepsPerSecondPerCore());
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,159 @@
+package game.core; // Declares the package for this source file.
+
+import game.systems.Bodies;
+import game.systems.TileMap;
+
+/**
+ * Shared physics stage for every simple dynamic body (enemies, thrown items, ...): gravity,
+ * swept tile collision per axis, the ground plane and the grounded/wall/ceiling flags, run over a
+ * {@link Bodies} store in one pass. Uses the same sweep as {@link Physics#moveAndCollide},
+ * minus the player-only corner correction.
+ */
+public class BodyPhysics { // Defines a class.
+
+    // A tiny gap to keep floating point errors from gluing bodies to walls
+    private static final double SKIN = 0.01;
+
+    private final double gravity;
+    private final double maxFallSpeed;
+    private double floorY = Double.POSITIVE_INFINITY;
+
+    public BodyPhysics(double gravity, double maxFallSpeed) { // Begins a method or constructor with its signature.
+        this.gravity = gravity; // Executes: this.gravity = gravity;
+        this.maxFallSpeed = maxFallSpeed; // Executes: this.maxFallSpeed = maxFallSpeed;
+    } // Closes a code block.
+
+    /**
+     * Top of the ground strip under the level; bodies land on it where there are no tiles.
+     */
+    public void setFloorY(double floorY) { // Begins a method or constructor with its signature.
+        this.floorY = floorY; // Executes: this.floorY = floorY;
+    } // Closes a code block.
+
+    public double getFloorY() { // Begins a method or constructor with its signature.
+        return floorY;
+    } // Closes a code block.
+
+    /**
+     * Advances every alive body by dt and refreshes its GROUNDED / HIT_WALL / HIT_CEILING flags.
+     */
+    public void step(Bodies bodies, TileMap map, double dt) { // Begins a method or constructor with its signature.
+        int n = bodies.size();
+        for (int i = 0; i < n; i++) { // Begins a method or constructor with its signature.
+            if (!bodies.has(i, Bodies.ALIVE)) continue; // Evaluates a conditional branch.
+            stepBody(bodies, i, map, dt); // Executes: stepBody(bodies, i, map, dt);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Advances the body in slot i by dt, for callers that pick which bodies to move (activity windows).
+     */
+    public void stepBody(Bodies bodies, int i, TileMap map, double dt) { // Begins a method or constructor with its signature.
+        double worldWidth = map.getWidthInPixels();
+        double x = bodies.getX(i);
+        double y = bodies.getY(i);
+        double w = bodies.getWidth(i);
+        double h = bodies.getHeight(i);
+        double vx = bodies.getVelocityX(i);
+        double vy = Math.min(bodies.getVelocityY(i) + gravity * dt, maxFallSpeed);
+        boolean hitWall = false;
+        boolean hitCeiling = false;
+        boolean grounded = false;
+
+        // ---- X sweep ----
+        double dx = vx * dt;
+        if (dx != 0) { // Begins a method or constructor with its signature.
+            int top = tileIdx(y + SKIN);
+            int bottom = tileIdx(y + h - SKIN);
+            if (dx > 0) { // Begins a method or constructor with its signature.
+                double edge = x + w - SKIN;
+                int last = tileIdx(edge + dx);
+                x += dx; // Executes: x += dx;
+                for (int tx = tileIdx(edge); tx <= last; tx++) { // Begins a method or constructor with its signature.
+                    if (isColumnSolid(map, tx, top, bottom)) { // Begins a method or constructor with its signature.
+                        x = tx * TileMap.TILE_SIZE - w - SKIN; // Executes: x = tx * TileMap.TILE_SIZE - w - SKIN;
+                        hitWall = true; // Executes: hitWall = true;
+                        break; // Breaks out of the current loop or switch.
+                    } // Closes a code block.
+                } // Closes a code block.
+            } else { // Executes: } else {
+                double edge = x + SKIN;
+                int last = tileIdx(edge + dx);
+                x += dx; // Executes: x += dx;
+                for (int tx = tileIdx(edge); tx >= last; tx--) { // Begins a method or constructor with its signature.
+                    if (isColumnSolid(map, tx, top, bottom)) { // Begins a method or constructor with its signature.
+                        x = (tx + 1) * TileMap.TILE_SIZE + SKIN; // Executes: x = (tx + 1) * TileMap.TILE_SIZE + SKIN;
+                        hitWall = true; // Executes: hitWall = true;
+                        break; // Breaks out of the current loop or switch.
+                    } // Closes a code block.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        // World edges count as walls
+        if (x < 0) { // Begins a method or constructor with its signature.
+            x = 0; // Executes: x = 0;
+            hitWall = true; // Executes: hitWall = true;
+        } else if (x + w > worldWidth) { // Begins a method or constructor with its signature.
+            x = worldWidth - w; // Executes: x = worldWidth - w;
+            hitWall = true; // Executes: hitWall = true;
+        } // Closes a code block.
+        if (hitWall) vx = 0; // Evaluates a conditional branch.
+
+        // ---- Y sweep ----
+        double dy = vy * dt;
+        int left = tileIdx(x + SKIN);
+        int right = tileIdx(x + w - SKIN);
+        if (dy >= 0) { // Begins a method or constructor with its signature.
+            double edge = y + h - SKIN;
+            int last = tileIdx(edge + dy);
+            y += dy; // Executes: y += dy;
+            for (int ty = tileIdx(edge); ty <= last; ty++) { // Begins a method or constructor with its signature.
+                if (isRowSolid(map, ty, left, right)) { // Begins a method or constructor with its signature.
+                    y = ty * TileMap.TILE_SIZE - h - SKIN; // Executes: y = ty * TileMap.TILE_SIZE - h - SKIN;
+                    grounded = true; // Executes: grounded = true;
+                    break; // Breaks out of the current loop or switch.
+                } // Closes a code block.
+            } // Closes a code block.
+            if (!grounded && y + h > floorY) { // Begins a method or constructor with its signature.
+                y = floorY - h; // Executes: y = floorY - h;
+                grounded = true; // Executes: grounded = true;
+            } // Closes a code block.
+            if (grounded) vy = 0; // Evaluates a conditional branch.
+        } else { // Executes: } else {
+            double edge = y + SKIN;
+            int last = tileIdx(edge + dy);
+            y += dy; // Executes: y += dy;
+            for (int ty = tileIdx(edge); ty >= last; ty--) { // Begins a method or constructor with its signature.
+                if (isRowSolid(map, ty, left, right)) { // Begins a method or constructor with its signature.
+                    y = (ty + 1) * TileMap.TILE_SIZE + SKIN; // Executes: y = (ty + 1) * TileMap.TILE_SIZE + SKIN;
+                    vy = 0; // Executes: vy = 0;
+                    hitCeiling = true; // Executes: hitCeiling = true;
+                    break; // Breaks out of the current loop or switch.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+
+        bodies.setPosition(i, x, y); // Executes: bodies.setPosition(i, x, y);
+        bodies.setVelocityX(i, vx); // Executes: bodies.setVelocityX(i, vx);
+        bodies.setVelocityY(i, vy); // Executes: bodies.setVelocityY(i, vy);
+        bodies.setContactFlags(i, grounded, hitWall, hitCeiling); // Executes: bodies.setContactFlags(i, grounded, hitWall, hitCeiling);
+    } // Closes a code block.
+
+    private static boolean isColumnSolid(TileMap map, int tx, int top, int bottom) { // Begins a method or constructor with its signature.
+        for (int ty = top; ty <= bottom; ty++) { // Begins a method or constructor with its signature.
+            if (map.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    private static boolean isRowSolid(TileMap map, int ty, int left, int right) { // Begins a method or constructor with its signature.
+        for (int tx = left; tx <= right; tx++) { // Begins a method or constructor with its signature.
+            if (map.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    private static int tileIdx(double pos) { // Begins a method or constructor with its signature.
+        return (int) Math.floor(pos / TileMap.TILE_SIZE); // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
@@ -1,13 +1,13 @@
 package game.core; // Declares the package for this source file.
 
 import game.systems.*;
-import game.utils.HighScoreDatabase;
+import game.utils.Constants;
+import game.utils.HighScoreWriter;
+import game.utils.Leaderboard;
 import game.utils.Theme;
 import javafx.animation.FadeTransition;
 import javafx.application.Application;
-import javafx.geometry.Bounds;
 import javafx.scene.Group;
-import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,15 +18,18 @@ import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
-import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Random;
 
 public class Game extends Application { // Defines a class.
 
-    private static final int WINDOW_WIDTH = 1250;
-    private static final int WINDOW_HEIGHT = 630;
+    private static final int WINDOW_WIDTH = Constants.VIEW_WIDTH;
+    private static final int WINDOW_HEIGHT = Constants.VIEW_HEIGHT;
 
     // Class fields to manage state
     private Pane root;
@@ -34,6 +37,8 @@ public class Game extends Application { // Defines a class.
     private List<List<String>> rawLevels;
     private int currentLevelIndex = 0;
     private GameLoop activeLoop;
+    // Shared by every level's loop (null: the world canvas always renders at native resolution)
+    private final ResolutionScaler resolutionScaler = openResolutionScaler();
     private Stage primaryStage;
     private InputManager inputManager;
     private GameOverScreen gameOverScreen;
@@ -41,12 +46,26 @@ public class Game extends Application { // Defines a class.
     private boolean restarting = false;
     private DashboardScreen dashboardScreen;
     private Theme activeTheme = Theme.NEUTRAL;
+    // Best score for the current level and theme
     private int highestScore = 0;
-    private HighScoreDatabase highScoreDatabase;
+    private Leaderboard leaderboard;
+    // Saves runs off the FX thread
+    private HighScoreWriter highScoreWriter;
+    // The run being played: what it is filed under in the leaderboard (replays are not filed)
+    private Leaderboard.Entry currentRun;
     private Button dashboardButton;
     private boolean levelBootstrapped = false;
     private UIManager uiManager;
 
+    // Replays: the campaign seed regenerates any level, the recorder logs the current attempt,
+    // pendingReplay (from -Dbbmario.replay=<file>) is played back instead of the keyboard once.
+    private long campaignSeed;
+    private ReplayRecorder recorder;
+    private Simulation activeSimulation;
+    private Replay pendingReplay;
+    private Replay activeReplay;
+    private boolean replayChecked = false;
+
     @Override // Applies an annotation to the following element.
     public void start(Stage stage) { // Begins a method or constructor with its signature.
         this.primaryStage = stage; // Executes: this.primaryStage = stage;
@@ -55,41 +74,66 @@ public class Game extends Application { // Defines a class.
         root.setStyle("-fx-background-color: " + activeTheme.toCss() + ";"); // Executes: root.setStyle("-fx-background-color: " + activeTheme.toCss() + ";");
 
         // ================= LEVELS GENERATION =================
-        long seed = System.currentTimeMillis();
-        int levelsCount = 40;
-        int mapWidthTiles = 110;
-        int mapHeightTiles = 8;
-
-        rawLevels = new ArrayList<>(); // Executes: rawLevels = new ArrayList<>();
-        for (int lvl = 1; lvl <= levelsCount; lvl++) { // Begins a method or constructor with its signature.
-            rawLevels.add(ProceduralLevelGenerator.generate(lvl, mapWidthTiles, mapHeightTiles, seed + lvl * 999L)); // Executes: rawLevels.add(ProceduralLevelGenerator.generate(lvl, mapWidthTiles, mapHeightTiles, seed + lvl * 999L));
+        campaignSeed = System.currentTimeMillis(); // Executes: campaignSeed = System.currentTimeMillis();
+        rawLevels = ProceduralLevelGenerator.generateCampaign(campaignSeed); // Executes: rawLevels = ProceduralLevelGenerator.generateCampaign(campaignSeed);
+        pendingReplay = loadReplayFromProperty(); // Executes: pendingReplay = loadReplayFromProperty();
+        if (pendingReplay != null) { // Begins a method or constructor with its signature.
+            activeTheme = pendingReplay.getTheme(); // Executes: activeTheme = pendingReplay.getTheme();
+            root.setStyle("-fx-background-color: " + activeTheme.toCss() + ";"); // Executes: root.setStyle("-fx-background-color: " + activeTheme.toCss() + ";");
+            currentLevelIndex = Math.max(0, Math.min(rawLevels.size() - 1, pendingReplay.getDifficulty() - 1)); // Executes: currentLevelIndex = Math.max(0, Math.min(rawLevels.size() - 1, pendingReplay.getDifficulty() - 1));
         } // Closes a code block.
 
-        highScoreDatabase = new HighScoreDatabase(); // Executes: highScoreDatabase = new HighScoreDatabase();
-        highestScore = highScoreDatabase.loadHighScore(); // Executes: highestScore = highScoreDatabase.loadHighScore();
+        leaderboard = openLeaderboard(); // Executes: leaderboard = openLeaderboard();
+        importLegacyHighScore(leaderboard, activeTheme);
+        highestScore = leaderboard.best(currentLevelIndex + 1, activeTheme); // Executes: highestScore = leaderboard.best(currentLevelIndex + 1, activeTheme);
+        highScoreWriter = new HighScoreWriter(leaderboard, // Executes: highScoreWriter = new HighScoreWriter(leaderboard,
+                Long.getLong("bbmario.highScoreFlushMs", HighScoreWriter.DEFAULT_FLUSH_INTERVAL_MS)); // Executes: Long.getLong("bbmario.highScoreFlushMs", HighScoreWriter.DEFAULT_FLUSH_INTERVAL_MS));
 
         inputManager = new InputManager(); // Executes: inputManager = new InputManager();
         inputManager.setupInput(scene); // Executes: inputManager.setupInput(scene);
 
         // Dashboard lets players choose a theme and see their best score before the run starts
         dashboardScreen = new DashboardScreen(WINDOW_WIDTH, WINDOW_HEIGHT, this::onThemePicked, this::launchFromDashboard); // Executes: dashboardScreen = new DashboardScreen(WINDOW_WIDTH, WINDOW_HEIGHT, this::onThemePicked, this::launchFromDashboard);
-        dashboardScreen.setHighScore(highestScore); // Executes: dashboardScreen.setHighScore(highestScore);
+        dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore); // Executes: dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore);
         root.getChildren().add(dashboardScreen.getNode()); // Executes: root.getChildren().add(dashboardScreen.getNode());
         dashboardScreen.show(); // Executes: dashboardScreen.show();
+        // Decode the player's sprites in the background while the dashboard is up
+        PlayerSprite.prepare().thenRun(() -> System.out.println("Assets ready: " // Executes: PlayerSprite.prepare().thenRun(() -> System.out.println("Assets ready: "
+                + AssetRegistry.getLoadedCount() + " images, " + AssetRegistry.getMemoryBytes() / 1024 + " KB")); // Executes: + AssetRegistry.getLoadedCount() + " images, " + AssetRegistry.getMemoryBytes() / 1024 + " KB"));
 
         stage.setScene(scene); // Executes: stage.setScene(scene);
         stage.setTitle("Super Mario – Real Game"); // Executes: stage.setTitle("Super Mario – Real Game");
         stage.setResizable(false); // Executes: stage.setResizable(false);
         stage.show(); // Executes: stage.show();
 
+        if (pendingReplay != null) { // Begins a method or constructor with its signature.
+            launchFromDashboard(); // Executes: launchFromDashboard();
+        } // Closes a code block.
+
         refocusScene(); // Executes: refocusScene();
     } // Closes a code block.
 
+    @Override // Applies an annotation to the following element.
+    public void stop() { // Begins a method or constructor with its signature.
+        finishRecording(); // Executes: finishRecording();
+        finishRun(); // Executes: finishRun();
+        if (highScoreWriter != null) { // Begins a method or constructor with its signature.
+            highScoreWriter.close(); // Executes: highScoreWriter.close();
+        } // Closes a code block.
+        try { // Attempts operations that might throw exceptions.
+            leaderboard.close(); // Executes: leaderboard.close();
+        } catch (IOException ignored) { // Begins a method or constructor with its signature.
+            // Every record was forced to disk when it was appended
+        } // Closes a code block.
+    } // Closes a code block.
+
     private void startLevel(int levelIndex) { // Begins a method or constructor with its signature.
         // 1. Cleanup previous level
         if (activeLoop != null) { // Begins a method or constructor with its signature.
             activeLoop.stop(); // Executes: activeLoop.stop();
         } // Closes a code block.
+        finishRecording(); // Executes: finishRecording();
+        finishRun(); // The previous run is over: save it now // Executes: finishRun(); // The previous run is over: save it now
         root.getChildren().clear(); // Executes: root.getChildren().clear();
 
         // 2. Check if levels are finished
@@ -100,43 +144,54 @@ public class Game extends Application { // Defines a class.
 
         System.out.println("Starting Level: " + (levelIndex + 1)); // Executes: System.out.println("Starting Level: " + (levelIndex + 1));
 
-        // 3. Load Level Data
-        List<String> rawLines = rawLevels.get(levelIndex);
-        List<String> normalizedLines = normalizeLevelLines(rawLines);
-        List<String> lines = alignLevelToGround(normalizedLines);
-
-        LevelLoader loader = new LevelLoader();
-        LevelLoader.LevelData level = loader.loadFromLines(lines); // Executes: LevelLoader.LevelData level = loader.loadFromLines(lines);
-        TileMap tileMap = level.getTileMap();
+        // 3. Build the simulation (level data, managers, rules) - the player falls from the sky
+        int difficulty = levelIndex + 1;
+        List<String> levelLines = rawLevels.get(levelIndex);
+        long levelSeed = ProceduralLevelGenerator.campaignLevelSeed(campaignSeed, difficulty);
+        long spawnSeed = new Random().nextLong();
+
+        activeReplay = pendingReplay; // Executes: activeReplay = pendingReplay;
+        pendingReplay = null; // Executes: pendingReplay = null;
+        replayChecked = false; // Executes: replayChecked = false;
+        if (activeReplay != null) { // Begins a method or constructor with its signature.
+            difficulty = activeReplay.getDifficulty(); // Executes: difficulty = activeReplay.getDifficulty();
+            levelSeed = activeReplay.getLevelSeed(); // Executes: levelSeed = activeReplay.getLevelSeed();
+            spawnSeed = activeReplay.getSpawnSeed(); // Executes: spawnSeed = activeReplay.getSpawnSeed();
+            levelLines = ProceduralLevelGenerator.generate( // Executes: levelLines = ProceduralLevelGenerator.generate(
+                    difficulty, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, levelSeed); // Executes: difficulty, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, levelSeed);
+        } // Closes a code block.
 
-        // ================= CAMERA =================
-        Camera camera = new Camera(WINDOW_HEIGHT, WINDOW_WIDTH);
+        currentRun = activeReplay == null // Executes: currentRun = activeReplay == null
+                ? new Leaderboard.Entry(difficulty, activeTheme, levelSeed, 0, System.currentTimeMillis(), 0) // Executes: ? new Leaderboard.Entry(difficulty, activeTheme, levelSeed, 0, System.currentTimeMillis(), 0)
+                : null; // Executes: : null;
+        highestScore = leaderboard.best(difficulty, activeTheme); // Executes: highestScore = leaderboard.best(difficulty, activeTheme);
+
+        double simRate = activeReplay != null // Executes: double simRate = activeReplay != null
+                ? activeReplay.getSimRate() // Executes: ? activeReplay.getSimRate()
+                : Double.parseDouble(System.getProperty("bbmario.simRate", String.valueOf(Constants.SIM_RATE_HZ))); // Executes: : Double.parseDouble(System.getProperty("bbmario.simRate", String.valueOf(Constants.SIM_RATE_HZ)));
+        // On its own thread the simulation must not touch scene-graph nodes, so it gets a plain
+        // PlayerState and the Player only shows the published snapshots
+        boolean threaded = Boolean.getBoolean("bbmario.simThread") && simRate > 0;
+
+        Player player = new Player(0, 0);
+        Simulation simulation = new Simulation(levelLines, activeTheme, spawnSeed, // Executes: Simulation simulation = new Simulation(levelLines, activeTheme, spawnSeed,
+                threaded ? new PlayerState(0, 0) : player); // Executes: threaded ? new PlayerState(0, 0) : player);
+        activeSimulation = simulation; // Executes: activeSimulation = simulation;
+        GameWorld world = simulation.getWorld();
+        TileMap tileMap = simulation.getTileMap();
 
         // ================= WORLD LAYER =================
         Group worldLayer = new Group();
         root.getChildren().add(worldLayer); // Executes: root.getChildren().add(worldLayer);
 
         // ================= GROUND =================
-        final double groundHeight = 80;
-        final double groundTopY = WINDOW_HEIGHT - groundHeight;
+        final double groundHeight = Constants.GROUND_HEIGHT;
+        final double groundTopY = simulation.getGroundTopY();
 
         Ground ground = new Ground(0, groundTopY, tileMap.getWidthInPixels(), groundHeight);
         ground.applyTheme(activeTheme.getGround()); // Executes: ground.applyTheme(activeTheme.getGround());
         worldLayer.getChildren().add(ground.getRectangle()); // Executes: worldLayer.getChildren().add(ground.getRectangle());
 
-        // ================= PLAYER SPAWN (FALL FROM SKY) =================
-        double spawnX = level.getPlayerSpawnX();
-        double spawnY = 0; // Force start at Top of Screen // Executes: double spawnY = 0; // Force start at Top of Screen
-
-        Player player = new Player(spawnX, spawnY);
-        player.applyTheme(activeTheme); // Executes: player.applyTheme(activeTheme);
-        worldLayer.getChildren().add(player.getNode()); // Executes: worldLayer.getChildren().add(player.getNode());
-
-        // Ensure physics engine knows we are in the air
-        setPlayerPositionBestEffort(player, spawnX, spawnY); // Executes: setPlayerPositionBestEffort(player, spawnX, spawnY);
-        resetPlayerMotionBestEffort(player); // Executes: resetPlayerMotionBestEffort(player);
-        invokeIfExists(player, "setOnGround", new Class[]{boolean.class}, new Object[]{false}); // Executes: invokeIfExists(player, "setOnGround", new Class[]{boolean.class}, new Object[]{false});
-
         // ================= SCREENS =================
         gameOverScreen = new GameOverScreen(WINDOW_WIDTH, WINDOW_HEIGHT, this::restartCurrentLevel); // Executes: gameOverScreen = new GameOverScreen(WINDOW_WIDTH, WINDOW_HEIGHT, this::restartCurrentLevel);
         root.getChildren().add(gameOverScreen.getNode()); // Executes: root.getChildren().add(gameOverScreen.getNode());
@@ -164,52 +219,52 @@ public class Game extends Application { // Defines a class.
 
         createFadeOverlay(); // Executes: createFadeOverlay();
 
-        // ================= MANAGERS =================
-        CoinManager coinManager = new CoinManager();
-        PowerUpManager powerUpManager = new PowerUpManager();
-        EnemyManager enemyManager = new EnemyManager();
-        SpikeManager spikeManager = new SpikeManager();
-
-        Random rng = new Random();
-        List<double[]> coinSpawns = centerWithinTile(level.getCoinSpawns(), CoinManager.DEFAULT_SIZE, CoinManager.DEFAULT_SIZE);
-        List<double[]> powerUpSpawns = centerWithinTile(level.getPowerUpSpawns(), PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE);
-        List<double[]> enemySpawns = restOnTileTop(level.getEnemySpawns(), Enemy.SIZE, Enemy.SIZE);
-
-        List<double[]> jitteredCoins = jitterSpawns(coinSpawns, tileMap, rng, 3, 2, CoinManager.DEFAULT_SIZE, CoinManager.DEFAULT_SIZE);
-        List<double[]> jitteredPowerUps = jitterSpawns(powerUpSpawns, tileMap, rng, 2, 2, PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE);
-        List<double[]> jitteredEnemies = jitterSpawns(enemySpawns, tileMap, rng, 2, 0, Enemy.SIZE, Enemy.SIZE);
-
-        coinManager.spawnFrom(jitteredCoins); // Executes: coinManager.spawnFrom(jitteredCoins);
-        spawnPowerUps(powerUpManager, jitteredPowerUps, rng); // Executes: spawnPowerUps(powerUpManager, jitteredPowerUps, rng);
-        enemyManager.spawnFrom(jitteredEnemies); // Executes: enemyManager.spawnFrom(jitteredEnemies);
-        spikeManager.spawnFrom(level.getSpikeSpawns()); // Executes: spikeManager.spawnFrom(level.getSpikeSpawns());
-
         worldLayer.toFront(); // Executes: worldLayer.toFront();
 
-        // ================= WORLD OBJECT =================
-        GameWorld world = new GameWorld( // Executes: GameWorld world = new GameWorld(
-                tileMap, camera, coinManager, powerUpManager, enemyManager, spikeManager, // Executes: tileMap, camera, coinManager, powerUpManager, enemyManager, spikeManager,
-                uiManager, player, // Executes: uiManager, player,
-                level.getPlayerSpawnX(), // Executes: level.getPlayerSpawnX(),
-                0, // <--- CRITICAL FIX: Pass 0 (Sky) instead of level.getPlayerSpawnY() // Executes: 0, // <--- CRITICAL FIX: Pass 0 (Sky) instead of level.getPlayerSpawnY()
-                gameOverScreen, activeTheme, this::onScoreChanged // Executes: gameOverScreen, activeTheme, this::onScoreChanged
-        ); // Executes: );
+        // ================= WORLD VIEW =================
+        world.attachView(uiManager, gameOverScreen); // Executes: world.attachView(uiManager, gameOverScreen);
 
         // ================= GAME LOOP =================
         activeLoop = new GameLoop( // Executes: activeLoop = new GameLoop(
-                player, ground, inputManager, WINDOW_WIDTH, WINDOW_HEIGHT, // Executes: player, ground, inputManager, WINDOW_WIDTH, WINDOW_HEIGHT,
-                world, gc, tileMap, camera, worldLayer, // Executes: world, gc, tileMap, camera, worldLayer,
+                simulation, player, inputManager, WINDOW_WIDTH, WINDOW_HEIGHT, // Executes: simulation, player, inputManager, WINDOW_WIDTH, WINDOW_HEIGHT,
+                new WorldRenderer(world), gc, worldLayer, // Executes: new WorldRenderer(world), gc, worldLayer,
                 this::restartCurrentLevel // Executes: this::restartCurrentLevel
         ) { // Executes: ) {
             @Override // Applies an annotation to the following element.
             public void handle(long now) { // Begins a method or constructor with its signature.
                 super.handle(now); // Executes: super.handle(now);
-                if (player.getPlayerX() > tileMap.getWidthInPixels() - 150) { // Begins a method or constructor with its signature.
-                    this.stop(); // Executes: this.stop();
-                    completeScreen.show(); // Executes: completeScreen.show();
-                } // Closes a code block.
+                checkReplayFinished(this); // Executes: checkReplayFinished(this);
             } // Closes a code block.
         }; // Executes: };
+        GameLoop loop = activeLoop;
+        world.getEvents().addListener(new GameEvents.Listener() { // Begins a method or constructor with its signature.
+            @Override // Applies an annotation to the following element.
+            public void onScoreChanged(int score) { // Begins a method or constructor with its signature.
+                Game.this.onScoreChanged(score); // Executes: Game.this.onScoreChanged(score);
+            } // Closes a code block.
+
+            @Override // Applies an annotation to the following element.
+            public void onLevelComplete(int score) { // Begins a method or constructor with its signature.
+                loop.stop(); // Executes: loop.stop();
+                finishRecording(); // Executes: finishRecording();
+                finishRun(); // Executes: finishRun();
+                completeScreen.show(); // Executes: completeScreen.show();
+            } // Closes a code block.
+        }); // Executes: });
+
+        activeLoop.setFixedTimestep(simRate, Integer.getInteger("bbmario.maxCatchUpSteps", Constants.MAX_CATCH_UP_STEPS)); // Executes: activeLoop.setFixedTimestep(simRate, Integer.getInteger("bbmario.maxCatchUpSteps", Constants.MAX_CATCH_UP_STEPS));
+        activeLoop.setThreaded(threaded); // Executes: activeLoop.setThreaded(threaded);
+        activeLoop.setResolutionScaler(resolutionScaler); // Executes: activeLoop.setResolutionScaler(resolutionScaler);
+
+        // ================= REPLAY =================
+        if (activeReplay != null) { // Begins a method or constructor with its signature.
+            activeLoop.setInputScript(activeReplay); // Executes: activeLoop.setInputScript(activeReplay);
+            System.out.println("Playing back replay of level " + difficulty + " (" + activeReplay.getStepCount() + " steps)"); // Executes: System.out.println("Playing back replay of level " + difficulty + " (" + activeReplay.getStepCount() + " steps)");
+        } else if (activeLoop.isFixedTimestep() && Boolean.parseBoolean(System.getProperty("bbmario.recordReplays", "true"))) { // Begins a method or constructor with its signature.
+            // Variable-dt runs can't be reproduced, so only fixed-timestep levels are recorded
+            recorder = new ReplayRecorder(difficulty, levelSeed, spawnSeed, activeTheme, simRate); // Executes: recorder = new ReplayRecorder(difficulty, levelSeed, spawnSeed, activeTheme, simRate);
+            activeLoop.setRecorder(recorder); // Executes: activeLoop.setRecorder(recorder);
+        } // Closes a code block.
 
         // Start Physics Immediately (Player falls while screen fades in)
         activeLoop.start(); // Executes: activeLoop.start();
@@ -307,7 +362,7 @@ public class Game extends Application { // Defines a class.
         } // Closes a code block.
         inputManager.setInputEnabled(false); // Executes: inputManager.setInputEnabled(false);
         if (dashboardScreen != null) { // Begins a method or constructor with its signature.
-            dashboardScreen.setHighScore(highestScore); // Executes: dashboardScreen.setHighScore(highestScore);
+            dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore); // Executes: dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore);
             dashboardScreen.show(); // Executes: dashboardScreen.show();
         } // Closes a code block.
     } // Closes a code block.
@@ -329,319 +384,149 @@ public class Game extends Application { // Defines a class.
 
     private void onThemePicked(Theme theme) { // Begins a method or constructor with its signature.
         this.activeTheme = theme; // Executes: this.activeTheme = theme;
+        SpriteAtlas.prepare(theme); // Rasterize the theme's sprites in the background while the player is still in the menu // Executes: SpriteAtlas.prepare(theme); // Rasterize the theme's sprites in the background while the player is still in the menu
+        ParallaxBackdrop.prepare(theme); // Same for the sky layers // Executes: ParallaxBackdrop.prepare(theme); // Same for the sky layers
         root.setStyle("-fx-background-color: " + theme.toCss() + ";"); // Executes: root.setStyle("-fx-background-color: " + theme.toCss() + ";");
         if (dashboardScreen != null) { // Begins a method or constructor with its signature.
-            dashboardScreen.setHighScore(highestScore); // Executes: dashboardScreen.setHighScore(highestScore);
+            // The run keeps its theme until the level restarts, so only the dashboard switches over here
+            dashboardScreen.setHighScore(currentLevelIndex + 1, leaderboard.best(currentLevelIndex + 1, theme)); // Executes: dashboardScreen.setHighScore(currentLevelIndex + 1, leaderboard.best(currentLevelIndex + 1, theme));
         } // Closes a code block.
         if (activeLoop != null) { // Begins a method or constructor with its signature.
             startLevel(currentLevelIndex); // Executes: startLevel(currentLevelIndex);
         } // Closes a code block.
     } // Closes a code block.
 
-    private void onScoreChanged(int score) { // Begins a method or constructor with its signature.
-        if (score > highestScore) { // Begins a method or constructor with its signature.
-            highestScore = score; // Executes: highestScore = score;
-            if (highScoreDatabase != null) { // Begins a method or constructor with its signature.
-                highScoreDatabase.saveHighScore(highestScore); // Executes: highScoreDatabase.saveHighScore(highestScore);
-            } // Closes a code block.
-            if (dashboardScreen != null) { // Begins a method or constructor with its signature.
-                dashboardScreen.setHighScore(highestScore); // Executes: dashboardScreen.setHighScore(highestScore);
-            } // Closes a code block.
-            if (uiManager != null) { // Begins a method or constructor with its signature.
-                uiManager.setBestScore(highestScore); // Executes: uiManager.setBestScore(highestScore);
-            } // Closes a code block.
-        } // Closes a code block.
+    /**
+     * Dynamic resolution, on unless -Dbbmario.dynamicResolution=false. Scales are percentages:
+     * -Dbbmario.renderScaleMin (default 50) and -Dbbmario.renderScaleMax (default 100, also the
+     * starting scale); the budget comes from -Dbbmario.targetFps (default 60).
+     */
+    private static ResolutionScaler openResolutionScaler() { // Begins a method or constructor with its signature.
+        if (!Boolean.parseBoolean(System.getProperty("bbmario.dynamicResolution", "true"))) return null; // Evaluates a conditional branch.
+        return new ResolutionScaler( // Returns a value from the method.
+                Integer.getInteger("bbmario.targetFps", 60), // Executes: Integer.getInteger("bbmario.targetFps", 60),
+                Integer.getInteger("bbmario.renderScaleMin", 50) / 100.0, // Executes: Integer.getInteger("bbmario.renderScaleMin", 50) / 100.0,
+                Integer.getInteger("bbmario.renderScaleMax", 100) / 100.0); // Executes: Integer.getInteger("bbmario.renderScaleMax", 100) / 100.0);
     } // Closes a code block.
 
     // ============================
-    // Spawn helpers
+    // Replay helpers
     // ============================
 
-    private static void forceLayout(Pane root, Node node) { // Begins a method or constructor with its signature.
-        if (root == null || node == null) return; // Evaluates a conditional branch.
-        root.applyCss(); // Executes: root.applyCss();
-        root.layout(); // Executes: root.layout();
-    } // Closes a code block.
-
-    private static double safeNodeHeight(Node node) { // Begins a method or constructor with its signature.
-        if (node == null) return 50; // Evaluates a conditional branch.
-        Bounds b = node.getBoundsInParent();
-        double h = (b != null) ? b.getHeight() : 0;
-        return h > 1 ? h : 50; // Returns a value from the method.
+    private static Replay loadReplayFromProperty() { // Begins a method or constructor with its signature.
+        String path = System.getProperty("bbmario.replay");
+        if (path == null || path.isBlank()) return null; // Evaluates a conditional branch.
+        try { // Attempts operations that might throw exceptions.
+            return Replay.read(Path.of(path)); // Returns a value from the method.
+        } catch (IOException e) { // Begins a method or constructor with its signature.
+            System.out.println("Cannot load replay " + path + ": " + e.getMessage()); // Executes: System.out.println("Cannot load replay " + path + ": " + e.getMessage());
+            return null;
+        } // Closes a code block.
     } // Closes a code block.
 
     /**
-     * Drops the player down from startY to maxY until it collides with the tileMap.
-     * Then returns a Y that places it ON TOP of that collision (not inside it).
-     *
-     * Works with your existing TileMap collision API via isCollidingBestEffort().
+     * Saves the attempt that is being recorded (if any) as the latest replay of its level.
      */
-    private double computeSpawnYOnFirstCollision( // Executes: private double computeSpawnYOnFirstCollision(
-            TileMap tileMap, // Executes: TileMap tileMap,
-            Player player, // Executes: Player player,
-            double x, // Executes: double x,
-            double startY, // Executes: double startY,
-            double maxY, // Executes: double maxY,
-            double stepY // Executes: double stepY
-    ) { // Executes: ) {
-        if (tileMap == null || player == null) return startY; // Evaluates a conditional branch.
-
-        Node n = player.getNode();
-        if (n == null) return startY; // Evaluates a conditional branch.
-
-        // start from above
-        setPlayerPositionBestEffort(player, x, startY); // Executes: setPlayerPositionBestEffort(player, x, startY);
-        forceLayout(root, n); // Executes: forceLayout(root, n);
-
-        boolean foundCollision = false;
-        double y = startY;
-
-        // Drop down until collision happens
-        for (y = startY; y <= maxY; y += stepY) { // Begins a method or constructor with its signature.
-            setPlayerPositionBestEffort(player, x, y); // Executes: setPlayerPositionBestEffort(player, x, y);
-            forceLayout(root, n); // Executes: forceLayout(root, n);
-
-            Bounds b = n.getBoundsInParent();
-            if (isCollidingBestEffort(tileMap, b)) { // Begins a method or constructor with its signature.
-                foundCollision = true; // Executes: foundCollision = true;
-                break; // Breaks out of the current loop or switch.
-            } // Closes a code block.
-        } // Closes a code block.
-
-        if (!foundCollision) { // Begins a method or constructor with its signature.
-            // fallback: keep it near the bottom, still safe
-            return maxY;
-        } // Closes a code block.
-
-        // We are colliding. Move up until we are NOT colliding anymore.
-        // This puts the player "on top" of the solid tile instead of inside it.
-        for (int i = 0; i < 200; i++) { // Begins a method or constructor with its signature.
-            Bounds b = n.getBoundsInParent();
-            if (!isCollidingBestEffort(tileMap, b)) { // Begins a method or constructor with its signature.
-                break; // Breaks out of the current loop or switch.
-            } // Closes a code block.
-            setPlayerPositionBestEffort(player, x, getCurrentY(player, n) - 1); // Executes: setPlayerPositionBestEffort(player, x, getCurrentY(player, n) - 1);
-            forceLayout(root, n); // Executes: forceLayout(root, n);
-        } // Closes a code block.
-
-        // final tiny safety margin
-        return getCurrentY(player, n) - 1; // Returns a value from the method.
-    } // Closes a code block.
-
-    private double getCurrentY(Player player, Node n) { // Begins a method or constructor with its signature.
-        Double currentY = getDoubleIfExists(player, "getY");
-        if (currentY == null) currentY = getDoubleIfExists(player, "getPlayerY"); // Evaluates a conditional branch.
-        if (currentY != null) return currentY; // Evaluates a conditional branch.
-        return n.getLayoutY(); // Returns a value from the method.
-    } // Closes a code block.
-
-    private static void setPlayerPositionBestEffort(Player player, double x, double y) { // Begins a method or constructor with its signature.
-        if (player == null) return; // Evaluates a conditional branch.
-
-        if (invokeIfExists(player, "setPosition", new Class[]{double.class, double.class}, new Object[]{x, y})) return; // Evaluates a conditional branch.
-
-        boolean xOk = invokeIfExists(player, "setX", new Class[]{double.class}, new Object[]{x}) // Executes: boolean xOk = invokeIfExists(player, "setX", new Class[]{double.class}, new Object[]{x})
-                || invokeIfExists(player, "setPlayerX", new Class[]{double.class}, new Object[]{x}); // Executes: || invokeIfExists(player, "setPlayerX", new Class[]{double.class}, new Object[]{x});
-        boolean yOk = invokeIfExists(player, "setY", new Class[]{double.class}, new Object[]{y}) // Executes: boolean yOk = invokeIfExists(player, "setY", new Class[]{double.class}, new Object[]{y})
-                || invokeIfExists(player, "setPlayerY", new Class[]{double.class}, new Object[]{y}); // Executes: || invokeIfExists(player, "setPlayerY", new Class[]{double.class}, new Object[]{y});
-        if (xOk || yOk) return; // Evaluates a conditional branch.
-
-        Node n = player.getNode();
-        if (n != null) { // Begins a method or constructor with its signature.
-            n.setLayoutX(x); // Executes: n.setLayoutX(x);
-            n.setLayoutY(y); // Executes: n.setLayoutY(y);
-        } // Closes a code block.
-    } // Closes a code block.
-
-    private static void resetPlayerMotionBestEffort(Player player) { // Begins a method or constructor with its signature.
-        if (player == null) return; // Evaluates a conditional branch.
-
-        if (invokeIfExists(player, "setVelocity", new Class[]{double.class, double.class}, new Object[]{0.0, 0.0})) return; // Evaluates a conditional branch.
+    private void finishRecording() { // Begins a method or constructor with its signature.
+        if (recorder == null) return; // Evaluates a conditional branch.
+        ReplayRecorder finished = recorder;
+        recorder = null; // Executes: recorder = null;
+        if (finished.getStepCount() == 0 || activeSimulation == null) return; // Evaluates a conditional branch.
 
-        invokeIfExists(player, "resetVelocity", new Class[]{}, new Object[]{}); // Executes: invokeIfExists(player, "resetVelocity", new Class[]{}, new Object[]{});
-        invokeIfExists(player, "resetMovement", new Class[]{}, new Object[]{}); // Executes: invokeIfExists(player, "resetMovement", new Class[]{}, new Object[]{});
-        invokeIfExists(player, "setOnGround", new Class[]{boolean.class}, new Object[]{false}); // Executes: invokeIfExists(player, "setOnGround", new Class[]{boolean.class}, new Object[]{false});
-    } // Closes a code block.
-
-    private static void nudgePlayerUpUntilFreeBestEffort(Player player, TileMap tileMap, int maxSteps, double stepY) { // Begins a method or constructor with its signature.
-        if (player == null || tileMap == null) return; // Evaluates a conditional branch.
-
-        Node n = player.getNode();
-        if (n == null) return; // Evaluates a conditional branch.
-
-        for (int i = 0; i < maxSteps; i++) { // Begins a method or constructor with its signature.
-            if (!isCollidingBestEffort(tileMap, n.getBoundsInParent())) { // Begins a method or constructor with its signature.
-                return; // Returns a value from the method.
-            } // Closes a code block.
-
-            boolean moved = false;
-            Double currentY = getDoubleIfExists(player, "getY");
-            if (currentY == null) currentY = getDoubleIfExists(player, "getPlayerY"); // Evaluates a conditional branch.
-            if (currentY != null) { // Begins a method or constructor with its signature.
-                moved = invokeIfExists(player, "setY", new Class[]{double.class}, new Object[]{currentY - stepY}) // Executes: moved = invokeIfExists(player, "setY", new Class[]{double.class}, new Object[]{currentY - stepY})
-                        || invokeIfExists(player, "setPlayerY", new Class[]{double.class}, new Object[]{currentY - stepY}); // Executes: || invokeIfExists(player, "setPlayerY", new Class[]{double.class}, new Object[]{currentY - stepY});
-            } // Closes a code block.
-
-            if (!moved) { // Begins a method or constructor with its signature.
-                n.setLayoutY(n.getLayoutY() - stepY); // Executes: n.setLayoutY(n.getLayoutY() - stepY);
-            } // Closes a code block.
-        } // Closes a code block.
-    } // Closes a code block.
-
-    private static boolean isCollidingBestEffort(TileMap tileMap, Bounds bounds) { // Begins a method or constructor with its signature.
-        if (tileMap == null || bounds == null) return false; // Evaluates a conditional branch.
-
-        Boolean b1 = (Boolean) invokeReturnIfExists(tileMap, "isColliding", // Executes: Boolean b1 = (Boolean) invokeReturnIfExists(tileMap, "isColliding",
-                new Class[]{Bounds.class}, new Object[]{bounds}); // Executes: new Class[]{Bounds.class}, new Object[]{bounds});
-        if (b1 != null) return b1; // Evaluates a conditional branch.
-
-        Boolean b2 = (Boolean) invokeReturnIfExists(tileMap, "collides", // Executes: Boolean b2 = (Boolean) invokeReturnIfExists(tileMap, "collides",
-                new Class[]{double.class, double.class, double.class, double.class}, // Executes: new Class[]{double.class, double.class, double.class, double.class},
-                new Object[]{bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight()}); // Executes: new Object[]{bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight()});
-        if (b2 != null) return b2; // Evaluates a conditional branch.
-
-        Boolean b3 = (Boolean) invokeReturnIfExists(tileMap, "isSolidRect", // Executes: Boolean b3 = (Boolean) invokeReturnIfExists(tileMap, "isSolidRect",
-                new Class[]{double.class, double.class, double.class, double.class}, // Executes: new Class[]{double.class, double.class, double.class, double.class},
-                new Object[]{bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight()}); // Executes: new Object[]{bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight()});
-        if (b3 != null) return b3; // Evaluates a conditional branch.
-
-        return false;
-    } // Closes a code block.
-
-    private static boolean invokeIfExists(Object target, String methodName, Class<?>[] sig, Object[] args) { // Begins a method or constructor with its signature.
+        Replay replay = finished.toReplay(activeSimulation.stateHash());
         try { // Attempts operations that might throw exceptions.
-            Method m = target.getClass().getMethod(methodName, sig);
-            m.setAccessible(true); // Executes: m.setAccessible(true);
-            m.invoke(target, args); // Executes: m.invoke(target, args);
-            return true;
-        } catch (Exception ignored) { // Begins a method or constructor with its signature.
-            return false;
+            replay.write(Replay.defaultDirectory().resolve("level-" + replay.getDifficulty() + ".bbr")); // Executes: replay.write(Replay.defaultDirectory().resolve("level-" + replay.getDifficulty() + ".bbr"));
+        } catch (IOException ignored) { // Begins a method or constructor with its signature.
+            // Failing to save a replay should not crash the game
         } // Closes a code block.
     } // Closes a code block.
 
-    private static Object invokeReturnIfExists(Object target, String methodName, Class<?>[] sig, Object[] args) { // Begins a method or constructor with its signature.
-        try { // Attempts operations that might throw exceptions.
-            Method m = target.getClass().getMethod(methodName, sig);
-            m.setAccessible(true); // Executes: m.setAccessible(true);
-            return m.invoke(target, args); // Returns a value from the method.
-        } catch (Exception ignored) { // Begins a method or constructor with its signature.
-            return null;
-        } // Closes a code block.
-    } // Closes a code block.
+    private void checkReplayFinished(GameLoop loop) { // Begins a method or constructor with its signature.
+        if (activeReplay == null || replayChecked) return; // Evaluates a conditional branch.
+        if (loop.getStepCount() < activeReplay.getStepCount()) return; // Evaluates a conditional branch.
 
-    private static Double getDoubleIfExists(Object target, String methodName) { // Begins a method or constructor with its signature.
-        try { // Attempts operations that might throw exceptions.
-            Method m = target.getClass().getMethod(methodName);
-            m.setAccessible(true); // Executes: m.setAccessible(true);
-            Object r = m.invoke(target);
-            if (r instanceof Number) return ((Number) r).doubleValue(); // Evaluates a conditional branch.
-            return null;
-        } catch (Exception ignored) { // Begins a method or constructor with its signature.
-            return null;
-        } // Closes a code block.
+        replayChecked = true; // Executes: replayChecked = true;
+        boolean matches = loop.getStateHash() == activeReplay.getFinalStateHash();
+        System.out.println(matches ? "Replay finished: final state matches the recording" // Executes: System.out.println(matches ? "Replay finished: final state matches the recording"
+                : "Replay finished: final state DIVERGED from the recording"); // Executes: : "Replay finished: final state DIVERGED from the recording");
     } // Closes a code block.
 
     // ============================
-    // Existing helper methods
+    // Leaderboard helpers
     // ============================
 
-    private static List<double[]> jitterSpawns( // Executes: private static List<double[]> jitterSpawns(
-            List<double[]> original, // Executes: List<double[]> original,
-            TileMap tileMap, // Executes: TileMap tileMap,
-            Random rng, // Executes: Random rng,
-            double maxOffsetX, // Executes: double maxOffsetX,
-            double maxOffsetY, // Executes: double maxOffsetY,
-            double itemWidth, // Executes: double itemWidth,
-            double itemHeight) { // Executes: double itemHeight) {
-
-        List<double[]> result = new ArrayList<>();
-        if (original == null) return result; // Evaluates a conditional branch.
-
-        int worldWidth = tileMap.getWidthInPixels();
-        int worldHeight = tileMap.getHeightInPixels();
-
-        for (double[] pos : original) { // Begins a method or constructor with its signature.
-            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
-
-            double dx = (rng.nextDouble() * 2 - 1) * maxOffsetX;
-            double dy = (rng.nextDouble() * 2 - 1) * maxOffsetY;
-
-            double nx = pos[0] + dx;
-            double ny = pos[1] + dy;
-
-            double margin = 4;
-            nx = Math.max(margin, Math.min(worldWidth - itemWidth - margin, nx)); // Executes: nx = Math.max(margin, Math.min(worldWidth - itemWidth - margin, nx));
-            ny = Math.max(margin, Math.min(worldHeight - itemHeight - margin, ny)); // Executes: ny = Math.max(margin, Math.min(worldHeight - itemHeight - margin, ny));
-
-            result.add(new double[]{nx, ny}); // Executes: result.add(new double[]{nx, ny});
+    private static Leaderboard openLeaderboard() { // Begins a method or constructor with its signature.
+        Path file = Leaderboard.defaultFile();
+        try { // Attempts operations that might throw exceptions.
+            Leaderboard opened = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_K);
+            if (opened.getRecoveredBytes() > 0) { // Begins a method or constructor with its signature.
+                System.out.println("Leaderboard: dropped " + opened.getRecoveredBytes() + " bytes of an unfinished write"); // Executes: System.out.println("Leaderboard: dropped " + opened.getRecoveredBytes() + " bytes of an unfinished write");
+            } // Closes a code block.
+            if (opened.getSetAsideFile() != null) { // Begins a method or constructor with its signature.
+                System.out.println("WARNING: " + file + " was not a readable leaderboard log; moved it to " // Executes: System.out.println("WARNING: " + file + " was not a readable leaderboard log; moved it to "
+                        + opened.getSetAsideFile() + " and started a new one"); // Executes: + opened.getSetAsideFile() + " and started a new one");
+            } // Closes a code block.
+            return opened;
+        } catch (IOException e) { // Begins a method or constructor with its signature.
+            // Scores still count for this session, they just aren't kept
+            System.out.println("Cannot open leaderboard " + file + ": " + e.getMessage()); // Executes: System.out.println("Cannot open leaderboard " + file + ": " + e.getMessage());
+            return Leaderboard.inMemory(Leaderboard.DEFAULT_TOP_K); // Returns a value from the method.
         } // Closes a code block.
-        return result;
     } // Closes a code block.
 
-    private List<double[]> centerWithinTile(List<double[]> original, double itemWidth, double itemHeight) { // Begins a method or constructor with its signature.
-        List<double[]> result = new ArrayList<>();
-        if (original == null) return result; // Evaluates a conditional branch.
-
-        double offsetX = (TileMap.TILE_SIZE - itemWidth) / 2.0;
-        double offsetY = (TileMap.TILE_SIZE - itemHeight) / 2.0;
-
-        for (double[] pos : original) { // Begins a method or constructor with its signature.
-            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
-            result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY}); // Executes: result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY});
+    /**
+     * Carries the single best score older versions kept in ~/.bb-mario/highscore.db over into the
+     * leaderboard, once: it becomes a level 1 run in the starting theme (the old file knew neither),
+     * and the file is renamed so it is not imported again.
+     */
+    private static void importLegacyHighScore(Leaderboard board, Theme theme) { // Begins a method or constructor with its signature.
+        Path legacy = Leaderboard.defaultFile().resolveSibling("highscore.db");
+        if (board.isInMemory() || !Files.exists(legacy)) return; // Keep the file until there is a log to put it in // Evaluates a conditional branch.
+        try { // Attempts operations that might throw exceptions.
+            int score = Integer.parseInt(Files.readString(legacy, StandardCharsets.UTF_8).trim());
+            if (score > 0) { // Begins a method or constructor with its signature.
+                long savedAt = Files.getLastModifiedTime(legacy).toMillis();
+                board.add(new Leaderboard.Entry(1, theme, 0L, score, savedAt, 0)); // Executes: board.add(new Leaderboard.Entry(1, theme, 0L, score, savedAt, 0));
+            } // Closes a code block.
+            Files.move(legacy, legacy.resolveSibling("highscore.db.imported"), StandardCopyOption.REPLACE_EXISTING); // Executes: Files.move(legacy, legacy.resolveSibling("highscore.db.imported"), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Leaderboard: imported best score " + score + " from " + legacy); // Executes: System.out.println("Leaderboard: imported best score " + score + " from " + legacy);
+        } catch (IOException | NumberFormatException e) { // Begins a method or constructor with its signature.
+            System.out.println("Cannot import " + legacy + ": " + e.getMessage()); // Executes: System.out.println("Cannot import " + legacy + ": " + e.getMessage());
         } // Closes a code block.
-        return result;
     } // Closes a code block.
 
-    private List<double[]> restOnTileTop(List<double[]> original, double itemWidth, double itemHeight) { // Begins a method or constructor with its signature.
-        List<double[]> result = new ArrayList<>();
-        if (original == null) return result; // Evaluates a conditional branch.
-
-        double offsetX = (TileMap.TILE_SIZE - itemWidth) / 2.0;
-        double offsetY = TileMap.TILE_SIZE - itemHeight;
-
-        for (double[] pos : original) { // Begins a method or constructor with its signature.
-            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
-            result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY}); // Executes: result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY});
+    /**
+     * Hands the current run, with its final score and run time, to the writer and asks for it to be saved now.
+     */
+    private void finishRun() { // Begins a method or constructor with its signature.
+        if (currentRun != null && activeSimulation != null) { // Begins a method or constructor with its signature.
+            submitRun(activeSimulation.getWorld().getScore()); // Executes: submitRun(activeSimulation.getWorld().getScore());
         } // Closes a code block.
-        return result;
-    } // Closes a code block.
-
-    private void spawnPowerUps(PowerUpManager manager, List<double[]> positions, Random rng) { // Begins a method or constructor with its signature.
-        if (manager == null || positions == null) return; // Evaluates a conditional branch.
-
-        PowerUpType[] types = PowerUpType.values();
-        for (double[] pos : positions) { // Begins a method or constructor with its signature.
-            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
-
-            PowerUpType type = types[rng.nextInt(types.length)];
-            manager.spawn(pos[0], pos[1], PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE, type); // Executes: manager.spawn(pos[0], pos[1], PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE, type);
+        currentRun = null; // Executes: currentRun = null;
+        if (highScoreWriter != null) { // Begins a method or constructor with its signature.
+            highScoreWriter.flush(); // Executes: highScoreWriter.flush();
         } // Closes a code block.
     } // Closes a code block.
 
-    private static List<String> normalizeLevelLines(List<String> raw) { // Begins a method or constructor with its signature.
-        int width = raw.stream().mapToInt(String::length).max().orElse(0);
-        return raw.stream().map(s -> String.format("%-" + width + "s", s).replace(' ', '.')).toList(); // Returns a value from the method.
+    private void submitRun(int score) { // Begins a method or constructor with its signature.
+        if (currentRun == null || highScoreWriter == null || score <= 0) return; // Evaluates a conditional branch.
+        long runTimeMillis = activeSimulation != null ? Math.round(activeSimulation.getElapsedTime() * 1000) : 0;
+        highScoreWriter.submit(new Leaderboard.Entry(currentRun.level(), currentRun.theme(), currentRun.seed(), // Executes: highScoreWriter.submit(new Leaderboard.Entry(currentRun.level(), currentRun.theme(), currentRun.seed(),
+                score, currentRun.startedAt(), runTimeMillis)); // Executes: score, currentRun.startedAt(), runTimeMillis));
     } // Closes a code block.
 
-    private List<String> alignLevelToGround(List<String> rawLines) { // Begins a method or constructor with its signature.
-        int tileSize = TileMap.TILE_SIZE;
-        int mapHeight = rawLines.size() * tileSize;
-        int floorY = WINDOW_HEIGHT - 80;
-        int emptyPixels = floorY - mapHeight;
-        int rowsToShift = emptyPixels / tileSize;
-
-        if (rowsToShift <= 0) return rawLines; // Evaluates a conditional branch.
-
-        int width = rawLines.get(0).length();
-        String emptyRow = ".".repeat(width);
-
-        List<String> newLevel = new ArrayList<>();
-        for (int i = 0; i < rowsToShift; i++) { // Begins a method or constructor with its signature.
-            newLevel.add(emptyRow); // Executes: newLevel.add(emptyRow);
+    private void onScoreChanged(int score) { // Begins a method or constructor with its signature.
+        // Saved while the run is still going, so a crash keeps the score reached so far
+        submitRun(score); // Executes: submitRun(score);
+        if (score > highestScore) { // Begins a method or constructor with its signature.
+            highestScore = score; // Executes: highestScore = score;
+            if (dashboardScreen != null) { // Begins a method or constructor with its signature.
+                dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore); // Executes: dashboardScreen.setHighScore(currentLevelIndex + 1, highestScore);
+            } // Closes a code block.
+            if (uiManager != null) { // Begins a method or constructor with its signature.
+                uiManager.setBestScore(highestScore); // Executes: uiManager.setBestScore(highestScore);
+            } // Closes a code block.
         } // Closes a code block.
-        newLevel.addAll(rawLines); // Executes: newLevel.addAll(rawLines);
-
-        return newLevel;
     } // Closes a code block.
 
     private void refocusScene() { // Begins a method or constructor with its signature.
@@ -1,24 +1,36 @@
 package game.core; // Declares the package for this source file.
 
 import game.systems.Camera;
+import game.systems.EffectManager;
 import game.systems.GameWorld;
-import game.systems.TileMap;
+import game.systems.WorldRenderer;
+import game.systems.WorldSnapshot;
 import javafx.animation.AnimationTimer;
 import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.transform.Scale;
 
+/**
+ * Drives a {@link Simulation} from the JavaFX pulse and draws it: keyboard state is turned into
+ * input bits, the simulation is stepped, the frame's {@link game.systems.GameEvents} are dispatched,
+ * then the player sprite, world layer and canvas follow.
+ *
+ * <p>In threaded mode ({@link #setThreaded}) a {@link SimulationThread} steps the simulation instead
+ * and the pulse only hands over input, delivers events and draws the latest {@link WorldSnapshot}.
+ */
 public class GameLoop extends AnimationTimer { // Defines a class.
 
+    private final Simulation simulation;
     private final Player player;
-    private final Ground ground;
     private final InputManager inputManager;
 
     private final double windowWidth;
     private final double windowHeight;
 
     private final GameWorld world;
+    private final WorldRenderer renderer;
     private final GraphicsContext gc;
-    private final TileMap tileMap;
     private final Runnable restartCallback;
 
     // NEW: for camera syncing with JavaFX nodes
@@ -27,49 +39,165 @@ public class GameLoop extends AnimationTimer { // Defines a class.
 
     private long lastTime = 0;
 
-    public GameLoop(Player player, // Executes: public GameLoop(Player player,
-                    Ground ground, // Executes: Ground ground,
+    // Fixed-timestep mode: the simulation advances in whole steps of 1/simRate seconds
+    // and rendering interpolates between the last two steps. fixedDt == 0 keeps the old variable-dt loop.
+    private double fixedDt = 0;
+    private int maxCatchUpSteps = 1;
+    private double accumulator = 0;
+
+    // Replays: when inputScript is set it replaces the keyboard; recorder (if any) logs every step's bits
+    private InputScript inputScript;
+    private ReplayRecorder recorder;
+
+    // Threaded mode: the simulation steps on simThread and is only seen through its snapshots
+    private boolean threaded = false;
+    private SimulationThread simThread;
+    private WorldSnapshot snapshot;
+
+    // Dynamic resolution: the canvas is drawn at scaler's scale and stretched over the window
+    private ResolutionScaler scaler;
+    private final Scale canvasStretch = new Scale(1, 1, 0, 0);
+
+    public GameLoop(Simulation simulation, // Executes: public GameLoop(Simulation simulation,
+                    Player player, // Executes: Player player,
                     InputManager inputManager, // Executes: InputManager inputManager,
                     double windowWidth, // Executes: double windowWidth,
                     double windowHeight, // Executes: double windowHeight,
-                    GameWorld world, // Executes: GameWorld world,
+                    WorldRenderer renderer, // Executes: WorldRenderer renderer,
                     GraphicsContext gc, // Executes: GraphicsContext gc,
-                    TileMap tileMap, // Executes: TileMap tileMap,
-                    Camera camera, // Executes: Camera camera,
                     Group worldLayer, // Executes: Group worldLayer,
                     Runnable restartCallback) { // Executes: Runnable restartCallback) {
 
+        this.simulation = simulation; // Executes: this.simulation = simulation;
         this.player = player; // Executes: this.player = player;
-        this.ground = ground; // Executes: this.ground = ground;
         this.inputManager = inputManager; // Executes: this.inputManager = inputManager;
         this.windowWidth = windowWidth; // Executes: this.windowWidth = windowWidth;
         this.windowHeight = windowHeight; // Executes: this.windowHeight = windowHeight;
 
-        this.world = world; // Executes: this.world = world;
+        this.world = simulation.getWorld(); // Executes: this.world = simulation.getWorld();
+        this.renderer = renderer; // Executes: this.renderer = renderer;
         this.gc = gc; // Executes: this.gc = gc;
-        this.tileMap = tileMap; // Executes: this.tileMap = tileMap;
 
-        this.camera = camera; // Executes: this.camera = camera;
+        this.camera = simulation.getCamera(); // Executes: this.camera = simulation.getCamera();
         this.worldLayer = worldLayer; // Executes: this.worldLayer = worldLayer;
         this.restartCallback = restartCallback; // Executes: this.restartCallback = restartCallback;
+
+        // The player is drawn on the canvas, after the world, and the effects over it
+        if (renderer != null && player != null) renderer.setPlayerSprite(player.getSprite()); // Evaluates a conditional branch.
+        if (renderer != null) world.getEvents().addListener(renderer.getEffects()); // Evaluates a conditional branch.
+    } // Closes a code block.
+
+    /**
+     * Switches the loop to fixed-timestep simulation.
+     *
+     * @param simRate         simulation steps per second (e.g. 120); 0 or less restores variable dt
+     * @param maxCatchUpSteps most steps run in one frame after a hitch; the rest of the backlog is dropped
+     */
+    public void setFixedTimestep(double simRate, int maxCatchUpSteps) { // Begins a method or constructor with its signature.
+        this.fixedDt = simRate > 0 ? 1.0 / simRate : 0; // Executes: this.fixedDt = simRate > 0 ? 1.0 / simRate : 0;
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps); // Executes: this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+        this.accumulator = 0; // Executes: this.accumulator = 0;
+    } // Closes a code block.
+
+    public boolean isFixedTimestep() { // Begins a method or constructor with its signature.
+        return fixedDt > 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Feeds the simulation from a script (e.g. a {@link Replay}) instead of the keyboard; null restores the keyboard.
+     */
+    public void setInputScript(InputScript inputScript) { // Begins a method or constructor with its signature.
+        this.inputScript = inputScript; // Executes: this.inputScript = inputScript;
+    } // Closes a code block.
+
+    /**
+     * Records the input bits of every step from now on; only meaningful in fixed-timestep mode.
+     */
+    public void setRecorder(ReplayRecorder recorder) { // Begins a method or constructor with its signature.
+        this.recorder = recorder; // Executes: this.recorder = recorder;
+    } // Closes a code block.
+
+    /**
+     * Steps the simulation on its own thread while the loop runs (needs fixed-timestep mode, and a
+     * simulation whose player is not a scene-graph node). Set before the first {@link #start}.
+     */
+    public void setThreaded(boolean threaded) { // Begins a method or constructor with its signature.
+        this.threaded = threaded; // Executes: this.threaded = threaded;
+    } // Closes a code block.
+
+    public boolean isThreaded() { // Begins a method or constructor with its signature.
+        return threaded && fixedDt > 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Lets scaler pick the resolution the world canvas is drawn at from now on (null: native).
+     * One scaler can be shared by the loops of successive levels, so what it learned carries over.
+     */
+    public void setResolutionScaler(ResolutionScaler scaler) { // Begins a method or constructor with its signature.
+        this.scaler = scaler; // Executes: this.scaler = scaler;
+        applyResolutionScale(); // Executes: applyResolutionScale();
+    } // Closes a code block.
+
+    public Simulation getSimulation() { // Begins a method or constructor with its signature.
+        return simulation;
+    } // Closes a code block.
+
+    /**
+     * Steps simulated so far; in threaded mode, as of the latest snapshot.
+     */
+    public long getStepCount() { // Begins a method or constructor with its signature.
+        return simThread != null ? latestSnapshot().getStepCount() : simulation.getStepCount(); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Hash of the simulation state; in threaded mode, as of the latest snapshot.
+     */
+    public long getStateHash() { // Begins a method or constructor with its signature.
+        return simThread != null ? latestSnapshot().getStateHash() : simulation.stateHash(); // Returns a value from the method.
+    } // Closes a code block.
+
+    private WorldSnapshot latestSnapshot() { // Begins a method or constructor with its signature.
+        if (snapshot == null) snapshot = simThread.latestSnapshot(); // Evaluates a conditional branch.
+        return snapshot;
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    public void start() { // Begins a method or constructor with its signature.
+        if (isThreaded()) { // Begins a method or constructor with its signature.
+            if (simThread == null) { // Begins a method or constructor with its signature.
+                simThread = new SimulationThread(simulation, 1.0 / fixedDt, maxCatchUpSteps); // Executes: simThread = new SimulationThread(simulation, 1.0 / fixedDt, maxCatchUpSteps);
+                simThread.setInputScript(inputScript); // Executes: simThread.setInputScript(inputScript);
+                simThread.setRecorder(recorder); // Executes: simThread.setRecorder(recorder);
+            } // Closes a code block.
+            simThread.start(); // Executes: simThread.start();
+        } // Closes a code block.
+        super.start(); // Executes: super.start();
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    public void stop() { // Begins a method or constructor with its signature.
+        super.stop(); // Executes: super.stop();
+        if (simThread != null) simThread.stop(); // Evaluates a conditional branch.
     } // Closes a code block.
 
     @Override // Applies an annotation to the following element.
     public void handle(long now) { // Begins a method or constructor with its signature.
+        if (simThread != null) { // Begins a method or constructor with its signature.
+            handleThreaded(now); // Executes: handleThreaded(now);
+            return; // Returns a value from the method.
+        } // Closes a code block.
 
         if (lastTime == 0) { // Begins a method or constructor with its signature.
             lastTime = now; // Executes: lastTime = now;
             return; // Returns a value from the method.
         } // Closes a code block.
 
-        double dt = (now - lastTime) / 1_000_000_000.0;
+        double frameTime = (now - lastTime) / 1_000_000_000.0;
         lastTime = now; // Executes: lastTime = now;
-
-        // avoid huge dt if debugger/lag
-        if (dt > 0.05) dt = 0.05; // Evaluates a conditional branch.
+        if (scaler != null && scaler.onFrame(frameTime, lastEffectsTime())) applyResolutionScale(); // Evaluates a conditional branch.
 
         // Stop the game loop updates if game is over, but listen for restart
-        if (world != null && world.isGameOver()) { // Begins a method or constructor with its signature.
+        if (world.isGameOver()) { // Begins a method or constructor with its signature.
             if (inputManager.isRestartPressed() && restartCallback != null) { // Begins a method or constructor with its signature.
                 restartCallback.run(); // Executes: restartCallback.run();
                 inputManager.resetRestart(); // Executes: inputManager.resetRestart();
@@ -77,65 +205,128 @@ public class GameLoop extends AnimationTimer { // Defines a class.
             return; // Returns a value from the method.
         } // Closes a code block.
 
-        // ========= INPUT =========
-        if (inputManager.isLeftPressed()) player.moveLeft(); // Evaluates a conditional branch.
-        else if (inputManager.isRightPressed()) player.moveRight(); // Evaluates an alternative conditional branch.
-        else player.stopX(); // Handles the fallback branch.
-
-        if (inputManager.isJumpPressed()) { // Begins a method or constructor with its signature.
-            player.jump(); // Executes: player.jump();
-            inputManager.resetJump(); // Executes: inputManager.resetJump();
-        } // Closes a code block.
-
-        // ========= PHYSICS =========
-        // IMPORTANT: do axis-separated collision (move X then resolve, move Y then resolve)
-        Physics.moveAndCollide(player, tileMap, dt); // Executes: Physics.moveAndCollide(player, tileMap, dt);
+        if (fixedDt > 0) { // Begins a method or constructor with its signature.
+            // Never queue more time than we are willing to simulate in one frame
+            accumulator += Math.min(frameTime, fixedDt * maxCatchUpSteps); // Executes: accumulator += Math.min(frameTime, fixedDt * maxCatchUpSteps);
 
-        // Safety: ground pane collision (still ok)
-        Physics.checkGroundCollision(player, ground); // Executes: Physics.checkGroundCollision(player, ground);
+            int steps = 0;
+            while (accumulator >= fixedDt && steps < maxCatchUpSteps) { // Begins a method or constructor with its signature.
+                simulation.storePreviousState(); // Executes: simulation.storePreviousState();
+                simulation.step(fixedDt, nextInputBits()); // Executes: simulation.step(fixedDt, nextInputBits());
+                accumulator -= fixedDt; // Executes: accumulator -= fixedDt;
+                steps++; // Executes: steps++;
+                // Stop at the exact step the run ends, so recordings and headless playback agree
+                if (world.isGameOver() || simulation.isLevelComplete()) break; // Evaluates a conditional branch.
+            } // Closes a code block.
+            if (accumulator >= fixedDt) accumulator %= fixedDt; // Evaluates a conditional branch.
 
-        // DO NOT limit to window width; limit to map width
-        if (tileMap != null) { // Begins a method or constructor with its signature.
-            player.constrainToBounds(tileMap.getWidthInPixels()); // Executes: player.constrainToBounds(tileMap.getWidthInPixels());
+            world.getEvents().dispatch(); // Executes: world.getEvents().dispatch();
+            render(frameTime, accumulator / fixedDt); // Executes: render(frameTime, accumulator / fixedDt);
         } else { // Executes: } else {
-            player.constrainToBounds(windowWidth); // Executes: player.constrainToBounds(windowWidth);
+            // avoid huge dt if debugger/lag
+            double dt = Math.min(frameTime, 0.05);
+            simulation.step(dt, nextInputBits()); // Executes: simulation.step(dt, nextInputBits());
+            world.getEvents().dispatch(); // Executes: world.getEvents().dispatch();
+            render(frameTime, 1.0); // Executes: render(frameTime, 1.0);
         } // Closes a code block.
+    } // Closes a code block.
 
-        // ========= CAMERA FOLLOW =========
-        if (camera != null && tileMap != null) { // Begins a method or constructor with its signature.
-            double px = player.getPlayerX() + player.getWidth() / 2.0;
-            double py = player.getPlayerY() + player.getHeight() / 2.0;
+    private void handleThreaded(long now) { // Begins a method or constructor with its signature.
+        double frameTime = lastTime == 0 ? 0 : (now - lastTime) / 1_000_000_000.0;
+        lastTime = now; // Executes: lastTime = now;
+        if (scaler != null && scaler.onFrame(frameTime, lastEffectsTime())) applyResolutionScale(); // Evaluates a conditional branch.
+        if (inputScript == null) simThread.offerInput(inputManager.pollInputBits()); // Evaluates a conditional branch.
+        snapshot = simThread.latestSnapshot(); // Executes: snapshot = simThread.latestSnapshot();
+        simThread.dispatchEvents(); // May stop the loop (level complete) // Executes: simThread.dispatchEvents(); // May stop the loop (level complete)
 
-            camera.follow(px, py, 0.12); // Executes: camera.follow(px, py, 0.12);
+        // Same as the single-threaded loop: a finished game only listens for restart
+        if (snapshot.isGameOver()) { // Begins a method or constructor with its signature.
+            if (inputManager.isRestartPressed() && restartCallback != null) { // Begins a method or constructor with its signature.
+                restartCallback.run(); // Executes: restartCallback.run();
+                inputManager.resetRestart(); // Executes: inputManager.resetRestart();
+            } // Closes a code block.
+            return; // Returns a value from the method.
+        } // Closes a code block.
 
-            // clamp camera to map
-            camera.setPosition( // Executes: camera.setPosition(
-                    clamp(camera.getX(), 0, tileMap.getWidthInPixels() - camera.getViewWidth()), // Executes: clamp(camera.getX(), 0, tileMap.getWidthInPixels() - camera.getViewWidth()),
-                    clamp(camera.getY(), 0, tileMap.getHeightInPixels() - camera.getViewHeight()) // Executes: clamp(camera.getY(), 0, tileMap.getHeightInPixels() - camera.getViewHeight())
-            ); // Executes: );
+        double alpha = simThread.alphaAt(now, snapshot);
+        if (player != null) { // Begins a method or constructor with its signature.
+            player.showSnapshot(frameTime, snapshot.getPlayerRenderX(alpha), snapshot.getPlayerRenderY(alpha), // Executes: player.showSnapshot(frameTime, snapshot.getPlayerRenderX(alpha), snapshot.getPlayerRenderY(alpha),
+                    snapshot.getPlayerVelocityX(), snapshot.isPlayerOnGround()); // Executes: snapshot.getPlayerVelocityX(), snapshot.isPlayerOnGround());
+        } // Closes a code block.
+        if (renderer != null) { // Begins a method or constructor with its signature.
+            PlayerState box = simulation.getPlayer(); // Only its fixed size is read here // Executes: PlayerState box = simulation.getPlayer(); // Only its fixed size is read here
+            renderer.getEffects().update(frameTime, snapshot.getPlayerRenderX(alpha), snapshot.getPlayerRenderY(alpha), // Executes: renderer.getEffects().update(frameTime, snapshot.getPlayerRenderX(alpha), snapshot.getPlayerRenderY(alpha),
+                    box.getWidth(), box.getHeight(), snapshot.isPlayerOnGround()); // Executes: box.getWidth(), box.getHeight(), snapshot.isPlayerOnGround());
+        } // Closes a code block.
+        // Move the layer to this frame's view before drawing, like the single-threaded loop
+        if (worldLayer != null && renderer != null && snapshot.isCaptured()) { // Begins a method or constructor with its signature.
+            Camera view = renderer.placeSnapshotCamera(snapshot, alpha);
+            worldLayer.setTranslateX(-view.getOffsetX()); // Executes: worldLayer.setTranslateX(-view.getOffsetX());
+            worldLayer.setTranslateY(-view.getOffsetY()); // Executes: worldLayer.setTranslateY(-view.getOffsetY());
         } // Closes a code block.
+        if (gc != null && renderer != null) { // Begins a method or constructor with its signature.
+            gc.clearRect(0, 0, windowWidth, windowHeight); // Executes: gc.clearRect(0, 0, windowWidth, windowHeight);
+            renderer.render(gc, snapshot, alpha); // Executes: renderer.render(gc, snapshot, alpha);
+        } // Closes a code block.
+    } // Closes a code block.
 
-        player.tick(dt); // Executes: player.tick(dt);
+    /**
+     * Seconds the effects took to update and record on the last frame drawn, which falls inside
+     * the frame time just measured.
+     */
+    private double lastEffectsTime() { // Begins a method or constructor with its signature.
+        if (renderer == null) return 0; // Evaluates a conditional branch.
+        EffectManager effects = renderer.getEffects();
+        return (effects.getLastUpdateNanos() + effects.getLastRecordNanos()) / 1_000_000_000.0; // Returns a value from the method.
+    } // Closes a code block.
 
-        // ========= UPDATE WORLD (coins/powerups/score) =========
-        if (world != null) world.update(dt); // Evaluates a conditional branch.
+    /**
+     * Sizes the canvas to the current scale, stretches it back to the window and scales drawing
+     * to match, so the renderers keep working in window coordinates.
+     */
+    private void applyResolutionScale() { // Begins a method or constructor with its signature.
+        if (gc == null) return; // Evaluates a conditional branch.
+        double scale = scaler != null ? scaler.getScale() : 1.0;
+        Canvas canvas = gc.getCanvas();
+        canvas.setWidth(Math.ceil(windowWidth * scale)); // Executes: canvas.setWidth(Math.ceil(windowWidth * scale));
+        canvas.setHeight(Math.ceil(windowHeight * scale)); // Executes: canvas.setHeight(Math.ceil(windowHeight * scale));
+        canvasStretch.setX(1 / scale); // Executes: canvasStretch.setX(1 / scale);
+        canvasStretch.setY(1 / scale); // Executes: canvasStretch.setY(1 / scale);
+        if (!canvas.getTransforms().contains(canvasStretch)) canvas.getTransforms().add(canvasStretch); // Evaluates a conditional branch.
+        gc.setTransform(scale, 0, 0, scale, 0, 0); // Executes: gc.setTransform(scale, 0, 0, scale, 0, 0);
+    } // Closes a code block.
+
+    private int nextInputBits() { // Begins a method or constructor with its signature.
+        int bits = inputScript != null // Executes: int bits = inputScript != null
+                ? inputScript.inputAt(simulation.getStepCount(), simulation.getPlayer()) // Executes: ? inputScript.inputAt(simulation.getStepCount(), simulation.getPlayer())
+                : inputManager.pollInputBits(); // Executes: : inputManager.pollInputBits();
+        if (recorder != null) recorder.record(bits); // Evaluates a conditional branch.
+        return bits;
+    } // Closes a code block.
+
+    /**
+     * @param alpha how far we are between the previous and the current simulation step (0..1)
+     */
+    private void render(double frameTime, double alpha) { // Begins a method or constructor with its signature.
+        if (player != null) player.syncVisual(frameTime, alpha); // Evaluates a conditional branch.
+        if (renderer != null) { // Begins a method or constructor with its signature.
+            PlayerState p = simulation.getPlayer();
+            renderer.getEffects().update(frameTime, p.getRenderX(alpha), p.getRenderY(alpha), // Executes: renderer.getEffects().update(frameTime, p.getRenderX(alpha), p.getRenderY(alpha),
+                    p.getWidth(), p.getHeight(), p.isOnGround()); // Executes: p.getWidth(), p.getHeight(), p.isOnGround());
+        } // Closes a code block.
+        camera.setRenderAlpha(alpha); // Executes: camera.setRenderAlpha(alpha);
 
         // ========= SYNC JAVA FX NODES WITH CAMERA =========
         // THIS is what makes collisions match what you see.
-        if (worldLayer != null && camera != null) { // Begins a method or constructor with its signature.
+        if (worldLayer != null) { // Begins a method or constructor with its signature.
             worldLayer.setTranslateX(-camera.getOffsetX()); // Executes: worldLayer.setTranslateX(-camera.getOffsetX());
             worldLayer.setTranslateY(-camera.getOffsetY()); // Executes: worldLayer.setTranslateY(-camera.getOffsetY());
         } // Closes a code block.
 
         // ========= RENDER CANVAS OVERLAY =========
-        if (gc != null && world != null) { // Begins a method or constructor with its signature.
+        if (gc != null && renderer != null) { // Begins a method or constructor with its signature.
             gc.clearRect(0, 0, windowWidth, windowHeight); // Executes: gc.clearRect(0, 0, windowWidth, windowHeight);
-            world.render(gc); // Executes: world.render(gc);
+            renderer.render(gc, alpha); // Executes: renderer.render(gc, alpha);
         } // Closes a code block.
     } // Closes a code block.
-
-    private static double clamp(double v, double min, double max) { // Begins a method or constructor with its signature.
-        if (max < min) return min; // Evaluates a conditional branch.
-        return Math.max(min, Math.min(max, v)); // Returns a value from the method.
-    } // Closes a code block.
 } // Closes a code block.
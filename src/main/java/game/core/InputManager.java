@@ -82,6 +82,21 @@ public class InputManager { // Defines a class.
         return restartPressed;
     } // Closes a code block.
 
+    /**
+     * Etat des touches pour un pas de simulation (bits Simulation.INPUT_*).
+     * Le saut est consommé comme avec resetJump().
+     */
+    public int pollInputBits() { // Begins a method or constructor with its signature.
+        int bits = 0;
+        if (leftPressed) bits |= Simulation.INPUT_LEFT; // Evaluates a conditional branch.
+        if (rightPressed) bits |= Simulation.INPUT_RIGHT; // Evaluates a conditional branch.
+        if (jumpPressed) { // Begins a method or constructor with its signature.
+            bits |= Simulation.INPUT_JUMP; // Executes: bits |= Simulation.INPUT_JUMP;
+            resetJump(); // Executes: resetJump();
+        } // Closes a code block.
+        return bits;
+    } // Closes a code block.
+
     // Reset jump (utilisé après avoir sauté)
     public void resetJump() { // Begins a method or constructor with its signature.
         jumpPressed = false; // Executes: jumpPressed = false;
@@ -0,0 +1,37 @@
+package game.core; // Declares the package for this source file.
+
+/**
+ * Supplies the input bits ({@link Simulation}.INPUT_*) for each simulation step of a headless run.
+ * Implementations may look at the player to react (a simple bot), but must not keep hidden
+ * random state, so the same script on the same level always gives the same run.
+ */
+@FunctionalInterface // Applies an annotation to the following element.
+public interface InputScript { // Begins a method or constructor with its signature.
+
+    /**
+     * @param step   0-based step index
+     * @param player the simulated player, read-only
+     * @return the INPUT_* bits held during this step
+     */
+    int inputAt(long step, PlayerState player); // Executes: int inputAt(long step, PlayerState player);
+
+    /**
+     * Stands still: useful as a baseline (enemies and gravity only).
+     */
+    static InputScript idle() { // Begins a method or constructor with its signature.
+        return (step, player) -> 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Holds right and jumps every jumpEvery steps, or whenever the player is stopped against a wall.
+     */
+    static InputScript runRight(int jumpEvery) { // Begins a method or constructor with its signature.
+        int period = Math.max(1, jumpEvery);
+        return (step, player) -> { // Begins a method or constructor with its signature.
+            int bits = Simulation.INPUT_RIGHT;
+            boolean blocked = step > 0 && player.isOnGround() && player.getVelocityX() == 0;
+            if (step % period == 0 || blocked) bits |= Simulation.INPUT_JUMP; // Evaluates a conditional branch.
+            return bits;
+        }; // Executes: };
+    } // Closes a code block.
+} // Closes a code block.
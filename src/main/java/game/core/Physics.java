@@ -1,6 +1,7 @@
 package game.core; // Declares the package for this source file.
 
 import game.systems.TileMap;
+import game.utils.Constants;
 
 public class Physics { // Defines a class.
 
@@ -8,7 +9,7 @@ public class Physics { // Defines a class.
     private static final double SKIN = 0.01;
 
     // Max fall speed (Terminal Velocity) to prevent falling through floors
-    private static final double MAX_FALL_SPEED = 1500.0; // High value for pixels // Executes: private static final double MAX_FALL_SPEED = 1500.0; // High value for pixels
+    private static final double MAX_FALL_SPEED = Constants.MAX_FALL_SPEED; // High value for pixels // Executes: private static final double MAX_FALL_SPEED = Constants.MAX_FALL_SPEED; // High value for pixels
 
     // Physics simulation step size (prevents tunneling through walls)
     private static final double MAX_STEP_SIZE = TileMap.TILE_SIZE / 2.0;
@@ -16,8 +17,10 @@ public class Physics { // Defines a class.
     /**
      * Main physics entry point.
      * Handles Gravity, Velocity, and Map Collisions.
+     * The whole frame's motion is swept against the tile grid in one pass per axis (X then Y),
+     * so even a terminal-velocity fall during a lag frame can't skip over a tile.
      */
-    public static void moveAndCollide(Player p, TileMap map, double dt) { // Begins a method or constructor with its signature.
+    public static void moveAndCollide(PlayerState p, TileMap map, double dt) { // Begins a method or constructor with its signature.
         if (p == null || map == null) return; // Evaluates a conditional branch.
 
         // 1. Apply Gravity
@@ -29,6 +32,29 @@ public class Physics { // Defines a class.
             p.setVelocityY(MAX_FALL_SPEED); // Executes: p.setVelocityY(MAX_FALL_SPEED);
         } // Closes a code block.
 
+        // Reset ground state at the start of the frame
+        p.setOnGround(false); // Executes: p.setOnGround(false);
+
+        // 2. Sweep each axis once over every tile the leading edge crosses
+        sweepX(p, map, p.getVelocityX() * dt); // Executes: sweepX(p, map, p.getVelocityX() * dt);
+        sweepY(p, map, p.getVelocityY() * dt); // Executes: sweepY(p, map, p.getVelocityY() * dt);
+    } // Closes a code block.
+
+    /**
+     * The previous solver: splits the motion into sub-steps of at most MAX_STEP_SIZE and resolves
+     * X then Y after each one. Kept as the reference for PhysicsBenchmark.
+     */
+    public static void moveAndCollideSubstep(PlayerState p, TileMap map, double dt) { // Begins a method or constructor with its signature.
+        if (p == null || map == null) return; // Evaluates a conditional branch.
+
+        // 1. Apply Gravity
+        p.applyGravity(dt); // Executes: p.applyGravity(dt);
+
+        // Clamp falling speed so we don't fall through the world
+        if (p.getVelocityY() > MAX_FALL_SPEED) { // Begins a method or constructor with its signature.
+            p.setVelocityY(MAX_FALL_SPEED); // Executes: p.setVelocityY(MAX_FALL_SPEED);
+        } // Closes a code block.
+
         // 2. Determine sub-steps for safety
         double totalDx = p.getVelocityX() * dt;
         double totalDy = p.getVelocityY() * dt;
@@ -55,7 +81,105 @@ public class Physics { // Defines a class.
         } // Closes a code block.
     } // Closes a code block.
 
-    private static void resolveX(Player p, TileMap map, double dx) { // Begins a method or constructor with its signature.
+    /**
+     * Moves by dx, stopping against the first solid column the leading edge reaches.
+     */
+    private static void sweepX(PlayerState p, TileMap map, double dx) { // Begins a method or constructor with its signature.
+        if (dx == 0) return; // Evaluates a conditional branch.
+
+        int topTile = getTileIdx(p.getPlayerY() + SKIN);
+        int bottomTile = getTileIdx(p.getPlayerY() + p.getHeight() - SKIN);
+
+        // Moving Right: test columns from the current right edge to where it ends up
+        if (dx > 0) { // Begins a method or constructor with its signature.
+            double edge = p.getPlayerX() + p.getWidth() - SKIN;
+            int lastCol = getTileIdx(edge + dx);
+            for (int tx = getTileIdx(edge); tx <= lastCol; tx++) { // Begins a method or constructor with its signature.
+                if (isColumnSolid(map, tx, topTile, bottomTile)) { // Begins a method or constructor with its signature.
+                    p.setPlayerX((tx * TileMap.TILE_SIZE) - p.getWidth() - SKIN); // Executes: p.setPlayerX((tx * TileMap.TILE_SIZE) - p.getWidth() - SKIN);
+                    p.setVelocityX(0); // Executes: p.setVelocityX(0);
+                    return; // Returns a value from the method.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        // Moving Left
+        else { // Handles the fallback branch.
+            double edge = p.getPlayerX() + SKIN;
+            int lastCol = getTileIdx(edge + dx);
+            for (int tx = getTileIdx(edge); tx >= lastCol; tx--) { // Begins a method or constructor with its signature.
+                if (isColumnSolid(map, tx, topTile, bottomTile)) { // Begins a method or constructor with its signature.
+                    p.setPlayerX((tx + 1) * TileMap.TILE_SIZE + SKIN); // Executes: p.setPlayerX((tx + 1) * TileMap.TILE_SIZE + SKIN);
+                    p.setVelocityX(0); // Executes: p.setVelocityX(0);
+                    return; // Returns a value from the method.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        p.setPlayerX(p.getPlayerX() + dx); // Executes: p.setPlayerX(p.getPlayerX() + dx);
+    } // Closes a code block.
+
+    /**
+     * Moves by dy, landing on the first solid row below or stopping under the first one above
+     * (after trying applyCornerCorrection, like the sub-step solver).
+     */
+    private static void sweepY(PlayerState p, TileMap map, double dy) { // Begins a method or constructor with its signature.
+        int leftTile = getTileIdx(p.getPlayerX() + SKIN);
+        int rightTile = getTileIdx(p.getPlayerX() + p.getWidth() - SKIN);
+
+        // Falling / Moving Down / Standing
+        if (dy >= 0) { // Begins a method or constructor with its signature.
+            double edge = p.getPlayerY() + p.getHeight() - SKIN;
+            int lastRow = getTileIdx(edge + dy);
+            for (int ty = getTileIdx(edge); ty <= lastRow; ty++) { // Begins a method or constructor with its signature.
+                if (isRowSolid(map, ty, leftTile, rightTile)) { // Begins a method or constructor with its signature.
+                    // Snap to top of the block
+                    p.setPlayerY((ty * TileMap.TILE_SIZE) - p.getHeight() - SKIN); // Executes: p.setPlayerY((ty * TileMap.TILE_SIZE) - p.getHeight() - SKIN);
+                    p.setVelocityY(0); // Executes: p.setVelocityY(0);
+                    p.setOnGround(true); // Critical: We found the floor // Executes: p.setOnGround(true); // Critical: We found the floor
+                    return; // Returns a value from the method.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        // Jumping / Moving Up
+        else { // Handles the fallback branch.
+            double edge = p.getPlayerY() + SKIN;
+            int lastRow = getTileIdx(edge + dy);
+            boolean corrected = false;
+            for (int ty = getTileIdx(edge); ty >= lastRow; ty--) { // Begins a method or constructor with its signature.
+                for (int tx = leftTile; tx <= rightTile; tx++) { // Begins a method or constructor with its signature.
+                    if (!map.isSolidTile(tx, ty)) continue; // Evaluates a conditional branch.
+
+                    // Try to slide around the corner first (once per move), then keep rising with the new span
+                    if (!corrected && applyCornerCorrection(p, map, tx, ty, leftTile, rightTile)) { // Begins a method or constructor with its signature.
+                        corrected = true; // Executes: corrected = true;
+                        leftTile = getTileIdx(p.getPlayerX() + SKIN); // Executes: leftTile = getTileIdx(p.getPlayerX() + SKIN);
+                        rightTile = getTileIdx(p.getPlayerX() + p.getWidth() - SKIN); // Executes: rightTile = getTileIdx(p.getPlayerX() + p.getWidth() - SKIN);
+                        if (!isRowSolid(map, ty, leftTile, rightTile)) break; // Evaluates a conditional branch.
+                    } // Closes a code block.
+                    // Hit ceiling
+                    p.setPlayerY((ty + 1) * TileMap.TILE_SIZE + SKIN); // Executes: p.setPlayerY((ty + 1) * TileMap.TILE_SIZE + SKIN);
+                    p.setVelocityY(0); // Executes: p.setVelocityY(0);
+                    return; // Returns a value from the method.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        p.setPlayerY(p.getPlayerY() + dy); // Executes: p.setPlayerY(p.getPlayerY() + dy);
+    } // Closes a code block.
+
+    private static boolean isColumnSolid(TileMap map, int tx, int topTile, int bottomTile) { // Begins a method or constructor with its signature.
+        for (int ty = topTile; ty <= bottomTile; ty++) { // Begins a method or constructor with its signature.
+            if (map.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    private static boolean isRowSolid(TileMap map, int ty, int leftTile, int rightTile) { // Begins a method or constructor with its signature.
+        for (int tx = leftTile; tx <= rightTile; tx++) { // Begins a method or constructor with its signature.
+            if (map.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    private static void resolveX(PlayerState p, TileMap map, double dx) { // Begins a method or constructor with its signature.
         p.setPlayerX(p.getPlayerX() + dx); // Executes: p.setPlayerX(p.getPlayerX() + dx);
 
         int leftTile = getTileIdx(p.getPlayerX() + SKIN);
@@ -85,7 +209,7 @@ public class Physics { // Defines a class.
         } // Closes a code block.
     } // Closes a code block.
 
-    private static void resolveY(Player p, TileMap map, double dy) { // Begins a method or constructor with its signature.
+    private static void resolveY(PlayerState p, TileMap map, double dy) { // Begins a method or constructor with its signature.
         p.setPlayerY(p.getPlayerY() + dy); // Executes: p.setPlayerY(p.getPlayerY() + dy);
 
         int leftTile = getTileIdx(p.getPlayerX() + SKIN);
@@ -126,19 +250,25 @@ public class Physics { // Defines a class.
      * Compatibility method for your GameLoop.
      * Keeps player from falling if they walk off the TileMap onto the "Ground" object.
      */
-    public static void checkGroundCollision(Player player, Ground ground) { // Begins a method or constructor with its signature.
+    public static void checkGroundCollision(PlayerState player, Ground ground) { // Begins a method or constructor with its signature.
         if (ground == null) return; // Evaluates a conditional branch.
 
+        checkGroundCollision(player, // Executes: checkGroundCollision(player,
+                ground.getRectangle().getX(), // Executes: ground.getRectangle().getX(),
+                ground.getRectangle().getY(), // Executes: ground.getRectangle().getY(),
+                ground.getRectangle().getWidth(), // Executes: ground.getRectangle().getWidth(),
+                ground.getRectangle().getHeight()); // Executes: ground.getRectangle().getHeight());
+    } // Closes a code block.
+
+    /**
+     * Same as above for a ground plane given as plain bounds (headless simulation has no Ground node).
+     */
+    public static void checkGroundCollision(PlayerState player, double gX, double gY, double gW, double gH) { // Begins a method or constructor with its signature.
         double pX = player.getPlayerX();
         double pY = player.getPlayerY();
         double pW = player.getWidth();
         double pH = player.getHeight();
 
-        double gX = ground.getRectangle().getX();
-        double gY = ground.getRectangle().getY();
-        double gW = ground.getRectangle().getWidth();
-        double gH = ground.getRectangle().getHeight();
-
         // Simple AABB overlap check
         boolean overlap = pX < gX + gW && pX + pW > gX && // Executes: boolean overlap = pX < gX + gW && pX + pW > gX &&
                 pY < gY + gH && pY + pH > gY; // Executes: pY < gY + gH && pY + pH > gY;
@@ -155,7 +285,7 @@ public class Physics { // Defines a class.
      * Nudges the player sideways if they hit the corner of a block with their head,
      * allowing them to slide up instead of stopping dead.
      */
-    private static boolean applyCornerCorrection(Player p, TileMap map, int hitTileX, int hitTileY, int leftTile, int rightTile) { // Begins a method or constructor with its signature.
+    private static boolean applyCornerCorrection(PlayerState p, TileMap map, int hitTileX, int hitTileY, int leftTile, int rightTile) { // Begins a method or constructor with its signature.
         double overlapAmount = 10.0; // Pixels of leniency // Executes: double overlapAmount = 10.0; // Pixels of leniency
         double playerCenterX = p.getPlayerX() + (p.getWidth() / 2.0);
         double tileCenterX = (hitTileX * TileMap.TILE_SIZE) + (TileMap.TILE_SIZE / 2.0);
@@ -0,0 +1,213 @@
+package game.core; // Declares the package for this source file.
+
+import game.utils.Theme;
+
+/**
+ * Pure simulation state of the player: position, velocity, grounded flag, movement tuning
+ * and jump leniency timers. Has no JavaFX nodes, so it can be stepped in a plain JVM
+ * (headless runs, bots, benchmarks). {@link Player} adds the on-screen sprite on top.
+ */
+public class PlayerState { // Defines a class.
+
+    // -------------------------
+    // Position & size
+    // -------------------------
+    private double x;
+    private double y;
+    // Position before the last fixed simulation step (for interpolated drawing)
+    private double prevX;
+    private double prevY;
+    public static final double WIDTH = 74;   // bigger and clearer silhouette // Executes: public static final double WIDTH = 74;   // bigger and clearer silhouette
+    public static final double HEIGHT = 74;  // taller box for more readable collisions // Executes: public static final double HEIGHT = 74;  // taller box for more readable collisions
+
+    // -------------------------
+    // Physics
+    // -------------------------
+    private double velocityX = 0;
+    private double velocityY = 0;
+
+    private boolean onGround = false;
+
+    // -------------------------
+    // Tunable constants (feel)
+    // -------------------------
+    private static final double BASE_MOVE_SPEED = 280;     // faster // Executes: private static final double BASE_MOVE_SPEED = 280;     // faster
+    private static final double BASE_GRAVITY = 1100;       // a bit lighter fall // Executes: private static final double BASE_GRAVITY = 1100;       // a bit lighter fall
+    private static final double BASE_JUMP_FORCE = -620;    // higher jump // Executes: private static final double BASE_JUMP_FORCE = -620;    // higher jump
+
+    private double moveSpeed = BASE_MOVE_SPEED;
+    private double gravity = BASE_GRAVITY;
+    private double jumpForce = BASE_JUMP_FORCE;
+
+    // Jump leniency / buffering
+    private static final double COYOTE_TIME = 0.14;
+    private static final double JUMP_BUFFER = 0.16;
+    private double coyoteTimer = 0;
+    private double jumpBufferTimer = 0;
+
+    // -------------------------
+    // Constructor
+    // -------------------------
+    public PlayerState(double startX, double startY) { // Begins a method or constructor with its signature.
+        this.x = startX; // Executes: this.x = startX;
+        this.y = startY; // Executes: this.y = startY;
+        this.prevX = startX; // Executes: this.prevX = startX;
+        this.prevY = startY; // Executes: this.prevY = startY;
+    } // Closes a code block.
+
+    // -------------------------
+    // Movement input
+    // -------------------------
+    public void moveLeft() { // Begins a method or constructor with its signature.
+        velocityX = -moveSpeed; // Executes: velocityX = -moveSpeed;
+    } // Closes a code block.
+
+    public void moveRight() { // Begins a method or constructor with its signature.
+        velocityX = moveSpeed; // Executes: velocityX = moveSpeed;
+    } // Closes a code block.
+
+    public void stopX() { // Begins a method or constructor with its signature.
+        velocityX = 0; // Executes: velocityX = 0;
+    } // Closes a code block.
+
+    public void jump() { // Begins a method or constructor with its signature.
+        jumpBufferTimer = JUMP_BUFFER; // Executes: jumpBufferTimer = JUMP_BUFFER;
+        tryConsumeBufferedJump(); // Attempts operations that might throw exceptions.
+    } // Closes a code block.
+
+    // -------------------------
+    // World bounds (WORLD width, not screen)
+    // -------------------------
+    public void constrainToBounds(double worldWidth) { // Begins a method or constructor with its signature.
+        if (x < 0) { // Begins a method or constructor with its signature.
+            x = 0; // Executes: x = 0;
+        } // Closes a code block.
+        if (x + WIDTH > worldWidth) { // Begins a method or constructor with its signature.
+            x = worldWidth - WIDTH; // Executes: x = worldWidth - WIDTH;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // -------------------------
+    // Collision helpers
+    // -------------------------
+    public void landOn(double groundY) { // Begins a method or constructor with its signature.
+        y = groundY - HEIGHT; // Executes: y = groundY - HEIGHT;
+        velocityY = 0; // Executes: velocityY = 0;
+        onGround = true; // Executes: onGround = true;
+    } // Closes a code block.
+
+    public void hitCeiling(double ceilingY) { // Begins a method or constructor with its signature.
+        y = ceilingY; // Executes: y = ceilingY;
+        velocityY = 0; // Executes: velocityY = 0;
+    } // Closes a code block.
+
+    public void applyGravity(double dt) { // Begins a method or constructor with its signature.
+        velocityY += gravity * dt; // Executes: velocityY += gravity * dt;
+    } // Closes a code block.
+
+    public void tick(double dt) { // Begins a method or constructor with its signature.
+        if (onGround) { // Begins a method or constructor with its signature.
+            coyoteTimer = COYOTE_TIME; // Executes: coyoteTimer = COYOTE_TIME;
+        } else { // Executes: } else {
+            coyoteTimer = Math.max(0, coyoteTimer - dt); // Executes: coyoteTimer = Math.max(0, coyoteTimer - dt);
+        } // Closes a code block.
+
+        if (jumpBufferTimer > 0) { // Begins a method or constructor with its signature.
+            jumpBufferTimer = Math.max(0, jumpBufferTimer - dt); // Executes: jumpBufferTimer = Math.max(0, jumpBufferTimer - dt);
+        } // Closes a code block.
+
+        if (Math.abs(velocityX) < 10 && onGround) { // Begins a method or constructor with its signature.
+            velocityX = 0; // Executes: velocityX = 0;
+        } // Closes a code block.
+
+        tryConsumeBufferedJump(); // Attempts operations that might throw exceptions.
+    } // Closes a code block.
+
+    public void applyTheme(Theme theme) { // Begins a method or constructor with its signature.
+        moveSpeed = BASE_MOVE_SPEED * theme.getMoveScale(); // Executes: moveSpeed = BASE_MOVE_SPEED * theme.getMoveScale();
+        gravity = BASE_GRAVITY * theme.getGravityScale(); // Executes: gravity = BASE_GRAVITY * theme.getGravityScale();
+        jumpForce = BASE_JUMP_FORCE * theme.getJumpScale(); // Executes: jumpForce = BASE_JUMP_FORCE * theme.getJumpScale();
+    } // Closes a code block.
+
+    private void tryConsumeBufferedJump() { // Begins a method or constructor with its signature.
+        if (jumpBufferTimer > 0 && (onGround || coyoteTimer > 0)) { // Begins a method or constructor with its signature.
+            velocityY = jumpForce; // Executes: velocityY = jumpForce;
+            onGround = false; // Executes: onGround = false;
+            coyoteTimer = 0; // Executes: coyoteTimer = 0;
+            jumpBufferTimer = 0; // Executes: jumpBufferTimer = 0;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // -------------------------
+    // Interpolation (fixed-timestep rendering)
+    // -------------------------
+    public void storePreviousPosition() { // Begins a method or constructor with its signature.
+        prevX = x; // Executes: prevX = x;
+        prevY = y; // Executes: prevY = y;
+    } // Closes a code block.
+
+    /**
+     * X to draw at, blended between the previous and current simulation step (alpha 0..1).
+     */
+    public double getRenderX(double alpha) { // Begins a method or constructor with its signature.
+        return prevX + (x - prevX) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getRenderY(double alpha) { // Begins a method or constructor with its signature.
+        return prevY + (y - prevY) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+    public double getPlayerX() { // Begins a method or constructor with its signature.
+        return x;
+    } // Closes a code block.
+
+    public double getPlayerY() { // Begins a method or constructor with its signature.
+        return y;
+    } // Closes a code block.
+
+    public double getWidth() { // Begins a method or constructor with its signature.
+        return WIDTH;
+    } // Closes a code block.
+
+    public double getHeight() { // Begins a method or constructor with its signature.
+        return HEIGHT;
+    } // Closes a code block.
+
+    public double getVelocityX() { // Begins a method or constructor with its signature.
+        return velocityX;
+    } // Closes a code block.
+
+    public double getVelocityY() { // Begins a method or constructor with its signature.
+        return velocityY;
+    } // Closes a code block.
+
+    public boolean isOnGround() { // Begins a method or constructor with its signature.
+        return onGround;
+    } // Closes a code block.
+
+    // -------------------------
+    // Setters (USED BY PHYSICS & RESPAWN)
+    // -------------------------
+    public void setPlayerX(double x) { // Begins a method or constructor with its signature.
+        this.x = x; // Executes: this.x = x;
+    } // Closes a code block.
+
+    public void setPlayerY(double y) { // Begins a method or constructor with its signature.
+        this.y = y; // Executes: this.y = y;
+    } // Closes a code block.
+
+    public void setVelocityX(double vx) { // Begins a method or constructor with its signature.
+        this.velocityX = vx; // Executes: this.velocityX = vx;
+    } // Closes a code block.
+
+    public void setVelocityY(double vy) { // Begins a method or constructor with its signature.
+        this.velocityY = vy; // Executes: this.velocityY = vy;
+    } // Closes a code block.
+
+    public void setOnGround(boolean onGround) { // Begins a method or constructor with its signature.
+        this.onGround = onGround; // Executes: this.onGround = onGround;
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,252 @@
+package game.core; // Declares the package for this source file.
+
+import game.utils.Theme;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A recorded level attempt: the level and spawn seeds plus the input bits of every fixed step.
+ * Feeding it back to a {@link Simulation} built from the same seeds reproduces the run bit for bit,
+ * which {@link #getFinalStateHash()} lets playback verify.
+ *
+ * <p>File layout (big-endian): magic "BBRP", version, difficulty, level seed, spawn seed, theme name,
+ * sim rate, step count, final state hash, then the inputs as run-length pairs (varint length, bits byte),
+ * closed by a CRC32 of everything before it. Holding right for a minute costs two bytes.
+ *
+ * <p>Command line: {@code Replay <file> [copies] [threads]} plays the file headless at full speed,
+ * checks the final state and prints steps/s; extra copies turn it into a batch workload.
+ */
+public class Replay implements InputScript { // Defines a class.
+
+    private static final int MAGIC = 0x42425250; // "BBRP" // Executes: private static final int MAGIC = 0x42425250; // "BBRP"
+    // 2: the state hash also covers enemies and pickups, so version 1 hashes no longer match
+    private static final int VERSION = 2;
+
+    private final int difficulty;
+    private final long levelSeed;
+    private final long spawnSeed;
+    private final Theme theme;
+    private final double simRate;
+    private final byte[] inputs;
+    private final long finalStateHash;
+
+    Replay(int difficulty, long levelSeed, long spawnSeed, Theme theme, double simRate, // Executes: Replay(int difficulty, long levelSeed, long spawnSeed, Theme theme, double simRate,
+           byte[] inputs, long finalStateHash) { // Executes: byte[] inputs, long finalStateHash) {
+        this.difficulty = difficulty; // Executes: this.difficulty = difficulty;
+        this.levelSeed = levelSeed; // Executes: this.levelSeed = levelSeed;
+        this.spawnSeed = spawnSeed; // Executes: this.spawnSeed = spawnSeed;
+        this.theme = theme; // Executes: this.theme = theme;
+        this.simRate = simRate; // Executes: this.simRate = simRate;
+        this.inputs = inputs; // Executes: this.inputs = inputs;
+        this.finalStateHash = finalStateHash; // Executes: this.finalStateHash = finalStateHash;
+    } // Closes a code block.
+
+    /**
+     * Recorded bits for the step; nothing pressed once the recording has run out.
+     */
+    @Override // Applies an annotation to the following element.
+    public int inputAt(long step, PlayerState player) { // Begins a method or constructor with its signature.
+        return step < inputs.length ? inputs[(int) step] : 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * A batch job that plays this replay from start to its last recorded step.
+     */
+    public SimulationJob toJob(String name) { // Begins a method or constructor with its signature.
+        return new SimulationJob(name, difficulty, levelSeed, spawnSeed, theme, this, simRate, inputs.length); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Where the game keeps the latest attempt of each level.
+     */
+    public static Path defaultDirectory() { // Begins a method or constructor with its signature.
+        return Path.of(System.getProperty("user.home"), ".bb-mario", "replays"); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Binary file
+    // -------------------------
+
+    /**
+     * Writes to a temp file next to the target and renames it, so a crash never leaves half a replay.
+     */
+    public void write(Path file) throws IOException { // Begins a method or constructor with its signature.
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir); // Executes: Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try { // Attempts operations that might throw exceptions.
+            try (OutputStream out = Files.newOutputStream(tmp)) { // Attempts operations that might throw exceptions.
+                writeTo(out); // Executes: writeTo(out);
+            } // Closes a code block.
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Executes: Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally { // Begins a method or constructor with its signature.
+            Files.deleteIfExists(tmp); // Executes: Files.deleteIfExists(tmp);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public void writeTo(OutputStream stream) throws IOException { // Begins a method or constructor with its signature.
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+
+        out.writeInt(MAGIC); // Executes: out.writeInt(MAGIC);
+        out.writeByte(VERSION); // Executes: out.writeByte(VERSION);
+        out.writeInt(difficulty); // Executes: out.writeInt(difficulty);
+        out.writeLong(levelSeed); // Executes: out.writeLong(levelSeed);
+        out.writeLong(spawnSeed); // Executes: out.writeLong(spawnSeed);
+        out.writeUTF(theme.name()); // Executes: out.writeUTF(theme.name());
+        out.writeDouble(simRate); // Executes: out.writeDouble(simRate);
+        out.writeInt(inputs.length); // Executes: out.writeInt(inputs.length);
+        out.writeLong(finalStateHash); // Executes: out.writeLong(finalStateHash);
+
+        int i = 0;
+        while (i < inputs.length) { // Begins a method or constructor with its signature.
+            byte bits = inputs[i];
+            int run = 1;
+            while (i + run < inputs.length && inputs[i + run] == bits) run++; // Executes: while (i + run < inputs.length && inputs[i + run] == bits) run++;
+            writeVarInt(out, run); // Executes: writeVarInt(out, run);
+            out.writeByte(bits); // Executes: out.writeByte(bits);
+            i += run; // Executes: i += run;
+        } // Closes a code block.
+
+        out.flush(); // Executes: out.flush();
+        int crc = (int) checked.getChecksum().getValue();
+        out.writeInt(crc); // Executes: out.writeInt(crc);
+        out.flush(); // Executes: out.flush();
+    } // Closes a code block.
+
+    public static Replay read(Path file) throws IOException { // Begins a method or constructor with its signature.
+        try (InputStream in = Files.newInputStream(file)) { // Attempts operations that might throw exceptions.
+            return readFrom(in); // Returns a value from the method.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public static Replay readFrom(InputStream stream) throws IOException { // Begins a method or constructor with its signature.
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(stream), new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+
+        if (in.readInt() != MAGIC) throw new IOException("Not a replay file"); // Evaluates a conditional branch.
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported replay version " + version); // Evaluates a conditional branch.
+
+        int difficulty = in.readInt();
+        long levelSeed = in.readLong();
+        long spawnSeed = in.readLong();
+        Theme theme;
+        try { // Attempts operations that might throw exceptions.
+            theme = Theme.valueOf(in.readUTF()); // Executes: theme = Theme.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) { // Begins a method or constructor with its signature.
+            throw new IOException("Unknown theme in replay", e); // Throws an exception.
+        } // Closes a code block.
+        double simRate = in.readDouble();
+        int steps = in.readInt();
+        long finalStateHash = in.readLong();
+        if (steps < 0 || !(simRate > 0)) throw new IOException("Corrupt replay header"); // Evaluates a conditional branch.
+
+        byte[] inputs = new byte[steps];
+        int i = 0;
+        while (i < steps) { // Begins a method or constructor with its signature.
+            int run = readVarInt(in);
+            byte bits = in.readByte();
+            if (run <= 0 || run > steps - i) throw new IOException("Corrupt replay input run"); // Evaluates a conditional branch.
+            Arrays.fill(inputs, i, i + run, bits); // Executes: Arrays.fill(inputs, i, i + run, bits);
+            i += run; // Executes: i += run;
+        } // Closes a code block.
+
+        int expectedCrc = (int) checked.getChecksum().getValue();
+        if (in.readInt() != expectedCrc) throw new IOException("Replay checksum mismatch"); // Evaluates a conditional branch.
+
+        return new Replay(difficulty, levelSeed, spawnSeed, theme, simRate, inputs, finalStateHash); // Returns a value from the method.
+    } // Closes a code block.
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException { // Begins a method or constructor with its signature.
+        while ((value & ~0x7F) != 0) { // Begins a method or constructor with its signature.
+            out.writeByte((value & 0x7F) | 0x80); // Executes: out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7; // Executes: value >>>= 7;
+        } // Closes a code block.
+        out.writeByte(value); // Executes: out.writeByte(value);
+    } // Closes a code block.
+
+    private static int readVarInt(DataInputStream in) throws IOException { // Begins a method or constructor with its signature.
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) { // Begins a method or constructor with its signature.
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift; // Executes: value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value; // Evaluates a conditional branch.
+        } // Closes a code block.
+        throw new EOFException("Varint too long"); // Throws an exception.
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+    public int getDifficulty() { // Begins a method or constructor with its signature.
+        return difficulty;
+    } // Closes a code block.
+
+    public long getLevelSeed() { // Begins a method or constructor with its signature.
+        return levelSeed;
+    } // Closes a code block.
+
+    public long getSpawnSeed() { // Begins a method or constructor with its signature.
+        return spawnSeed;
+    } // Closes a code block.
+
+    public Theme getTheme() { // Begins a method or constructor with its signature.
+        return theme;
+    } // Closes a code block.
+
+    public double getSimRate() { // Begins a method or constructor with its signature.
+        return simRate;
+    } // Closes a code block.
+
+    public int getStepCount() { // Begins a method or constructor with its signature.
+        return inputs.length;
+    } // Closes a code block.
+
+    public long getFinalStateHash() { // Begins a method or constructor with its signature.
+        return finalStateHash;
+    } // Closes a code block.
+
+    public static void main(String[] args) throws IOException { // Begins a method or constructor with its signature.
+        if (args.length < 1) { // Begins a method or constructor with its signature.
+            System.out.println("Usage: Replay <file> [copies] [threads]"); // Executes: System.out.println("Usage: Replay <file> [copies] [threads]");
+            System.exit(2); // Executes: System.exit(2);
+        } // Closes a code block.
+        Replay replay = read(Path.of(args[0]));
+        int copies = args.length > 1 ? Math.max(1, Integer.parseInt(args[1])) : 1;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<SimulationJob> jobs = new ArrayList<>();
+        for (int i = 0; i < copies; i++) { // Begins a method or constructor with its signature.
+            jobs.add(replay.toJob("replay-" + (i + 1))); // Executes: jobs.add(replay.toJob("replay-" + (i + 1)));
+        } // Closes a code block.
+        BatchRunner.Report report = new BatchRunner(threads).run(jobs);
+
+        int mismatches = 0;
+        for (SimulationResult r : report.getResults()) { // Begins a method or constructor with its signature.
+            if (r.isFailure() || r.getStateHash() != replay.getFinalStateHash()) mismatches++; // Evaluates a conditional branch.
+        } // Closes a code block.
+        System.out.println("Level " + replay.getDifficulty() + ", " + replay.getStepCount() + " steps @ " // Executes: System.out.println("Level " + replay.getDifficulty() + ", " + replay.getStepCount() + " steps @ "
+                + replay.getSimRate() + " Hz: " + report.getResults().get(0)); // Executes: + replay.getSimRate() + " Hz: " + report.getResults().get(0));
+        System.out.println(report.summary()); // Executes: System.out.println(report.summary());
+        System.out.println(mismatches == 0 ? "Replay verified: final state matches the recording" // Executes: System.out.println(mismatches == 0 ? "Replay verified: final state matches the recording"
+                : mismatches + " playback(s) DIVERGED from the recording"); // Executes: : mismatches + " playback(s) DIVERGED from the recording");
+        if (mismatches > 0) System.exit(1); // Evaluates a conditional branch.
+    } // Closes a code block.
+} // Closes a code block.
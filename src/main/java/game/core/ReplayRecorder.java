@@ -0,0 +1,53 @@
+package game.core; // Declares the package for this source file.
+
+import game.utils.Theme;
+
+import java.util.Arrays;
+
+/**
+ * Collects the input bits of every simulation step of one level attempt.
+ * Recording is one array store per step; the array only grows (doubling) every few thousand steps.
+ */
+public class ReplayRecorder { // Defines a class.
+
+    private final int difficulty;
+    private final long levelSeed;
+    private final long spawnSeed;
+    private final Theme theme;
+    private final double simRate;
+
+    private byte[] inputs = new byte[4096];
+    private int count = 0;
+
+    public ReplayRecorder(int difficulty, long levelSeed, long spawnSeed, Theme theme, double simRate) { // Begins a method or constructor with its signature.
+        this.difficulty = difficulty; // Executes: this.difficulty = difficulty;
+        this.levelSeed = levelSeed; // Executes: this.levelSeed = levelSeed;
+        this.spawnSeed = spawnSeed; // Executes: this.spawnSeed = spawnSeed;
+        this.theme = theme; // Executes: this.theme = theme;
+        this.simRate = simRate; // Executes: this.simRate = simRate;
+    } // Closes a code block.
+
+    /**
+     * @param bits the INPUT_* bits fed to the step that is about to run
+     */
+    public void record(int bits) { // Begins a method or constructor with its signature.
+        if (count == inputs.length) { // Begins a method or constructor with its signature.
+            inputs = Arrays.copyOf(inputs, count * 2); // Executes: inputs = Arrays.copyOf(inputs, count * 2);
+        } // Closes a code block.
+        inputs[count++] = (byte) bits; // Executes: inputs[count++] = (byte) bits;
+    } // Closes a code block.
+
+    public int getStepCount() { // Begins a method or constructor with its signature.
+        return count;
+    } // Closes a code block.
+
+    /**
+     * Freezes what has been recorded so far.
+     *
+     * @param finalStateHash {@link Simulation#stateHash()} after the last recorded step, checked on playback
+     */
+    public Replay toReplay(long finalStateHash) { // Begins a method or constructor with its signature.
+        return new Replay(difficulty, levelSeed, spawnSeed, theme, simRate, // Returns a value from the method.
+                Arrays.copyOf(inputs, count), finalStateHash); // Executes: Arrays.copyOf(inputs, count), finalStateHash);
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,134 @@
+package game.core; // Declares the package for this source file.
+
+import java.util.Arrays;
+
+/**
+ * Picks the internal resolution the world canvas is drawn at, from a rolling average of frame
+ * times: when frames keep missing the budget the scale drops a step, and after a stretch of frames
+ * within budget it tries a step back up. {@link GameLoop} applies the scale by shrinking the
+ * canvas and stretching it back over the window, so fewer pixels are filled while the HUD and the
+ * rest of the scene stay at native resolution.
+ *
+ * <p>Frame times are the intervals between pulses, which vsync keeps at or above the budget, so
+ * "within budget" means close to it. A step up that is soon followed by a step down doubles the
+ * wait before the next try, so the scale settles instead of bouncing. Every change is logged.
+ *
+ * <p>Alongside each frame the loop passes the part of it spent on feedback effects (see
+ * {@code EffectManager}), averaged over the same window, so a log line shows how much of a missed
+ * budget the effects took.
+ */
+public class ResolutionScaler { // Defines a class.
+
+    // Scale change per decision
+    public static final double STEP = 0.1;
+    // Frames averaged
+    private static final int WINDOW = 60;
+    // Average above budget * OVER: step down; at or below budget * UNDER: may step up
+    private static final double OVER = 1.15;
+    private static final double UNDER = 1.05;
+    // Frames longer than this are hitches (level loads, window moves), not load, and are ignored
+    private static final double HITCH = 0.25;
+    // Frames in budget before a step up, and the most that backs off to
+    private static final int HOLD_FRAMES = 120;
+    private static final int MAX_HOLD_FRAMES = 3_600;
+
+    private final double budget;
+    private final double minScale;
+    private final double maxScale;
+
+    private final double[] frames = new double[WINDOW];
+    private final double[] effects = new double[WINDOW];
+    private int frameCount = 0;
+    private int next = 0;
+    private double sum = 0;
+    private double effectsSum = 0;
+
+    private double scale;
+    private int framesInBudget = 0;
+    private int holdFrames = HOLD_FRAMES;
+    // Frames since the last step up (a drop soon after means that step was too far)
+    private int sinceStepUp = Integer.MAX_VALUE;
+    private int changes = 0;
+
+    /**
+     * @param targetFps frames per second the budget is derived from (e.g. 60)
+     * @param minScale  smallest internal scale (e.g. 0.5)
+     * @param maxScale  largest internal scale, also the starting one (at most 1)
+     */
+    public ResolutionScaler(double targetFps, double minScale, double maxScale) { // Begins a method or constructor with its signature.
+        this.budget = 1.0 / targetFps; // Executes: this.budget = 1.0 / targetFps;
+        this.maxScale = Math.max(STEP, Math.min(1.0, maxScale)); // Executes: this.maxScale = Math.max(STEP, Math.min(1.0, maxScale));
+        this.minScale = Math.max(STEP, Math.min(this.maxScale, minScale)); // Executes: this.minScale = Math.max(STEP, Math.min(this.maxScale, minScale));
+        this.scale = this.maxScale; // Executes: this.scale = this.maxScale;
+    } // Closes a code block.
+
+    /**
+     * Takes one frame's time and the part of it spent updating and recording effects, in seconds;
+     * returns true if the scale changed.
+     */
+    public boolean onFrame(double frameTime, double effectsTime) { // Begins a method or constructor with its signature.
+        if (frameTime <= 0 || frameTime > HITCH) return false; // Evaluates a conditional branch.
+
+        sum += frameTime - frames[next]; // Executes: sum += frameTime - frames[next];
+        frames[next] = frameTime; // Executes: frames[next] = frameTime;
+        effectsSum += effectsTime - effects[next]; // Executes: effectsSum += effectsTime - effects[next];
+        effects[next] = effectsTime; // Executes: effects[next] = effectsTime;
+        next = (next + 1) % WINDOW; // Executes: next = (next + 1) % WINDOW;
+        if (frameCount < WINDOW) frameCount++; // Evaluates a conditional branch.
+        if (sinceStepUp < Integer.MAX_VALUE) sinceStepUp++; // Evaluates a conditional branch.
+        if (frameCount < WINDOW) return false; // Not enough history yet // Evaluates a conditional branch.
+
+        double average = sum / WINDOW;
+        if (average > budget * OVER) { // Begins a method or constructor with its signature.
+            framesInBudget = 0; // Executes: framesInBudget = 0;
+            if (scale <= minScale) return false; // Evaluates a conditional branch.
+            // The last step up could not be sustained: wait longer before the next one
+            if (sinceStepUp < holdFrames) holdFrames = Math.min(MAX_HOLD_FRAMES, holdFrames * 2); // Evaluates a conditional branch.
+            return change(Math.max(minScale, scale - STEP), average); // Returns a value from the method.
+        } // Closes a code block.
+        if (average <= budget * UNDER && scale < maxScale && ++framesInBudget >= holdFrames) { // Begins a method or constructor with its signature.
+            framesInBudget = 0; // Executes: framesInBudget = 0;
+            sinceStepUp = 0; // Executes: sinceStepUp = 0;
+            return change(Math.min(maxScale, scale + STEP), average); // Returns a value from the method.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    private boolean change(double newScale, double average) { // Begins a method or constructor with its signature.
+        System.out.printf("Resolution scale %d%% -> %d%% (average frame %.1f ms, effects %.2f ms, budget %.1f ms)%n", // Executes: System.out.printf("Resolution scale %d%% -> %d%% (average frame %.1f ms, effects %.2f ms, budget %.1f ms)%n",
+                Math.round(scale * 100), Math.round(newScale * 100), average * 1_000, // Executes: Math.round(scale * 100), Math.round(newScale * 100), average * 1_000,
+                effectsSum / WINDOW * 1_000, budget * 1_000); // Executes: effectsSum / WINDOW * 1_000, budget * 1_000);
+        scale = Math.round(newScale * 100) / 100.0; // Whole percents, no drift from repeated steps // Executes: scale = Math.round(newScale * 100) / 100.0; // Whole percents, no drift from repeated steps
+        changes++; // Executes: changes++;
+        // Judge the new scale on frames drawn at it
+        frameCount = 0; // Executes: frameCount = 0;
+        next = 0; // Executes: next = 0;
+        sum = 0; // Executes: sum = 0;
+        effectsSum = 0; // Executes: effectsSum = 0;
+        Arrays.fill(frames, 0); // Executes: Arrays.fill(frames, 0);
+        Arrays.fill(effects, 0); // Executes: Arrays.fill(effects, 0);
+        return true;
+    } // Closes a code block.
+
+    public double getScale() { // Begins a method or constructor with its signature.
+        return scale;
+    } // Closes a code block.
+
+    /**
+     * Average of the frames seen since the last change, in seconds (0 before any).
+     */
+    public double getAverageFrameTime() { // Begins a method or constructor with its signature.
+        return frameCount == 0 ? 0 : sum / frameCount; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Average time spent on effects per frame over the same frames, in seconds (0 before any).
+     */
+    public double getAverageEffectsTime() { // Begins a method or constructor with its signature.
+        return frameCount == 0 ? 0 : effectsSum / frameCount; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int getChangeCount() { // Begins a method or constructor with its signature.
+        return changes;
+    } // Closes a code block.
+} // Closes a code block.
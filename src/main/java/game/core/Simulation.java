@@ -0,0 +1,344 @@
+package game.core; // Declares the package for this source file.
+
+import game.systems.*;
+import game.utils.Constants;
+import game.utils.Theme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless simulation core for one level: builds the tile map, managers and {@link GameWorld}
+ * from raw level lines and advances them one step at a time from an input bitmask.
+ * Nothing here touches the JavaFX scene graph or toolkit, so a level can be stepped in a plain JVM
+ * (bots, batch runs, replays); {@link GameLoop} drives the same object and draws it.
+ */
+public class Simulation { // Defines a class.
+
+    // Input bits for step(): one int per tick describes everything the player pressed
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_JUMP = 1 << 2;
+
+    private final PlayerState player;
+    private final TileMap tileMap;
+    private final Camera camera;
+    private final GameWorld world;
+    private final double groundTopY;
+    private final double spawnX;
+    private long stepCount = 0;
+    private double elapsedTime = 0;
+
+    /**
+     * @param rawLines  level rows as produced by {@link ProceduralLevelGenerator}
+     * @param theme     active theme (also scales the player's movement)
+     * @param spawnSeed seed for the spawn jitter and power-up types, so a run can be reproduced
+     * @param player    player to simulate; moved to the level spawn (a {@link Player} keeps its sprite in sync)
+     */
+    public Simulation(List<String> rawLines, Theme theme, long spawnSeed, PlayerState player) { // Begins a method or constructor with its signature.
+        List<String> lines = alignLevelToGround(normalizeLevelLines(rawLines));
+
+        LevelLoader loader = new LevelLoader();
+        LevelLoader.LevelData level = loader.loadFromLines(lines); // Executes: LevelLoader.LevelData level = loader.loadFromLines(lines);
+        this.tileMap = level.getTileMap(); // Executes: this.tileMap = level.getTileMap();
+
+        this.camera = new Camera(Constants.VIEW_HEIGHT, Constants.VIEW_WIDTH); // Executes: this.camera = new Camera(Constants.VIEW_HEIGHT, Constants.VIEW_WIDTH);
+        this.groundTopY = Constants.VIEW_HEIGHT - Constants.GROUND_HEIGHT; // Executes: this.groundTopY = Constants.VIEW_HEIGHT - Constants.GROUND_HEIGHT;
+
+        // Spawn: fall from the top of the screen
+        this.spawnX = level.getPlayerSpawnX(); // Executes: this.spawnX = level.getPlayerSpawnX();
+        this.player = player; // Executes: this.player = player;
+        player.applyTheme(theme); // Executes: player.applyTheme(theme);
+        player.setPlayerX(spawnX); // Executes: player.setPlayerX(spawnX);
+        player.setPlayerY(0); // Executes: player.setPlayerY(0);
+        player.setVelocityX(0); // Executes: player.setVelocityX(0);
+        player.setVelocityY(0); // Executes: player.setVelocityY(0);
+        player.setOnGround(false); // Executes: player.setOnGround(false);
+        player.storePreviousPosition(); // Executes: player.storePreviousPosition();
+
+        // ================= MANAGERS =================
+        CoinManager coinManager = new CoinManager();
+        PowerUpManager powerUpManager = new PowerUpManager();
+        EnemyManager enemyManager = new EnemyManager();
+        SpikeManager spikeManager = new SpikeManager();
+
+        Random rng = new Random(spawnSeed);
+        List<double[]> coinSpawns = centerWithinTile(level.getCoinSpawns(), CoinManager.DEFAULT_SIZE, CoinManager.DEFAULT_SIZE);
+        List<double[]> powerUpSpawns = centerWithinTile(level.getPowerUpSpawns(), PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE);
+        List<double[]> enemySpawns = restOnTileTop(level.getEnemySpawns(), Enemy.SIZE, Enemy.SIZE);
+
+        List<double[]> jitteredCoins = jitterSpawns(coinSpawns, tileMap, rng, 3, 2, CoinManager.DEFAULT_SIZE, CoinManager.DEFAULT_SIZE);
+        List<double[]> jitteredPowerUps = jitterSpawns(powerUpSpawns, tileMap, rng, 2, 2, PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE);
+        List<double[]> jitteredEnemies = jitterSpawns(enemySpawns, tileMap, rng, 2, 0, Enemy.SIZE, Enemy.SIZE);
+
+        coinManager.spawnFrom(jitteredCoins); // Executes: coinManager.spawnFrom(jitteredCoins);
+        spawnPowerUps(powerUpManager, jitteredPowerUps, rng); // Executes: spawnPowerUps(powerUpManager, jitteredPowerUps, rng);
+        enemyManager.setFloorY(groundTopY); // Executes: enemyManager.setFloorY(groundTopY);
+        enemyManager.spawnFrom(jitteredEnemies); // Executes: enemyManager.spawnFrom(jitteredEnemies);
+        spikeManager.spawnFrom(level.getSpikeSpawns()); // Executes: spikeManager.spawnFrom(level.getSpikeSpawns());
+
+        // ================= WORLD OBJECT =================
+        this.world = new GameWorld( // Executes: this.world = new GameWorld(
+                tileMap, camera, coinManager, powerUpManager, enemyManager, spikeManager, // Executes: tileMap, camera, coinManager, powerUpManager, enemyManager, spikeManager,
+                player, // Executes: player,
+                spawnX, // Executes: spawnX,
+                0, // Respawn from the sky, like the first spawn // Executes: 0, // Respawn from the sky, like the first spawn
+                theme // Executes: theme
+        ); // Executes: );
+    } // Closes a code block.
+
+    /**
+     * Advances the simulation by exactly dt seconds: input, physics, camera, player timers and world rules.
+     *
+     * @param input INPUT_* bits held during this step; INPUT_JUMP is a press, not a hold
+     */
+    public void step(double dt, int input) { // Begins a method or constructor with its signature.
+        if (world.isGameOver()) return; // Evaluates a conditional branch.
+
+        // ========= INPUT =========
+        if ((input & INPUT_LEFT) != 0) player.moveLeft(); // Evaluates a conditional branch.
+        else if ((input & INPUT_RIGHT) != 0) player.moveRight(); // Evaluates an alternative conditional branch.
+        else player.stopX(); // Handles the fallback branch.
+
+        if ((input & INPUT_JUMP) != 0) { // Begins a method or constructor with its signature.
+            player.jump(); // Executes: player.jump();
+        } // Closes a code block.
+
+        // ========= PHYSICS =========
+        // IMPORTANT: do axis-separated collision (move X then resolve, move Y then resolve)
+        Physics.moveAndCollide(player, tileMap, dt); // Executes: Physics.moveAndCollide(player, tileMap, dt);
+
+        // Safety: ground strip collision
+        Physics.checkGroundCollision(player, 0, groundTopY, tileMap.getWidthInPixels(), Constants.GROUND_HEIGHT); // Executes: Physics.checkGroundCollision(player, 0, groundTopY, tileMap.getWidthInPixels(), Constants.GROUND_HEIGHT);
+
+        // DO NOT limit to window width; limit to map width
+        player.constrainToBounds(tileMap.getWidthInPixels()); // Executes: player.constrainToBounds(tileMap.getWidthInPixels());
+
+        // ========= CAMERA FOLLOW =========
+        double px = player.getPlayerX() + player.getWidth() / 2.0;
+        double py = player.getPlayerY() + player.getHeight() / 2.0;
+
+        camera.follow(px, py, 0.12); // Executes: camera.follow(px, py, 0.12);
+
+        // clamp camera to map
+        camera.setPosition( // Executes: camera.setPosition(
+                clamp(camera.getX(), 0, tileMap.getWidthInPixels() - camera.getViewWidth()), // Executes: clamp(camera.getX(), 0, tileMap.getWidthInPixels() - camera.getViewWidth()),
+                clamp(camera.getY(), 0, tileMap.getHeightInPixels() - camera.getViewHeight()) // Executes: clamp(camera.getY(), 0, tileMap.getHeightInPixels() - camera.getViewHeight())
+        ); // Executes: );
+
+        player.tick(dt); // Executes: player.tick(dt);
+
+        // ========= UPDATE WORLD (coins/powerups/score) =========
+        world.update(dt); // Also posts levelComplete once the player passes the line // Executes: world.update(dt); // Also posts levelComplete once the player passes the line
+
+        stepCount++; // Executes: stepCount++;
+        elapsedTime += dt; // Executes: elapsedTime += dt;
+    } // Closes a code block.
+
+    /**
+     * Remembers where moving things were before a fixed step so a renderer can blend towards the new state.
+     */
+    public void storePreviousState() { // Begins a method or constructor with its signature.
+        player.storePreviousPosition(); // Executes: player.storePreviousPosition();
+        camera.storePreviousPosition(); // Executes: camera.storePreviousPosition();
+        world.storePreviousPositions(); // Executes: world.storePreviousPositions();
+    } // Closes a code block.
+
+    /**
+     * The world's completion rule, the same one that posts levelComplete.
+     */
+    public boolean isLevelComplete() { // Begins a method or constructor with its signature.
+        return world.isLevelComplete(); // Returns a value from the method.
+    } // Closes a code block.
+
+    public boolean isGameOver() { // Begins a method or constructor with its signature.
+        return world.isGameOver(); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Hash of everything a run's outcome depends on (player motion, camera, score, lives, step count,
+     * every enemy's position, velocity and flags, and which coins and power-ups are still there).
+     * Two runs that produce the same hash went the same way bit for bit.
+     */
+    public long stateHash() { // Begins a method or constructor with its signature.
+        long h = 17;
+        h = 31 * h + Double.doubleToLongBits(player.getPlayerX()); // Executes: h = 31 * h + Double.doubleToLongBits(player.getPlayerX());
+        h = 31 * h + Double.doubleToLongBits(player.getPlayerY()); // Executes: h = 31 * h + Double.doubleToLongBits(player.getPlayerY());
+        h = 31 * h + Double.doubleToLongBits(player.getVelocityX()); // Executes: h = 31 * h + Double.doubleToLongBits(player.getVelocityX());
+        h = 31 * h + Double.doubleToLongBits(player.getVelocityY()); // Executes: h = 31 * h + Double.doubleToLongBits(player.getVelocityY());
+        h = 31 * h + Double.doubleToLongBits(camera.getX()); // Executes: h = 31 * h + Double.doubleToLongBits(camera.getX());
+        h = 31 * h + Double.doubleToLongBits(camera.getY()); // Executes: h = 31 * h + Double.doubleToLongBits(camera.getY());
+        h = 31 * h + world.getScore(); // Executes: h = 31 * h + world.getScore();
+        h = 31 * h + world.getCoins(); // Executes: h = 31 * h + world.getCoins();
+        h = 31 * h + world.getLives(); // Executes: h = 31 * h + world.getLives();
+        h = 31 * h + stepCount; // Executes: h = 31 * h + stepCount;
+
+        Bodies enemies = world.getEnemyManager().getBodies();
+        h = 31 * h + enemies.size(); // Executes: h = 31 * h + enemies.size();
+        for (int i = 0; i < enemies.size(); i++) { // Begins a method or constructor with its signature.
+            h = 31 * h + enemies.idAt(i); // Executes: h = 31 * h + enemies.idAt(i);
+            h = 31 * h + Double.doubleToLongBits(enemies.getX(i)); // Executes: h = 31 * h + Double.doubleToLongBits(enemies.getX(i));
+            h = 31 * h + Double.doubleToLongBits(enemies.getY(i)); // Executes: h = 31 * h + Double.doubleToLongBits(enemies.getY(i));
+            h = 31 * h + Double.doubleToLongBits(enemies.getVelocityX(i)); // Executes: h = 31 * h + Double.doubleToLongBits(enemies.getVelocityX(i));
+            h = 31 * h + Double.doubleToLongBits(enemies.getVelocityY(i)); // Executes: h = 31 * h + Double.doubleToLongBits(enemies.getVelocityY(i));
+            h = 31 * h + enemies.getFlags(i); // Executes: h = 31 * h + enemies.getFlags(i);
+        } // Closes a code block.
+        // Pickups only ever disappear: which ids are left says which were taken
+        h = hashIds(h, world.getCoinManager().getCoins()); // Executes: h = hashIds(h, world.getCoinManager().getCoins());
+        h = hashIds(h, world.getPowerUpManager().getPowerUps()); // Executes: h = hashIds(h, world.getPowerUpManager().getPowerUps());
+        return h;
+    } // Closes a code block.
+
+    private static long hashIds(long h, EntityStore store) { // Begins a method or constructor with its signature.
+        h = 31 * h + store.size(); // Executes: h = 31 * h + store.size();
+        for (int i = 0; i < store.size(); i++) h = 31 * h + store.idAt(i); // Executes: for (int i = 0; i < store.size(); i++) h = 31 * h + store.idAt(i);
+        return h;
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+    public PlayerState getPlayer() { // Begins a method or constructor with its signature.
+        return player;
+    } // Closes a code block.
+
+    public TileMap getTileMap() { // Begins a method or constructor with its signature.
+        return tileMap;
+    } // Closes a code block.
+
+    public Camera getCamera() { // Begins a method or constructor with its signature.
+        return camera;
+    } // Closes a code block.
+
+    public GameWorld getWorld() { // Begins a method or constructor with its signature.
+        return world;
+    } // Closes a code block.
+
+    public double getGroundTopY() { // Begins a method or constructor with its signature.
+        return groundTopY;
+    } // Closes a code block.
+
+    public double getSpawnX() { // Begins a method or constructor with its signature.
+        return spawnX;
+    } // Closes a code block.
+
+    public long getStepCount() { // Begins a method or constructor with its signature.
+        return stepCount;
+    } // Closes a code block.
+
+    /**
+     * Simulated seconds since the level started (the sum of every step's dt).
+     */
+    public double getElapsedTime() { // Begins a method or constructor with its signature.
+        return elapsedTime;
+    } // Closes a code block.
+
+    // ============================
+    // Level building helpers
+    // ============================
+
+    private static List<double[]> jitterSpawns( // Executes: private static List<double[]> jitterSpawns(
+            List<double[]> original, // Executes: List<double[]> original,
+            TileMap tileMap, // Executes: TileMap tileMap,
+            Random rng, // Executes: Random rng,
+            double maxOffsetX, // Executes: double maxOffsetX,
+            double maxOffsetY, // Executes: double maxOffsetY,
+            double itemWidth, // Executes: double itemWidth,
+            double itemHeight) { // Executes: double itemHeight) {
+
+        List<double[]> result = new ArrayList<>();
+        if (original == null) return result; // Evaluates a conditional branch.
+
+        int worldWidth = tileMap.getWidthInPixels();
+        int worldHeight = tileMap.getHeightInPixels();
+
+        for (double[] pos : original) { // Begins a method or constructor with its signature.
+            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
+
+            double dx = (rng.nextDouble() * 2 - 1) * maxOffsetX;
+            double dy = (rng.nextDouble() * 2 - 1) * maxOffsetY;
+
+            double nx = pos[0] + dx;
+            double ny = pos[1] + dy;
+
+            double margin = 4;
+            nx = Math.max(margin, Math.min(worldWidth - itemWidth - margin, nx)); // Executes: nx = Math.max(margin, Math.min(worldWidth - itemWidth - margin, nx));
+            ny = Math.max(margin, Math.min(worldHeight - itemHeight - margin, ny)); // Executes: ny = Math.max(margin, Math.min(worldHeight - itemHeight - margin, ny));
+
+            result.add(new double[]{nx, ny}); // Executes: result.add(new double[]{nx, ny});
+        } // Closes a code block.
+        return result;
+    } // Closes a code block.
+
+    private static List<double[]> centerWithinTile(List<double[]> original, double itemWidth, double itemHeight) { // Begins a method or constructor with its signature.
+        List<double[]> result = new ArrayList<>();
+        if (original == null) return result; // Evaluates a conditional branch.
+
+        double offsetX = (TileMap.TILE_SIZE - itemWidth) / 2.0;
+        double offsetY = (TileMap.TILE_SIZE - itemHeight) / 2.0;
+
+        for (double[] pos : original) { // Begins a method or constructor with its signature.
+            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
+            result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY}); // Executes: result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY});
+        } // Closes a code block.
+        return result;
+    } // Closes a code block.
+
+    private static List<double[]> restOnTileTop(List<double[]> original, double itemWidth, double itemHeight) { // Begins a method or constructor with its signature.
+        List<double[]> result = new ArrayList<>();
+        if (original == null) return result; // Evaluates a conditional branch.
+
+        double offsetX = (TileMap.TILE_SIZE - itemWidth) / 2.0;
+        double offsetY = TileMap.TILE_SIZE - itemHeight;
+
+        for (double[] pos : original) { // Begins a method or constructor with its signature.
+            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
+            result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY}); // Executes: result.add(new double[]{pos[0] + offsetX, pos[1] + offsetY});
+        } // Closes a code block.
+        return result;
+    } // Closes a code block.
+
+    private static void spawnPowerUps(PowerUpManager manager, List<double[]> positions, Random rng) { // Begins a method or constructor with its signature.
+        if (manager == null || positions == null) return; // Evaluates a conditional branch.
+
+        PowerUpType[] types = PowerUpType.values();
+        for (double[] pos : positions) { // Begins a method or constructor with its signature.
+            if (pos == null || pos.length < 2) continue; // Evaluates a conditional branch.
+
+            PowerUpType type = types[rng.nextInt(types.length)];
+            manager.spawn(pos[0], pos[1], PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE, type); // Executes: manager.spawn(pos[0], pos[1], PowerUpManager.DEFAULT_SIZE, PowerUpManager.DEFAULT_SIZE, type);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private static List<String> normalizeLevelLines(List<String> raw) { // Begins a method or constructor with its signature.
+        int width = raw.stream().mapToInt(String::length).max().orElse(0);
+        return raw.stream().map(s -> String.format("%-" + width + "s", s).replace(' ', '.')).toList(); // Returns a value from the method.
+    } // Closes a code block.
+
+    private static List<String> alignLevelToGround(List<String> rawLines) { // Begins a method or constructor with its signature.
+        int tileSize = TileMap.TILE_SIZE;
+        int mapHeight = rawLines.size() * tileSize;
+        int floorY = Constants.VIEW_HEIGHT - Constants.GROUND_HEIGHT;
+        int emptyPixels = floorY - mapHeight;
+        int rowsToShift = emptyPixels / tileSize;
+
+        if (rowsToShift <= 0) return rawLines; // Evaluates a conditional branch.
+
+        int width = rawLines.get(0).length();
+        String emptyRow = ".".repeat(width);
+
+        List<String> newLevel = new ArrayList<>();
+        for (int i = 0; i < rowsToShift; i++) { // Begins a method or constructor with its signature.
+            newLevel.add(emptyRow); // Executes: newLevel.add(emptyRow);
+        } // Closes a code block.
+        newLevel.addAll(rawLines); // Executes: newLevel.addAll(rawLines);
+
+        return newLevel;
+    } // Closes a code block.
+
+    private static double clamp(double v, double min, double max) { // Begins a method or constructor with its signature.
+        if (max < min) return min; // Evaluates a conditional branch.
+        return Math.max(min, Math.min(max, v)); // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
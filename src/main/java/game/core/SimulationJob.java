@@ -0,0 +1,102 @@
+package game.core; // Declares the package for this source file.
+
+import game.systems.ProceduralLevelGenerator;
+import game.utils.Constants;
+import game.utils.Theme;
+
+import java.util.List;
+
+/**
+ * One headless run for {@link BatchRunner}: which level to generate, how to seed its spawns,
+ * what input to feed and how long to let it go.
+ */
+public class SimulationJob { // Defines a class.
+
+    private final String name;
+    private final int difficulty;
+    private final long levelSeed;
+    private final long spawnSeed;
+    private final Theme theme;
+    private final InputScript script;
+    private final double simRate;
+    private final long maxSteps;
+
+    /**
+     * @param difficulty 1-based level number passed to {@link ProceduralLevelGenerator#generate}
+     * @param levelSeed  seed of the generated level
+     * @param spawnSeed  seed of the spawn jitter / power-up types
+     * @param simRate    fixed steps per simulated second (e.g. Constants.SIM_RATE_HZ)
+     * @param maxSteps   the run stops after this many steps even if the level isn't finished
+     */
+    public SimulationJob(String name, int difficulty, long levelSeed, long spawnSeed, // Executes: public SimulationJob(String name, int difficulty, long levelSeed, long spawnSeed,
+                         Theme theme, InputScript script, double simRate, long maxSteps) { // Executes: Theme theme, InputScript script, double simRate, long maxSteps) {
+        this.name = name; // Executes: this.name = name;
+        this.difficulty = difficulty; // Executes: this.difficulty = difficulty;
+        this.levelSeed = levelSeed; // Executes: this.levelSeed = levelSeed;
+        this.spawnSeed = spawnSeed; // Executes: this.spawnSeed = spawnSeed;
+        this.theme = theme; // Executes: this.theme = theme;
+        this.script = script; // Executes: this.script = script;
+        this.simRate = simRate; // Executes: this.simRate = simRate;
+        this.maxSteps = maxSteps; // Executes: this.maxSteps = maxSteps;
+    } // Closes a code block.
+
+    /**
+     * Level {@code difficulty} of the campaign {@code Game.start} would generate from {@code campaignSeed}.
+     */
+    public static SimulationJob campaignLevel(long campaignSeed, int difficulty, InputScript script, double maxSeconds) { // Begins a method or constructor with its signature.
+        return new SimulationJob( // Returns a value from the method.
+                "level-" + difficulty, // Executes: "level-" + difficulty,
+                difficulty, // Executes: difficulty,
+                ProceduralLevelGenerator.campaignLevelSeed(campaignSeed, difficulty), // Executes: ProceduralLevelGenerator.campaignLevelSeed(campaignSeed, difficulty),
+                campaignSeed ^ difficulty, // Executes: campaignSeed ^ difficulty,
+                Theme.NEUTRAL, // Executes: Theme.NEUTRAL,
+                script, // Executes: script,
+                Constants.SIM_RATE_HZ, // Executes: Constants.SIM_RATE_HZ,
+                (long) Math.ceil(maxSeconds * Constants.SIM_RATE_HZ) // Executes: (long) Math.ceil(maxSeconds * Constants.SIM_RATE_HZ)
+        ); // Executes: );
+    } // Closes a code block.
+
+    /**
+     * Builds a fresh simulation for this job; every call returns an independent world.
+     */
+    public Simulation createSimulation() { // Begins a method or constructor with its signature.
+        List<String> lines = ProceduralLevelGenerator.generate( // Executes: List<String> lines = ProceduralLevelGenerator.generate(
+                difficulty, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, levelSeed); // Executes: difficulty, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, levelSeed);
+        return new Simulation(lines, theme, spawnSeed, new PlayerState(0, 0)); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+    public String getName() { // Begins a method or constructor with its signature.
+        return name;
+    } // Closes a code block.
+
+    public int getDifficulty() { // Begins a method or constructor with its signature.
+        return difficulty;
+    } // Closes a code block.
+
+    public long getLevelSeed() { // Begins a method or constructor with its signature.
+        return levelSeed;
+    } // Closes a code block.
+
+    public long getSpawnSeed() { // Begins a method or constructor with its signature.
+        return spawnSeed;
+    } // Closes a code block.
+
+    public Theme getTheme() { // Begins a method or constructor with its signature.
+        return theme;
+    } // Closes a code block.
+
+    public InputScript getScript() { // Begins a method or constructor with its signature.
+        return script;
+    } // Closes a code block.
+
+    public double getSimRate() { // Begins a method or constructor with its signature.
+        return simRate;
+    } // Closes a code block.
+
+    public long getMaxSteps() { // Begins a method or constructor with its signature.
+        return maxSteps;
+    } // Closes a code block.
+} // Closes a code block.
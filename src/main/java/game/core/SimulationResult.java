@@ -0,0 +1,133 @@
+package game.core; // Declares the package for this source file.
+
+/**
+ * Outcome of one {@link SimulationJob}.
+ */
+public class SimulationResult { // Defines a class.
+
+    private final SimulationJob job;
+    private final boolean completed;
+    private final boolean gameOver;
+    private final long steps;
+    private final int score;
+    private final int coins;
+    private final int lives;
+    private final int deaths;
+    private final double deathX;
+    private final double deathY;
+    private final double finalX;
+    private final double finalY;
+    private final long stateHash;
+    private final long nanos;
+    private final Throwable error;
+
+    SimulationResult(SimulationJob job, boolean completed, boolean gameOver, long steps, // Executes: SimulationResult(SimulationJob job, boolean completed, boolean gameOver, long steps,
+                     int score, int coins, int lives, int deaths, // Executes: int score, int coins, int lives, int deaths,
+                     double deathX, double deathY, double finalX, double finalY, // Executes: double deathX, double deathY, double finalX, double finalY,
+                     long stateHash, long nanos, Throwable error) { // Executes: long stateHash, long nanos, Throwable error) {
+        this.job = job; // Executes: this.job = job;
+        this.completed = completed; // Executes: this.completed = completed;
+        this.gameOver = gameOver; // Executes: this.gameOver = gameOver;
+        this.steps = steps; // Executes: this.steps = steps;
+        this.score = score; // Executes: this.score = score;
+        this.coins = coins; // Executes: this.coins = coins;
+        this.lives = lives; // Executes: this.lives = lives;
+        this.deaths = deaths; // Executes: this.deaths = deaths;
+        this.deathX = deathX; // Executes: this.deathX = deathX;
+        this.deathY = deathY; // Executes: this.deathY = deathY;
+        this.finalX = finalX; // Executes: this.finalX = finalX;
+        this.finalY = finalY; // Executes: this.finalY = finalY;
+        this.stateHash = stateHash; // Executes: this.stateHash = stateHash;
+        this.nanos = nanos; // Executes: this.nanos = nanos;
+        this.error = error; // Executes: this.error = error;
+    } // Closes a code block.
+
+    static SimulationResult failed(SimulationJob job, long steps, long nanos, Throwable error) { // Begins a method or constructor with its signature.
+        return new SimulationResult(job, false, false, steps, 0, 0, 0, 0, // Returns a value from the method.
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0, nanos, error); // Executes: Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0, nanos, error);
+    } // Closes a code block.
+
+    /**
+     * A run fails when it threw, or left the player at a non-finite position.
+     */
+    public boolean isFailure() { // Begins a method or constructor with its signature.
+        return error != null || !Double.isFinite(finalX) || !Double.isFinite(finalY); // Returns a value from the method.
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    public String toString() { // Begins a method or constructor with its signature.
+        if (error != null) { // Begins a method or constructor with its signature.
+            return String.format("%-10s FAILED after %d steps: %s", job.getName(), steps, error); // Returns a value from the method.
+        } // Closes a code block.
+        String outcome = completed ? "complete" : gameOver ? "game over" : "timeout";
+        String death = deaths > 0 ? String.format(" lastDeath=(%.0f, %.0f)", deathX, deathY) : "";
+        return String.format("%-10s %-9s steps=%-6d score=%-5d coins=%-3d lives=%d deaths=%d end=(%.0f, %.0f)%s", // Returns a value from the method.
+                job.getName(), outcome, steps, score, coins, lives, deaths, finalX, finalY, death); // Executes: job.getName(), outcome, steps, score, coins, lives, deaths, finalX, finalY, death);
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+    public SimulationJob getJob() { // Begins a method or constructor with its signature.
+        return job;
+    } // Closes a code block.
+
+    public boolean isCompleted() { // Begins a method or constructor with its signature.
+        return completed;
+    } // Closes a code block.
+
+    public boolean isGameOver() { // Begins a method or constructor with its signature.
+        return gameOver;
+    } // Closes a code block.
+
+    public long getSteps() { // Begins a method or constructor with its signature.
+        return steps;
+    } // Closes a code block.
+
+    public int getScore() { // Begins a method or constructor with its signature.
+        return score;
+    } // Closes a code block.
+
+    public int getCoins() { // Begins a method or constructor with its signature.
+        return coins;
+    } // Closes a code block.
+
+    public int getLives() { // Begins a method or constructor with its signature.
+        return lives;
+    } // Closes a code block.
+
+    public int getDeaths() { // Begins a method or constructor with its signature.
+        return deaths;
+    } // Closes a code block.
+
+    public double getDeathX() { // Begins a method or constructor with its signature.
+        return deathX;
+    } // Closes a code block.
+
+    public double getDeathY() { // Begins a method or constructor with its signature.
+        return deathY;
+    } // Closes a code block.
+
+    public double getFinalX() { // Begins a method or constructor with its signature.
+        return finalX;
+    } // Closes a code block.
+
+    public double getFinalY() { // Begins a method or constructor with its signature.
+        return finalY;
+    } // Closes a code block.
+
+    /**
+     * {@link Simulation#stateHash()} at the end of the run.
+     */
+    public long getStateHash() { // Begins a method or constructor with its signature.
+        return stateHash;
+    } // Closes a code block.
+
+    public long getNanos() { // Begins a method or constructor with its signature.
+        return nanos;
+    } // Closes a code block.
+
+    public Throwable getError() { // Begins a method or constructor with its signature.
+        return error;
+    } // Closes a code block.
+} // Closes a code block.
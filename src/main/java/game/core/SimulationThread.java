@@ -0,0 +1,274 @@
+package game.core; // Declares the package for this source file.
+
+import game.systems.GameEvents;
+import game.systems.GameWorld;
+import game.systems.PowerUpType;
+import game.systems.WorldSnapshot;
+import game.utils.TripleBuffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a {@link Simulation} at a fixed rate on its own thread, so a slow frame on the FX thread
+ * no longer delays physics or input, and the simulation gets a core of its own.
+ *
+ * <p>The two threads share nothing mutable. After each batch of steps the simulation thread
+ * captures a {@link WorldSnapshot} and publishes it through a {@link TripleBuffer}; the FX thread
+ * draws the latest one. Keyboard bits go the other way through one atomic int, where a jump press
+ * waits until a step consumes it. Gameplay events are dispatched on the simulation thread to a
+ * relay that copies them into a lock-free single-producer ring, and the FX thread re-posts them to
+ * {@link #getViewEvents()} and dispatches them there, so listeners still run on the FX thread, in
+ * order, and none is lost when snapshots are skipped.
+ *
+ * <p>Replays: an {@link InputScript} and a {@link ReplayRecorder} set before {@link #start} run on
+ * the simulation thread, where the step count they key on lives.
+ */
+public class SimulationThread { // Defines a class.
+
+    private final Simulation simulation;
+    private final GameWorld world;
+    private final double fixedDt;
+    private final long stepNanos;
+    private final int maxCatchUpSteps;
+
+    private final TripleBuffer<WorldSnapshot> snapshots = new TripleBuffer<>(WorldSnapshot::new);
+    // Keyboard bits from the FX thread; INPUT_JUMP stays set until a step takes it
+    private final AtomicInteger input = new AtomicInteger();
+    private final EventRelay relay = new EventRelay();
+    private final GameEvents viewEvents = new GameEvents();
+
+    private InputScript inputScript;
+    private ReplayRecorder recorder;
+
+    private volatile boolean running = false;
+    private boolean attached = false;
+    private Thread thread;
+    // Snapshots published, and ones replaced before the FX thread got to them
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public SimulationThread(Simulation simulation, double simRate, int maxCatchUpSteps) { // Begins a method or constructor with its signature.
+        this.simulation = simulation; // Executes: this.simulation = simulation;
+        this.world = simulation.getWorld(); // Executes: this.world = simulation.getWorld();
+        this.fixedDt = 1.0 / simRate; // Executes: this.fixedDt = 1.0 / simRate;
+        this.stepNanos = (long) (1_000_000_000L / simRate); // Executes: this.stepNanos = (long) (1_000_000_000L / simRate);
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps); // Executes: this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    } // Closes a code block.
+
+    public void setInputScript(InputScript inputScript) { // Begins a method or constructor with its signature.
+        this.inputScript = inputScript; // Executes: this.inputScript = inputScript;
+    } // Closes a code block.
+
+    public void setRecorder(ReplayRecorder recorder) { // Begins a method or constructor with its signature.
+        this.recorder = recorder; // Executes: this.recorder = recorder;
+    } // Closes a code block.
+
+    /**
+     * Moves the world's event listeners to {@link #getViewEvents()} (the first time), publishes the
+     * current state and starts stepping. May be called again after {@link #stop}.
+     */
+    public void start() { // Begins a method or constructor with its signature.
+        if (running) return; // Evaluates a conditional branch.
+        if (!attached) { // Begins a method or constructor with its signature.
+            world.getEvents().moveListenersTo(viewEvents); // Executes: world.getEvents().moveListenersTo(viewEvents);
+            world.getEvents().addListener(relay); // Executes: world.getEvents().addListener(relay);
+            attached = true; // Executes: attached = true;
+        } // Closes a code block.
+        publish(); // Executes: publish();
+        running = true; // Executes: running = true;
+        thread = Thread.ofPlatform().name("simulation").daemon().start(this::run); // Executes: thread = Thread.ofPlatform().name("simulation").daemon().start(this::run);
+    } // Closes a code block.
+
+    /**
+     * Stops stepping and waits for the thread to finish its current step, so the simulation can be
+     * read safely afterwards.
+     */
+    public void stop() { // Begins a method or constructor with its signature.
+        running = false; // Executes: running = false;
+        Thread t = thread;
+        if (t == null || t == Thread.currentThread()) return; // Evaluates a conditional branch.
+        LockSupport.unpark(t); // Executes: LockSupport.unpark(t);
+        try { // Attempts operations that might throw exceptions.
+            t.join(1_000); // Executes: t.join(1_000);
+        } catch (InterruptedException e) { // Begins a method or constructor with its signature.
+            Thread.currentThread().interrupt(); // Executes: Thread.currentThread().interrupt();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // -------------------------
+    // FX thread side
+    // -------------------------
+
+    /**
+     * Hands the keyboard state to the simulation. A jump press is kept until a step consumes it,
+     * however many frames pass before the next step.
+     */
+    public void offerInput(int bits) { // Begins a method or constructor with its signature.
+        int current;
+        do { // Begins a method or constructor with its signature.
+            current = input.get(); // Executes: current = input.get();
+        } while (!input.compareAndSet(current, bits | (current & Simulation.INPUT_JUMP))); // Executes: } while (!input.compareAndSet(current, bits | (current & Simulation.INPUT_JUMP)));
+    } // Closes a code block.
+
+    /**
+     * The most recent snapshot (the same one until a newer step is published).
+     */
+    public WorldSnapshot latestSnapshot() { // Begins a method or constructor with its signature.
+        return snapshots.latest(); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * How far the FX thread is between the snapshot's previous and current step at nowNanos (0..1).
+     */
+    public double alphaAt(long nowNanos, WorldSnapshot snapshot) { // Begins a method or constructor with its signature.
+        double alpha = (nowNanos - snapshot.getCapturedAtNanos()) / (double) stepNanos;
+        return Math.max(0, Math.min(1, alpha)); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Delivers the events the simulation raised since the last call to the view listeners.
+     */
+    public void dispatchEvents() { // Begins a method or constructor with its signature.
+        relay.drainTo(viewEvents); // Executes: relay.drainTo(viewEvents);
+        viewEvents.dispatch(); // Executes: viewEvents.dispatch();
+    } // Closes a code block.
+
+    /**
+     * Where the world's listeners live while the thread runs.
+     */
+    public GameEvents getViewEvents() { // Begins a method or constructor with its signature.
+        return viewEvents;
+    } // Closes a code block.
+
+    public long getPublishedCount() { // Begins a method or constructor with its signature.
+        return published.get(); // Returns a value from the method.
+    } // Closes a code block.
+
+    public long getSkippedCount() { // Begins a method or constructor with its signature.
+        return skipped.get(); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Simulation thread
+    // -------------------------
+
+    private void run() { // Begins a method or constructor with its signature.
+        long next = System.nanoTime() + stepNanos;
+        while (running) { // Begins a method or constructor with its signature.
+            long now = System.nanoTime();
+            int steps = 0;
+            while (now - next >= 0 && steps < maxCatchUpSteps) { // Begins a method or constructor with its signature.
+                simulation.storePreviousState(); // Executes: simulation.storePreviousState();
+                simulation.step(fixedDt, nextInputBits()); // Executes: simulation.step(fixedDt, nextInputBits());
+                next += stepNanos; // Executes: next += stepNanos;
+                steps++; // Executes: steps++;
+                // Stop at the exact step the run ends, so recordings and headless playback agree
+                if (simulation.isGameOver() || simulation.isLevelComplete()) break; // Evaluates a conditional branch.
+            } // Closes a code block.
+            // After a hitch, drop the backlog instead of racing to catch up
+            if (now - next >= stepNanos) next = now + stepNanos; // Evaluates a conditional branch.
+
+            if (steps > 0) { // Begins a method or constructor with its signature.
+                world.getEvents().dispatch(); // Executes: world.getEvents().dispatch();
+                publish(); // Executes: publish();
+            } // Closes a code block.
+            LockSupport.parkNanos(next - System.nanoTime()); // Executes: LockSupport.parkNanos(next - System.nanoTime());
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private int nextInputBits() { // Begins a method or constructor with its signature.
+        int bits = inputScript != null // Executes: int bits = inputScript != null
+                ? inputScript.inputAt(simulation.getStepCount(), simulation.getPlayer()) // Executes: ? inputScript.inputAt(simulation.getStepCount(), simulation.getPlayer())
+                : input.getAndUpdate(current -> current & ~Simulation.INPUT_JUMP); // Executes: : input.getAndUpdate(current -> current & ~Simulation.INPUT_JUMP);
+        if (recorder != null) recorder.record(bits); // Evaluates a conditional branch.
+        return bits;
+    } // Closes a code block.
+
+    private void publish() { // Begins a method or constructor with its signature.
+        snapshots.back().capture(world, simulation.getPlayer(), simulation.getStepCount(), // Executes: snapshots.back().capture(world, simulation.getPlayer(), simulation.getStepCount(),
+                simulation.stateHash(), simulation.isLevelComplete(), System.nanoTime()); // Executes: simulation.stateHash(), simulation.isLevelComplete(), System.nanoTime());
+        if (snapshots.publish()) skipped.incrementAndGet(); // Evaluates a conditional branch.
+        published.incrementAndGet(); // Executes: published.incrementAndGet();
+    } // Closes a code block.
+
+    /**
+     * Copies the simulation's events into a single-producer, single-consumer ring of ints. The
+     * producer waits (spinning) only if the FX thread has fallen a whole ring behind.
+     */
+    private final class EventRelay implements GameEvents.Listener { // Defines a class.
+
+        private static final int SCORE = 0;
+        private static final int COIN = 1;
+        private static final int LIFE = 2;
+        private static final int POWER_UP = 3;
+        private static final int COMPLETE = 4;
+        private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+
+        // Three ints per event: kind, first and second argument
+        private static final int CAPACITY = 1024;
+        private final int[] ring = new int[CAPACITY * 3];
+        // Events written and events read; only the producer moves tail, only the consumer moves head
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+
+        @Override // Applies an annotation to the following element.
+        public void onScoreChanged(int score) { // Begins a method or constructor with its signature.
+            put(SCORE, score, 0); // Executes: put(SCORE, score, 0);
+        } // Closes a code block.
+
+        @Override // Applies an annotation to the following element.
+        public void onCoinCollected(int collected, int totalCoins) { // Begins a method or constructor with its signature.
+            put(COIN, collected, totalCoins); // Executes: put(COIN, collected, totalCoins);
+        } // Closes a code block.
+
+        @Override // Applies an annotation to the following element.
+        public void onLifeLost(int livesLeft) { // Begins a method or constructor with its signature.
+            put(LIFE, livesLeft, 0); // Executes: put(LIFE, livesLeft, 0);
+        } // Closes a code block.
+
+        @Override // Applies an annotation to the following element.
+        public void onPowerUpApplied(PowerUpType type) { // Begins a method or constructor with its signature.
+            put(POWER_UP, type.ordinal(), 0); // Executes: put(POWER_UP, type.ordinal(), 0);
+        } // Closes a code block.
+
+        @Override // Applies an annotation to the following element.
+        public void onLevelComplete(int score) { // Begins a method or constructor with its signature.
+            put(COMPLETE, score, 0); // Executes: put(COMPLETE, score, 0);
+        } // Closes a code block.
+
+        private void put(int kind, int a, int b) { // Begins a method or constructor with its signature.
+            long t = tail.get();
+            while (t - head.get() == CAPACITY) { // Begins a method or constructor with its signature.
+                if (!running) return; // Evaluates a conditional branch.
+                Thread.onSpinWait(); // Executes: Thread.onSpinWait();
+            } // Closes a code block.
+            int slot = (int) (t % CAPACITY) * 3;
+            ring[slot] = kind; // Executes: ring[slot] = kind;
+            ring[slot + 1] = a; // Executes: ring[slot + 1] = a;
+            ring[slot + 2] = b; // Executes: ring[slot + 2] = b;
+            tail.set(t + 1); // publishes the slot // Executes: tail.set(t + 1); // publishes the slot
+        } // Closes a code block.
+
+        void drainTo(GameEvents events) { // Begins a method or constructor with its signature.
+            long h = head.get();
+            long t = tail.get();
+            for (; h < t; h++) { // Begins a method or constructor with its signature.
+                int slot = (int) (h % CAPACITY) * 3;
+                int a = ring[slot + 1];
+                int b = ring[slot + 2];
+                switch (ring[slot]) { // Begins a method or constructor with its signature.
+                    case SCORE -> events.scoreChanged(a); // Defines a switch case branch.
+                    case COIN -> events.coinCollected(a, b); // Defines a switch case branch.
+                    case LIFE -> events.lifeLost(a); // Defines a switch case branch.
+                    case POWER_UP -> events.powerUpApplied(POWER_UP_TYPES[a]); // Defines a switch case branch.
+                    case COMPLETE -> events.levelComplete(a); // Defines a switch case branch.
+                    default -> { // Defines the default switch branch.
+                    } // Closes a code block.
+                } // Closes a code block.
+            } // Closes a code block.
+            head.set(h); // Executes: head.set(h);
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,111 @@
+package game.systems; // Declares the package for this source file.
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Images shared by every level and every {@code Player}: each one is decoded (or built) once, on a
+ * background loader, and handed out as a future. Later levels, restarts and new players get the
+ * same future back, already complete, so switching levels costs no decoding. Nothing here blocks
+ * the FX thread unless a caller joins a future itself; renderers use {@link CompletableFuture#getNow}
+ * and skip what is not ready yet.
+ *
+ * <p>Decoding with {@code new Image(...)} needs no FX application thread, so loads run on virtual
+ * threads (one per asset). A load that fails completes its future exceptionally and stays failed;
+ * the error is printed once.
+ */
+public final class AssetRegistry { // Defines a class.
+
+    private static final Map<String, CompletableFuture<Image>> assets = new ConcurrentHashMap<>();
+    private static final Executor loader = Executors.newThreadPerTaskExecutor( // Executes: private static final Executor loader = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("asset-loader-", 0).factory()); // Executes: Thread.ofVirtual().name("asset-loader-", 0).factory());
+
+    private AssetRegistry() { // Begins a method or constructor with its signature.
+    } // Closes a code block.
+
+    /**
+     * The classpath image at path, decoded once at its own size.
+     */
+    public static CompletableFuture<Image> image(String path) { // Begins a method or constructor with its signature.
+        return load(path, () -> decode(path, 0, 0)); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * The classpath image at path, decoded once straight to fit width x height (aspect ratio kept,
+     * smooth scaling); cheaper to keep and to draw than scaling the full image every frame.
+     */
+    public static CompletableFuture<Image> image(String path, int width, int height) { // Begins a method or constructor with its signature.
+        return load(path + "@" + width + "x" + height, () -> decode(path, width, height)); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * An image built from others (an atlas, say) by builder on the loader, once per key. The
+     * builder may join the futures of the images it needs.
+     */
+    public static CompletableFuture<Image> load(String key, Supplier<Image> builder) { // Begins a method or constructor with its signature.
+        return assets.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(builder, loader) // Returns a value from the method.
+                .whenComplete((image, error) -> { // Executes: .whenComplete((image, error) -> {
+                    if (error != null) System.out.println("Cannot load asset " + k + ": " + error.getCause()); // Evaluates a conditional branch.
+                })); // Executes: }));
+    } // Closes a code block.
+
+    /**
+     * The asset if it has finished loading, else null (also for unknown keys and failed loads).
+     */
+    public static Image getIfLoaded(String key) { // Begins a method or constructor with its signature.
+        CompletableFuture<Image> future = assets.get(key);
+        return future == null || future.isCompletedExceptionally() ? null : future.getNow(null); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Stats
+    // -------------------------
+
+    /**
+     * Assets requested so far, loaded or not.
+     */
+    public static int getRequestedCount() { // Begins a method or constructor with its signature.
+        return assets.size(); // Returns a value from the method.
+    } // Closes a code block.
+
+    public static int getLoadedCount() { // Begins a method or constructor with its signature.
+        int loaded = 0;
+        for (CompletableFuture<Image> future : assets.values()) { // Begins a method or constructor with its signature.
+            if (future.isDone() && !future.isCompletedExceptionally()) loaded++; // Evaluates a conditional branch.
+        } // Closes a code block.
+        return loaded;
+    } // Closes a code block.
+
+    /**
+     * Decoded pixel memory of the loaded assets, at 4 bytes per pixel.
+     */
+    public static long getMemoryBytes() { // Begins a method or constructor with its signature.
+        long bytes = 0;
+        for (CompletableFuture<Image> future : assets.values()) { // Begins a method or constructor with its signature.
+            if (!future.isDone() || future.isCompletedExceptionally()) continue; // Evaluates a conditional branch.
+            Image image = future.join();
+            bytes += 4L * (long) image.getWidth() * (long) image.getHeight(); // Executes: bytes += 4L * (long) image.getWidth() * (long) image.getHeight();
+        } // Closes a code block.
+        return bytes;
+    } // Closes a code block.
+
+    private static Image decode(String path, int width, int height) { // Begins a method or constructor with its signature.
+        try (InputStream stream = AssetRegistry.class.getResourceAsStream(path)) { // Attempts operations that might throw exceptions.
+            if (stream == null) throw new IllegalStateException("missing " + path); // Evaluates a conditional branch.
+            Image image = new Image(stream, width, height, true, true);
+            if (image.isError()) throw new IllegalStateException(path + ": " + image.getException()); // Evaluates a conditional branch.
+            return image;
+        } catch (IOException e) { // Begins a method or constructor with its signature.
+            throw new UncheckedIOException(e); // Throws an exception.
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,120 @@
+package game.systems; // Declares the package for this source file.
+
+import java.util.Arrays;
+
+/**
+ * Dynamic bodies: an {@link EntityStore} with velocity and previous-position columns, so physics
+ * can walk them in a single tight loop without touching per-object heap memory.
+ * Slot i of every column belongs to body i; {@link #size()} bodies are in use.
+ */
+public class Bodies extends EntityStore { // Defines a class.
+
+    // Flag bits
+    public static final int ALIVE = 1;
+    public static final int GROUNDED = 1 << 1;
+    public static final int HIT_WALL = 1 << 2;
+    public static final int HIT_CEILING = 1 << 3;
+
+    private double[] vx;
+    private double[] vy;
+    // Position before the last fixed simulation step (for interpolated drawing)
+    private double[] prevX;
+    private double[] prevY;
+
+    public Bodies(int initialCapacity) { // Begins a method or constructor with its signature.
+        super(initialCapacity); // Executes: super(initialCapacity);
+        int capacity = x.length; // The base columns' size // Executes: int capacity = x.length; // The base columns' size
+        vx = new double[capacity]; // Executes: vx = new double[capacity];
+        vy = new double[capacity]; // Executes: vy = new double[capacity];
+        prevX = new double[capacity]; // Executes: prevX = new double[capacity];
+        prevY = new double[capacity]; // Executes: prevY = new double[capacity];
+    } // Closes a code block.
+
+    public Bodies() { // Begins a method or constructor with its signature.
+        this(16); // Executes: this(16);
+    } // Closes a code block.
+
+    /**
+     * Adds an alive body at rest and returns its handle.
+     */
+    public int add(double bx, double by, double bw, double bh) { // Begins a method or constructor with its signature.
+        int handle = add(bx, by, bw, bh, 0);
+        int i = slotOf(handle);
+        vx[i] = 0; // Executes: vx[i] = 0;
+        vy[i] = 0; // Executes: vy[i] = 0;
+        prevX[i] = bx; // Executes: prevX[i] = bx;
+        prevY[i] = by; // Executes: prevY[i] = by;
+        flags[i] = ALIVE; // Executes: flags[i] = ALIVE;
+        return handle;
+    } // Closes a code block.
+
+    public void storePreviousPositions() { // Begins a method or constructor with its signature.
+        System.arraycopy(x, 0, prevX, 0, size()); // Executes: System.arraycopy(x, 0, prevX, 0, size());
+        System.arraycopy(y, 0, prevY, 0, size()); // Executes: System.arraycopy(y, 0, prevY, 0, size());
+    } // Closes a code block.
+
+    public void storePreviousPosition(int i) { // Begins a method or constructor with its signature.
+        prevX[i] = x[i]; // Executes: prevX[i] = x[i];
+        prevY[i] = y[i]; // Executes: prevY[i] = y[i];
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    protected void grow(int capacity) { // Begins a method or constructor with its signature.
+        vx = Arrays.copyOf(vx, capacity); // Executes: vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity); // Executes: vy = Arrays.copyOf(vy, capacity);
+        prevX = Arrays.copyOf(prevX, capacity); // Executes: prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity); // Executes: prevY = Arrays.copyOf(prevY, capacity);
+        super.grow(capacity); // Executes: super.grow(capacity);
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    protected void moveSlot(int from, int to) { // Begins a method or constructor with its signature.
+        vx[to] = vx[from]; // Executes: vx[to] = vx[from];
+        vy[to] = vy[from]; // Executes: vy[to] = vy[from];
+        prevX[to] = prevX[from]; // Executes: prevX[to] = prevX[from];
+        prevY[to] = prevY[from]; // Executes: prevY[to] = prevY[from];
+        super.moveSlot(from, to); // Executes: super.moveSlot(from, to);
+    } // Closes a code block.
+
+    // -------------------------
+    // Per-body access
+    // -------------------------
+    public double getVelocityX(int i) { // Begins a method or constructor with its signature.
+        return vx[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getVelocityY(int i) { // Begins a method or constructor with its signature.
+        return vy[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getRenderX(int i, double alpha) { // Begins a method or constructor with its signature.
+        return prevX[i] + (x[i] - prevX[i]) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getRenderY(int i, double alpha) { // Begins a method or constructor with its signature.
+        return prevY[i] + (y[i] - prevY[i]) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    public void setVelocityX(int i, double v) { // Begins a method or constructor with its signature.
+        vx[i] = v; // Executes: vx[i] = v;
+    } // Closes a code block.
+
+    public void setVelocityY(int i, double v) { // Begins a method or constructor with its signature.
+        vy[i] = v; // Executes: vy[i] = v;
+    } // Closes a code block.
+
+    /**
+     * Replaces the contact flags set by the last physics step, keeping the others (ALIVE, ...).
+     */
+    public void setContactFlags(int i, boolean grounded, boolean hitWall, boolean hitCeiling) { // Begins a method or constructor with its signature.
+        int f = flags[i] & ~(GROUNDED | HIT_WALL | HIT_CEILING);
+        if (grounded) f |= GROUNDED; // Evaluates a conditional branch.
+        if (hitWall) f |= HIT_WALL; // Evaluates a conditional branch.
+        if (hitCeiling) f |= HIT_CEILING; // Evaluates a conditional branch.
+        flags[i] = f; // Executes: flags[i] = f;
+    } // Closes a code block.
+
+    public void kill(int i) { // Begins a method or constructor with its signature.
+        flags[i] &= ~ALIVE; // Executes: flags[i] &= ~ALIVE;
+    } // Closes a code block.
+} // Closes a code block.
@@ -6,11 +6,17 @@ public class Camera { // Defines a class.
     private double x, y; //(camera top-left in world coordinates) // Executes: private double x, y; //(camera top-left in world coordinates)
     private double viewWidth, viewHeight;
 
+    // Position before the last fixed simulation step, blended with x/y by renderAlpha for drawing
+    private double prevX, prevY;
+    private double renderAlpha = 1.0;
+
     public Camera(double viewHeight, double viewWidth) { // Begins a method or constructor with its signature.
         this.viewHeight = viewHeight; // Executes: this.viewHeight = viewHeight;
         this.viewWidth = viewWidth; // Executes: this.viewWidth = viewWidth;
         this.x = 0; // Executes: this.x = 0;
         this.y = 0; // Executes: this.y = 0;
+        this.prevX = x; // Nothing to blend from until the first step // Executes: this.prevX = x; // Nothing to blend from until the first step
+        this.prevY = y; // Executes: this.prevY = y;
     } // Closes a code block.
 
     // -------------------------------------------------
@@ -36,13 +42,41 @@ public class Camera { // Defines a class.
     /**
      * Often called "offset" in rendering code.
      * World position - offset = screen position.
+     * With a fixed-timestep loop this is the interpolated render position, see setRenderAlpha.
      */
     public double getOffsetX() { // Begins a method or constructor with its signature.
-        return x;
+        return MathUtils.lerp(prevX, x, renderAlpha); // Returns a value from the method.
     } // Closes a code block.
 
     public double getOffsetY() { // Begins a method or constructor with its signature.
-        return y;
+        return MathUtils.lerp(prevY, y, renderAlpha); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------------------------------
+    // Interpolation (fixed-timestep rendering)
+    // -------------------------------------------------
+
+    /**
+     * Called before each simulation step so rendering can blend from here to the new position.
+     */
+    public void storePreviousPosition() { // Begins a method or constructor with its signature.
+        this.prevX = x; // Executes: this.prevX = x;
+        this.prevY = y; // Executes: this.prevY = y;
+    } // Closes a code block.
+
+    public double getPreviousX() { // Begins a method or constructor with its signature.
+        return prevX;
+    } // Closes a code block.
+
+    public double getPreviousY() { // Begins a method or constructor with its signature.
+        return prevY;
+    } // Closes a code block.
+
+    /**
+     * @param alpha 0 = draw at the previous step, 1 = draw at the latest step
+     */
+    public void setRenderAlpha(double alpha) { // Begins a method or constructor with its signature.
+        this.renderAlpha = MathUtils.clamp(alpha, 0, 1); // Executes: this.renderAlpha = MathUtils.clamp(alpha, 0, 1);
     } // Closes a code block.
 
     // -------------------------------------------------
@@ -51,6 +85,7 @@ public class Camera { // Defines a class.
 
     /**
      * Instantly set the camera's top-left position in world coordinates.
+     * Drawing still blends from the previous position; use snapTo to jump there.
      */
     public void setPosition(double x, double y) { // Begins a method or constructor with its signature.
         this.x = x; // Executes: this.x = x;
@@ -58,12 +93,19 @@ public class Camera { // Defines a class.
     } // Closes a code block.
 
     /**
-     * Instantly center the camera on a target point in world coordinates.
+     * Places the camera at (x, y) with nothing to blend from, so the next frame is drawn there.
+     */
+    public void snapTo(double x, double y) { // Begins a method or constructor with its signature.
+        setPosition(x, y); // Executes: setPosition(x, y);
+        storePreviousPosition(); // Executes: storePreviousPosition();
+    } // Closes a code block.
+
+    /**
+     * Instantly center the camera on a target point in world coordinates, without blending.
      * This does NOT clamp to the map; call clampToMap after if needed.
      */
     public void centerOn(double targetX, double targetY) { // Begins a method or constructor with its signature.
-        this.x = targetX - viewWidth / 2.0; // Executes: this.x = targetX - viewWidth / 2.0;
-        this.y = targetY - viewHeight / 2.0; // Executes: this.y = targetY - viewHeight / 2.0;
+        snapTo(targetX - viewWidth / 2.0, targetY - viewHeight / 2.0); // Executes: snapTo(targetX - viewWidth / 2.0, targetY - viewHeight / 2.0);
     } // Closes a code block.
 
     /**
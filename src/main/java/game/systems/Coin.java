@@ -1,11 +0,0 @@
-package game.systems; // Declares the package for this source file.
-
-public class Coin extends Collectible { // Defines a class.
-
-    public static final int VALUE = 1;
-
-    public Coin(double x, double y, double width, double height) { // Begins a method or constructor with its signature.
-        super(x, y, width, height); // Executes: super(x, y, width, height);
-    } // Closes a code block.
-
-} // Closes a code block.
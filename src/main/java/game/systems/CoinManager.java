@@ -1,32 +1,52 @@
 package game.systems; // Declares the package for this source file.
 
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.LinearGradient;
 import javafx.scene.paint.Stop;
 import game.utils.Theme;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 public class CoinManager { // Defines a class.
 
     public static final double DEFAULT_SIZE = 20.0;
 
-    private final List<Coin> coins = new ArrayList<>();
+    // One slot per coin left in the level; collected coins are swap-removed
+    private final EntityStore coins = new EntityStore(64);
+    // Coins never move, so the per-frame pickup test only walks the ones near the player's x
+    private final SweepIndex index = new SweepIndex(coins);
+    // Second index with its own cursor, which follows the camera instead of the player
+    private final SweepIndex renderIndex = new SweepIndex(coins);
+    private static final Color HIGHLIGHT = Color.rgb(255, 255, 255, 0.65);
+
     private Theme theme = Theme.SUMMER;
+    // Shiny gold gradient used for all coins; rebuilt only when the theme changes
+    private LinearGradient goldFill = goldFillFor(theme);
 
     public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
-        if (theme != null) { // Begins a method or constructor with its signature.
+        if (theme != null && theme != this.theme) { // Begins a method or constructor with its signature.
             this.theme = theme; // Executes: this.theme = theme;
+            this.goldFill = goldFillFor(theme); // Executes: this.goldFill = goldFillFor(theme);
         } // Closes a code block.
     } // Closes a code block.
 
+    static LinearGradient goldFillFor(Theme theme) { // Begins a method or constructor with its signature.
+        return new LinearGradient( // Returns a value from the method.
+                0, 0, 0, 1, // Executes: 0, 0, 0, 1,
+                true, // Executes: true,
+                CycleMethod.NO_CYCLE, // Executes: CycleMethod.NO_CYCLE,
+                new Stop(0.0, theme.getCoinLight()), // Executes: new Stop(0.0, theme.getCoinLight()),
+                new Stop(0.45, theme.getCoinMid()), // Executes: new Stop(0.45, theme.getCoinMid()),
+                new Stop(1.0, theme.getCoinShadow()) // Executes: new Stop(1.0, theme.getCoinShadow())
+        ); // Executes: );
+    } // Closes a code block.
+
     // Clears the coins
     public void remove() { // Begins a method or constructor with its signature.
         coins.clear(); // Executes: coins.clear();
+        index.invalidate(); // Executes: index.invalidate();
+        renderIndex.invalidate(); // Executes: renderIndex.invalidate();
     } // Closes a code block.
 
     // Overloaded method for easier use
@@ -44,27 +64,24 @@ public class CoinManager { // Defines a class.
             double x = pos[0];
             double y = pos[1];
 
-            // Create a new coin and add it to the list
-            coins.add(new Coin(x, y, coinWidth, coinHeight)); // Executes: coins.add(new Coin(x, y, coinWidth, coinHeight));
+            // Add the coin to the store
+            coins.add(x, y, coinWidth, coinHeight, 0); // Executes: coins.add(x, y, coinWidth, coinHeight, 0);
         } // Closes a code block.
+        index.invalidate(); // Executes: index.invalidate();
+        renderIndex.invalidate(); // Executes: renderIndex.invalidate();
     } // Closes a code block.
 
     // Updates and counts the collected coins, removes them from the world
     public int updateAndCountCollected(double playerX, double playerY, double playerW, double playerH) { // Begins a method or constructor with its signature.
         int collectedThisFrame = 0;
 
-        Iterator<Coin> it = coins.iterator();
-        while (it.hasNext()) { // Begins a method or constructor with its signature.
-            Coin coin = it.next();
-
-            if (!coin.isCollected()) { // Begins a method or constructor with its signature.
-                boolean justCollected = coin.tryCollect(playerX, playerY, playerW, playerH);
-                if (justCollected) { // Begins a method or constructor with its signature.
-                    collectedThisFrame++; // Executes: collectedThisFrame++;
-                    it.remove(); // Remove the collected coin from world // Executes: it.remove(); // Remove the collected coin from world
-                } // Closes a code block.
-            } else { // Executes: } else {
-                it.remove(); // If coin is already collected, remove it // Executes: it.remove(); // If coin is already collected, remove it
+        // Only coins whose x-span can touch the player; collected ones are skipped (stale handle)
+        double right = playerX + playerW;
+        for (int k = index.seek(playerX); k < index.size() && index.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = coins.slotOf(index.getHandle(k));
+            if (slot >= 0 && coins.overlaps(slot, playerX, playerY, playerW, playerH)) { // Begins a method or constructor with its signature.
+                collectedThisFrame++; // Executes: collectedThisFrame++;
+                coins.removeAt(slot); // Remove the collected coin from world // Executes: coins.removeAt(slot); // Remove the collected coin from world
             } // Closes a code block.
         } // Closes a code block.
 
@@ -72,51 +89,83 @@ public class CoinManager { // Defines a class.
     } // Closes a code block.
 
     // Renders the coins onto the canvas
-    public void render(GraphicsContext gc, Camera camera) { // Begins a method or constructor with its signature.
-        if (gc == null || camera == null) return; // Evaluates a conditional branch.
-
-        // Shiny gold gradient used for all coins
-        LinearGradient goldFill = new LinearGradient( // Executes: LinearGradient goldFill = new LinearGradient(
-                0, 0, 0, 1, // Executes: 0, 0, 0, 1,
-                true, // Executes: true,
-                CycleMethod.NO_CYCLE, // Executes: CycleMethod.NO_CYCLE,
-                new Stop(0.0, theme.getCoinLight()), // Executes: new Stop(0.0, theme.getCoinLight()),
-                new Stop(0.45, theme.getCoinMid()), // Executes: new Stop(0.45, theme.getCoinMid()),
-                new Stop(1.0, theme.getCoinShadow()) // Executes: new Stop(1.0, theme.getCoinShadow())
-        ); // Executes: );
+    public void render(RenderCommandBuffer out, Camera camera) { // Begins a method or constructor with its signature.
+        render(out, camera, null, null); // Executes: render(out, camera, null, null);
+    } // Closes a code block.
 
-        Color goldOutline = theme.getCoinOutline();
+    /**
+     * Draws the coins; default-size coins come from the atlas when one is given. With a culling
+     * pass only the coins in its rectangle are visited (and counted); without one, all of them.
+     */
+    public void render(RenderCommandBuffer out, Camera camera, SpriteAtlas atlas, ViewCulling cull) { // Begins a method or constructor with its signature.
+        if (out == null || camera == null) return; // Evaluates a conditional branch.
+        if (atlas != null && atlas.getTheme() != theme) atlas = null; // Evaluates a conditional branch.
+
+        // Get the camera offset (for scrolling)
+        double ox = camera.getOffsetX();
+        double oy = camera.getOffsetY();
+
+        if (cull == null) { // Begins a method or constructor with its signature.
+            for (int i = 0; i < coins.size(); i++) drawCoin(out, i, ox, oy, atlas); // Executes: for (int i = 0; i < coins.size(); i++) drawCoin(out, i, ox, oy, atlas);
+            return; // Returns a value from the method.
+        } // Closes a code block.
 
-        for (Coin coin : coins) { // Begins a method or constructor with its signature.
-            // Get the camera offset (for scrolling)
-            double ox = camera.getOffsetX();
-            double oy = camera.getOffsetY();
+        int drawn = 0;
+        double right = cull.getRight();
+        for (int k = renderIndex.seek(cull.getLeft()); k < renderIndex.size() && renderIndex.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = coins.slotOf(renderIndex.getHandle(k));
+            if (slot < 0 || !cull.isVisible(coins.getX(slot), coins.getY(slot), coins.getWidth(slot), coins.getHeight(slot))) continue; // Evaluates a conditional branch.
+            drawCoin(out, slot, ox, oy, atlas); // Executes: drawCoin(out, slot, ox, oy, atlas);
+            drawn++; // Executes: drawn++;
+        } // Closes a code block.
+        cull.record(ViewCulling.COINS, drawn, coins.size()); // Executes: cull.record(ViewCulling.COINS, drawn, coins.size());
+    } // Closes a code block.
 
-            // Get the screen coordinates based on camera offsets
-            double screenX = coin.getX() - ox;
-            double screenY = coin.getY() - oy;
+    private void drawCoin(RenderCommandBuffer out, int i, double ox, double oy, SpriteAtlas atlas) { // Begins a method or constructor with its signature.
+        // Get the screen coordinates based on camera offsets
+        double screenX = coins.getX(i) - ox;
+        double screenY = coins.getY(i) - oy;
 
-            double w = coin.getWidth();
-            double h = coin.getHeight();
+        double w = coins.getWidth(i);
+        double h = coins.getHeight(i);
 
-            // Main body
-            gc.setFill(goldFill); // Executes: gc.setFill(goldFill);
-            gc.fillOval(screenX, screenY, w, h); // Executes: gc.fillOval(screenX, screenY, w, h);
+        if (atlas != null && w == DEFAULT_SIZE && h == DEFAULT_SIZE) { // Begins a method or constructor with its signature.
+            atlas.draw(out, SpriteAtlas.COIN, screenX, screenY); // Executes: atlas.draw(out, SpriteAtlas.COIN, screenX, screenY);
+        } else { // Executes: } else {
+            paintCoin(out, screenX, screenY, w, h, goldFill, theme.getCoinOutline()); // Executes: paintCoin(out, screenX, screenY, w, h, goldFill, theme.getCoinOutline());
+        } // Closes a code block.
+    } // Closes a code block.
 
-            // Outline
-            gc.setStroke(goldOutline); // Executes: gc.setStroke(goldOutline);
-            gc.setLineWidth(2); // Executes: gc.setLineWidth(2);
-            gc.strokeOval(screenX, screenY, w, h); // Executes: gc.strokeOval(screenX, screenY, w, h);
+    /**
+     * One coin: gradient body, outline and an inner highlight. Also used to fill the sprite atlas.
+     */
+    static void paintCoin(RenderCommandBuffer out, double screenX, double screenY, double w, double h, // Executes: static void paintCoin(RenderCommandBuffer out, double screenX, double screenY, double w, double h,
+                          LinearGradient fill, Color outline) { // Executes: LinearGradient fill, Color outline) {
+        // Main body
+        out.setPass(0); // Executes: out.setPass(0);
+        out.setFill(fill); // Executes: out.setFill(fill);
+        out.fillOval(screenX, screenY, w, h); // Executes: out.fillOval(screenX, screenY, w, h);
+
+        // Outline
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setStroke(outline); // Executes: out.setStroke(outline);
+        out.setLineWidth(2); // Executes: out.setLineWidth(2);
+        out.strokeOval(screenX, screenY, w, h); // Executes: out.strokeOval(screenX, screenY, w, h);
+
+        // Inner highlight to fake a bevelled edge
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setStroke(HIGHLIGHT); // Executes: out.setStroke(HIGHLIGHT);
+        out.setLineWidth(1.2); // Executes: out.setLineWidth(1.2);
+        out.strokeOval(screenX + 3, screenY + 3, w - 6, h - 6); // Executes: out.strokeOval(screenX + 3, screenY + 3, w - 6, h - 6);
+    } // Closes a code block.
 
-            // Inner highlight to fake a bevelled edge
-            gc.setStroke(Color.rgb(255, 255, 255, 0.65)); // Executes: gc.setStroke(Color.rgb(255, 255, 255, 0.65));
-            gc.setLineWidth(1.2); // Executes: gc.setLineWidth(1.2);
-            gc.strokeOval(screenX + 3, screenY + 3, w - 6, h - 6); // Executes: gc.strokeOval(screenX + 3, screenY + 3, w - 6, h - 6);
-        } // Closes a code block.
+    // Number of coins still in the level
+    public int getCount() { // Begins a method or constructor with its signature.
+        return coins.size(); // Returns a value from the method.
     } // Closes a code block.
 
-    // Getter for the list of coins
-    public List<Coin> getCoins() { // Begins a method or constructor with its signature.
+    // Getter for the coin store
+    public EntityStore getCoins() { // Begins a method or constructor with its signature.
         return coins;
     } // Closes a code block.
 } // Closes a code block.
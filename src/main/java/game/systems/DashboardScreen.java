@@ -148,8 +148,11 @@ public class DashboardScreen { // Defines a class.
         return selectedTheme;
     } // Closes a code block.
 
-    public void setHighScore(int value) { // Begins a method or constructor with its signature.
-        highScoreText.setText("Best Score: " + value); // Executes: highScoreText.setText("Best Score: " + value);
+    /**
+     * Shows the best score for a level in the selected theme.
+     */
+    public void setHighScore(int level, int value) { // Begins a method or constructor with its signature.
+        highScoreText.setText("Level " + level + " Best: " + value); // Executes: highScoreText.setText("Level " + level + " Best: " + value);
     } // Closes a code block.
 
     private ToggleButton makeThemeButton(Theme theme) { // Begins a method or constructor with its signature.
@@ -0,0 +1,333 @@
+package game.systems; // Declares the package for this source file.
+
+import javafx.scene.paint.Color;
+
+/**
+ * Short-lived feedback effects: sparkles when coins are collected, dust puffs when the player lands,
+ * and rising "+10" popups when the score goes up. Particles and popups live in fixed-capacity
+ * primitive arrays (dead ones are swapped out), every color is made up front with a few fade levels,
+ * and popup labels are drawn a glyph at a time from preallocated one-character strings, so spawning
+ * and drawing thousands of particles allocates nothing, whatever the points shown. When a pool is
+ * full, new effects are dropped and counted.
+ *
+ * <p>Effects only follow what the view already knows: {@link GameEvents} callbacks queue them and
+ * {@link #update} spawns them around the player's drawn position, so the same code serves the
+ * single-threaded loop and the snapshots of a {@code SimulationThread}. Everything is recorded into
+ * the world's {@link RenderCommandBuffer} on its own layer and drawn in the same flush as the world.
+ * The time spent updating and recording is counted in the frame times {@code GameLoop} hands its
+ * {@code ResolutionScaler}; the live counts and drops are kept for profiling.
+ */
+public class EffectManager implements GameEvents.Listener { // Defines a class.
+
+    public static final int DEFAULT_PARTICLES = 4_096;
+    public static final int DEFAULT_POPUPS = 64;
+
+    // Particle kinds
+    public static final int SPARKLE = 0;
+    public static final int PUFF = 1;
+    private static final int KINDS = 2;
+
+    private static final int SPARKLES_PER_COIN = 12;
+    private static final int PUFF_PARTICLES = 10;
+    // Seconds a particle or popup lives, and how fast they move (px/s, px/s^2)
+    private static final double SPARKLE_LIFE = 0.5;
+    private static final double PUFF_LIFE = 0.35;
+    private static final double POPUP_LIFE = 0.8;
+    private static final double SPARKLE_SPEED = 160;
+    private static final double SPARKLE_GRAVITY = 400;
+    private static final double PUFF_SPEED = 90;
+    private static final double POPUP_RISE = 40;
+    // Air time before touching down counts as a landing (not just a step down)
+    private static final double LANDING_AIR_TIME = 0.15;
+
+    // Opacity steps every effect fades through, newest first
+    private static final int FADE_LEVELS = 8;
+
+    // Popup label glyphs, drawn one by one at a fixed advance (digits are the same width in the default font)
+    private static final String PLUS = "+";
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    private static final double GLYPH_WIDTH = 7;
+
+    // Particles: position, velocity, age, lifetime, size, kind
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] age;
+    private final double[] life;
+    private final double[] size;
+    private final byte[] kind;
+    private int count = 0;
+
+    // Popups: position, age, points shown
+    private final double[] popupX;
+    private final double[] popupY;
+    private final double[] popupAge;
+    private final int[] popupValue;
+    private int popupCount = 0;
+
+    // Shared by every level: the canvas makes a platform paint the first time it sees a Color, so
+    // per-instance colors would allocate again in each new level
+    private static final Color[][] PARTICLE_COLORS = new Color[KINDS][FADE_LEVELS];
+    private static final Color[] POPUP_COLORS = new Color[FADE_LEVELS];
+
+    static { // Begins a method or constructor with its signature.
+        for (int level = 0; level < FADE_LEVELS; level++) { // Begins a method or constructor with its signature.
+            double opacity = 1.0 - level / (double) FADE_LEVELS;
+            PARTICLE_COLORS[SPARKLE][level] = Color.rgb(255, 236, 140, opacity); // Executes: PARTICLE_COLORS[SPARKLE][level] = Color.rgb(255, 236, 140, opacity);
+            PARTICLE_COLORS[PUFF][level] = Color.rgb(235, 235, 235, opacity * 0.8); // Executes: PARTICLE_COLORS[PUFF][level] = Color.rgb(235, 235, 235, opacity * 0.8);
+            POPUP_COLORS[level] = Color.rgb(255, 255, 255, opacity); // Executes: POPUP_COLORS[level] = Color.rgb(255, 255, 255, opacity);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // Queued by events until the next update, which knows where the player is drawn
+    private int pendingCoins = 0;
+    private int pendingPoints = 0;
+    private int lastScore = 0;
+    private boolean wasOnGround = true;
+    private double airTime = 0;
+
+    // Cheap deterministic noise for spread (no Random, no boxing)
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    // Stats: nanoseconds of the last update and record, and effects dropped because a pool was full
+    private long lastUpdateNanos = 0;
+    private long lastRecordNanos = 0;
+    private long dropped = 0;
+
+    public EffectManager() { // Begins a method or constructor with its signature.
+        this(DEFAULT_PARTICLES, DEFAULT_POPUPS); // Executes: this(DEFAULT_PARTICLES, DEFAULT_POPUPS);
+    } // Closes a code block.
+
+    public EffectManager(int particleCapacity, int popupCapacity) { // Begins a method or constructor with its signature.
+        x = new double[particleCapacity]; // Executes: x = new double[particleCapacity];
+        y = new double[particleCapacity]; // Executes: y = new double[particleCapacity];
+        vx = new double[particleCapacity]; // Executes: vx = new double[particleCapacity];
+        vy = new double[particleCapacity]; // Executes: vy = new double[particleCapacity];
+        age = new double[particleCapacity]; // Executes: age = new double[particleCapacity];
+        life = new double[particleCapacity]; // Executes: life = new double[particleCapacity];
+        size = new double[particleCapacity]; // Executes: size = new double[particleCapacity];
+        kind = new byte[particleCapacity]; // Executes: kind = new byte[particleCapacity];
+
+        popupX = new double[popupCapacity]; // Executes: popupX = new double[popupCapacity];
+        popupY = new double[popupCapacity]; // Executes: popupY = new double[popupCapacity];
+        popupAge = new double[popupCapacity]; // Executes: popupAge = new double[popupCapacity];
+        popupValue = new int[popupCapacity]; // Executes: popupValue = new int[popupCapacity];
+    } // Closes a code block.
+
+    // -------------------------
+    // Events
+    // -------------------------
+
+    @Override // Applies an annotation to the following element.
+    public void onCoinCollected(int collected, int totalCoins) { // Begins a method or constructor with its signature.
+        pendingCoins += collected; // Executes: pendingCoins += collected;
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    public void onScoreChanged(int score) { // Begins a method or constructor with its signature.
+        if (score > lastScore) pendingPoints += score - lastScore; // Evaluates a conditional branch.
+        lastScore = score; // Executes: lastScore = score;
+    } // Closes a code block.
+
+    // -------------------------
+    // Update
+    // -------------------------
+
+    /**
+     * Spawns what the events since the last call asked for around the player's drawn box, starts a
+     * puff when the player lands, and moves everything on by frameTime seconds.
+     */
+    public void update(double frameTime, double playerX, double playerY, double playerW, double playerH, // Executes: public void update(double frameTime, double playerX, double playerY, double playerW, double playerH,
+                       boolean onGround) { // Executes: boolean onGround) {
+        long start = System.nanoTime();
+        double centerX = playerX + playerW / 2;
+
+        if (pendingCoins > 0) { // Begins a method or constructor with its signature.
+            sparkle(centerX, playerY + playerH / 2, pendingCoins * SPARKLES_PER_COIN); // Executes: sparkle(centerX, playerY + playerH / 2, pendingCoins * SPARKLES_PER_COIN);
+            pendingCoins = 0; // Executes: pendingCoins = 0;
+        } // Closes a code block.
+        if (pendingPoints > 0) { // Begins a method or constructor with its signature.
+            popup(centerX, playerY, pendingPoints); // Executes: popup(centerX, playerY, pendingPoints);
+            pendingPoints = 0; // Executes: pendingPoints = 0;
+        } // Closes a code block.
+        if (onGround && !wasOnGround && airTime >= LANDING_AIR_TIME) puff(centerX, playerY + playerH); // Evaluates a conditional branch.
+        airTime = onGround ? 0 : airTime + frameTime; // Executes: airTime = onGround ? 0 : airTime + frameTime;
+        wasOnGround = onGround; // Executes: wasOnGround = onGround;
+
+        for (int i = 0; i < count; ) { // Begins a method or constructor with its signature.
+            age[i] += frameTime; // Executes: age[i] += frameTime;
+            if (age[i] >= life[i]) { // Begins a method or constructor with its signature.
+                removeParticle(i); // The last one moves here: look at slot i again // Executes: removeParticle(i); // The last one moves here: look at slot i again
+                continue; // Executes: continue;
+            } // Closes a code block.
+            if (kind[i] == SPARKLE) vy[i] += SPARKLE_GRAVITY * frameTime; // Evaluates a conditional branch.
+            x[i] += vx[i] * frameTime; // Executes: x[i] += vx[i] * frameTime;
+            y[i] += vy[i] * frameTime; // Executes: y[i] += vy[i] * frameTime;
+            i++; // Executes: i++;
+        } // Closes a code block.
+        for (int i = 0; i < popupCount; ) { // Begins a method or constructor with its signature.
+            popupAge[i] += frameTime; // Executes: popupAge[i] += frameTime;
+            if (popupAge[i] >= POPUP_LIFE) { // Begins a method or constructor with its signature.
+                removePopup(i); // Executes: removePopup(i);
+                continue; // Executes: continue;
+            } // Closes a code block.
+            popupY[i] -= POPUP_RISE * frameTime; // Executes: popupY[i] -= POPUP_RISE * frameTime;
+            i++; // Executes: i++;
+        } // Closes a code block.
+        lastUpdateNanos = System.nanoTime() - start; // Executes: lastUpdateNanos = System.nanoTime() - start;
+    } // Closes a code block.
+
+    /**
+     * Bursts n sparkles out of (cx, cy) in world coordinates.
+     */
+    public void sparkle(double cx, double cy, int n) { // Begins a method or constructor with its signature.
+        for (int k = 0; k < n; k++) { // Begins a method or constructor with its signature.
+            double angle = nextUnit() * Math.PI * 2;
+            double speed = SPARKLE_SPEED * (0.4 + 0.6 * nextUnit());
+            spawn(SPARKLE, cx, cy, Math.cos(angle) * speed, Math.sin(angle) * speed - SPARKLE_SPEED / 2, // Executes: spawn(SPARKLE, cx, cy, Math.cos(angle) * speed, Math.sin(angle) * speed - SPARKLE_SPEED / 2,
+                    SPARKLE_LIFE * (0.6 + 0.4 * nextUnit()), 3 + 2 * nextUnit()); // Executes: SPARKLE_LIFE * (0.6 + 0.4 * nextUnit()), 3 + 2 * nextUnit());
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * A puff of dust spreading sideways from (cx, bottom) in world coordinates.
+     */
+    public void puff(double cx, double bottom) { // Begins a method or constructor with its signature.
+        for (int k = 0; k < PUFF_PARTICLES; k++) { // Begins a method or constructor with its signature.
+            double side = nextUnit() * 2 - 1;
+            spawn(PUFF, cx + side * 12, bottom - 4, side * PUFF_SPEED, -PUFF_SPEED * 0.3 * nextUnit(), // Executes: spawn(PUFF, cx + side * 12, bottom - 4, side * PUFF_SPEED, -PUFF_SPEED * 0.3 * nextUnit(),
+                    PUFF_LIFE * (0.7 + 0.3 * nextUnit()), 6 + 4 * nextUnit()); // Executes: PUFF_LIFE * (0.7 + 0.3 * nextUnit()), 6 + 4 * nextUnit());
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * A "+points" label rising from (cx, y) in world coordinates.
+     */
+    public void popup(double cx, double y, int points) { // Begins a method or constructor with its signature.
+        if (popupCount == popupX.length) { // Begins a method or constructor with its signature.
+            dropped++; // Executes: dropped++;
+            return; // Returns a value from the method.
+        } // Closes a code block.
+        popupX[popupCount] = cx; // Executes: popupX[popupCount] = cx;
+        popupY[popupCount] = y; // Executes: popupY[popupCount] = y;
+        popupAge[popupCount] = 0; // Executes: popupAge[popupCount] = 0;
+        popupValue[popupCount] = points; // Executes: popupValue[popupCount] = points;
+        popupCount++; // Executes: popupCount++;
+    } // Closes a code block.
+
+    private void spawn(int k, double px, double py, double pvx, double pvy, double lifetime, double s) { // Begins a method or constructor with its signature.
+        if (count == x.length) { // Begins a method or constructor with its signature.
+            dropped++; // Executes: dropped++;
+            return; // Returns a value from the method.
+        } // Closes a code block.
+        x[count] = px; // Executes: x[count] = px;
+        y[count] = py; // Executes: y[count] = py;
+        vx[count] = pvx; // Executes: vx[count] = pvx;
+        vy[count] = pvy; // Executes: vy[count] = pvy;
+        age[count] = 0; // Executes: age[count] = 0;
+        life[count] = lifetime; // Executes: life[count] = lifetime;
+        size[count] = s; // Executes: size[count] = s;
+        kind[count] = (byte) k; // Executes: kind[count] = (byte) k;
+        count++; // Executes: count++;
+    } // Closes a code block.
+
+    private void removeParticle(int i) { // Begins a method or constructor with its signature.
+        int last = --count;
+        x[i] = x[last]; // Executes: x[i] = x[last];
+        y[i] = y[last]; // Executes: y[i] = y[last];
+        vx[i] = vx[last]; // Executes: vx[i] = vx[last];
+        vy[i] = vy[last]; // Executes: vy[i] = vy[last];
+        age[i] = age[last]; // Executes: age[i] = age[last];
+        life[i] = life[last]; // Executes: life[i] = life[last];
+        size[i] = size[last]; // Executes: size[i] = size[last];
+        kind[i] = kind[last]; // Executes: kind[i] = kind[last];
+    } // Closes a code block.
+
+    private void removePopup(int i) { // Begins a method or constructor with its signature.
+        int last = --popupCount;
+        popupX[i] = popupX[last]; // Executes: popupX[i] = popupX[last];
+        popupY[i] = popupY[last]; // Executes: popupY[i] = popupY[last];
+        popupAge[i] = popupAge[last]; // Executes: popupAge[i] = popupAge[last];
+        popupValue[i] = popupValue[last]; // Executes: popupValue[i] = popupValue[last];
+    } // Closes a code block.
+
+    // 0 (inclusive) to 1 (exclusive), from a 64-bit LCG
+    private double nextUnit() { // Begins a method or constructor with its signature.
+        seed = seed * 6364136223846793005L + 1442695040888963407L; // Executes: seed = seed * 6364136223846793005L + 1442695040888963407L;
+        return (seed >>> 11) * 0x1.0p-53; // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Render
+    // -------------------------
+
+    /**
+     * Records every live effect into the current layer of out, seen through camera.
+     */
+    public void render(RenderCommandBuffer out, Camera camera) { // Begins a method or constructor with its signature.
+        long start = System.nanoTime();
+        double ox = camera.getOffsetX();
+        double oy = camera.getOffsetY();
+
+        for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+            double s = kind[i] == PUFF ? size[i] * (1 + age[i] / life[i]) : size[i]; // Puffs swell as they fade // Executes: double s = kind[i] == PUFF ? size[i] * (1 + age[i] / life[i]) : size[i]; // Puffs swell as they fade
+            out.setFill(PARTICLE_COLORS[kind[i]][fadeLevel(age[i], life[i])]); // Executes: out.setFill(PARTICLE_COLORS[kind[i]][fadeLevel(age[i], life[i])]);
+            out.fillOval(x[i] - s / 2 - ox, y[i] - s / 2 - oy, s, s); // Executes: out.fillOval(x[i] - s / 2 - ox, y[i] - s / 2 - oy, s, s);
+        } // Closes a code block.
+        for (int i = 0; i < popupCount; i++) { // Begins a method or constructor with its signature.
+            out.setFill(POPUP_COLORS[fadeLevel(popupAge[i], POPUP_LIFE)]); // Executes: out.setFill(POPUP_COLORS[fadeLevel(popupAge[i], POPUP_LIFE)]);
+            fillLabel(out, popupValue[i], popupX[i] - 12 - ox, popupY[i] - oy); // Executes: fillLabel(out, popupValue[i], popupX[i] - 12 - ox, popupY[i] - oy);
+        } // Closes a code block.
+        lastRecordNanos = System.nanoTime() - start; // Executes: lastRecordNanos = System.nanoTime() - start;
+    } // Closes a code block.
+
+    private static int fadeLevel(double age, double life) { // Begins a method or constructor with its signature.
+        return Math.min(FADE_LEVELS - 1, (int) (age / life * FADE_LEVELS)); // Returns a value from the method.
+    } // Closes a code block.
+
+    // "+points" with its left edge at x, without building a String: the digits go right to left
+    private static void fillLabel(RenderCommandBuffer out, int points, double x, double y) { // Begins a method or constructor with its signature.
+        int digits = 1;
+        for (int rest = points; rest >= 10; rest /= 10) digits++; // Executes: for (int rest = points; rest >= 10; rest /= 10) digits++;
+        out.fillText(PLUS, x, y); // Executes: out.fillText(PLUS, x, y);
+        double digitX = x + GLYPH_WIDTH * digits;
+        int rest = points;
+        do { // Begins a method or constructor with its signature.
+            out.fillText(DIGITS[rest % 10], digitX, y); // Executes: out.fillText(DIGITS[rest % 10], digitX, y);
+            rest /= 10; // Executes: rest /= 10;
+            digitX -= GLYPH_WIDTH; // Executes: digitX -= GLYPH_WIDTH;
+        } while (rest > 0); // Executes: } while (rest > 0);
+    } // Closes a code block.
+
+    // -------------------------
+    // Stats
+    // -------------------------
+
+    public int getParticleCount() { // Begins a method or constructor with its signature.
+        return count;
+    } // Closes a code block.
+
+    public int getPopupCount() { // Begins a method or constructor with its signature.
+        return popupCount;
+    } // Closes a code block.
+
+    public int getParticleCapacity() { // Begins a method or constructor with its signature.
+        return x.length;
+    } // Closes a code block.
+
+    /**
+     * Effects not spawned because their pool was full, since creation.
+     */
+    public long getDroppedCount() { // Begins a method or constructor with its signature.
+        return dropped;
+    } // Closes a code block.
+
+    public long getLastUpdateNanos() { // Begins a method or constructor with its signature.
+        return lastUpdateNanos;
+    } // Closes a code block.
+
+    public long getLastRecordNanos() { // Begins a method or constructor with its signature.
+        return lastRecordNanos;
+    } // Closes a code block.
+} // Closes a code block.
@@ -1,80 +1,55 @@
 package game.systems; // Declares the package for this source file.
 
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import game.utils.Theme;
 
-public class Enemy { // Defines a class.
+/**
+ * Size and look of an enemy. Enemy state (position, velocity, alive) lives in
+ * {@link EnemyManager}'s packed {@link Bodies} so physics can batch all of them.
+ */
+public final class Enemy { // Defines a class.
 
-    private double x, y;
-    private double vx = 60;
     public static final double SIZE = 30;
-    private boolean alive = true;
+    // Walking speed when spawned / chasing the player
+    public static final double SPAWN_SPEED = 60;
+    public static final double CHASE_SPEED = 70;
 
-    public Enemy(double x, double y) { // Begins a method or constructor with its signature.
-        this.x = x; // Executes: this.x = x;
-        this.y = y; // Executes: this.y = y;
-    } // Closes a code block.
-
-    public boolean isAlive() { // Begins a method or constructor with its signature.
-        return alive;
-    } // Closes a code block.
-
-    public double getX() { // Begins a method or constructor with its signature.
-        return x;
-    } // Closes a code block.
-
-    public void setVelocityX(double vx) { // Begins a method or constructor with its signature.
-        this.vx = vx; // Executes: this.vx = vx;
-    } // Closes a code block.
-
-    public boolean checkPlayerCollision(double px, double py, double pw, double ph) { // Begins a method or constructor with its signature.
-        if (!alive) return false; // Evaluates a conditional branch.
+    private Enemy() {} // Executes: private Enemy() {}
 
+    public static boolean overlaps(double x, double y, double px, double py, double pw, double ph) { // Begins a method or constructor with its signature.
         return px < x + SIZE && // Returns a value from the method.
                px + pw > x && // Executes: px + pw > x &&
                py < y + SIZE && // Executes: py < y + SIZE &&
                py + ph > y; // Executes: py + ph > y;
     } // Closes a code block.
 
-    public void update(double dt, TileMap map) { // Begins a method or constructor with its signature.
-        x += vx * dt; // Executes: x += vx * dt;
-
-        // Simple edge turn: if there is no ground slightly ahead, flip direction
-        if (!map.isSolidAt(x + Math.signum(vx) * (SIZE / 2.0), y + SIZE + 2)) { // Begins a method or constructor with its signature.
-            vx = -vx; // Executes: vx = -vx;
-        } // Closes a code block.
-    } // Closes a code block.
-
-    public void render(GraphicsContext gc, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
-        if (!alive) return; // Evaluates a conditional branch.
-
-        double screenX = x - camera.getOffsetX();
-        double screenY = y - camera.getOffsetY();
-
+    /**
+     * Draws one enemy with its top-left corner at the given screen position.
+     */
+    public static void render(RenderCommandBuffer out, double screenX, double screenY, Theme theme) { // Begins a method or constructor with its signature.
         // Body
         Color fill = theme != null ? theme.getEnemyFill() : Color.web("#C62828");
         Color outline = theme != null ? theme.getEnemyOutline() : Color.web("#4E0B0B");
 
-        gc.setFill(fill); // Executes: gc.setFill(fill);
-        gc.fillRoundRect(screenX, screenY, SIZE, SIZE, 8, 8); // Executes: gc.fillRoundRect(screenX, screenY, SIZE, SIZE, 8, 8);
+        out.setPass(0); // Executes: out.setPass(0);
+        out.setFill(fill); // Executes: out.setFill(fill);
+        out.fillRoundRect(screenX, screenY, SIZE, SIZE, 8, 8); // Executes: out.fillRoundRect(screenX, screenY, SIZE, SIZE, 8, 8);
 
         // Outline
-        gc.setStroke(outline); // Executes: gc.setStroke(outline);
-        gc.setLineWidth(1.5); // Executes: gc.setLineWidth(1.5);
-        gc.strokeRoundRect(screenX, screenY, SIZE, SIZE, 8, 8); // Executes: gc.strokeRoundRect(screenX, screenY, SIZE, SIZE, 8, 8);
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setStroke(outline); // Executes: out.setStroke(outline);
+        out.setLineWidth(1.5); // Executes: out.setLineWidth(1.5);
+        out.strokeRoundRect(screenX, screenY, SIZE, SIZE, 8, 8); // Executes: out.strokeRoundRect(screenX, screenY, SIZE, SIZE, 8, 8);
 
         // Simple "eyes"
-        gc.setFill(Color.WHITE); // Executes: gc.setFill(Color.WHITE);
-        gc.fillOval(screenX + 6, screenY + 6, 6, 8); // Executes: gc.fillOval(screenX + 6, screenY + 6, 6, 8);
-        gc.fillOval(screenX + SIZE - 12, screenY + 6, 6, 8); // Executes: gc.fillOval(screenX + SIZE - 12, screenY + 6, 6, 8);
-
-        gc.setFill(Color.BLACK); // Executes: gc.setFill(Color.BLACK);
-        gc.fillOval(screenX + 8, screenY + 9, 3, 4); // Executes: gc.fillOval(screenX + 8, screenY + 9, 3, 4);
-        gc.fillOval(screenX + SIZE - 10, screenY + 9, 3, 4); // Executes: gc.fillOval(screenX + SIZE - 10, screenY + 9, 3, 4);
-    } // Closes a code block.
-
-    public void kill() { // Begins a method or constructor with its signature.
-        alive = false; // Executes: alive = false;
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setFill(Color.WHITE); // Executes: out.setFill(Color.WHITE);
+        out.fillOval(screenX + 6, screenY + 6, 6, 8); // Executes: out.fillOval(screenX + 6, screenY + 6, 6, 8);
+        out.fillOval(screenX + SIZE - 12, screenY + 6, 6, 8); // Executes: out.fillOval(screenX + SIZE - 12, screenY + 6, 6, 8);
+
+        out.setPass(3); // Executes: out.setPass(3);
+        out.setFill(Color.BLACK); // Executes: out.setFill(Color.BLACK);
+        out.fillOval(screenX + 8, screenY + 9, 3, 4); // Executes: out.fillOval(screenX + 8, screenY + 9, 3, 4);
+        out.fillOval(screenX + SIZE - 10, screenY + 9, 3, 4); // Executes: out.fillOval(screenX + SIZE - 10, screenY + 9, 3, 4);
     } // Closes a code block.
 } // Closes a code block.
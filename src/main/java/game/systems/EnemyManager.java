@@ -1,15 +1,46 @@
 package game.systems; // Declares the package for this source file.
 
-import game.core.Player;
+import game.core.BodyPhysics;
+import game.core.PlayerState;
+import game.utils.Constants;
 import game.utils.Theme;
-import javafx.scene.canvas.GraphicsContext;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class EnemyManager { // Defines a class.
 
-    private final List<Enemy> enemies = new ArrayList<>();
+    // Query visitor for "is anything there": stops at the first hit
+    private static final SpatialHash.Visitor STOP_AT_FIRST = id -> false;
+
+    // Activity window around the camera view: enemies in the view (plus ACTIVE_PAD) move every tick,
+    // enemies in the MARGIN band around it every MARGIN_STRIDE ticks, everything further away is frozen
+    public static final double ACTIVE_PAD = 2 * TileMap.TILE_SIZE;
+    public static final double MARGIN = 640;
+    public static final int MARGIN_STRIDE = 4;
+    // Coarse grid used to find the enemies inside the window without looking at the rest of the level
+    private static final double REGION_CELL = 256;
+
+    // All enemies live in one packed store; BodyPhysics moves them in a single pass
+    private final Bodies bodies = new Bodies();
+    private final BodyPhysics physics = new BodyPhysics(Constants.GRAVITY, Constants.MAX_FALL_SPEED);
+    // Tile-sized grid over the enemies, refreshed after every physics step; contact checks query it
+    private final SpatialHash grid = new SpatialHash();
+    private final SpatialHash regions = new SpatialHash(REGION_CELL, 1024);
+    private boolean lodEnabled = true;
+    private long tick = 0;
+    // Per enemy id: tick of its last update, so a woken enemy catches up on a bounded amount of time
+    private long[] lastUpdateTick = new long[16];
+    // Ids found in the window this tick and ids updated this tick (for the interpolation snapshot)
+    private int[] windowIds = new int[16];
+    private int windowCount = 0;
+    private int[] updatedSlots = new int[16];
+    private int updatedCount = 0;
+    private final SpatialHash.Visitor collectWindow = this::collectWindowId;
+    // Ids of the enemies in the culling rectangle, collected for render
+    private int[] visibleIds = new int[16];
+    private int visibleCount = 0;
+    private final SpatialHash.Visitor collectVisible = this::collectVisibleId;
     private Theme theme = Theme.SUMMER;
 
     public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
@@ -18,37 +49,237 @@ public class EnemyManager { // Defines a class.
         } // Closes a code block.
     } // Closes a code block.
 
+    /**
+     * Top of the ground strip: enemies that walk off the tiles land there.
+     */
+    public void setFloorY(double floorY) { // Begins a method or constructor with its signature.
+        physics.setFloorY(floorY); // Executes: physics.setFloorY(floorY);
+    } // Closes a code block.
+
     public void spawnFrom(List<double[]> positions) { // Begins a method or constructor with its signature.
         for (double[] p : positions) { // Begins a method or constructor with its signature.
-            enemies.add(new Enemy(p[0], p[1])); // Executes: enemies.add(new Enemy(p[0], p[1]));
+            int i = bodies.slotOf(bodies.add(p[0], p[1], Enemy.SIZE, Enemy.SIZE));
+            bodies.setVelocityX(i, Enemy.SPAWN_SPEED); // Executes: bodies.setVelocityX(i, Enemy.SPAWN_SPEED);
+            int id = bodies.idAt(i);
+            if (id >= lastUpdateTick.length) { // Begins a method or constructor with its signature.
+                lastUpdateTick = Arrays.copyOf(lastUpdateTick, Math.max(id + 1, lastUpdateTick.length * 2)); // Executes: lastUpdateTick = Arrays.copyOf(lastUpdateTick, Math.max(id + 1, lastUpdateTick.length * 2));
+            } // Closes a code block.
+            lastUpdateTick[id] = tick; // Executes: lastUpdateTick[id] = tick;
+            refreshCells(i); // Executes: refreshCells(i);
         } // Closes a code block.
+        // Size the per-tick scratch for the whole level now, so play never grows it
+        int n = bodies.size();
+        if (windowIds.length < n) windowIds = new int[n]; // Evaluates a conditional branch.
+        if (updatedSlots.length < n) updatedSlots = new int[n]; // Evaluates a conditional branch.
+        if (visibleIds.length < n) visibleIds = new int[n]; // Evaluates a conditional branch.
+        // An enemy is smaller than a cell of either grid, so it sits in at most four cells
+        grid.ensureCapacity(n * 4); // Executes: grid.ensureCapacity(n * 4);
+        regions.ensureCapacity(n * 4); // Executes: regions.ensureCapacity(n * 4);
+    } // Closes a code block.
+
+    /**
+     * Moves every enemy, whatever its distance to the player. Used where no camera exists.
+     */
+    public boolean update(double dt, PlayerState player, TileMap map) { // Begins a method or constructor with its signature.
+        return update(dt, player, map, null); // Returns a value from the method.
     } // Closes a code block.
 
-    public boolean update(double dt, Player player, TileMap map) { // Begins a method or constructor with its signature.
-        for (Enemy e : enemies) { // Begins a method or constructor with its signature.
-            // Make enemy move towards the player on X
-            double dir = Math.signum(player.getPlayerX() - e.getX());
-            if (dir != 0) { // Begins a method or constructor with its signature.
-                e.setVelocityX(dir * 70); // slightly faster than player // Executes: e.setVelocityX(dir * 70); // slightly faster than player
+    /**
+     * Moves the enemies inside the camera's activity window (see ACTIVE_PAD / MARGIN) and reports whether
+     * one touches the player. Which enemies move depends only on the camera position and the tick count,
+     * so replays wake the same enemies on the same ticks.
+     */
+    public boolean update(double dt, PlayerState player, TileMap map, Camera camera) { // Begins a method or constructor with its signature.
+        tick++; // Executes: tick++;
+        updatedCount = 0; // Executes: updatedCount = 0;
+        double playerX = player.getPlayerX();
+
+        if (camera == null || !lodEnabled) { // Begins a method or constructor with its signature.
+            int n = bodies.size();
+            for (int i = 0; i < n; i++) { // Begins a method or constructor with its signature.
+                if (bodies.has(i, Bodies.ALIVE)) updateEnemy(i, dt, playerX, map); // Evaluates a conditional branch.
             } // Closes a code block.
+        } else { // Executes: } else {
+            double viewX = camera.getX();
+            double viewY = camera.getY();
+            double viewW = camera.getViewWidth();
+            double viewH = camera.getViewHeight();
+
+            // Only the enemies in the window are looked at; the rest of the level costs nothing
+            windowCount = 0; // Executes: windowCount = 0;
+            regions.query(viewX - MARGIN, viewY - MARGIN, viewW + 2 * MARGIN, viewH + 2 * MARGIN, collectWindow); // Executes: regions.query(viewX - MARGIN, viewY - MARGIN, viewW + 2 * MARGIN, viewH + 2 * MARGIN, collectWindow);
+            // Region buckets come back in hash order: sort so updates always run in the same order
+            Arrays.sort(windowIds, 0, windowCount); // Executes: Arrays.sort(windowIds, 0, windowCount);
+
+            for (int k = 0; k < windowCount; k++) { // Begins a method or constructor with its signature.
+                int id = windowIds[k];
+                int i = bodies.slotOfId(id);
+                if (i < 0 || !bodies.has(i, Bodies.ALIVE)) continue; // Evaluates a conditional branch.
+
+                boolean inView = bodies.overlaps(i, viewX - ACTIVE_PAD, viewY - ACTIVE_PAD, // Executes: boolean inView = bodies.overlaps(i, viewX - ACTIVE_PAD, viewY - ACTIVE_PAD,
+                        viewW + 2 * ACTIVE_PAD, viewH + 2 * ACTIVE_PAD); // Executes: viewW + 2 * ACTIVE_PAD, viewH + 2 * ACTIVE_PAD);
+                // Margin enemies take turns by id, so a crowd does not land on the same tick
+                if (!inView && (tick + id) % MARGIN_STRIDE != 0) continue; // Evaluates a conditional branch.
+
+                // Catch up the ticks it sat out, but at most one stride (a frozen enemy just wakes up)
+                long missed = Math.min(tick - lastUpdateTick[id], MARGIN_STRIDE);
+                updateEnemy(i, dt * missed, playerX, map); // Executes: updateEnemy(i, dt * missed, playerX, map);
+            } // Closes a code block.
+        } // Closes a code block.
+
+        // Player dies when touching enemies
+        return !grid.query(playerX, player.getPlayerY(), player.getWidth(), player.getHeight(), STOP_AT_FIRST); // Returns a value from the method.
+    } // Closes a code block.
+
+    private void updateEnemy(int i, double dt, double playerX, TileMap map) { // Begins a method or constructor with its signature.
+        // Make enemy move towards the player on X
+        double dir = Math.signum(playerX - bodies.getX(i));
+        if (dir != 0) { // Begins a method or constructor with its signature.
+            bodies.setVelocityX(i, dir * Enemy.CHASE_SPEED); // slightly faster than player // Executes: bodies.setVelocityX(i, dir * Enemy.CHASE_SPEED); // slightly faster than player
+        } // Closes a code block.
+
+        // Gravity, walls and landing
+        physics.stepBody(bodies, i, map, dt); // Executes: physics.stepBody(bodies, i, map, dt);
+
+        lastUpdateTick[bodies.idAt(i)] = tick; // Executes: lastUpdateTick[bodies.idAt(i)] = tick;
+        refreshCells(i); // Executes: refreshCells(i);
+        if (updatedCount == updatedSlots.length) { // Begins a method or constructor with its signature.
+            updatedSlots = Arrays.copyOf(updatedSlots, updatedCount * 2); // Executes: updatedSlots = Arrays.copyOf(updatedSlots, updatedCount * 2);
+        } // Closes a code block.
+        updatedSlots[updatedCount++] = i; // Executes: updatedSlots[updatedCount++] = i;
+    } // Closes a code block.
+
+    /**
+     * Moves the enemy to its new cells in both grids; dead enemies leave them.
+     */
+    private void refreshCells(int i) { // Begins a method or constructor with its signature.
+        int id = bodies.idAt(i);
+        if (bodies.has(i, Bodies.ALIVE)) { // Begins a method or constructor with its signature.
+            grid.update(id, bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i)); // Executes: grid.update(id, bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i));
+            regions.update(id, bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i)); // Executes: regions.update(id, bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i));
+        } else { // Executes: } else {
+            grid.remove(id); // Executes: grid.remove(id);
+            regions.remove(id); // Executes: regions.remove(id);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private boolean collectWindowId(int id) { // Begins a method or constructor with its signature.
+        if (windowCount == windowIds.length) { // Begins a method or constructor with its signature.
+            windowIds = Arrays.copyOf(windowIds, windowCount * 2); // Executes: windowIds = Arrays.copyOf(windowIds, windowCount * 2);
+        } // Closes a code block.
+        windowIds[windowCount++] = id; // Executes: windowIds[windowCount++] = id;
+        return true;
+    } // Closes a code block.
 
-            e.update(dt, map); // Executes: e.update(dt, map);
+    /**
+     * Visits the ids of alive enemies overlapping the box (player attacks, projectiles, ...).
+     * {@link Bodies#slotOfId(int)} turns an id into a slot.
+     */
+    public boolean queryEnemies(double x, double y, double w, double h, SpatialHash.Visitor visitor) { // Begins a method or constructor with its signature.
+        return grid.query(x, y, w, h, visitor); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Visits every pair of touching enemies once, without testing all pairs.
+     */
+    public void forEachTouchingPair(SpatialHash.PairVisitor visitor) { // Begins a method or constructor with its signature.
+        grid.forEachPair(visitor); // Executes: grid.forEachPair(visitor);
+    } // Closes a code block.
+
+    /**
+     * Snapshot for interpolation. Only enemies that moved last tick can have a stale previous position.
+     */
+    public void storePreviousPositions() { // Begins a method or constructor with its signature.
+        for (int k = 0; k < updatedCount; k++) { // Begins a method or constructor with its signature.
+            bodies.storePreviousPosition(updatedSlots[k]); // Executes: bodies.storePreviousPosition(updatedSlots[k]);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Turns the activity window off (every enemy moves every tick), for comparisons.
+     */
+    public void setLodEnabled(boolean lodEnabled) { // Begins a method or constructor with its signature.
+        this.lodEnabled = lodEnabled; // Executes: this.lodEnabled = lodEnabled;
+    } // Closes a code block.
+
+    public boolean isLodEnabled() { // Begins a method or constructor with its signature.
+        return lodEnabled;
+    } // Closes a code block.
+
+    /**
+     * Enemies that moved in the last update.
+     */
+    public int getUpdatedCount() { // Begins a method or constructor with its signature.
+        return updatedCount;
+    } // Closes a code block.
+
+    public int size() { // Begins a method or constructor with its signature.
+        return bodies.size(); // Returns a value from the method.
+    } // Closes a code block.
 
-            if (e.checkPlayerCollision( // Evaluates a conditional branch.
-                    player.getPlayerX(), // Executes: player.getPlayerX(),
-                    player.getPlayerY(), // Executes: player.getPlayerY(),
-                    player.getWidth(), // Executes: player.getWidth(),
-                    player.getHeight())) { // Begins a method or constructor with its signature.
-                // Player dies when touching enemies
-                return true;
+    public Bodies getBodies() { // Begins a method or constructor with its signature.
+        return bodies;
+    } // Closes a code block.
+
+    public SpatialHash getGrid() { // Begins a method or constructor with its signature.
+        return grid;
+    } // Closes a code block.
+
+    public void render(RenderCommandBuffer out, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
+        render(out, camera, theme, 1.0); // Executes: render(out, camera, theme, 1.0);
+    } // Closes a code block.
+
+    public void render(RenderCommandBuffer out, Camera camera, Theme theme, double alpha) { // Begins a method or constructor with its signature.
+        render(out, camera, theme, alpha, null, null); // Executes: render(out, camera, theme, alpha, null, null);
+    } // Closes a code block.
+
+    /**
+     * Draws the live enemies, from the atlas when one for the same theme is given. With a culling
+     * pass only the enemies the coarse grid finds in its rectangle are visited (and counted);
+     * without one, all of them.
+     */
+    public void render(RenderCommandBuffer out, Camera camera, Theme theme, double alpha, SpriteAtlas atlas, ViewCulling cull) { // Begins a method or constructor with its signature.
+        Theme t = theme != null ? theme : this.theme;
+        if (atlas != null && atlas.getTheme() != t) atlas = null; // Evaluates a conditional branch.
+
+        if (cull == null) { // Begins a method or constructor with its signature.
+            int n = bodies.size();
+            for (int i = 0; i < n; i++) { // Begins a method or constructor with its signature.
+                if (bodies.has(i, Bodies.ALIVE)) drawEnemy(out, camera, i, alpha, atlas, t); // Evaluates a conditional branch.
             } // Closes a code block.
+            return; // Returns a value from the method.
+        } // Closes a code block.
+
+        // The grid holds current positions; the margin covers the blend back to the previous step
+        visibleCount = 0; // Executes: visibleCount = 0;
+        regions.query(cull.getLeft(), cull.getTop(), cull.getRight() - cull.getLeft(), cull.getBottom() - cull.getTop(), collectVisible); // Executes: regions.query(cull.getLeft(), cull.getTop(), cull.getRight() - cull.getLeft(), cull.getBottom() - cull.getTop(), collectVisible);
+        // Same draw order as without culling, so overlapping enemies do not flicker
+        Arrays.sort(visibleIds, 0, visibleCount); // Executes: Arrays.sort(visibleIds, 0, visibleCount);
+        int drawn = 0;
+        for (int k = 0; k < visibleCount; k++) { // Begins a method or constructor with its signature.
+            int i = bodies.slotOfId(visibleIds[k]);
+            if (i < 0 || !bodies.has(i, Bodies.ALIVE)) continue; // Evaluates a conditional branch.
+            drawEnemy(out, camera, i, alpha, atlas, t); // Executes: drawEnemy(out, camera, i, alpha, atlas, t);
+            drawn++; // Executes: drawn++;
+        } // Closes a code block.
+        cull.record(ViewCulling.ENEMIES, drawn, regions.size()); // Executes: cull.record(ViewCulling.ENEMIES, drawn, regions.size());
+    } // Closes a code block.
+
+    private void drawEnemy(RenderCommandBuffer out, Camera camera, int i, double alpha, SpriteAtlas atlas, Theme theme) { // Begins a method or constructor with its signature.
+        double screenX = bodies.getRenderX(i, alpha) - camera.getOffsetX();
+        double screenY = bodies.getRenderY(i, alpha) - camera.getOffsetY();
+        if (atlas != null) { // Begins a method or constructor with its signature.
+            atlas.draw(out, SpriteAtlas.ENEMY, screenX, screenY); // Executes: atlas.draw(out, SpriteAtlas.ENEMY, screenX, screenY);
+        } else { // Executes: } else {
+            Enemy.render(out, screenX, screenY, theme); // Executes: Enemy.render(out, screenX, screenY, theme);
         } // Closes a code block.
-        return false;
     } // Closes a code block.
 
-    public void render(GraphicsContext gc, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
-        for (Enemy e : enemies) { // Begins a method or constructor with its signature.
-            e.render(gc, camera, theme != null ? theme : this.theme); // Executes: e.render(gc, camera, theme != null ? theme : this.theme);
+    private boolean collectVisibleId(int id) { // Begins a method or constructor with its signature.
+        if (visibleCount == visibleIds.length) { // Begins a method or constructor with its signature.
+            visibleIds = Arrays.copyOf(visibleIds, visibleCount * 2); // Executes: visibleIds = Arrays.copyOf(visibleIds, visibleCount * 2);
         } // Closes a code block.
+        visibleIds[visibleCount++] = id; // Executes: visibleIds[visibleCount++] = id;
+        return true;
     } // Closes a code block.
 } // Closes a code block.
@@ -0,0 +1,260 @@
+package game.systems; // Declares the package for this source file.
+
+import java.util.Arrays;
+
+/**
+ * Entities packed into parallel primitive columns (x, y, w, h, flags, type), one slot per entity,
+ * so a manager can walk thousands of them in a tight loop without touching per-object heap memory.
+ *
+ * <p>Slots are dense: {@link #size()} entities occupy slots 0..size-1 and {@link #remove(int)} moves
+ * the last entity into the freed slot (swap-remove), so deletion is O(1) and iteration never skips holes.
+ * Because slots move, anything that needs to remember an entity across frames keeps its handle instead:
+ * handles stay valid until the entity is removed, and a handle to a removed entity never matches a
+ * newer one ({@link #contains(int)} returns false).
+ *
+ * <p>Subclasses add their own columns by allocating them in their constructor (after {@code super(...)},
+ * at {@code x.length}) and overriding {@link #grow(int)} and {@link #moveSlot(int, int)}.
+ */
+public class EntityStore { // Defines a class.
+
+    // Handle = generation << ID_BITS | id; the generation changes every time an id is reused
+    private static final int ID_BITS = 22;
+    private static final int ID_MASK = (1 << ID_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - ID_BITS)) - 1;
+
+    public static final int NO_HANDLE = -1;
+
+    protected double[] x;
+    protected double[] y;
+    protected double[] w;
+    protected double[] h;
+    protected int[] flags;
+    protected int[] type;
+    private int count = 0;
+
+    // slot -> handle and id -> slot (-1 when the id is free)
+    private int[] slotHandle;
+    private int[] idSlot;
+    private int[] idGeneration;
+    // Free ids, used as a stack so recently freed ids are reused first
+    private int[] freeIds;
+    private int freeCount = 0;
+    private int nextId = 0;
+
+    public EntityStore(int initialCapacity) { // Begins a method or constructor with its signature.
+        int capacity = Math.max(4, initialCapacity);
+        allocateColumns(capacity); // Executes: allocateColumns(capacity);
+        idSlot = new int[capacity]; // Executes: idSlot = new int[capacity];
+        idGeneration = new int[capacity]; // Executes: idGeneration = new int[capacity];
+        freeIds = new int[capacity]; // Executes: freeIds = new int[capacity];
+    } // Closes a code block.
+
+    public EntityStore() { // Begins a method or constructor with its signature.
+        this(16); // Executes: this(16);
+    } // Closes a code block.
+
+    /**
+     * Adds an entity and returns its handle. Flags start cleared.
+     */
+    public int add(double ex, double ey, double ew, double eh, int entityType) { // Begins a method or constructor with its signature.
+        if (count == x.length) { // Begins a method or constructor with its signature.
+            grow(count * 2); // Executes: grow(count * 2);
+        } // Closes a code block.
+        int id = acquireId();
+        int i = count++;
+        x[i] = ex; // Executes: x[i] = ex;
+        y[i] = ey; // Executes: y[i] = ey;
+        w[i] = ew; // Executes: w[i] = ew;
+        h[i] = eh; // Executes: h[i] = eh;
+        flags[i] = 0; // Executes: flags[i] = 0;
+        type[i] = entityType; // Executes: type[i] = entityType;
+        slotHandle[i] = (idGeneration[id] << ID_BITS) | id; // Executes: slotHandle[i] = (idGeneration[id] << ID_BITS) | id;
+        idSlot[id] = i; // Executes: idSlot[id] = i;
+        return slotHandle[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Removes the entity behind the handle. Returns false if it was already gone.
+     */
+    public boolean remove(int handle) { // Begins a method or constructor with its signature.
+        int slot = slotOf(handle);
+        if (slot < 0) return false; // Evaluates a conditional branch.
+        removeAt(slot); // Executes: removeAt(slot);
+        return true;
+    } // Closes a code block.
+
+    /**
+     * Removes the entity in the slot; the last entity moves into it. When removing while walking the
+     * slots, walk from the end so the moved entity has already been visited.
+     */
+    public void removeAt(int slot) { // Begins a method or constructor with its signature.
+        int id = slotHandle[slot] & ID_MASK;
+        int last = --count;
+        if (slot != last) { // Begins a method or constructor with its signature.
+            moveSlot(last, slot); // Executes: moveSlot(last, slot);
+            slotHandle[slot] = slotHandle[last]; // Executes: slotHandle[slot] = slotHandle[last];
+            idSlot[slotHandle[slot] & ID_MASK] = slot; // Executes: idSlot[slotHandle[slot] & ID_MASK] = slot;
+        } // Closes a code block.
+        releaseId(id); // Executes: releaseId(id);
+    } // Closes a code block.
+
+    public void clear() { // Begins a method or constructor with its signature.
+        for (int i = 0; i < count; i++) { // Begins a method or constructor with its signature.
+            releaseId(slotHandle[i] & ID_MASK); // Executes: releaseId(slotHandle[i] & ID_MASK);
+        } // Closes a code block.
+        count = 0; // Executes: count = 0;
+    } // Closes a code block.
+
+    public int size() { // Begins a method or constructor with its signature.
+        return count;
+    } // Closes a code block.
+
+    // -------------------------
+    // Handles
+    // -------------------------
+    public boolean contains(int handle) { // Begins a method or constructor with its signature.
+        return slotOf(handle) >= 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Current slot of the entity, or -1 if the handle is stale.
+     */
+    public int slotOf(int handle) { // Begins a method or constructor with its signature.
+        if (handle < 0) return -1; // Evaluates a conditional branch.
+        int id = handle & ID_MASK;
+        if (id >= nextId) return -1; // Evaluates a conditional branch.
+        int slot = idSlot[id];
+        return slot >= 0 && slotHandle[slot] == handle ? slot : -1; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int handleAt(int slot) { // Begins a method or constructor with its signature.
+        return slotHandle[slot]; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Dense id of the entity in the slot (the handle without its generation), for side tables such as
+     * {@link SpatialHash}. Ids stay put while slots move and are reused after removal.
+     */
+    public int idAt(int slot) { // Begins a method or constructor with its signature.
+        return slotHandle[slot] & ID_MASK; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Current slot of the entity with this id, or -1 if no entity holds it.
+     */
+    public int slotOfId(int id) { // Begins a method or constructor with its signature.
+        return id >= 0 && id < nextId ? idSlot[id] : -1; // Returns a value from the method.
+    } // Closes a code block.
+
+    private int acquireId() { // Begins a method or constructor with its signature.
+        if (freeCount > 0) { // Begins a method or constructor with its signature.
+            return freeIds[--freeCount]; // Returns a value from the method.
+        } // Closes a code block.
+        if (nextId > ID_MASK) { // Begins a method or constructor with its signature.
+            throw new IllegalStateException("EntityStore is full"); // Throws an exception.
+        } // Closes a code block.
+        if (nextId == idSlot.length) { // Begins a method or constructor with its signature.
+            int capacity = idSlot.length * 2;
+            idSlot = Arrays.copyOf(idSlot, capacity); // Executes: idSlot = Arrays.copyOf(idSlot, capacity);
+            idGeneration = Arrays.copyOf(idGeneration, capacity); // Executes: idGeneration = Arrays.copyOf(idGeneration, capacity);
+            freeIds = Arrays.copyOf(freeIds, capacity); // Executes: freeIds = Arrays.copyOf(freeIds, capacity);
+        } // Closes a code block.
+        return nextId++; // Returns a value from the method.
+    } // Closes a code block.
+
+    private void releaseId(int id) { // Begins a method or constructor with its signature.
+        idSlot[id] = -1; // Executes: idSlot[id] = -1;
+        idGeneration[id] = (idGeneration[id] + 1) & GENERATION_MASK; // Executes: idGeneration[id] = (idGeneration[id] + 1) & GENERATION_MASK;
+        freeIds[freeCount++] = id; // Executes: freeIds[freeCount++] = id;
+    } // Closes a code block.
+
+    // -------------------------
+    // Column storage (extended by subclasses)
+    // -------------------------
+
+    /**
+     * Resizes every column to the capacity. Subclasses grow their extra columns, then call super.
+     */
+    protected void grow(int capacity) { // Begins a method or constructor with its signature.
+        x = Arrays.copyOf(x, capacity); // Executes: x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity); // Executes: y = Arrays.copyOf(y, capacity);
+        w = Arrays.copyOf(w, capacity); // Executes: w = Arrays.copyOf(w, capacity);
+        h = Arrays.copyOf(h, capacity); // Executes: h = Arrays.copyOf(h, capacity);
+        flags = Arrays.copyOf(flags, capacity); // Executes: flags = Arrays.copyOf(flags, capacity);
+        type = Arrays.copyOf(type, capacity); // Executes: type = Arrays.copyOf(type, capacity);
+        slotHandle = Arrays.copyOf(slotHandle, capacity); // Executes: slotHandle = Arrays.copyOf(slotHandle, capacity);
+    } // Closes a code block.
+
+    // Called from the constructor only: not overridable, so no subclass code runs before it is initialized
+    private void allocateColumns(int capacity) { // Begins a method or constructor with its signature.
+        x = new double[capacity]; // Executes: x = new double[capacity];
+        y = new double[capacity]; // Executes: y = new double[capacity];
+        w = new double[capacity]; // Executes: w = new double[capacity];
+        h = new double[capacity]; // Executes: h = new double[capacity];
+        flags = new int[capacity]; // Executes: flags = new int[capacity];
+        type = new int[capacity]; // Executes: type = new int[capacity];
+        slotHandle = new int[capacity]; // Executes: slotHandle = new int[capacity];
+    } // Closes a code block.
+
+    /**
+     * Copies one slot's columns over another (swap-remove). Subclasses copy their extra columns, then call super.
+     */
+    protected void moveSlot(int from, int to) { // Begins a method or constructor with its signature.
+        x[to] = x[from]; // Executes: x[to] = x[from];
+        y[to] = y[from]; // Executes: y[to] = y[from];
+        w[to] = w[from]; // Executes: w[to] = w[from];
+        h[to] = h[from]; // Executes: h[to] = h[from];
+        flags[to] = flags[from]; // Executes: flags[to] = flags[from];
+        type[to] = type[from]; // Executes: type[to] = type[from];
+    } // Closes a code block.
+
+    // -------------------------
+    // Per-entity access
+    // -------------------------
+    public double getX(int i) { // Begins a method or constructor with its signature.
+        return x[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getY(int i) { // Begins a method or constructor with its signature.
+        return y[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getWidth(int i) { // Begins a method or constructor with its signature.
+        return w[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getHeight(int i) { // Begins a method or constructor with its signature.
+        return h[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int getType(int i) { // Begins a method or constructor with its signature.
+        return type[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int getFlags(int i) { // Begins a method or constructor with its signature.
+        return flags[i]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public boolean has(int i, int flag) { // Begins a method or constructor with its signature.
+        return (flags[i] & flag) != 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    public void setFlag(int i, int flag, boolean on) { // Begins a method or constructor with its signature.
+        flags[i] = on ? flags[i] | flag : flags[i] & ~flag; // Executes: flags[i] = on ? flags[i] | flag : flags[i] & ~flag;
+    } // Closes a code block.
+
+    public void setPosition(int i, double px, double py) { // Begins a method or constructor with its signature.
+        x[i] = px; // Executes: x[i] = px;
+        y[i] = py; // Executes: y[i] = py;
+    } // Closes a code block.
+
+    /**
+     * True if the entity's box overlaps the given box (same test the old per-object collectibles used).
+     */
+    public boolean overlaps(int i, double ox, double oy, double ow, double oh) { // Begins a method or constructor with its signature.
+        return ox < x[i] + w[i] && // Returns a value from the method.
+               ox + ow > x[i] && // Executes: ox + ow > x[i] &&
+               oy < y[i] + h[i] && // Executes: oy < y[i] + h[i] &&
+               oy + oh > y[i]; // Executes: oy + oh > y[i];
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,175 @@
+package game.systems; // Declares the package for this source file.
+
+import java.util.Arrays;
+
+/**
+ * Gameplay events raised while the simulation steps and delivered to listeners in one batch per
+ * frame ({@link #dispatch}, called by the game loop), so the HUD, high-score saving and the
+ * level-complete screen only do work when something actually happened.
+ *
+ * <p>Events are queued as plain ints and delivered through typed callbacks; nothing is allocated
+ * per event. Score changes are coalesced: however many happen in a frame, listeners get the final
+ * score once. With no listeners (headless runs) posting is a no-op.
+ */
+public class GameEvents { // Defines a class.
+
+    /**
+     * Receives the events of one frame. Callbacks run on the thread that calls {@link #dispatch}.
+     */
+    public interface Listener { // Begins a method or constructor with its signature.
+        default void onCoinCollected(int collected, int totalCoins) {} // Executes: default void onCoinCollected(int collected, int totalCoins) {}
+
+        default void onLifeLost(int livesLeft) {} // Executes: default void onLifeLost(int livesLeft) {}
+
+        default void onPowerUpApplied(PowerUpType type) {} // Executes: default void onPowerUpApplied(PowerUpType type) {}
+
+        default void onLevelComplete(int score) {} // Executes: default void onLevelComplete(int score) {}
+
+        default void onScoreChanged(int score) {} // Executes: default void onScoreChanged(int score) {}
+
+        /**
+         * Called at the end of every {@link #dispatch}, events or not: the place to apply what the
+         * frame's events changed (the HUD writes its nodes here).
+         */
+        default void onFrameEnd() {} // Executes: default void onFrameEnd() {}
+    } // Closes a code block.
+
+    private static final int COIN_COLLECTED = 0;
+    private static final int LIFE_LOST = 1;
+    private static final int POWER_UP_APPLIED = 2;
+    private static final int LEVEL_COMPLETE = 3;
+
+    private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+
+    private Listener[] listeners = new Listener[4];
+    private int listenerCount = 0;
+
+    // Queued events: kind plus up to two int arguments each
+    private int[] kinds = new int[16];
+    private int[] args0 = new int[16];
+    private int[] args1 = new int[16];
+    private int queued = 0;
+
+    private boolean scoreChanged = false;
+    private int score = 0;
+
+    // -------------------------
+    // Listeners
+    // -------------------------
+    public void addListener(Listener listener) { // Begins a method or constructor with its signature.
+        if (listener == null) return; // Evaluates a conditional branch.
+        if (listenerCount == listeners.length) { // Begins a method or constructor with its signature.
+            listeners = Arrays.copyOf(listeners, listenerCount * 2); // Executes: listeners = Arrays.copyOf(listeners, listenerCount * 2);
+        } // Closes a code block.
+        listeners[listenerCount++] = listener; // Executes: listeners[listenerCount++] = listener;
+    } // Closes a code block.
+
+    public void removeListener(Listener listener) { // Begins a method or constructor with its signature.
+        for (int i = 0; i < listenerCount; i++) { // Begins a method or constructor with its signature.
+            if (listeners[i] == listener) { // Begins a method or constructor with its signature.
+                System.arraycopy(listeners, i + 1, listeners, i, listenerCount - i - 1); // Executes: System.arraycopy(listeners, i + 1, listeners, i, listenerCount - i - 1);
+                listeners[--listenerCount] = null; // Executes: listeners[--listenerCount] = null;
+                return; // Returns a value from the method.
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public boolean hasListeners() { // Begins a method or constructor with its signature.
+        return listenerCount > 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Moves every listener to another event queue (e.g. one dispatched on a different thread).
+     */
+    public void moveListenersTo(GameEvents target) { // Begins a method or constructor with its signature.
+        for (int i = 0; i < listenerCount; i++) { // Begins a method or constructor with its signature.
+            target.addListener(listeners[i]); // Executes: target.addListener(listeners[i]);
+            listeners[i] = null; // Executes: listeners[i] = null;
+        } // Closes a code block.
+        listenerCount = 0; // Executes: listenerCount = 0;
+    } // Closes a code block.
+
+    // -------------------------
+    // Posting (simulation side)
+    // -------------------------
+    public void coinCollected(int collected, int totalCoins) { // Begins a method or constructor with its signature.
+        post(COIN_COLLECTED, collected, totalCoins); // Executes: post(COIN_COLLECTED, collected, totalCoins);
+    } // Closes a code block.
+
+    public void lifeLost(int livesLeft) { // Begins a method or constructor with its signature.
+        post(LIFE_LOST, livesLeft, 0); // Executes: post(LIFE_LOST, livesLeft, 0);
+    } // Closes a code block.
+
+    public void powerUpApplied(PowerUpType type) { // Begins a method or constructor with its signature.
+        post(POWER_UP_APPLIED, type.ordinal(), 0); // Executes: post(POWER_UP_APPLIED, type.ordinal(), 0);
+    } // Closes a code block.
+
+    public void levelComplete(int score) { // Begins a method or constructor with its signature.
+        post(LEVEL_COMPLETE, score, 0); // Executes: post(LEVEL_COMPLETE, score, 0);
+    } // Closes a code block.
+
+    public void scoreChanged(int score) { // Begins a method or constructor with its signature.
+        if (listenerCount == 0) return; // Evaluates a conditional branch.
+        this.score = score; // Executes: this.score = score;
+        scoreChanged = true; // Executes: scoreChanged = true;
+    } // Closes a code block.
+
+    private void post(int kind, int arg0, int arg1) { // Begins a method or constructor with its signature.
+        if (listenerCount == 0) return; // Evaluates a conditional branch.
+        if (queued == kinds.length) { // Begins a method or constructor with its signature.
+            int capacity = queued * 2;
+            kinds = Arrays.copyOf(kinds, capacity); // Executes: kinds = Arrays.copyOf(kinds, capacity);
+            args0 = Arrays.copyOf(args0, capacity); // Executes: args0 = Arrays.copyOf(args0, capacity);
+            args1 = Arrays.copyOf(args1, capacity); // Executes: args1 = Arrays.copyOf(args1, capacity);
+        } // Closes a code block.
+        kinds[queued] = kind; // Executes: kinds[queued] = kind;
+        args0[queued] = arg0; // Executes: args0[queued] = arg0;
+        args1[queued] = arg1; // Executes: args1[queued] = arg1;
+        queued++; // Executes: queued++;
+    } // Closes a code block.
+
+    // -------------------------
+    // Dispatch (once per frame)
+    // -------------------------
+
+    /**
+     * Delivers everything posted since the last call: the frame's final score first, so a listener
+     * reacting to the other events already sees it, then the other events in the order they happened.
+     */
+    public void dispatch() { // Begins a method or constructor with its signature.
+        if (scoreChanged) { // Begins a method or constructor with its signature.
+            scoreChanged = false; // Executes: scoreChanged = false;
+            for (int l = 0; l < listenerCount; l++) listeners[l].onScoreChanged(score); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onScoreChanged(score);
+        } // Closes a code block.
+        // A listener may post while we deliver (it lands in this same pass) but must not remove listeners
+        for (int k = 0; k < queued; k++) { // Begins a method or constructor with its signature.
+            int a = args0[k];
+            int b = args1[k];
+            switch (kinds[k]) { // Begins a method or constructor with its signature.
+                case COIN_COLLECTED -> { // Defines a switch case branch.
+                    for (int l = 0; l < listenerCount; l++) listeners[l].onCoinCollected(a, b); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onCoinCollected(a, b);
+                } // Closes a code block.
+                case LIFE_LOST -> { // Defines a switch case branch.
+                    for (int l = 0; l < listenerCount; l++) listeners[l].onLifeLost(a); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onLifeLost(a);
+                } // Closes a code block.
+                case POWER_UP_APPLIED -> { // Defines a switch case branch.
+                    for (int l = 0; l < listenerCount; l++) listeners[l].onPowerUpApplied(POWER_UP_TYPES[a]); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onPowerUpApplied(POWER_UP_TYPES[a]);
+                } // Closes a code block.
+                case LEVEL_COMPLETE -> { // Defines a switch case branch.
+                    for (int l = 0; l < listenerCount; l++) listeners[l].onLevelComplete(a); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onLevelComplete(a);
+                } // Closes a code block.
+                default -> { // Defines the default switch branch.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        queued = 0; // Executes: queued = 0;
+        for (int l = 0; l < listenerCount; l++) listeners[l].onFrameEnd(); // Executes: for (int l = 0; l < listenerCount; l++) listeners[l].onFrameEnd();
+    } // Closes a code block.
+
+    /**
+     * Events waiting for the next {@link #dispatch} (the pending score change not counted).
+     */
+    public int getPendingCount() { // Begins a method or constructor with its signature.
+        return queued;
+    } // Closes a code block.
+} // Closes a code block.
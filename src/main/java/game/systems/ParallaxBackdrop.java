@@ -0,0 +1,208 @@
+package game.systems; // Declares the package for this source file.
+
+import game.utils.Constants;
+import game.utils.Theme;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Stop;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The sky behind the level as pre-rendered layers: a static sky (gradient and distant glow band),
+ * a strip of streaks scrolling at 1/3.5 of the camera speed and a row of sparkles at 0.12. The
+ * layers of a {@link Theme} are built once, shared by all levels, and a frame is then three to four
+ * {@code drawImage} calls.
+ *
+ * <p>Layers are built by {@link #prepare}, called when a theme is picked, the same way as
+ * {@link SpriteAtlas}: painted on a background virtual thread into detached canvases, then
+ * snapshotted on the FX application thread. {@link #render} never bakes; until the theme's layers
+ * are ready it draws with primitives.
+ *
+ * <p>The streak strip tiles horizontally, so it scrolls without the jump the per-frame version had
+ * every screen width; its streaks keep the wave height they had with the camera at the level start
+ * instead of bobbing as the camera moves. Off the FX application thread (headless benchmarks) the
+ * backdrop is drawn with primitives, the way it was before.
+ */
+public class ParallaxBackdrop { // Defines a class.
+
+    private static final double STREAK_SPEED = 1 / 3.5;
+    private static final int STREAK_COUNT = 7;
+    private static final int STREAK_SPACING = 210;
+    private static final int STREAK_PERIOD = STREAK_COUNT * STREAK_SPACING;
+    private static final double SPARKLE_SPEED = 0.12;
+    private static final int SPARKLE_COUNT = 6;
+    private static final double SPARKLE_SIZE = 18;
+
+    private final int viewWidth;
+    private final int viewHeight;
+    // Strips are only as tall as what they hold
+    private final int streakTop;
+    private final int streakHeight;
+    private final int sparkleTop;
+    private final int sparkleHeight;
+
+    /**
+     * The pre-rendered layers of one theme.
+     */
+    private record Layers(WritableImage sky, WritableImage streaks, WritableImage sparkles) { // Begins a method or constructor with its signature.
+    } // Closes a code block.
+
+    // Layers for the game's view size (Constants.VIEW_WIDTH x VIEW_HEIGHT)
+    private static final Map<Theme, Layers> ready = new ConcurrentHashMap<>();
+    private static final Set<Theme> building = ConcurrentHashMap.newKeySet();
+
+    // Paints of the current theme, for drawing with primitives
+    private Theme paintTheme;
+    private LinearGradient skyGradient;
+    private Color glowColor;
+    private Color streakColor;
+    private Color sparkleColor;
+
+    public ParallaxBackdrop(double viewWidth, double viewHeight) { // Begins a method or constructor with its signature.
+        this.viewWidth = (int) Math.ceil(viewWidth); // Executes: this.viewWidth = (int) Math.ceil(viewWidth);
+        this.viewHeight = (int) Math.ceil(viewHeight); // Executes: this.viewHeight = (int) Math.ceil(viewHeight);
+        this.streakTop = (int) (viewHeight * 0.32) - 16; // Executes: this.streakTop = (int) (viewHeight * 0.32) - 16;
+        this.streakHeight = 52; // Executes: this.streakHeight = 52;
+        this.sparkleTop = (int) (viewHeight * 0.18) - 12; // Executes: this.sparkleTop = (int) (viewHeight * 0.18) - 12;
+        this.sparkleHeight = 44; // Executes: this.sparkleHeight = 44;
+    } // Closes a code block.
+
+    /**
+     * Starts building the theme's layers in the background if they are not built or building yet;
+     * called when a theme is picked, so they are usually ready when the level starts. Without a
+     * running FX toolkit nothing is built.
+     */
+    public static void prepare(Theme theme) { // Begins a method or constructor with its signature.
+        if (theme == null || ready.containsKey(theme) || !Raster.isAvailable() || !building.add(theme)) return; // Evaluates a conditional branch.
+
+        Thread.ofVirtual().name("backdrop-" + theme.name()).start(() -> { // Begins a method or constructor with its signature.
+            ParallaxBackdrop painter = new ParallaxBackdrop(Constants.VIEW_WIDTH, Constants.VIEW_HEIGHT);
+            Canvas sky = new Canvas(painter.viewWidth, painter.viewHeight);
+            Canvas streaks = new Canvas(STREAK_PERIOD, painter.streakHeight);
+            Canvas sparkles = new Canvas(painter.viewWidth, painter.sparkleHeight);
+            try { // Attempts operations that might throw exceptions.
+                painter.cachePaints(theme); // Executes: painter.cachePaints(theme);
+                painter.paintSky(sky.getGraphicsContext2D()); // Executes: painter.paintSky(sky.getGraphicsContext2D());
+                painter.paintStreaks(streaks.getGraphicsContext2D()); // Executes: painter.paintStreaks(streaks.getGraphicsContext2D());
+                painter.paintSparkles(sparkles.getGraphicsContext2D()); // Executes: painter.paintSparkles(sparkles.getGraphicsContext2D());
+            } catch (RuntimeException e) { // Begins a method or constructor with its signature.
+                building.remove(theme); // Executes: building.remove(theme);
+                System.out.println("Cannot build backdrop for " + theme + ": " + e); // Executes: System.out.println("Cannot build backdrop for " + theme + ": " + e);
+                return; // Returns a value from the method.
+            } // Closes a code block.
+            Platform.runLater(() -> { // Begins a method or constructor with its signature.
+                ready.put(theme, new Layers(Raster.snapshot(sky), Raster.snapshot(streaks), Raster.snapshot(sparkles))); // Executes: ready.put(theme, new Layers(Raster.snapshot(sky), Raster.snapshot(streaks), Raster.snapshot(sparkles)));
+                building.remove(theme); // Executes: building.remove(theme);
+            }); // Executes: });
+        }); // Executes: });
+    } // Closes a code block.
+
+    public void render(GraphicsContext gc, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
+        if (theme != paintTheme) cachePaints(theme); // Evaluates a conditional branch.
+        Layers layers = ready.get(theme);
+        if (layers == null) { // Begins a method or constructor with its signature.
+            prepare(theme); // Executes: prepare(theme);
+            drawDirect(gc, camera); // Executes: drawDirect(gc, camera);
+            return; // Returns a value from the method.
+        } // Closes a code block.
+        if (layers.sky().getWidth() != viewWidth || layers.sky().getHeight() != viewHeight) { // Begins a method or constructor with its signature.
+            // Only the game's view size is pre-rendered
+            drawDirect(gc, camera); // Executes: drawDirect(gc, camera);
+            return; // Returns a value from the method.
+        } // Closes a code block.
+
+        double cameraX = camera.getOffsetX();
+        gc.drawImage(layers.sky(), 0, 0); // Executes: gc.drawImage(layers.sky(), 0, 0);
+
+        double streakShift = (cameraX * STREAK_SPEED) % STREAK_PERIOD;
+        for (double x = -streakShift; x < viewWidth; x += STREAK_PERIOD) { // Begins a method or constructor with its signature.
+            gc.drawImage(layers.streaks(), x, streakTop); // Executes: gc.drawImage(layers.streaks(), x, streakTop);
+        } // Closes a code block.
+
+        double spread = viewWidth / 6.0;
+        gc.drawImage(layers.sparkles(), -((cameraX * SPARKLE_SPEED) % spread), sparkleTop); // Executes: gc.drawImage(layers.sparkles(), -((cameraX * SPARKLE_SPEED) % spread), sparkleTop);
+    } // Closes a code block.
+
+    // -------------------------
+    // Layer painting
+    // -------------------------
+
+    private void paintSky(GraphicsContext gc) { // Begins a method or constructor with its signature.
+        gc.setFill(skyGradient); // Executes: gc.setFill(skyGradient);
+        gc.fillRect(0, 0, viewWidth, viewHeight); // Executes: gc.fillRect(0, 0, viewWidth, viewHeight);
+        // Distant glow behind the level to make silhouettes pop
+        gc.setFill(glowColor); // Executes: gc.setFill(glowColor);
+        gc.fillRect(0, viewHeight * 0.72, viewWidth, viewHeight * 0.3); // Executes: gc.fillRect(0, viewHeight * 0.72, viewWidth, viewHeight * 0.3);
+    } // Closes a code block.
+
+    private void paintStreaks(GraphicsContext gc) { // Begins a method or constructor with its signature.
+        gc.setStroke(streakColor); // Executes: gc.setStroke(streakColor);
+        gc.setLineWidth(2.2); // Executes: gc.setLineWidth(2.2);
+        for (int i = 0; i < STREAK_COUNT; i++) { // Begins a method or constructor with its signature.
+            double x = i * STREAK_SPACING;
+            double y = viewHeight * 0.32 - streakTop + Math.sin(x * 0.004) * 12;
+            gc.strokeLine(x, y, x + 150, y + 18); // Executes: gc.strokeLine(x, y, x + 150, y + 18);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void paintSparkles(GraphicsContext gc) { // Begins a method or constructor with its signature.
+        double spread = viewWidth / 6.0;
+        gc.setFill(sparkleColor); // Executes: gc.setFill(sparkleColor);
+        for (int i = 0; i < SPARKLE_COUNT; i++) { // Begins a method or constructor with its signature.
+            double x = i * spread * 0.95 + 40;
+            double y = viewHeight * 0.18 - sparkleTop + (i % 2 == 0 ? 10 : -10);
+            gc.fillOval(x, y, SPARKLE_SIZE, SPARKLE_SIZE); // Executes: gc.fillOval(x, y, SPARKLE_SIZE, SPARKLE_SIZE);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void cachePaints(Theme theme) { // Begins a method or constructor with its signature.
+        skyGradient = new LinearGradient( // Executes: skyGradient = new LinearGradient(
+                0, 0, 0, 1, true, CycleMethod.NO_CYCLE, // Executes: 0, 0, 0, 1, true, CycleMethod.NO_CYCLE,
+                new Stop(0, theme.getBackground()), // Executes: new Stop(0, theme.getBackground()),
+                new Stop(1, theme.getBackgroundBottom()) // Executes: new Stop(1, theme.getBackgroundBottom())
+        ); // Executes: );
+        glowColor = theme.getBackgroundBottom().interpolate(theme.getGround(), 0.35); // Glow between sky bottom and ground // Executes: glowColor = theme.getBackgroundBottom().interpolate(theme.getGround(), 0.35); // Glow between sky bottom and ground
+        streakColor = theme.getTileAccent().deriveColor(0, 1, 1, 0.22); // Faint accent streaks // Executes: streakColor = theme.getTileAccent().deriveColor(0, 1, 1, 0.22); // Faint accent streaks
+        sparkleColor = theme.getPowerUpGlow().deriveColor(0, 1, 1, 0.16); // Faint power-up glow // Executes: sparkleColor = theme.getPowerUpGlow().deriveColor(0, 1, 1, 0.16); // Faint power-up glow
+        paintTheme = theme; // Executes: paintTheme = theme;
+    } // Closes a code block.
+
+    // -------------------------
+    // Direct drawing (no toolkit)
+    // -------------------------
+
+    private void drawDirect(GraphicsContext gc, Camera camera) { // Begins a method or constructor with its signature.
+        double cameraX = camera.getOffsetX();
+        gc.setFill(skyGradient); // Executes: gc.setFill(skyGradient);
+        gc.fillRect(0, 0, viewWidth, viewHeight); // Executes: gc.fillRect(0, 0, viewWidth, viewHeight);
+        gc.setFill(glowColor); // Executes: gc.setFill(glowColor);
+        gc.fillRect(0, viewHeight * 0.72, viewWidth, viewHeight * 0.3); // Executes: gc.fillRect(0, viewHeight * 0.72, viewWidth, viewHeight * 0.3);
+
+        double streakShift = (cameraX * STREAK_SPEED) % STREAK_PERIOD;
+        gc.setStroke(streakColor); // Executes: gc.setStroke(streakColor);
+        gc.setLineWidth(2.2); // Executes: gc.setLineWidth(2.2);
+        for (int i = 0; i < STREAK_COUNT * 2; i++) { // Begins a method or constructor with its signature.
+            double x = (i % STREAK_COUNT) * STREAK_SPACING + (i / STREAK_COUNT) * STREAK_PERIOD - streakShift;
+            if (x + 150 < 0 || x > viewWidth) continue; // Evaluates a conditional branch.
+            double y = viewHeight * 0.32 + Math.sin((i % STREAK_COUNT) * STREAK_SPACING * 0.004) * 12;
+            gc.strokeLine(x, y, x + 150, y + 18); // Executes: gc.strokeLine(x, y, x + 150, y + 18);
+        } // Closes a code block.
+
+        gc.setFill(sparkleColor); // Executes: gc.setFill(sparkleColor);
+        double spread = viewWidth / 6.0;
+        double sparkleShift = (cameraX * SPARKLE_SPEED) % spread;
+        for (int i = 0; i < SPARKLE_COUNT; i++) { // Begins a method or constructor with its signature.
+            double x = i * spread * 0.95 - sparkleShift + 40;
+            double y = viewHeight * 0.18 + (i % 2 == 0 ? 10 : -10);
+            gc.fillOval(x, y, SPARKLE_SIZE, SPARKLE_SIZE); // Executes: gc.fillOval(x, y, SPARKLE_SIZE, SPARKLE_SIZE);
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,129 @@
+package game.systems; // Declares the package for this source file.
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The player's look, drawn on the world canvas instead of by an {@code ImageView} in the scene
+ * graph. The standing, running and jumping PNGs are decoded once by the {@link AssetRegistry},
+ * scaled to fit the player's box (aspect ratio kept, anchored top-left like the old view), and
+ * copied into one shared atlas, with a left-facing copy of each mirrored in advance. Drawing the
+ * player is then one image region per frame, and nothing in the scene graph changes while it runs.
+ * Until the atlas has loaded (see {@link #prepare}) nothing is drawn.
+ *
+ * <p>Each player has its own animation state, advanced by frame time when the frame is drawn
+ * rather than by simulation steps: which pose is shown, which way it faces and how long it has
+ * been in that pose. Facing follows the old rules: running sets it, standing faces right again,
+ * and a jump keeps whichever way the player was facing.
+ */
+public class PlayerSprite { // Defines a class.
+
+    // Poses, in atlas column order
+    public static final int STANDING = 0;
+    public static final int RUNNING = 1;
+    public static final int JUMPING = 2;
+    private static final String[] FILES = {"/assets/standing.png", "/assets/running.png", "/assets/jumping.png"};
+
+    // Cell size: the player's collision box
+    public static final int SIZE = 74;
+    // Horizontal speed above which a grounded player counts as running
+    private static final double RUN_SPEED = 10;
+
+    // Row 0 faces right, row 1 is the same poses mirrored
+    private static final String ATLAS = "player-atlas";
+
+    private int pose = STANDING;
+    private boolean facingLeft = false;
+    private double poseTime = 0;
+    private double x;
+    private double y;
+
+    public PlayerSprite() { // Begins a method or constructor with its signature.
+        prepare(); // Usually already loaded: every player shares one atlas // Executes: prepare(); // Usually already loaded: every player shares one atlas
+    } // Closes a code block.
+
+    /**
+     * Moves the animation on by frameTime seconds and places the sprite at (x, y) in world
+     * coordinates, from the player's state as it should appear this frame.
+     */
+    public void update(double frameTime, double x, double y, double velocityX, boolean onGround) { // Begins a method or constructor with its signature.
+        int next;
+        if (!onGround) { // Begins a method or constructor with its signature.
+            next = JUMPING; // Executes: next = JUMPING;
+        } else if (Math.abs(velocityX) > RUN_SPEED) { // Begins a method or constructor with its signature.
+            next = RUNNING; // Executes: next = RUNNING;
+            facingLeft = velocityX < 0; // Executes: facingLeft = velocityX < 0;
+        } else { // Executes: } else {
+            next = STANDING; // Executes: next = STANDING;
+            facingLeft = false; // Executes: facingLeft = false;
+        } // Closes a code block.
+        poseTime = next == pose ? poseTime + frameTime : 0; // Executes: poseTime = next == pose ? poseTime + frameTime : 0;
+        pose = next; // Executes: pose = next;
+        this.x = x; // Executes: this.x = x;
+        this.y = y; // Executes: this.y = y;
+    } // Closes a code block.
+
+    /**
+     * Records the sprite into the current layer of out, seen through camera.
+     */
+    public void draw(RenderCommandBuffer out, Camera camera) { // Begins a method or constructor with its signature.
+        Image image = AssetRegistry.getIfLoaded(ATLAS);
+        if (image == null) return; // Evaluates a conditional branch.
+        out.drawImage(image, pose * SIZE, facingLeft ? SIZE : 0, SIZE, SIZE, // Executes: out.drawImage(image, pose * SIZE, facingLeft ? SIZE : 0, SIZE, SIZE,
+                x - camera.getOffsetX(), y - camera.getOffsetY()); // Executes: x - camera.getOffsetX(), y - camera.getOffsetY());
+    } // Closes a code block.
+
+    public int getPose() { // Begins a method or constructor with its signature.
+        return pose;
+    } // Closes a code block.
+
+    public boolean isFacingLeft() { // Begins a method or constructor with its signature.
+        return facingLeft;
+    } // Closes a code block.
+
+    /**
+     * Seconds the current pose has been shown.
+     */
+    public double getPoseTime() { // Begins a method or constructor with its signature.
+        return poseTime;
+    } // Closes a code block.
+
+    // -------------------------
+    // Atlas
+    // -------------------------
+
+    /**
+     * Starts loading the frames and building the shared atlas in the background, if not started
+     * yet; called while the dashboard is up so the first level finds the player ready.
+     */
+    public static CompletableFuture<Image> prepare() { // Begins a method or constructor with its signature.
+        for (String file : FILES) AssetRegistry.image(file, SIZE, SIZE); // Decode all frames at once // Executes: for (String file : FILES) AssetRegistry.image(file, SIZE, SIZE); // Decode all frames at once
+        return AssetRegistry.load(ATLAS, PlayerSprite::buildAtlas); // Returns a value from the method.
+    } // Closes a code block.
+
+    private static Image buildAtlas() { // Begins a method or constructor with its signature.
+        WritableImage out = new WritableImage(SIZE * FILES.length, SIZE * 2);
+        PixelWriter writer = out.getPixelWriter();
+        int[] row = new int[SIZE];
+        int[] mirrored = new int[SIZE];
+        for (int pose = 0; pose < FILES.length; pose++) { // Begins a method or constructor with its signature.
+            // Decoded straight to its on-screen size, smoothly, once
+            Image frame = AssetRegistry.image(FILES[pose], SIZE, SIZE).join();
+            int w = (int) frame.getWidth();
+            int h = (int) frame.getHeight();
+            PixelReader reader = frame.getPixelReader();
+            for (int py = 0; py < h; py++) { // Begins a method or constructor with its signature.
+                reader.getPixels(0, py, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w); // Executes: reader.getPixels(0, py, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w);
+                for (int px = 0; px < w; px++) mirrored[px] = row[w - 1 - px]; // Executes: for (int px = 0; px < w; px++) mirrored[px] = row[w - 1 - px];
+                writer.setPixels(pose * SIZE, py, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w); // Executes: writer.setPixels(pose * SIZE, py, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w);
+                writer.setPixels(pose * SIZE, SIZE + py, w, 1, PixelFormat.getIntArgbInstance(), mirrored, 0, w); // Executes: writer.setPixels(pose * SIZE, SIZE + py, w, 1, PixelFormat.getIntArgbInstance(), mirrored, 0, w);
+            } // Closes a code block.
+        } // Closes a code block.
+        return out;
+    } // Closes a code block.
+} // Closes a code block.
@@ -1,28 +1,80 @@
 package game.systems; // Declares the package for this source file.
 
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import game.utils.Theme;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 public class PowerUpManager { // Defines a class.
 
     public static final double DEFAULT_SIZE = 24.0;
 
-    private final List<PowerUp> powerUps = new ArrayList<>();
+    private static final PowerUpType[] TYPES = PowerUpType.values();
+    private static final Color MUSHROOM_COLOR = Color.web("#FF7043");
+    private static final Color FLOWER_COLOR = Color.web("#FFEB3B");
+    private static final Color STAR_COLOR = Color.web("#81D4FA");
+    private static final Color LIFE_COLOR = Color.web("#C62828");
+
+    // Rim and glow per theme and type, shared by every level: the canvas makes a platform paint the
+    // first time it sees a Color, so colors derived per instance would allocate again in each level
+    private static final Color[][] RIM_COLORS = new Color[Theme.values().length][TYPES.length];
+    private static final Color[][] GLOW_COLORS = new Color[Theme.values().length][TYPES.length];
+
+    static { // Begins a method or constructor with its signature.
+        for (Theme theme : Theme.values()) { // Begins a method or constructor with its signature.
+            for (PowerUpType type : TYPES) { // Begins a method or constructor with its signature.
+                RIM_COLORS[theme.ordinal()][type.ordinal()] = // Executes: RIM_COLORS[theme.ordinal()][type.ordinal()] =
+                        colorFor(type).interpolate(theme.getPowerUpGlow(), 0.3).deriveColor(0, 1, 0.92, 1); // Executes: colorFor(type).interpolate(theme.getPowerUpGlow(), 0.3).deriveColor(0, 1, 0.92, 1);
+                GLOW_COLORS[theme.ordinal()][type.ordinal()] = // Executes: GLOW_COLORS[theme.ordinal()][type.ordinal()] =
+                        theme.getPowerUpGlow().interpolate(colorFor(type), 0.4).deriveColor(0, 1, 1.15, 0.65); // Executes: theme.getPowerUpGlow().interpolate(colorFor(type), 0.4).deriveColor(0, 1, 1.15, 0.65);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // One slot per power-up left in the level; the type column holds the PowerUpType ordinal
+    private final EntityStore powerUps = new EntityStore();
+    // Power-ups never move, so the per-frame pickup test only walks the ones near the player's x
+    private final SweepIndex index = new SweepIndex(powerUps);
+    // Second index with its own cursor, which follows the camera instead of the player
+    private final SweepIndex renderIndex = new SweepIndex(powerUps);
     private Theme theme = Theme.SUMMER;
+    // Reused by updateAndGetCollected so a frame with no pickups allocates nothing
+    private final List<PowerUpType> collected = new ArrayList<>(TYPES.length);
+    // Rim and glow per type for the current theme; they only change with the theme
+    private final Color[] rimColors = new Color[TYPES.length];
+    private final Color[] glowColors = new Color[TYPES.length];
+
+    public PowerUpManager() { // Begins a method or constructor with its signature.
+        cacheColors(); // Executes: cacheColors();
+    } // Closes a code block.
 
     public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
-        if (theme != null) { // Begins a method or constructor with its signature.
+        if (theme != null && theme != this.theme) { // Begins a method or constructor with its signature.
             this.theme = theme; // Executes: this.theme = theme;
+            cacheColors(); // Executes: cacheColors();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void cacheColors() { // Begins a method or constructor with its signature.
+        for (PowerUpType type : TYPES) { // Begins a method or constructor with its signature.
+            rimColors[type.ordinal()] = rimColor(type, theme); // Executes: rimColors[type.ordinal()] = rimColor(type, theme);
+            glowColors[type.ordinal()] = glowColor(type, theme); // Executes: glowColors[type.ordinal()] = glowColor(type, theme);
         } // Closes a code block.
     } // Closes a code block.
 
+    static Color rimColor(PowerUpType type, Theme theme) { // Begins a method or constructor with its signature.
+        return RIM_COLORS[theme.ordinal()][type.ordinal()]; // Returns a value from the method.
+    } // Closes a code block.
+
+    static Color glowColor(PowerUpType type, Theme theme) { // Begins a method or constructor with its signature.
+        return GLOW_COLORS[theme.ordinal()][type.ordinal()]; // Returns a value from the method.
+    } // Closes a code block.
+
     public void remove() { // Begins a method or constructor with its signature.
         powerUps.clear(); // Executes: powerUps.clear();
+        index.invalidate(); // Executes: index.invalidate();
+        renderIndex.invalidate(); // Executes: renderIndex.invalidate();
     } // Closes a code block.
 
     public void spawnFrom(List<double[]> positions, double powerUpWidth, double powerUpHeight, PowerUpType type) { // Begins a method or constructor with its signature.
@@ -39,27 +91,27 @@ public class PowerUpManager { // Defines a class.
     } // Closes a code block.
 
     public void spawn(double x, double y, double powerUpWidth, double powerUpHeight, PowerUpType type) { // Begins a method or constructor with its signature.
-        powerUps.add(new PowerUp(x, y, powerUpWidth, powerUpHeight, type)); // Executes: powerUps.add(new PowerUp(x, y, powerUpWidth, powerUpHeight, type));
+        powerUps.add(x, y, powerUpWidth, powerUpHeight, type.ordinal()); // Executes: powerUps.add(x, y, powerUpWidth, powerUpHeight, type.ordinal());
+        index.invalidate(); // Executes: index.invalidate();
+        renderIndex.invalidate(); // Executes: renderIndex.invalidate();
     } // Closes a code block.
 
     /**
      * Checks which power-ups the player collects this frame.
      * Returns a list of their types, so the game can apply effects.
+     * The list is reused: it is only valid until the next call.
      */
     public List<PowerUpType> updateAndGetCollected(double playerX, double playerY, double playerW, double playerH) { // Begins a method or constructor with its signature.
 
-        List<PowerUpType> collectedTypes = new ArrayList<>();
-        Iterator<PowerUp> iterator = powerUps.iterator();
-
-        while (iterator.hasNext()) { // Begins a method or constructor with its signature.
-            PowerUp p = iterator.next();
+        List<PowerUpType> collectedTypes = collected;
+        collectedTypes.clear(); // Executes: collectedTypes.clear();
 
-            if (!p.isCollected() && p.tryCollect(playerX, playerY, playerW, playerH)) { // Begins a method or constructor with its signature.
-                collectedTypes.add(p.getType()); // Executes: collectedTypes.add(p.getType());
-                iterator.remove(); // Executes: iterator.remove();
-            } else if (p.isCollected()) { // Begins a method or constructor with its signature.
-                // safety cleanup
-                iterator.remove(); // Executes: iterator.remove();
+        double right = playerX + playerW;
+        for (int k = index.seek(playerX); k < index.size() && index.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = powerUps.slotOf(index.getHandle(k));
+            if (slot >= 0 && powerUps.overlaps(slot, playerX, playerY, playerW, playerH)) { // Begins a method or constructor with its signature.
+                collectedTypes.add(TYPES[powerUps.getType(slot)]); // Executes: collectedTypes.add(TYPES[powerUps.getType(slot)]);
+                powerUps.removeAt(slot); // Executes: powerUps.removeAt(slot);
             } // Closes a code block.
         } // Closes a code block.
 
@@ -67,40 +119,81 @@ public class PowerUpManager { // Defines a class.
     } // Closes a code block.
 
     // ✅ Manager renders what it owns
-    public void render(GraphicsContext gc, Camera camera) { // Begins a method or constructor with its signature.
-        for (PowerUp p : powerUps) { // Begins a method or constructor with its signature.
-            double screenX = p.getX() - camera.getOffsetX();
-            double screenY = p.getY() - camera.getOffsetY();
-
-            Color base = colorFor(p.getType());
-            Color glowBlend = theme.getPowerUpGlow();
-            Color rim = base.interpolate(glowBlend, 0.3).deriveColor(0, 1, 0.92, 1);
-            Color glow = glowBlend.interpolate(base, 0.4).deriveColor(0, 1, 1.15, 0.65);
-
-            gc.setFill(glow); // Executes: gc.setFill(glow);
-            gc.fillOval(screenX - 4, screenY - 4, p.getWidth() + 8, p.getHeight() + 8); // Executes: gc.fillOval(screenX - 4, screenY - 4, p.getWidth() + 8, p.getHeight() + 8);
-
-            gc.setFill(base); // Executes: gc.setFill(base);
-            gc.fillOval(screenX, screenY, p.getWidth(), p.getHeight()); // Executes: gc.fillOval(screenX, screenY, p.getWidth(), p.getHeight());
-            gc.setStroke(rim); // Executes: gc.setStroke(rim);
-            gc.setLineWidth(2); // Executes: gc.setLineWidth(2);
-            gc.strokeOval(screenX + 2, screenY + 2, p.getWidth() - 4, p.getHeight() - 4); // Executes: gc.strokeOval(screenX + 2, screenY + 2, p.getWidth() - 4, p.getHeight() - 4);
-
-            gc.setFill(Color.WHITE); // Executes: gc.setFill(Color.WHITE);
-            gc.fillText(symbolFor(p.getType()), screenX + p.getWidth() / 2.7, screenY + p.getHeight() / 1.8); // Executes: gc.fillText(symbolFor(p.getType()), screenX + p.getWidth() / 2.7, screenY + p.getHeight() / 1.8);
+    public void render(RenderCommandBuffer out, Camera camera) { // Begins a method or constructor with its signature.
+        render(out, camera, null, null); // Executes: render(out, camera, null, null);
+    } // Closes a code block.
+
+    /**
+     * Draws the power-ups; default-size ones come from the atlas when one is given. With a culling
+     * pass only the power-ups in its rectangle are visited (and counted); without one, all of them.
+     */
+    public void render(RenderCommandBuffer out, Camera camera, SpriteAtlas atlas, ViewCulling cull) { // Begins a method or constructor with its signature.
+        if (atlas != null && atlas.getTheme() != theme) atlas = null; // Evaluates a conditional branch.
+        double ox = camera.getOffsetX();
+        double oy = camera.getOffsetY();
+
+        if (cull == null) { // Begins a method or constructor with its signature.
+            for (int i = 0; i < powerUps.size(); i++) drawPowerUp(out, i, ox, oy, atlas); // Executes: for (int i = 0; i < powerUps.size(); i++) drawPowerUp(out, i, ox, oy, atlas);
+            return; // Returns a value from the method.
+        } // Closes a code block.
+
+        int drawn = 0;
+        double right = cull.getRight();
+        for (int k = renderIndex.seek(cull.getLeft()); k < renderIndex.size() && renderIndex.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = powerUps.slotOf(renderIndex.getHandle(k));
+            if (slot < 0 || !cull.isVisible(powerUps.getX(slot), powerUps.getY(slot), powerUps.getWidth(slot), powerUps.getHeight(slot))) continue; // Evaluates a conditional branch.
+            drawPowerUp(out, slot, ox, oy, atlas); // Executes: drawPowerUp(out, slot, ox, oy, atlas);
+            drawn++; // Executes: drawn++;
+        } // Closes a code block.
+        cull.record(ViewCulling.POWER_UPS, drawn, powerUps.size()); // Executes: cull.record(ViewCulling.POWER_UPS, drawn, powerUps.size());
+    } // Closes a code block.
+
+    private void drawPowerUp(RenderCommandBuffer out, int i, double ox, double oy, SpriteAtlas atlas) { // Begins a method or constructor with its signature.
+        double screenX = powerUps.getX(i) - ox;
+        double screenY = powerUps.getY(i) - oy;
+        double w = powerUps.getWidth(i);
+        double h = powerUps.getHeight(i);
+        int type = powerUps.getType(i);
+
+        if (atlas != null && w == DEFAULT_SIZE && h == DEFAULT_SIZE) { // Begins a method or constructor with its signature.
+            atlas.draw(out, SpriteAtlas.POWER_UP + type, screenX, screenY); // Executes: atlas.draw(out, SpriteAtlas.POWER_UP + type, screenX, screenY);
+        } else { // Executes: } else {
+            paintPowerUp(out, screenX, screenY, w, h, TYPES[type], rimColors[type], glowColors[type]); // Executes: paintPowerUp(out, screenX, screenY, w, h, TYPES[type], rimColors[type], glowColors[type]);
         } // Closes a code block.
     } // Closes a code block.
 
-    private Color colorFor(PowerUpType type) { // Begins a method or constructor with its signature.
+    /**
+     * One power-up: glow, body, rim and its glyph. Also used to fill the sprite atlas.
+     */
+    static void paintPowerUp(RenderCommandBuffer out, double screenX, double screenY, double w, double h, // Executes: static void paintPowerUp(RenderCommandBuffer out, double screenX, double screenY, double w, double h,
+                             PowerUpType type, Color rim, Color glow) { // Executes: PowerUpType type, Color rim, Color glow) {
+        out.setPass(0); // Executes: out.setPass(0);
+        out.setFill(glow); // Executes: out.setFill(glow);
+        out.fillOval(screenX - 4, screenY - 4, w + 8, h + 8); // Executes: out.fillOval(screenX - 4, screenY - 4, w + 8, h + 8);
+
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setFill(colorFor(type)); // Executes: out.setFill(colorFor(type));
+        out.fillOval(screenX, screenY, w, h); // Executes: out.fillOval(screenX, screenY, w, h);
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setStroke(rim); // Executes: out.setStroke(rim);
+        out.setLineWidth(2); // Executes: out.setLineWidth(2);
+        out.strokeOval(screenX + 2, screenY + 2, w - 4, h - 4); // Executes: out.strokeOval(screenX + 2, screenY + 2, w - 4, h - 4);
+
+        out.setPass(3); // Executes: out.setPass(3);
+        out.setFill(Color.WHITE); // Executes: out.setFill(Color.WHITE);
+        out.fillText(symbolFor(type), screenX + w / 2.7, screenY + h / 1.8); // Executes: out.fillText(symbolFor(type), screenX + w / 2.7, screenY + h / 1.8);
+    } // Closes a code block.
+
+    private static Color colorFor(PowerUpType type) { // Begins a method or constructor with its signature.
         return switch (type) { // Begins a method or constructor with its signature.
-            case MUSHROOM -> Color.web("#FF7043"); // Defines a switch case branch.
-            case FLOWER -> Color.web("#FFEB3B"); // Defines a switch case branch.
-            case STAR -> Color.web("#81D4FA"); // Defines a switch case branch.
-            case LIFE -> Color.web("#C62828"); // Defines a switch case branch.
+            case MUSHROOM -> MUSHROOM_COLOR; // Defines a switch case branch.
+            case FLOWER -> FLOWER_COLOR; // Defines a switch case branch.
+            case STAR -> STAR_COLOR; // Defines a switch case branch.
+            case LIFE -> LIFE_COLOR; // Defines a switch case branch.
         }; // Executes: };
     } // Closes a code block.
 
-    private String symbolFor(PowerUpType type) { // Begins a method or constructor with its signature.
+    private static String symbolFor(PowerUpType type) { // Begins a method or constructor with its signature.
         return switch (type) { // Begins a method or constructor with its signature.
             case MUSHROOM -> "M"; // Defines a switch case branch.
             case FLOWER -> "F"; // Defines a switch case branch.
@@ -109,7 +202,11 @@ public class PowerUpManager { // Defines a class.
         }; // Executes: };
     } // Closes a code block.
 
-    public List<PowerUp> getPowerUps() { // Begins a method or constructor with its signature.
+    public int getCount() { // Begins a method or constructor with its signature.
+        return powerUps.size(); // Returns a value from the method.
+    } // Closes a code block.
+
+    public EntityStore getPowerUps() { // Begins a method or constructor with its signature.
         return powerUps;
     } // Closes a code block.
 
@@ -1,5 +1,7 @@
 package game.systems; // Declares the package for this source file.
 
+import game.utils.Constants;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -155,6 +157,25 @@ public class ProceduralLevelGenerator { // Defines a class.
         return lines;
     } // Closes a code block.
 
+    /**
+     * The full campaign the game plays: Constants.LEVEL_COUNT levels of increasing difficulty.
+     * Same seed, same campaign (level i uses {@link #campaignLevelSeed}).
+     */
+    public static List<List<String>> generateCampaign(long seed) { // Begins a method or constructor with its signature.
+        List<List<String>> levels = new ArrayList<>();
+        for (int lvl = 1; lvl <= Constants.LEVEL_COUNT; lvl++) { // Begins a method or constructor with its signature.
+            levels.add(generate(lvl, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, campaignLevelSeed(seed, lvl))); // Executes: levels.add(generate(lvl, Constants.LEVEL_WIDTH_TILES, Constants.LEVEL_HEIGHT_TILES, campaignLevelSeed(seed, lvl)));
+        } // Closes a code block.
+        return levels;
+    } // Closes a code block.
+
+    /**
+     * @param difficulty 1-based level number inside the campaign
+     */
+    public static long campaignLevelSeed(long seed, int difficulty) { // Begins a method or constructor with its signature.
+        return seed + difficulty * 999L; // Returns a value from the method.
+    } // Closes a code block.
+
     private static double clamp(double v, double min, double max) { // Begins a method or constructor with its signature.
         return Math.max(min, Math.min(max, v)); // Returns a value from the method.
     } // Closes a code block.
@@ -0,0 +1,68 @@
+package game.systems; // Declares the package for this source file.
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Paints canvas drawing code once into an image, so a renderer can blit the result every frame
+ * instead of repeating the drawing calls. Uses {@code Canvas.snapshot}, which needs the FX
+ * application thread with a running toolkit; callers check {@link #isAvailable()} and draw directly
+ * otherwise (headless benchmarks).
+ */
+public final class Raster { // Defines a class.
+
+    /**
+     * Drawing code for one image; (0, 0) is the image's top-left corner.
+     */
+    public interface Painter { // Begins a method or constructor with its signature.
+        void paint(GraphicsContext gc); // Executes: void paint(GraphicsContext gc);
+    } // Closes a code block.
+
+    private static Canvas scratch;
+    private static SnapshotParameters parameters;
+
+    private Raster() { // Begins a method or constructor with its signature.
+    } // Closes a code block.
+
+    public static boolean isAvailable() { // Begins a method or constructor with its signature.
+        return Platform.isFxApplicationThread(); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Paints into a transparent width x height image. reuse is overwritten and returned when it
+     * has that size; otherwise a new image is made. FX application thread only.
+     */
+    public static WritableImage bake(int width, int height, WritableImage reuse, Painter painter) { // Begins a method or constructor with its signature.
+        if (scratch == null) { // Begins a method or constructor with its signature.
+            scratch = new Canvas(width, height); // Executes: scratch = new Canvas(width, height);
+            parameters = new SnapshotParameters(); // Executes: parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT); // Executes: parameters.setFill(Color.TRANSPARENT);
+        } // Closes a code block.
+        // The scratch canvas only grows; the viewport crops the snapshot to the requested size
+        if (scratch.getWidth() < width) scratch.setWidth(width); // Evaluates a conditional branch.
+        if (scratch.getHeight() < height) scratch.setHeight(height); // Evaluates a conditional branch.
+        GraphicsContext gc = scratch.getGraphicsContext2D();
+        gc.clearRect(0, 0, scratch.getWidth(), scratch.getHeight()); // Executes: gc.clearRect(0, 0, scratch.getWidth(), scratch.getHeight());
+        painter.paint(gc); // Executes: painter.paint(gc);
+
+        parameters.setViewport(new Rectangle2D(0, 0, width, height)); // Executes: parameters.setViewport(new Rectangle2D(0, 0, width, height));
+        WritableImage target = reuse != null && reuse.getWidth() == width && reuse.getHeight() == height // Executes: WritableImage target = reuse != null && reuse.getWidth() == width && reuse.getHeight() == height
+                ? reuse : new WritableImage(width, height); // Executes: ? reuse : new WritableImage(width, height);
+        return scratch.snapshot(parameters, target); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Snapshots a whole canvas painted elsewhere (e.g. on a background thread) onto a transparent
+     * image. FX application thread only.
+     */
+    public static WritableImage snapshot(Canvas canvas) { // Begins a method or constructor with its signature.
+        SnapshotParameters whole = new SnapshotParameters();
+        whole.setFill(Color.TRANSPARENT); // Executes: whole.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(whole, null); // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,464 @@
+package game.systems; // Declares the package for this source file.
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+
+import java.util.Arrays;
+
+/**
+ * Drawing commands collected for one frame and replayed onto a {@link GraphicsContext} in one
+ * {@link #flush}. Renderers call the same primitives they would call on the context; the buffer
+ * records them into preallocated arrays instead, then sorts them by layer and paint state so each
+ * fill, stroke and line width is set once per run of commands that share it, not once per shape.
+ *
+ * <p>Order: layers ({@link #setLayer}) are drawn in ascending order, and within a layer the passes
+ * ({@link #setPass}) too. Inside one pass, commands with the same state keep their order but states
+ * may be regrouped, so the parts of a look that must stack (body, outline, eyes...) go in separate
+ * passes. Overlapping entities of the same layer can then interleave part by part, which is fine
+ * for the small sprites of this game.
+ *
+ * <p>The arrays only grow, so once a frame of the largest size has been seen, recording and
+ * flushing allocate nothing. Not thread-safe: one buffer per drawing thread.
+ */
+public class RenderCommandBuffer { // Defines a class.
+
+    // World layers, in drawing order
+    public static final int TILES = 0;
+    public static final int COINS = 1;
+    public static final int POWER_UPS = 2;
+    public static final int ENEMIES = 3;
+    public static final int SPIKES = 4;
+    public static final int GOAL = 5;
+    public static final int PLAYER = 6;
+    public static final int EFFECTS = 7;
+    // Passes per layer
+    public static final int PASSES = 8;
+
+    // Commands
+    private static final byte FILL_RECT = 0;
+    private static final byte FILL_ROUND_RECT = 1;
+    private static final byte FILL_OVAL = 2;
+    private static final byte FILL_POLYGON = 3;
+    private static final byte FILL_TEXT = 4;
+    private static final byte STROKE_LINE = 5;
+    private static final byte STROKE_OVAL = 6;
+    private static final byte STROKE_ROUND_RECT = 7;
+    private static final byte STROKE_POLYGON = 8;
+    private static final byte DRAW_IMAGE = 9;
+    private static final byte DRAW_IMAGE_REGION = 10;
+
+    // Kinds of state a command depends on
+    private static final byte FILL = 0;
+    private static final byte STROKE = 1;
+    private static final byte IMAGE = 2;
+
+    // Doubles per command: shape bounds and arcs, or image source rectangle and destination
+    private static final int STRIDE = 6;
+
+    // Per command: operation, state id, parameters, text
+    private byte[] ops;
+    private int[] states;
+    private double[] params;
+    private String[] texts;
+    private int count = 0;
+
+    // Polygon points of all polygon commands, back to back
+    private double[] pointsX;
+    private double[] pointsY;
+    private int pointCount = 0;
+    private double[] polygonX = new double[8];
+    private double[] polygonY = new double[8];
+
+    // Per state (first use in this frame gets the next id): kind, sort layer, paint or image, line width
+    private byte[] stateKinds;
+    private int[] stateLayers;
+    private Object[] stateObjects;
+    private double[] stateWidths;
+    private int stateCount = 0;
+    private int maxSortLayer = 0;
+
+    // Sorting scratch
+    private int[] stateStarts;
+    private int[] order;
+
+    // What the renderer has set, and the state ids of it (-1 until a command needs them)
+    private int layer = 0;
+    private int pass = 0;
+    private Paint fill;
+    private Paint stroke;
+    private double lineWidth = 1;
+    private int fillState = -1;
+    private int strokeState = -1;
+
+    // Stats of the last flush, and totals
+    private int lastCommands = 0;
+    private int lastStateChangesIssued = 0;
+    private int lastStateChangesApplied = 0;
+    private int stateChangesIssued = 0;
+    private long totalCommands = 0;
+    private long totalStateChangesIssued = 0;
+    private long totalStateChangesApplied = 0;
+
+    /**
+     * A buffer with room for capacity commands before it has to grow, with polygon points and
+     * distinct states sized to match (a point per command, a state per 16 commands).
+     */
+    public RenderCommandBuffer(int capacity) { // Begins a method or constructor with its signature.
+        ops = new byte[capacity]; // Executes: ops = new byte[capacity];
+        states = new int[capacity]; // Executes: states = new int[capacity];
+        params = new double[capacity * STRIDE]; // Executes: params = new double[capacity * STRIDE];
+        texts = new String[capacity]; // Executes: texts = new String[capacity];
+        order = new int[capacity]; // Executes: order = new int[capacity];
+        pointsX = new double[Math.max(64, capacity)]; // Executes: pointsX = new double[Math.max(64, capacity)];
+        pointsY = new double[pointsX.length]; // Executes: pointsY = new double[pointsX.length];
+        int stateCapacity = Math.max(32, capacity / 16);
+        stateKinds = new byte[stateCapacity]; // Executes: stateKinds = new byte[stateCapacity];
+        stateLayers = new int[stateCapacity]; // Executes: stateLayers = new int[stateCapacity];
+        stateObjects = new Object[stateCapacity]; // Executes: stateObjects = new Object[stateCapacity];
+        stateWidths = new double[stateCapacity]; // Executes: stateWidths = new double[stateCapacity];
+        stateStarts = new int[stateCapacity]; // Executes: stateStarts = new int[stateCapacity];
+    } // Closes a code block.
+
+    public RenderCommandBuffer() { // Begins a method or constructor with its signature.
+        this(256); // Executes: this(256);
+    } // Closes a code block.
+
+    // -------------------------
+    // State
+    // -------------------------
+
+    /**
+     * Starts recording into a layer, at its first pass.
+     */
+    public void setLayer(int layer) { // Begins a method or constructor with its signature.
+        this.layer = layer; // Executes: this.layer = layer;
+        this.pass = 0; // Executes: this.pass = 0;
+        fillState = -1; // Executes: fillState = -1;
+        strokeState = -1; // Executes: strokeState = -1;
+    } // Closes a code block.
+
+    /**
+     * Moves to a pass of the current layer (0 to {@link #PASSES} - 1); later passes draw on top.
+     */
+    public void setPass(int pass) { // Begins a method or constructor with its signature.
+        this.pass = pass; // Executes: this.pass = pass;
+        fillState = -1; // Executes: fillState = -1;
+        strokeState = -1; // Executes: strokeState = -1;
+    } // Closes a code block.
+
+    public void setFill(Paint fill) { // Begins a method or constructor with its signature.
+        stateChangesIssued++; // Executes: stateChangesIssued++;
+        if (fill == this.fill) return; // Evaluates a conditional branch.
+        this.fill = fill; // Executes: this.fill = fill;
+        fillState = -1; // Executes: fillState = -1;
+    } // Closes a code block.
+
+    public void setStroke(Paint stroke) { // Begins a method or constructor with its signature.
+        stateChangesIssued++; // Executes: stateChangesIssued++;
+        if (stroke == this.stroke) return; // Evaluates a conditional branch.
+        this.stroke = stroke; // Executes: this.stroke = stroke;
+        strokeState = -1; // Executes: strokeState = -1;
+    } // Closes a code block.
+
+    public void setLineWidth(double lineWidth) { // Begins a method or constructor with its signature.
+        stateChangesIssued++; // Executes: stateChangesIssued++;
+        if (lineWidth == this.lineWidth) return; // Evaluates a conditional branch.
+        this.lineWidth = lineWidth; // Executes: this.lineWidth = lineWidth;
+        strokeState = -1; // Executes: strokeState = -1;
+    } // Closes a code block.
+
+    // -------------------------
+    // Commands
+    // -------------------------
+
+    public void fillRect(double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        add(FILL_RECT, fillState(), x, y, w, h, 0, 0); // Executes: add(FILL_RECT, fillState(), x, y, w, h, 0, 0);
+    } // Closes a code block.
+
+    public void fillRoundRect(double x, double y, double w, double h, double arcWidth, double arcHeight) { // Begins a method or constructor with its signature.
+        add(FILL_ROUND_RECT, fillState(), x, y, w, h, arcWidth, arcHeight); // Executes: add(FILL_ROUND_RECT, fillState(), x, y, w, h, arcWidth, arcHeight);
+    } // Closes a code block.
+
+    public void fillOval(double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        add(FILL_OVAL, fillState(), x, y, w, h, 0, 0); // Executes: add(FILL_OVAL, fillState(), x, y, w, h, 0, 0);
+    } // Closes a code block.
+
+    public void fillPolygon(double[] xPoints, double[] yPoints, int n) { // Begins a method or constructor with its signature.
+        add(FILL_POLYGON, fillState(), addPoints(xPoints, yPoints, n), n, 0, 0, 0, 0); // Executes: add(FILL_POLYGON, fillState(), addPoints(xPoints, yPoints, n), n, 0, 0, 0, 0);
+    } // Closes a code block.
+
+    public void fillText(String text, double x, double y) { // Begins a method or constructor with its signature.
+        add(FILL_TEXT, fillState(), x, y, 0, 0, 0, 0); // Executes: add(FILL_TEXT, fillState(), x, y, 0, 0, 0, 0);
+        texts[count - 1] = text; // Executes: texts[count - 1] = text;
+    } // Closes a code block.
+
+    public void strokeLine(double x1, double y1, double x2, double y2) { // Begins a method or constructor with its signature.
+        add(STROKE_LINE, strokeState(), x1, y1, x2, y2, 0, 0); // Executes: add(STROKE_LINE, strokeState(), x1, y1, x2, y2, 0, 0);
+    } // Closes a code block.
+
+    public void strokeOval(double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        add(STROKE_OVAL, strokeState(), x, y, w, h, 0, 0); // Executes: add(STROKE_OVAL, strokeState(), x, y, w, h, 0, 0);
+    } // Closes a code block.
+
+    public void strokeRoundRect(double x, double y, double w, double h, double arcWidth, double arcHeight) { // Begins a method or constructor with its signature.
+        add(STROKE_ROUND_RECT, strokeState(), x, y, w, h, arcWidth, arcHeight); // Executes: add(STROKE_ROUND_RECT, strokeState(), x, y, w, h, arcWidth, arcHeight);
+    } // Closes a code block.
+
+    public void strokePolygon(double[] xPoints, double[] yPoints, int n) { // Begins a method or constructor with its signature.
+        add(STROKE_POLYGON, strokeState(), addPoints(xPoints, yPoints, n), n, 0, 0, 0, 0); // Executes: add(STROKE_POLYGON, strokeState(), addPoints(xPoints, yPoints, n), n, 0, 0, 0, 0);
+    } // Closes a code block.
+
+    public void drawImage(Image image, double x, double y) { // Begins a method or constructor with its signature.
+        add(DRAW_IMAGE, intern(IMAGE, image, 0), x, y, 0, 0, 0, 0); // Executes: add(DRAW_IMAGE, intern(IMAGE, image, 0), x, y, 0, 0, 0, 0);
+    } // Closes a code block.
+
+    /**
+     * Draws the source rectangle of the image, unscaled, with its top-left corner at (dx, dy).
+     */
+    public void drawImage(Image image, double sx, double sy, double sw, double sh, double dx, double dy) { // Begins a method or constructor with its signature.
+        add(DRAW_IMAGE_REGION, intern(IMAGE, image, 0), sx, sy, sw, sh, dx, dy); // Executes: add(DRAW_IMAGE_REGION, intern(IMAGE, image, 0), sx, sy, sw, sh, dx, dy);
+    } // Closes a code block.
+
+    // -------------------------
+    // Flush
+    // -------------------------
+
+    /**
+     * Draws every recorded command onto the context, sorted, setting each state only when it
+     * differs from the one before; then clears the buffer for the next frame.
+     */
+    public void flush(GraphicsContext gc) { // Begins a method or constructor with its signature.
+        sort(); // Executes: sort();
+
+        Paint appliedFill = null;
+        Paint appliedStroke = null;
+        double appliedWidth = Double.NaN;
+        int applied = 0;
+        for (int k = 0; k < count; k++) { // Begins a method or constructor with its signature.
+            int i = order[k];
+            int s = states[i];
+            byte kind = stateKinds[s];
+            if (kind == FILL && stateObjects[s] != appliedFill) { // Begins a method or constructor with its signature.
+                appliedFill = (Paint) stateObjects[s]; // Executes: appliedFill = (Paint) stateObjects[s];
+                gc.setFill(appliedFill); // Executes: gc.setFill(appliedFill);
+                applied++; // Executes: applied++;
+            } else if (kind == STROKE) { // Begins a method or constructor with its signature.
+                if (stateObjects[s] != appliedStroke) { // Begins a method or constructor with its signature.
+                    appliedStroke = (Paint) stateObjects[s]; // Executes: appliedStroke = (Paint) stateObjects[s];
+                    gc.setStroke(appliedStroke); // Executes: gc.setStroke(appliedStroke);
+                    applied++; // Executes: applied++;
+                } // Closes a code block.
+                if (stateWidths[s] != appliedWidth) { // Begins a method or constructor with its signature.
+                    appliedWidth = stateWidths[s]; // Executes: appliedWidth = stateWidths[s];
+                    gc.setLineWidth(appliedWidth); // Executes: gc.setLineWidth(appliedWidth);
+                    applied++; // Executes: applied++;
+                } // Closes a code block.
+            } // Closes a code block.
+            draw(gc, i, s); // Executes: draw(gc, i, s);
+        } // Closes a code block.
+
+        lastCommands = count; // Executes: lastCommands = count;
+        lastStateChangesIssued = stateChangesIssued; // Executes: lastStateChangesIssued = stateChangesIssued;
+        lastStateChangesApplied = applied; // Executes: lastStateChangesApplied = applied;
+        totalCommands += count; // Executes: totalCommands += count;
+        totalStateChangesIssued += stateChangesIssued; // Executes: totalStateChangesIssued += stateChangesIssued;
+        totalStateChangesApplied += applied; // Executes: totalStateChangesApplied += applied;
+        clear(); // Executes: clear();
+    } // Closes a code block.
+
+    /**
+     * Drops the recorded commands without drawing them.
+     */
+    public void clear() { // Begins a method or constructor with its signature.
+        Arrays.fill(texts, 0, count, null); // Executes: Arrays.fill(texts, 0, count, null);
+        Arrays.fill(stateObjects, 0, stateCount, null); // Executes: Arrays.fill(stateObjects, 0, stateCount, null);
+        count = 0; // Executes: count = 0;
+        pointCount = 0; // Executes: pointCount = 0;
+        stateCount = 0; // Executes: stateCount = 0;
+        maxSortLayer = 0; // Executes: maxSortLayer = 0;
+        stateChangesIssued = 0; // Executes: stateChangesIssued = 0;
+        layer = 0; // Executes: layer = 0;
+        pass = 0; // Executes: pass = 0;
+        fillState = -1; // Executes: fillState = -1;
+        strokeState = -1; // Executes: strokeState = -1;
+    } // Closes a code block.
+
+    // -------------------------
+    // Stats
+    // -------------------------
+
+    /**
+     * Commands drawn by the last flush.
+     */
+    public int getLastCommandCount() { // Begins a method or constructor with its signature.
+        return lastCommands;
+    } // Closes a code block.
+
+    /**
+     * Fill, stroke and line width changes the renderers asked for before the last flush.
+     */
+    public int getLastStateChangesIssued() { // Begins a method or constructor with its signature.
+        return lastStateChangesIssued;
+    } // Closes a code block.
+
+    /**
+     * State changes the last flush actually made on the context.
+     */
+    public int getLastStateChangesApplied() { // Begins a method or constructor with its signature.
+        return lastStateChangesApplied;
+    } // Closes a code block.
+
+    public int getLastStateChangesSaved() { // Begins a method or constructor with its signature.
+        return lastStateChangesIssued - lastStateChangesApplied; // Returns a value from the method.
+    } // Closes a code block.
+
+    public long getTotalCommands() { // Begins a method or constructor with its signature.
+        return totalCommands;
+    } // Closes a code block.
+
+    public long getTotalStateChangesIssued() { // Begins a method or constructor with its signature.
+        return totalStateChangesIssued;
+    } // Closes a code block.
+
+    public long getTotalStateChangesApplied() { // Begins a method or constructor with its signature.
+        return totalStateChangesApplied;
+    } // Closes a code block.
+
+    // -------------------------
+    // Internals
+    // -------------------------
+
+    private int fillState() { // Begins a method or constructor with its signature.
+        if (fillState < 0) fillState = intern(FILL, fill, 0); // Evaluates a conditional branch.
+        return fillState;
+    } // Closes a code block.
+
+    private int strokeState() { // Begins a method or constructor with its signature.
+        if (strokeState < 0) strokeState = intern(STROKE, stroke, lineWidth); // Evaluates a conditional branch.
+        return strokeState;
+    } // Closes a code block.
+
+    /**
+     * Id of a state in the current layer and pass, adding it on first use this frame.
+     */
+    private int intern(byte kind, Object object, double width) { // Begins a method or constructor with its signature.
+        int sortLayer = layer * PASSES + pass;
+        for (int s = stateCount - 1; s >= 0; s--) { // Begins a method or constructor with its signature.
+            if (stateKinds[s] == kind && stateLayers[s] == sortLayer && stateObjects[s] == object && stateWidths[s] == width) { // Begins a method or constructor with its signature.
+                return s;
+            } // Closes a code block.
+        } // Closes a code block.
+        if (stateCount == stateKinds.length) { // Begins a method or constructor with its signature.
+            int capacity = stateCount * 2;
+            stateKinds = Arrays.copyOf(stateKinds, capacity); // Executes: stateKinds = Arrays.copyOf(stateKinds, capacity);
+            stateLayers = Arrays.copyOf(stateLayers, capacity); // Executes: stateLayers = Arrays.copyOf(stateLayers, capacity);
+            stateObjects = Arrays.copyOf(stateObjects, capacity); // Executes: stateObjects = Arrays.copyOf(stateObjects, capacity);
+            stateWidths = Arrays.copyOf(stateWidths, capacity); // Executes: stateWidths = Arrays.copyOf(stateWidths, capacity);
+            stateStarts = Arrays.copyOf(stateStarts, capacity); // Executes: stateStarts = Arrays.copyOf(stateStarts, capacity);
+        } // Closes a code block.
+        stateKinds[stateCount] = kind; // Executes: stateKinds[stateCount] = kind;
+        stateLayers[stateCount] = sortLayer; // Executes: stateLayers[stateCount] = sortLayer;
+        stateObjects[stateCount] = object; // Executes: stateObjects[stateCount] = object;
+        stateWidths[stateCount] = width; // Executes: stateWidths[stateCount] = width;
+        maxSortLayer = Math.max(maxSortLayer, sortLayer); // Executes: maxSortLayer = Math.max(maxSortLayer, sortLayer);
+        return stateCount++; // Returns a value from the method.
+    } // Closes a code block.
+
+    private void add(byte op, int state, double p0, double p1, double p2, double p3, double p4, double p5) { // Begins a method or constructor with its signature.
+        if (count == ops.length) grow(); // Evaluates a conditional branch.
+        ops[count] = op; // Executes: ops[count] = op;
+        states[count] = state; // Executes: states[count] = state;
+        int base = count * STRIDE;
+        params[base] = p0; // Executes: params[base] = p0;
+        params[base + 1] = p1; // Executes: params[base + 1] = p1;
+        params[base + 2] = p2; // Executes: params[base + 2] = p2;
+        params[base + 3] = p3; // Executes: params[base + 3] = p3;
+        params[base + 4] = p4; // Executes: params[base + 4] = p4;
+        params[base + 5] = p5; // Executes: params[base + 5] = p5;
+        count++; // Executes: count++;
+    } // Closes a code block.
+
+    private void grow() { // Begins a method or constructor with its signature.
+        int capacity = ops.length * 2;
+        ops = Arrays.copyOf(ops, capacity); // Executes: ops = Arrays.copyOf(ops, capacity);
+        states = Arrays.copyOf(states, capacity); // Executes: states = Arrays.copyOf(states, capacity);
+        params = Arrays.copyOf(params, capacity * STRIDE); // Executes: params = Arrays.copyOf(params, capacity * STRIDE);
+        texts = Arrays.copyOf(texts, capacity); // Executes: texts = Arrays.copyOf(texts, capacity);
+        order = new int[capacity]; // Executes: order = new int[capacity];
+    } // Closes a code block.
+
+    private int addPoints(double[] xPoints, double[] yPoints, int n) { // Begins a method or constructor with its signature.
+        if (pointCount + n > pointsX.length) { // Begins a method or constructor with its signature.
+            int capacity = Math.max(pointsX.length * 2, pointCount + n);
+            pointsX = Arrays.copyOf(pointsX, capacity); // Executes: pointsX = Arrays.copyOf(pointsX, capacity);
+            pointsY = Arrays.copyOf(pointsY, capacity); // Executes: pointsY = Arrays.copyOf(pointsY, capacity);
+        } // Closes a code block.
+        if (n > polygonX.length) { // Begins a method or constructor with its signature.
+            polygonX = new double[n]; // Executes: polygonX = new double[n];
+            polygonY = new double[n]; // Executes: polygonY = new double[n];
+        } // Closes a code block.
+        System.arraycopy(xPoints, 0, pointsX, pointCount, n); // Executes: System.arraycopy(xPoints, 0, pointsX, pointCount, n);
+        System.arraycopy(yPoints, 0, pointsY, pointCount, n); // Executes: System.arraycopy(yPoints, 0, pointsY, pointCount, n);
+        int start = pointCount;
+        pointCount += n; // Executes: pointCount += n;
+        return start;
+    } // Closes a code block.
+
+    /**
+     * Counting sort of the commands into {@link #order}: by layer and pass, then by state in order
+     * of first use, then by recording order.
+     */
+    private void sort() { // Begins a method or constructor with its signature.
+        Arrays.fill(stateStarts, 0, stateCount, 0); // Executes: Arrays.fill(stateStarts, 0, stateCount, 0);
+        for (int i = 0; i < count; i++) stateStarts[states[i]]++; // Executes: for (int i = 0; i < count; i++) stateStarts[states[i]]++;
+
+        // Turn counts into start positions, walking the states layer by layer
+        int position = 0;
+        for (int sortLayer = 0; sortLayer <= maxSortLayer; sortLayer++) { // Begins a method or constructor with its signature.
+            for (int s = 0; s < stateCount; s++) { // Begins a method or constructor with its signature.
+                if (stateLayers[s] != sortLayer) continue; // Evaluates a conditional branch.
+                int n = stateStarts[s];
+                stateStarts[s] = position; // Executes: stateStarts[s] = position;
+                position += n; // Executes: position += n;
+            } // Closes a code block.
+        } // Closes a code block.
+        for (int i = 0; i < count; i++) order[stateStarts[states[i]]++] = i; // Executes: for (int i = 0; i < count; i++) order[stateStarts[states[i]]++] = i;
+    } // Closes a code block.
+
+    private void draw(GraphicsContext gc, int i, int s) { // Begins a method or constructor with its signature.
+        int base = i * STRIDE;
+        double p0 = params[base];
+        double p1 = params[base + 1];
+        double p2 = params[base + 2];
+        double p3 = params[base + 3];
+        switch (ops[i]) { // Begins a method or constructor with its signature.
+            case FILL_RECT -> gc.fillRect(p0, p1, p2, p3); // Defines a switch case branch.
+            case FILL_ROUND_RECT -> gc.fillRoundRect(p0, p1, p2, p3, params[base + 4], params[base + 5]); // Defines a switch case branch.
+            case FILL_OVAL -> gc.fillOval(p0, p1, p2, p3); // Defines a switch case branch.
+            case FILL_POLYGON -> { // Defines a switch case branch.
+                int n = (int) p1;
+                copyPolygon((int) p0, n); // Executes: copyPolygon((int) p0, n);
+                gc.fillPolygon(polygonX, polygonY, n); // Executes: gc.fillPolygon(polygonX, polygonY, n);
+            } // Closes a code block.
+            case FILL_TEXT -> gc.fillText(texts[i], p0, p1); // Defines a switch case branch.
+            case STROKE_LINE -> gc.strokeLine(p0, p1, p2, p3); // Defines a switch case branch.
+            case STROKE_OVAL -> gc.strokeOval(p0, p1, p2, p3); // Defines a switch case branch.
+            case STROKE_ROUND_RECT -> gc.strokeRoundRect(p0, p1, p2, p3, params[base + 4], params[base + 5]); // Defines a switch case branch.
+            case STROKE_POLYGON -> { // Defines a switch case branch.
+                int n = (int) p1;
+                copyPolygon((int) p0, n); // Executes: copyPolygon((int) p0, n);
+                gc.strokePolygon(polygonX, polygonY, n); // Executes: gc.strokePolygon(polygonX, polygonY, n);
+            } // Closes a code block.
+            case DRAW_IMAGE -> gc.drawImage((Image) stateObjects[s], p0, p1); // Defines a switch case branch.
+            case DRAW_IMAGE_REGION -> gc.drawImage((Image) stateObjects[s], p0, p1, p2, p3, // Defines a switch case branch.
+                    params[base + 4], params[base + 5], p2, p3); // Executes: params[base + 4], params[base + 5], p2, p3);
+            default -> throw new IllegalStateException("Unknown command " + ops[i]); // Defines the default switch branch.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void copyPolygon(int start, int n) { // Begins a method or constructor with its signature.
+        System.arraycopy(pointsX, start, polygonX, 0, n); // Executes: System.arraycopy(pointsX, start, polygonX, 0, n);
+        System.arraycopy(pointsY, start, polygonY, 0, n); // Executes: System.arraycopy(pointsY, start, polygonY, 0, n);
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,321 @@
+package game.systems; // Declares the package for this source file.
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid spatial hash for moving boxes. The world is cut into square cells (one tile by default)
+ * and every entity is linked into each cell its box touches; cells are hashed into a fixed bucket table,
+ * so the grid needs no bounds and costs memory only for occupied cells.
+ *
+ * <p>Entities are identified by small non-negative ints, normally {@link EntityStore#idAt(int)}.
+ * {@link #update} is incremental: an entity that stays within the same cells only has its box rewritten.
+ * Queries visit each matching entity once and never allocate, so they are safe to run every tick.
+ */
+public class SpatialHash { // Defines a class.
+
+    /**
+     * Receives query results; return false to stop the query early.
+     */
+    public interface Visitor { // Begins a method or constructor with its signature.
+        boolean visit(int id); // Executes: boolean visit(int id);
+    } // Closes a code block.
+
+    /**
+     * Receives every overlapping pair once (a &lt; b is not guaranteed).
+     */
+    public interface PairVisitor { // Begins a method or constructor with its signature.
+        void visit(int a, int b); // Executes: void visit(int a, int b);
+    } // Closes a code block.
+
+    private static final int NONE = -1;
+
+    private final double cellSize;
+    private final int bucketMask;
+    private final int[] bucketHead;
+
+    // Per entity id: box, occupied cell range and the first of its cell entries
+    private double[] boxX = new double[0];
+    private double[] boxY = new double[0];
+    private double[] boxW = new double[0];
+    private double[] boxH = new double[0];
+    private int[] minCx = new int[0];
+    private int[] minCy = new int[0];
+    private int[] maxCx = new int[0];
+    private int[] maxCy = new int[0];
+    private int[] firstEntry = new int[0];
+    // Query stamp per id, so an entity spanning several cells is reported once
+    private int[] stamp = new int[0];
+    private int currentStamp = 0;
+    private int count = 0;
+
+    // Cell entries: one per (entity, cell), doubly linked in their bucket, singly linked per entity
+    private int[] entryId;
+    private int[] entryCx;
+    private int[] entryCy;
+    private int[] entryPrev;
+    private int[] entryNext;
+    private int[] entrySibling;
+    private int freeEntry = NONE;
+    private int usedEntries = 0;
+
+    /**
+     * @param cellSize    side of one grid cell in pixels
+     * @param bucketCount number of hash buckets, rounded up to a power of two
+     */
+    public SpatialHash(double cellSize, int bucketCount) { // Begins a method or constructor with its signature.
+        this.cellSize = cellSize; // Executes: this.cellSize = cellSize;
+        int buckets = Integer.highestOneBit(Math.max(16, bucketCount - 1)) << 1;
+        this.bucketMask = buckets - 1; // Executes: this.bucketMask = buckets - 1;
+        this.bucketHead = new int[buckets]; // Executes: this.bucketHead = new int[buckets];
+        Arrays.fill(bucketHead, NONE); // Executes: Arrays.fill(bucketHead, NONE);
+        allocateEntries(64); // Executes: allocateEntries(64);
+    } // Closes a code block.
+
+    public SpatialHash() { // Begins a method or constructor with its signature.
+        this(TileMap.TILE_SIZE, 1024); // Executes: this(TileMap.TILE_SIZE, 1024);
+    } // Closes a code block.
+
+    // -------------------------
+    // Updates
+    // -------------------------
+
+    /**
+     * Inserts the entity, or moves it if it is already in the hash.
+     */
+    public void update(int id, double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        if (id >= firstEntry.length) { // Begins a method or constructor with its signature.
+            growIds(Math.max(id + 1, firstEntry.length * 2)); // Executes: growIds(Math.max(id + 1, firstEntry.length * 2));
+        } // Closes a code block.
+        int x0 = cell(x);
+        int y0 = cell(y);
+        int x1 = cell(x + w);
+        int y1 = cell(y + h);
+
+        boxX[id] = x; // Executes: boxX[id] = x;
+        boxY[id] = y; // Executes: boxY[id] = y;
+        boxW[id] = w; // Executes: boxW[id] = w;
+        boxH[id] = h; // Executes: boxH[id] = h;
+
+        boolean present = firstEntry[id] != NONE;
+        if (present && x0 == minCx[id] && y0 == minCy[id] && x1 == maxCx[id] && y1 == maxCy[id]) { // Begins a method or constructor with its signature.
+            return; // same cells, nothing to relink // Executes: return; // same cells, nothing to relink
+        } // Closes a code block.
+        if (present) { // Begins a method or constructor with its signature.
+            unlinkAll(id); // Executes: unlinkAll(id);
+        } else { // Executes: } else {
+            count++; // Executes: count++;
+        } // Closes a code block.
+
+        minCx[id] = x0; // Executes: minCx[id] = x0;
+        minCy[id] = y0; // Executes: minCy[id] = y0;
+        maxCx[id] = x1; // Executes: maxCx[id] = x1;
+        maxCy[id] = y1; // Executes: maxCy[id] = y1;
+        for (int cy = y0; cy <= y1; cy++) { // Begins a method or constructor with its signature.
+            for (int cx = x0; cx <= x1; cx++) { // Begins a method or constructor with its signature.
+                link(id, cx, cy); // Executes: link(id, cx, cy);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public void remove(int id) { // Begins a method or constructor with its signature.
+        if (!contains(id)) return; // Evaluates a conditional branch.
+        unlinkAll(id); // Executes: unlinkAll(id);
+        count--; // Executes: count--;
+    } // Closes a code block.
+
+    public void clear() { // Begins a method or constructor with its signature.
+        Arrays.fill(bucketHead, NONE); // Executes: Arrays.fill(bucketHead, NONE);
+        Arrays.fill(firstEntry, NONE); // Executes: Arrays.fill(firstEntry, NONE);
+        int capacity = entryId.length;
+        entryId = null; // Executes: entryId = null;
+        freeEntry = NONE; // Executes: freeEntry = NONE;
+        usedEntries = 0; // Executes: usedEntries = 0;
+        allocateEntries(capacity); // Executes: allocateEntries(capacity);
+        count = 0; // Executes: count = 0;
+    } // Closes a code block.
+
+    /**
+     * Grows the entry pool so that many (entity, cell) links fit without allocating during updates.
+     */
+    public void ensureCapacity(int entries) { // Begins a method or constructor with its signature.
+        if (entries > entryId.length) { // Begins a method or constructor with its signature.
+            allocateEntries(entries); // Executes: allocateEntries(entries);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public boolean contains(int id) { // Begins a method or constructor with its signature.
+        return id >= 0 && id < firstEntry.length && firstEntry[id] != NONE; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int size() { // Begins a method or constructor with its signature.
+        return count;
+    } // Closes a code block.
+
+    // -------------------------
+    // Queries
+    // -------------------------
+
+    /**
+     * Visits every entity whose box overlaps the given box. Returns false if the visitor stopped early.
+     */
+    public boolean query(double x, double y, double w, double h, Visitor visitor) { // Begins a method or constructor with its signature.
+        int s = nextStamp();
+        int x0 = cell(x);
+        int y0 = cell(y);
+        int x1 = cell(x + w);
+        int y1 = cell(y + h);
+        for (int cy = y0; cy <= y1; cy++) { // Begins a method or constructor with its signature.
+            for (int cx = x0; cx <= x1; cx++) { // Begins a method or constructor with its signature.
+                for (int e = bucketHead[bucket(cx, cy)]; e != NONE; e = entryNext[e]) { // Begins a method or constructor with its signature.
+                    if (entryCx[e] != cx || entryCy[e] != cy) continue; // Evaluates a conditional branch.
+                    int id = entryId[e];
+                    if (stamp[id] == s) continue; // Evaluates a conditional branch.
+                    stamp[id] = s; // Executes: stamp[id] = s;
+                    if (overlaps(id, x, y, w, h) && !visitor.visit(id)) return false; // Evaluates a conditional branch.
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+        return true;
+    } // Closes a code block.
+
+    /**
+     * Visits every pair of entities whose boxes overlap, each pair once.
+     * Cost grows with the number of entities sharing cells, not with the square of the total.
+     */
+    public void forEachPair(PairVisitor visitor) { // Begins a method or constructor with its signature.
+        for (int b = 0; b <= bucketMask; b++) { // Begins a method or constructor with its signature.
+            for (int e = bucketHead[b]; e != NONE; e = entryNext[e]) { // Begins a method or constructor with its signature.
+                int a = entryId[e];
+                int cx = entryCx[e];
+                int cy = entryCy[e];
+                for (int f = entryNext[e]; f != NONE; f = entryNext[f]) { // Begins a method or constructor with its signature.
+                    if (entryCx[f] != cx || entryCy[f] != cy) continue; // Evaluates a conditional branch.
+                    int other = entryId[f];
+                    if (!overlaps(other, boxX[a], boxY[a], boxW[a], boxH[a])) continue; // Evaluates a conditional branch.
+                    // Two boxes can share several cells: report the pair only in the cell holding
+                    // the top-left corner of their intersection
+                    if (cell(Math.max(boxX[a], boxX[other])) != cx || cell(Math.max(boxY[a], boxY[other])) != cy) continue; // Evaluates a conditional branch.
+                    visitor.visit(a, other); // Executes: visitor.visit(a, other);
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public double getCellSize() { // Begins a method or constructor with its signature.
+        return cellSize;
+    } // Closes a code block.
+
+    /**
+     * Number of (entity, cell) links; an entity smaller than a cell has one to four.
+     */
+    public int getCellEntryCount() { // Begins a method or constructor with its signature.
+        return usedEntries;
+    } // Closes a code block.
+
+    // -------------------------
+    // Internals
+    // -------------------------
+    private boolean overlaps(int id, double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        return x < boxX[id] + boxW[id] && // Returns a value from the method.
+               x + w > boxX[id] && // Executes: x + w > boxX[id] &&
+               y < boxY[id] + boxH[id] && // Executes: y < boxY[id] + boxH[id] &&
+               y + h > boxY[id]; // Executes: y + h > boxY[id];
+    } // Closes a code block.
+
+    private int cell(double v) { // Begins a method or constructor with its signature.
+        return (int) Math.floor(v / cellSize); // Returns a value from the method.
+    } // Closes a code block.
+
+    private int bucket(int cx, int cy) { // Begins a method or constructor with its signature.
+        return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask; // Returns a value from the method.
+    } // Closes a code block.
+
+    private int nextStamp() { // Begins a method or constructor with its signature.
+        if (++currentStamp == Integer.MAX_VALUE) { // Begins a method or constructor with its signature.
+            Arrays.fill(stamp, 0); // Executes: Arrays.fill(stamp, 0);
+            currentStamp = 1; // Executes: currentStamp = 1;
+        } // Closes a code block.
+        return currentStamp;
+    } // Closes a code block.
+
+    private void link(int id, int cx, int cy) { // Begins a method or constructor with its signature.
+        if (freeEntry == NONE) { // Begins a method or constructor with its signature.
+            allocateEntries(entryId.length * 2); // Executes: allocateEntries(entryId.length * 2);
+        } // Closes a code block.
+        int e = freeEntry;
+        freeEntry = entryNext[e]; // Executes: freeEntry = entryNext[e];
+        usedEntries++; // Executes: usedEntries++;
+
+        int b = bucket(cx, cy);
+        entryId[e] = id; // Executes: entryId[e] = id;
+        entryCx[e] = cx; // Executes: entryCx[e] = cx;
+        entryCy[e] = cy; // Executes: entryCy[e] = cy;
+        entryPrev[e] = NONE; // Executes: entryPrev[e] = NONE;
+        entryNext[e] = bucketHead[b]; // Executes: entryNext[e] = bucketHead[b];
+        if (bucketHead[b] != NONE) entryPrev[bucketHead[b]] = e; // Evaluates a conditional branch.
+        bucketHead[b] = e; // Executes: bucketHead[b] = e;
+
+        entrySibling[e] = firstEntry[id]; // Executes: entrySibling[e] = firstEntry[id];
+        firstEntry[id] = e; // Executes: firstEntry[id] = e;
+    } // Closes a code block.
+
+    private void unlinkAll(int id) { // Begins a method or constructor with its signature.
+        int e = firstEntry[id];
+        while (e != NONE) { // Begins a method or constructor with its signature.
+            int sibling = entrySibling[e];
+            if (entryPrev[e] != NONE) { // Begins a method or constructor with its signature.
+                entryNext[entryPrev[e]] = entryNext[e]; // Executes: entryNext[entryPrev[e]] = entryNext[e];
+            } else { // Executes: } else {
+                bucketHead[bucket(entryCx[e], entryCy[e])] = entryNext[e]; // Executes: bucketHead[bucket(entryCx[e], entryCy[e])] = entryNext[e];
+            } // Closes a code block.
+            if (entryNext[e] != NONE) entryPrev[entryNext[e]] = entryPrev[e]; // Evaluates a conditional branch.
+
+            entryNext[e] = freeEntry; // Executes: entryNext[e] = freeEntry;
+            freeEntry = e; // Executes: freeEntry = e;
+            usedEntries--; // Executes: usedEntries--;
+            e = sibling; // Executes: e = sibling;
+        } // Closes a code block.
+        firstEntry[id] = NONE; // Executes: firstEntry[id] = NONE;
+    } // Closes a code block.
+
+    /**
+     * Grows the entry pool; new entries go onto the free list.
+     */
+    private void allocateEntries(int capacity) { // Begins a method or constructor with its signature.
+        int old = entryId == null ? 0 : entryId.length;
+        if (old == 0) { // Begins a method or constructor with its signature.
+            entryId = new int[capacity]; // Executes: entryId = new int[capacity];
+            entryCx = new int[capacity]; // Executes: entryCx = new int[capacity];
+            entryCy = new int[capacity]; // Executes: entryCy = new int[capacity];
+            entryPrev = new int[capacity]; // Executes: entryPrev = new int[capacity];
+            entryNext = new int[capacity]; // Executes: entryNext = new int[capacity];
+            entrySibling = new int[capacity]; // Executes: entrySibling = new int[capacity];
+        } else { // Executes: } else {
+            entryId = Arrays.copyOf(entryId, capacity); // Executes: entryId = Arrays.copyOf(entryId, capacity);
+            entryCx = Arrays.copyOf(entryCx, capacity); // Executes: entryCx = Arrays.copyOf(entryCx, capacity);
+            entryCy = Arrays.copyOf(entryCy, capacity); // Executes: entryCy = Arrays.copyOf(entryCy, capacity);
+            entryPrev = Arrays.copyOf(entryPrev, capacity); // Executes: entryPrev = Arrays.copyOf(entryPrev, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity); // Executes: entryNext = Arrays.copyOf(entryNext, capacity);
+            entrySibling = Arrays.copyOf(entrySibling, capacity); // Executes: entrySibling = Arrays.copyOf(entrySibling, capacity);
+        } // Closes a code block.
+        for (int e = capacity - 1; e >= old; e--) { // Begins a method or constructor with its signature.
+            entryNext[e] = freeEntry; // Executes: entryNext[e] = freeEntry;
+            freeEntry = e; // Executes: freeEntry = e;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void growIds(int capacity) { // Begins a method or constructor with its signature.
+        int old = firstEntry.length;
+        boxX = Arrays.copyOf(boxX, capacity); // Executes: boxX = Arrays.copyOf(boxX, capacity);
+        boxY = Arrays.copyOf(boxY, capacity); // Executes: boxY = Arrays.copyOf(boxY, capacity);
+        boxW = Arrays.copyOf(boxW, capacity); // Executes: boxW = Arrays.copyOf(boxW, capacity);
+        boxH = Arrays.copyOf(boxH, capacity); // Executes: boxH = Arrays.copyOf(boxH, capacity);
+        minCx = Arrays.copyOf(minCx, capacity); // Executes: minCx = Arrays.copyOf(minCx, capacity);
+        minCy = Arrays.copyOf(minCy, capacity); // Executes: minCy = Arrays.copyOf(minCy, capacity);
+        maxCx = Arrays.copyOf(maxCx, capacity); // Executes: maxCx = Arrays.copyOf(maxCx, capacity);
+        maxCy = Arrays.copyOf(maxCy, capacity); // Executes: maxCy = Arrays.copyOf(maxCy, capacity);
+        stamp = Arrays.copyOf(stamp, capacity); // Executes: stamp = Arrays.copyOf(stamp, capacity);
+        firstEntry = Arrays.copyOf(firstEntry, capacity); // Executes: firstEntry = Arrays.copyOf(firstEntry, capacity);
+        Arrays.fill(firstEntry, old, capacity, NONE); // Executes: Arrays.fill(firstEntry, old, capacity, NONE);
+    } // Closes a code block.
+} // Closes a code block.
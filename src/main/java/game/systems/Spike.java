@@ -1,77 +1,60 @@
 package game.systems; // Declares the package for this source file.
 
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import game.utils.Theme;
 
-public class Spike { // Defines a class.
+/**
+ * Size and look of a spike. Spike positions live in {@link SpikeManager}'s packed {@link EntityStore}.
+ */
+public final class Spike { // Defines a class.
 
-    private double x, y;
     public static final double SIZE = 32; // match tile size so spike is clearly visible // Executes: public static final double SIZE = 32; // match tile size so spike is clearly visible
-    private boolean active = true;
 
-    public Spike(double x, double y) { // Begins a method or constructor with its signature.
-        this.x = x; // Executes: this.x = x;
-        this.y = y; // Executes: this.y = y;
-    } // Closes a code block.
-
-    public boolean isActive() { // Begins a method or constructor with its signature.
-        return active;
-    } // Closes a code block.
+    // Colors used when no theme is set
+    private static final Color BASE = Color.web("#3E2723");
+    private static final Color FILL = Color.web("#D32F2F");
+    private static final Color OUTLINE = Color.web("#5D0E0E");
 
-    public double getX() { // Begins a method or constructor with its signature.
-        return x;
-    } // Closes a code block.
+    private Spike() {} // Executes: private Spike() {}
 
-    public double getY() { // Begins a method or constructor with its signature.
-        return y;
+    /**
+     * Draws one spike with its top-left corner at the given screen position.
+     */
+    public static void render(RenderCommandBuffer out, double screenX, double screenY, Theme theme) { // Begins a method or constructor with its signature.
+        render(out, screenX, screenY, theme, new double[3], new double[3]); // Executes: render(out, screenX, screenY, theme, new double[3], new double[3]);
     } // Closes a code block.
 
-    public boolean checkPlayerCollision(double px, double py, double pw, double ph) { // Begins a method or constructor with its signature.
-        if (!active) return false; // Evaluates a conditional branch.
-
-        return px < x + SIZE && // Returns a value from the method.
-               px + pw > x && // Executes: px + pw > x &&
-               py < y + SIZE && // Executes: py < y + SIZE &&
-               py + ph > y; // Executes: py + ph > y;
-    } // Closes a code block.
-
-    public void render(GraphicsContext gc, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
-        if (!active) return; // Evaluates a conditional branch.
-
-        double screenX = x - camera.getOffsetX();
-        double screenY = y - camera.getOffsetY();
-
+    /**
+     * Same as {@link #render(RenderCommandBuffer, double, double, Theme)}, writing the triangle into the
+     * caller's 3-element arrays so drawing many spikes per frame allocates nothing.
+     */
+    public static void render(RenderCommandBuffer out, double screenX, double screenY, Theme theme, // Executes: public static void render(RenderCommandBuffer out, double screenX, double screenY, Theme theme,
+                              double[] xPoints, double[] yPoints) { // Executes: double[] xPoints, double[] yPoints) {
         // Draw a small dark base rectangle so the triangular spike stands out
-        Color base = theme != null ? theme.getSpikeBase() : Color.web("#3E2723");
-        Color fill = theme != null ? theme.getSpikeFill() : Color.web("#D32F2F");
-        Color outline = theme != null ? theme.getSpikeOutline() : Color.web("#5D0E0E");
+        Color base = theme != null ? theme.getSpikeBase() : BASE;
+        Color fill = theme != null ? theme.getSpikeFill() : FILL;
+        Color outline = theme != null ? theme.getSpikeOutline() : OUTLINE;
 
-        gc.setFill(base); // Executes: gc.setFill(base);
-        gc.fillRect(screenX + 4, screenY + SIZE - 6, SIZE - 8, 6); // Executes: gc.fillRect(screenX + 4, screenY + SIZE - 6, SIZE - 8, 6);
+        out.setPass(0); // Executes: out.setPass(0);
+        out.setFill(base); // Executes: out.setFill(base);
+        out.fillRect(screenX + 4, screenY + SIZE - 6, SIZE - 8, 6); // Executes: out.fillRect(screenX + 4, screenY + SIZE - 6, SIZE - 8, 6);
 
         // Draw spike as a triangle pointing upward
-        double[] xPoints = { // Executes: double[] xPoints = {
-            screenX + SIZE / 2.0,  // tip // Executes: screenX + SIZE / 2.0,  // tip
-            screenX + 2,           // left // Executes: screenX + 2,           // left
-            screenX + SIZE - 2     // right // Executes: screenX + SIZE - 2     // right
-        }; // Executes: };
-        double[] yPoints = { // Executes: double[] yPoints = {
-            screenY + 4,                // tip a bit down from top // Executes: screenY + 4,                // tip a bit down from top
-            screenY + SIZE - 6,         // bottom left aligned with base // Executes: screenY + SIZE - 6,         // bottom left aligned with base
-            screenY + SIZE - 6          // bottom right // Executes: screenY + SIZE - 6          // bottom right
-        }; // Executes: };
+        xPoints[0] = screenX + SIZE / 2.0;  // tip // Executes: xPoints[0] = screenX + SIZE / 2.0;  // tip
+        xPoints[1] = screenX + 2;           // left // Executes: xPoints[1] = screenX + 2;           // left
+        xPoints[2] = screenX + SIZE - 2;    // right // Executes: xPoints[2] = screenX + SIZE - 2;    // right
+        yPoints[0] = screenY + 4;           // tip a bit down from top // Executes: yPoints[0] = screenY + 4;           // tip a bit down from top
+        yPoints[1] = screenY + SIZE - 6;    // bottom left aligned with base // Executes: yPoints[1] = screenY + SIZE - 6;    // bottom left aligned with base
+        yPoints[2] = screenY + SIZE - 6;    // bottom right // Executes: yPoints[2] = screenY + SIZE - 6;    // bottom right
 
-        gc.setFill(fill); // visible red // Executes: gc.setFill(fill); // visible red
-        gc.fillPolygon(xPoints, yPoints, 3); // Executes: gc.fillPolygon(xPoints, yPoints, 3);
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setFill(fill); // visible red // Executes: out.setFill(fill); // visible red
+        out.fillPolygon(xPoints, yPoints, 3); // Executes: out.fillPolygon(xPoints, yPoints, 3);
 
         // Outline
-        gc.setStroke(outline); // Executes: gc.setStroke(outline);
-        gc.setLineWidth(1.5); // Executes: gc.setLineWidth(1.5);
-        gc.strokePolygon(xPoints, yPoints, 3); // Executes: gc.strokePolygon(xPoints, yPoints, 3);
-    } // Closes a code block.
-
-    public void deactivate() { // Begins a method or constructor with its signature.
-        active = false; // Executes: active = false;
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setStroke(outline); // Executes: out.setStroke(outline);
+        out.setLineWidth(1.5); // Executes: out.setLineWidth(1.5);
+        out.strokePolygon(xPoints, yPoints, 3); // Executes: out.strokePolygon(xPoints, yPoints, 3);
     } // Closes a code block.
 } // Closes a code block.
@@ -1,6 +1,5 @@
 package game.systems; // Declares the package for this source file.
 
-import javafx.scene.canvas.GraphicsContext;
 import game.utils.Theme;
 
 import java.util.ArrayList;
@@ -8,8 +7,19 @@ import java.util.List;
 
 public class SpikeManager { // Defines a class.
 
-    private final List<Spike> spikes = new ArrayList<>();
+    // Per-spike spawn logging; off by default so batch runs don't serialize on System.out
+    private static final boolean LOG_SPAWNS = Boolean.getBoolean("bbmario.logSpawns");
+
+    // One slot per armed spike; a spike the player touched is swap-removed
+    private final EntityStore spikes = new EntityStore();
+    // Spikes never move, so the per-frame contact test only walks the ones near the player's x
+    private final SweepIndex index = new SweepIndex(spikes);
+    // Second index with its own cursor, which follows the camera instead of the player
+    private final SweepIndex renderIndex = new SweepIndex(spikes);
     private Theme theme = Theme.SUMMER;
+    // Triangle scratch for Spike.render, reused for every spike
+    private final double[] xPoints = new double[3];
+    private final double[] yPoints = new double[3];
 
     public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
         if (theme != null) { // Begins a method or constructor with its signature.
@@ -19,34 +29,69 @@ public class SpikeManager { // Defines a class.
 
     public void spawnFrom(List<double[]> positions) { // Begins a method or constructor with its signature.
         if (positions == null || positions.isEmpty()) { // Begins a method or constructor with its signature.
-            System.out.println("SpikeManager: no spike spawns provided."); // Executes: System.out.println("SpikeManager: no spike spawns provided.");
+            if (LOG_SPAWNS) System.out.println("SpikeManager: no spike spawns provided."); // Evaluates a conditional branch.
             return; // Returns a value from the method.
         } // Closes a code block.
 
-        System.out.println("SpikeManager: spawning " + positions.size() + " spikes..."); // Executes: System.out.println("SpikeManager: spawning " + positions.size() + " spikes...");
+        if (LOG_SPAWNS) System.out.println("SpikeManager: spawning " + positions.size() + " spikes..."); // Evaluates a conditional branch.
         for (double[] p : positions) { // Begins a method or constructor with its signature.
             if (p == null || p.length < 2) continue; // Evaluates a conditional branch.
             // Positions come in as top-left of tile. Place spike so it sits on top of the tile.
             double x = p[0];
             double y = p[1] + TileMap.TILE_SIZE - Spike.SIZE; // align bottom of spike with top of tile // Executes: double y = p[1] + TileMap.TILE_SIZE - Spike.SIZE; // align bottom of spike with top of tile
-            spikes.add(new Spike(x, y)); // Executes: spikes.add(new Spike(x, y));
-            System.out.println(String.format("  spike at world(%.1f, %.1f) -> place(%.1f, %.1f)", p[0], p[1], x, y)); // Executes: System.out.println(String.format("  spike at world(%.1f, %.1f) -> place(%.1f, %.1f)", p[0], p[1], x, y));
+            spikes.add(x, y, Spike.SIZE, Spike.SIZE, 0); // Executes: spikes.add(x, y, Spike.SIZE, Spike.SIZE, 0);
+            if (LOG_SPAWNS) System.out.println(String.format("  spike at world(%.1f, %.1f) -> place(%.1f, %.1f)", p[0], p[1], x, y)); // Evaluates a conditional branch.
         } // Closes a code block.
+        index.invalidate(); // Executes: index.invalidate();
+        renderIndex.invalidate(); // Executes: renderIndex.invalidate();
     } // Closes a code block.
 
     public boolean checkPlayerCollision(double px, double py, double pw, double ph) { // Begins a method or constructor with its signature.
-        for (Spike spike : spikes) { // Begins a method or constructor with its signature.
-            if (spike.checkPlayerCollision(px, py, pw, ph)) { // Begins a method or constructor with its signature.
-                spike.deactivate(); // Executes: spike.deactivate();
+        double right = px + pw;
+        for (int k = index.seek(px); k < index.size() && index.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = spikes.slotOf(index.getHandle(k));
+            if (slot >= 0 && spikes.overlaps(slot, px, py, pw, ph)) { // Begins a method or constructor with its signature.
+                spikes.removeAt(slot); // the spike is spent once it hurt the player // Executes: spikes.removeAt(slot); // the spike is spent once it hurt the player
                 return true; // player touched spike // Returns a value from the method.
             } // Closes a code block.
         } // Closes a code block.
         return false;
     } // Closes a code block.
 
-    public void render(GraphicsContext gc, Camera camera) { // Begins a method or constructor with its signature.
-        for (Spike spike : spikes) { // Begins a method or constructor with its signature.
-            spike.render(gc, camera, theme); // Executes: spike.render(gc, camera, theme);
+    public void render(RenderCommandBuffer out, Camera camera) { // Begins a method or constructor with its signature.
+        render(out, camera, null, null); // Executes: render(out, camera, null, null);
+    } // Closes a code block.
+
+    /**
+     * Draws the spikes, from the atlas when one for the same theme is given. With a culling pass
+     * only the spikes in its rectangle are visited (and counted); without one, all of them.
+     */
+    public void render(RenderCommandBuffer out, Camera camera, SpriteAtlas atlas, ViewCulling cull) { // Begins a method or constructor with its signature.
+        if (atlas != null && atlas.getTheme() != theme) atlas = null; // Evaluates a conditional branch.
+        double ox = camera.getOffsetX();
+        double oy = camera.getOffsetY();
+
+        if (cull == null) { // Begins a method or constructor with its signature.
+            for (int i = 0; i < spikes.size(); i++) drawSpike(out, i, ox, oy, atlas); // Executes: for (int i = 0; i < spikes.size(); i++) drawSpike(out, i, ox, oy, atlas);
+            return; // Returns a value from the method.
+        } // Closes a code block.
+
+        int drawn = 0;
+        double right = cull.getRight();
+        for (int k = renderIndex.seek(cull.getLeft()); k < renderIndex.size() && renderIndex.getMinX(k) < right; k++) { // Begins a method or constructor with its signature.
+            int slot = spikes.slotOf(renderIndex.getHandle(k));
+            if (slot < 0 || !cull.isVisible(spikes.getX(slot), spikes.getY(slot), spikes.getWidth(slot), spikes.getHeight(slot))) continue; // Evaluates a conditional branch.
+            drawSpike(out, slot, ox, oy, atlas); // Executes: drawSpike(out, slot, ox, oy, atlas);
+            drawn++; // Executes: drawn++;
+        } // Closes a code block.
+        cull.record(ViewCulling.SPIKES, drawn, spikes.size()); // Executes: cull.record(ViewCulling.SPIKES, drawn, spikes.size());
+    } // Closes a code block.
+
+    private void drawSpike(RenderCommandBuffer out, int i, double ox, double oy, SpriteAtlas atlas) { // Begins a method or constructor with its signature.
+        if (atlas != null) { // Begins a method or constructor with its signature.
+            atlas.draw(out, SpriteAtlas.SPIKE, spikes.getX(i) - ox, spikes.getY(i) - oy); // Executes: atlas.draw(out, SpriteAtlas.SPIKE, spikes.getX(i) - ox, spikes.getY(i) - oy);
+        } else { // Executes: } else {
+            Spike.render(out, spikes.getX(i) - ox, spikes.getY(i) - oy, theme, xPoints, yPoints); // Executes: Spike.render(out, spikes.getX(i) - ox, spikes.getY(i) - oy, theme, xPoints, yPoints);
         } // Closes a code block.
     } // Closes a code block.
 
@@ -54,12 +99,15 @@ public class SpikeManager { // Defines a class.
         return spikes.size(); // Returns a value from the method.
     } // Closes a code block.
 
+    public EntityStore getSpikes() { // Begins a method or constructor with its signature.
+        return spikes;
+    } // Closes a code block.
+
     /** Returns world coordinates of active spikes (x,y) for debug rendering. */
     public List<double[]> getPositions() { // Begins a method or constructor with its signature.
         List<double[]> out = new ArrayList<>();
-        for (Spike s : spikes) { // Begins a method or constructor with its signature.
-            if (s == null) continue; // Evaluates a conditional branch.
-            out.add(new double[]{s.getX(), s.getY()}); // Executes: out.add(new double[]{s.getX(), s.getY()});
+        for (int i = 0; i < spikes.size(); i++) { // Begins a method or constructor with its signature.
+            out.add(new double[]{spikes.getX(i), spikes.getY(i)}); // Executes: out.add(new double[]{spikes.getX(i), spikes.getY(i)});
         } // Closes a code block.
         return out;
     } // Closes a code block.
@@ -0,0 +1,108 @@
+package game.systems; // Declares the package for this source file.
+
+import game.utils.Theme;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.WritableImage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every entity look of one {@link Theme} (coin, the four power-ups with their glyphs, enemy,
+ * spike) pre-rasterized at its on-screen size into one image, so drawing an entity is a single
+ * {@code drawImage} from its cell.
+ *
+ * <p>Atlases are shared by all levels and built once per theme. {@link #forTheme} never blocks: it
+ * returns null until the theme's atlas is ready and renderers draw with primitives meanwhile. The
+ * sprites are painted on a background virtual thread into a detached canvas; only the final
+ * snapshot, which JavaFX allows on the FX application thread alone, is handed to it.
+ */
+public final class SpriteAtlas { // Defines a class.
+
+    // Cells in the atlas row, in order
+    public static final int COIN = 0;
+    public static final int POWER_UP = 1; // + PowerUpType ordinal // Executes: public static final int POWER_UP = 1; // + PowerUpType ordinal
+    public static final int ENEMY = POWER_UP + PowerUpType.values().length;
+    public static final int SPIKE = ENEMY + 1;
+    private static final int CELLS = SPIKE + 1;
+
+    // Every sprite is drawn PAD px into a CELL x CELL square, leaving room for glows and outlines
+    private static final int CELL = 40;
+    private static final int PAD = 4;
+
+    private static final Map<Theme, SpriteAtlas> ready = new ConcurrentHashMap<>();
+    private static final Set<Theme> building = ConcurrentHashMap.newKeySet();
+
+    private final Theme theme;
+    private final WritableImage image;
+
+    private SpriteAtlas(Theme theme, WritableImage image) { // Begins a method or constructor with its signature.
+        this.theme = theme; // Executes: this.theme = theme;
+        this.image = image; // Executes: this.image = image;
+    } // Closes a code block.
+
+    /**
+     * The theme's atlas, or null while it is being built (the first call starts the build).
+     * Without a running FX toolkit nothing is built and this always returns null.
+     */
+    public static SpriteAtlas forTheme(Theme theme) { // Begins a method or constructor with its signature.
+        SpriteAtlas atlas = ready.get(theme);
+        if (atlas == null) prepare(theme); // Evaluates a conditional branch.
+        return atlas;
+    } // Closes a code block.
+
+    /**
+     * Starts building the theme's atlas in the background if it is not built or building yet;
+     * called when a theme is picked, so the atlas is usually ready when the level starts.
+     */
+    public static void prepare(Theme theme) { // Begins a method or constructor with its signature.
+        if (theme == null || ready.containsKey(theme) || !Raster.isAvailable() || !building.add(theme)) return; // Evaluates a conditional branch.
+
+        Thread.ofVirtual().name("sprite-atlas-" + theme.name()).start(() -> { // Begins a method or constructor with its signature.
+            Canvas canvas = new Canvas(CELL * CELLS, CELL);
+            try { // Attempts operations that might throw exceptions.
+                RenderCommandBuffer commands = new RenderCommandBuffer();
+                paint(commands, theme); // Executes: paint(commands, theme);
+                commands.flush(canvas.getGraphicsContext2D()); // Executes: commands.flush(canvas.getGraphicsContext2D());
+            } catch (RuntimeException e) { // Begins a method or constructor with its signature.
+                building.remove(theme); // Executes: building.remove(theme);
+                System.out.println("Cannot build sprite atlas for " + theme + ": " + e); // Executes: System.out.println("Cannot build sprite atlas for " + theme + ": " + e);
+                return; // Returns a value from the method.
+            } // Closes a code block.
+            Platform.runLater(() -> { // Begins a method or constructor with its signature.
+                ready.put(theme, new SpriteAtlas(theme, Raster.snapshot(canvas))); // Executes: ready.put(theme, new SpriteAtlas(theme, Raster.snapshot(canvas)));
+                building.remove(theme); // Executes: building.remove(theme);
+            }); // Executes: });
+        }); // Executes: });
+    } // Closes a code block.
+
+    public Theme getTheme() { // Begins a method or constructor with its signature.
+        return theme;
+    } // Closes a code block.
+
+    /**
+     * Draws a sprite with the entity's top-left corner at (screenX, screenY).
+     */
+    public void draw(RenderCommandBuffer out, int sprite, double screenX, double screenY) { // Begins a method or constructor with its signature.
+        out.drawImage(image, sprite * CELL, 0, CELL, CELL, screenX - PAD, screenY - PAD); // Executes: out.drawImage(image, sprite * CELL, 0, CELL, CELL, screenX - PAD, screenY - PAD);
+    } // Closes a code block.
+
+    /**
+     * Paints every sprite into its cell with the same code the renderers fall back to.
+     */
+    private static void paint(RenderCommandBuffer out, Theme theme) { // Begins a method or constructor with its signature.
+        double size = CoinManager.DEFAULT_SIZE;
+        CoinManager.paintCoin(out, COIN * CELL + PAD, PAD, size, size, CoinManager.goldFillFor(theme), theme.getCoinOutline()); // Executes: CoinManager.paintCoin(out, COIN * CELL + PAD, PAD, size, size, CoinManager.goldFillFor(theme), theme.getCoinOutline());
+
+        size = PowerUpManager.DEFAULT_SIZE; // Executes: size = PowerUpManager.DEFAULT_SIZE;
+        for (PowerUpType type : PowerUpType.values()) { // Begins a method or constructor with its signature.
+            PowerUpManager.paintPowerUp(out, (POWER_UP + type.ordinal()) * CELL + PAD, PAD, size, size, type, // Executes: PowerUpManager.paintPowerUp(out, (POWER_UP + type.ordinal()) * CELL + PAD, PAD, size, size, type,
+                    PowerUpManager.rimColor(type, theme), PowerUpManager.glowColor(type, theme)); // Executes: PowerUpManager.rimColor(type, theme), PowerUpManager.glowColor(type, theme));
+        } // Closes a code block.
+
+        Enemy.render(out, ENEMY * CELL + PAD, PAD, theme); // Executes: Enemy.render(out, ENEMY * CELL + PAD, PAD, theme);
+        Spike.render(out, SPIKE * CELL + PAD, PAD, theme); // Executes: Spike.render(out, SPIKE * CELL + PAD, PAD, theme);
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,84 @@
+package game.systems; // Declares the package for this source file.
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorted-by-x index over entities that never move (coins, power-ups, spikes). Built once after
+ * spawning, it lets a per-frame overlap test visit only the entries whose x-span can touch the
+ * player instead of the whole level: a cursor remembers where the last query started and, since the
+ * player moves a few pixels per tick, usually stays put or steps over one or two entries.
+ *
+ * <p>Entries hold handles, so entities removed from the store after the build (collected coins,
+ * spent spikes) are simply skipped: {@link EntityStore#slotOf(int)} returns -1 for them.
+ */
+public class SweepIndex { // Defines a class.
+
+    private final EntityStore store;
+    private int[] handles = new int[0];
+    private double[] minX = new double[0];
+    private int size = 0;
+    // Widest entity at build time: an entry starting more than this left of a span cannot reach it
+    private double maxWidth = 0;
+    private int cursor = 0;
+    private boolean dirty = true;
+
+    public SweepIndex(EntityStore store) { // Begins a method or constructor with its signature.
+        this.store = store; // Executes: this.store = store;
+    } // Closes a code block.
+
+    /**
+     * Marks the index stale after entities were added; the next {@link #seek} rebuilds it.
+     * Removals need no rebuild.
+     */
+    public void invalidate() { // Begins a method or constructor with its signature.
+        dirty = true; // Executes: dirty = true;
+    } // Closes a code block.
+
+    /**
+     * Sorts every entity currently in the store by its left edge.
+     */
+    public void rebuild() { // Begins a method or constructor with its signature.
+        int n = store.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i; // Executes: for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(store::getX)); // Executes: Arrays.sort(order, Comparator.comparingDouble(store::getX));
+
+        handles = new int[n]; // Executes: handles = new int[n];
+        minX = new double[n]; // Executes: minX = new double[n];
+        maxWidth = 0; // Executes: maxWidth = 0;
+        for (int k = 0; k < n; k++) { // Begins a method or constructor with its signature.
+            int slot = order[k];
+            handles[k] = store.handleAt(slot); // Executes: handles[k] = store.handleAt(slot);
+            minX[k] = store.getX(slot); // Executes: minX[k] = store.getX(slot);
+            maxWidth = Math.max(maxWidth, store.getWidth(slot)); // Executes: maxWidth = Math.max(maxWidth, store.getWidth(slot));
+        } // Closes a code block.
+        size = n; // Executes: size = n;
+        cursor = 0; // Executes: cursor = 0;
+        dirty = false; // Executes: dirty = false;
+    } // Closes a code block.
+
+    /**
+     * Moves the cursor to the first entry that can overlap a span starting at x0 and returns it.
+     * Callers then walk forward while {@link #getMinX(int)} is left of the span's right edge.
+     */
+    public int seek(double x0) { // Begins a method or constructor with its signature.
+        if (dirty) rebuild(); // Evaluates a conditional branch.
+        double reach = x0 - maxWidth;
+        while (cursor < size && minX[cursor] <= reach) cursor++; // Executes: while (cursor < size && minX[cursor] <= reach) cursor++;
+        while (cursor > 0 && minX[cursor - 1] > reach) cursor--; // Executes: while (cursor > 0 && minX[cursor - 1] > reach) cursor--;
+        return cursor;
+    } // Closes a code block.
+
+    public int size() { // Begins a method or constructor with its signature.
+        return size;
+    } // Closes a code block.
+
+    public int getHandle(int k) { // Begins a method or constructor with its signature.
+        return handles[k]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getMinX(int k) { // Begins a method or constructor with its signature.
+        return minX[k]; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
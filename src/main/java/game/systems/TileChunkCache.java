@@ -0,0 +1,350 @@
+package game.systems; // Declares the package for this source file.
+
+import game.utils.Theme;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * Tile layer drawn from pre-rasterized chunks: the map is split into {@link #CHUNK_TILES} x
+ * {@link #CHUNK_TILES} tile blocks, each painted once into an image, and a frame only blits the
+ * chunks that overlap the camera (two to six images instead of about ten calls per visible tile).
+ *
+ * <p>A chunk is rasterized again after the theme or one of its tiles ({@link TileMap#setTile})
+ * changes. Rasterizing is a synchronous snapshot, so it is kept off the frames that need it:
+ * {@link #prebake} does the chunks around the camera when a level starts, and each frame then
+ * rasterizes at most {@link #MAX_BAKES_PER_FRAME} chunks, spending what is left on the chunks just
+ * outside the view before they scroll in. A visible chunk over that budget has its tiles drawn
+ * directly for the frame. Chunks with no solid tile get no image. Images of chunks that scroll more
+ * than one chunk out of view go back to a pool, so memory depends on the view size, not on the
+ * level length.
+ *
+ * <p>Rasterizing needs a running FX toolkit ({@link Raster}); off the FX application thread
+ * (headless benchmarks) the tiles are drawn directly, with the same look.
+ */
+public class TileChunkCache { // Defines a class.
+
+    public static final int CHUNK_TILES = 16;
+    public static final int CHUNK_PX = CHUNK_TILES * TileMap.TILE_SIZE;
+    // Chunks kept rasterized on each side of the view
+    private static final int KEEP_MARGIN = 1;
+    // Chunks rasterized per frame; a theme change spreads its rebuild over several frames
+    public static final int MAX_BAKES_PER_FRAME = 1;
+
+    private final TileMap tileMap;
+    private final int chunksX;
+    private final int chunksY;
+
+    // Per chunk (index cy * chunksX + cx): its image (null if none), whether it must be redrawn, whether it has no tile
+    private final WritableImage[] images;
+    private final boolean[] stale;
+    private final boolean[] empty;
+    // Chunks holding an image, so releasing the far ones does not scan the whole level
+    private int[] built = new int[16];
+    private int builtCount = 0;
+    private WritableImage[] pool = new WritableImage[8];
+    private int pooled = 0;
+
+    private Theme theme;
+    private Color base;
+    private Color highlight;
+    private Color shadow;
+    private Color accent;
+
+    // Chunk painting is recorded here and flushed into the bake canvas
+    private final RenderCommandBuffer bakeCommands = new RenderCommandBuffer();
+
+    private int chunksDrawn = 0;
+    private long chunksBuilt = 0;
+
+    /**
+     * A cache for tileMap that follows its tile changes. The listener is registered here, once the
+     * cache is fully built, rather than from the constructor.
+     */
+    public static TileChunkCache attachTo(TileMap tileMap) { // Begins a method or constructor with its signature.
+        TileChunkCache cache = new TileChunkCache(tileMap);
+        tileMap.setChangeListener(cache::invalidateTile); // Executes: tileMap.setChangeListener(cache::invalidateTile);
+        return cache;
+    } // Closes a code block.
+
+    private TileChunkCache(TileMap tileMap) { // Begins a method or constructor with its signature.
+        this.tileMap = tileMap; // Executes: this.tileMap = tileMap;
+        this.chunksX = (tileMap.getWidthInTiles() + CHUNK_TILES - 1) / CHUNK_TILES; // Executes: this.chunksX = (tileMap.getWidthInTiles() + CHUNK_TILES - 1) / CHUNK_TILES;
+        this.chunksY = (tileMap.getHeightInTiles() + CHUNK_TILES - 1) / CHUNK_TILES; // Executes: this.chunksY = (tileMap.getHeightInTiles() + CHUNK_TILES - 1) / CHUNK_TILES;
+        int n = chunksX * chunksY;
+        images = new WritableImage[n]; // Executes: images = new WritableImage[n];
+        stale = new boolean[n]; // Executes: stale = new boolean[n];
+        empty = new boolean[n]; // Executes: empty = new boolean[n];
+        for (int cy = 0; cy < chunksY; cy++) { // Begins a method or constructor with its signature.
+            for (int cx = 0; cx < chunksX; cx++) { // Begins a method or constructor with its signature.
+                empty[cy * chunksX + cx] = !hasSolidTile(cx, cy); // Executes: empty[cy * chunksX + cx] = !hasSolidTile(cx, cy);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // -------------------------
+    // Invalidation
+    // -------------------------
+
+    /**
+     * Marks the chunk holding this tile for redrawing, plus a neighbour the tile's edge reaches into.
+     */
+    public void invalidateTile(int tileX, int tileY) { // Begins a method or constructor with its signature.
+        int cx = tileX / CHUNK_TILES;
+        int cy = tileY / CHUNK_TILES;
+        // Tiles overhang their cell by a couple of pixels, so a tile on a chunk border shows in the next chunk too
+        for (int y = Math.max(0, cy - 1); y <= Math.min(chunksY - 1, cy + 1); y++) { // Begins a method or constructor with its signature.
+            for (int x = Math.max(0, cx - 1); x <= Math.min(chunksX - 1, cx + 1); x++) { // Begins a method or constructor with its signature.
+                int chunk = y * chunksX + x;
+                stale[chunk] = true; // Executes: stale[chunk] = true;
+                empty[chunk] = !hasSolidTile(x, y); // Executes: empty[chunk] = !hasSolidTile(x, y);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Marks every chunk for redrawing (done on a theme change).
+     */
+    public void invalidateAll() { // Begins a method or constructor with its signature.
+        Arrays.fill(stale, true); // Executes: Arrays.fill(stale, true);
+    } // Closes a code block.
+
+    // -------------------------
+    // Rendering
+    // -------------------------
+
+    /**
+     * Rasterizes the chunks in and next to the camera's view, so the first frames of a level only
+     * blit. Does nothing off the FX application thread.
+     */
+    public void prebake(Camera camera, Theme theme) { // Begins a method or constructor with its signature.
+        if (theme != this.theme) setTheme(theme); // Evaluates a conditional branch.
+        if (!Raster.isAvailable()) return; // Evaluates a conditional branch.
+
+        double offsetX = camera.getOffsetX();
+        double offsetY = camera.getOffsetY();
+        int cx0 = (int) Math.floor(offsetX / CHUNK_PX);
+        int cx1 = (int) Math.floor((offsetX + camera.getViewWidth()) / CHUNK_PX);
+        int cy0 = (int) Math.floor(offsetY / CHUNK_PX);
+        int cy1 = (int) Math.floor((offsetY + camera.getViewHeight()) / CHUNK_PX);
+        bakeRange(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN, cy0 - KEEP_MARGIN, cy1 + KEEP_MARGIN, Integer.MAX_VALUE); // Executes: bakeRange(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN, cy0 - KEEP_MARGIN, cy1 + KEEP_MARGIN, Integer.MAX_VALUE);
+    } // Closes a code block.
+
+    public void render(RenderCommandBuffer out, Camera camera, Theme theme) { // Begins a method or constructor with its signature.
+        if (theme != this.theme) setTheme(theme); // Evaluates a conditional branch.
+
+        double offsetX = camera.getOffsetX();
+        double offsetY = camera.getOffsetY();
+        if (!Raster.isAvailable()) { // Begins a method or constructor with its signature.
+            chunksDrawn = 0; // Executes: chunksDrawn = 0;
+            drawTiles(out, offsetX, offsetY, camera.getViewWidth(), camera.getViewHeight()); // Executes: drawTiles(out, offsetX, offsetY, camera.getViewWidth(), camera.getViewHeight());
+            return; // Returns a value from the method.
+        } // Closes a code block.
+
+        int cx0 = Math.max(0, (int) Math.floor(offsetX / CHUNK_PX));
+        int cx1 = Math.min(chunksX - 1, (int) Math.floor((offsetX + camera.getViewWidth()) / CHUNK_PX));
+        int cy0 = Math.max(0, (int) Math.floor(offsetY / CHUNK_PX));
+        int cy1 = Math.min(chunksY - 1, (int) Math.floor((offsetY + camera.getViewHeight()) / CHUNK_PX));
+
+        int drawn = 0;
+        int bakes = 0;
+        for (int cy = cy0; cy <= cy1; cy++) { // Begins a method or constructor with its signature.
+            for (int cx = cx0; cx <= cx1; cx++) { // Begins a method or constructor with its signature.
+                int chunk = cy * chunksX + cx;
+                if (empty[chunk]) continue; // Evaluates a conditional branch.
+                if (images[chunk] == null || stale[chunk]) { // Begins a method or constructor with its signature.
+                    if (bakes == MAX_BAKES_PER_FRAME) { // Begins a method or constructor with its signature.
+                        // Over budget: its tiles this frame, its image on a later one
+                        drawChunkTiles(out, cx, cy, offsetX, offsetY); // Executes: drawChunkTiles(out, cx, cy, offsetX, offsetY);
+                        continue; // Executes: continue;
+                    } // Closes a code block.
+                    rasterize(cx, cy); // Executes: rasterize(cx, cy);
+                    bakes++; // Executes: bakes++;
+                } // Closes a code block.
+                out.drawImage(images[chunk], cx * CHUNK_PX - offsetX, cy * CHUNK_PX - offsetY); // Executes: out.drawImage(images[chunk], cx * CHUNK_PX - offsetX, cy * CHUNK_PX - offsetY);
+                drawn++; // Executes: drawn++;
+            } // Closes a code block.
+        } // Closes a code block.
+        chunksDrawn = drawn; // Executes: chunksDrawn = drawn;
+        // Budget left over goes to the chunks that scroll in next
+        bakeRange(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN, cy0 - KEEP_MARGIN, cy1 + KEEP_MARGIN, MAX_BAKES_PER_FRAME - bakes); // Executes: bakeRange(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN, cy0 - KEEP_MARGIN, cy1 + KEEP_MARGIN, MAX_BAKES_PER_FRAME - bakes);
+        releaseFarChunks(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN); // Executes: releaseFarChunks(cx0 - KEEP_MARGIN, cx1 + KEEP_MARGIN);
+    } // Closes a code block.
+
+    /**
+     * Chunk images blitted by the last {@link #render} (0 when it drew tiles directly).
+     */
+    public int getChunksDrawn() { // Begins a method or constructor with its signature.
+        return chunksDrawn;
+    } // Closes a code block.
+
+    /**
+     * Chunks rasterized so far (first views, theme changes and tile changes).
+     */
+    public long getChunksBuilt() { // Begins a method or constructor with its signature.
+        return chunksBuilt;
+    } // Closes a code block.
+
+    // -------------------------
+    // Internals
+    // -------------------------
+
+    private void setTheme(Theme theme) { // Begins a method or constructor with its signature.
+        this.theme = theme; // Executes: this.theme = theme;
+        base = theme.getTileBase(); // Executes: base = theme.getTileBase();
+        highlight = theme.getTileHighlight(); // Executes: highlight = theme.getTileHighlight();
+        shadow = theme.getTileShadow(); // Executes: shadow = theme.getTileShadow();
+        accent = theme.getTileAccent(); // Executes: accent = theme.getTileAccent();
+        invalidateAll(); // Executes: invalidateAll();
+    } // Closes a code block.
+
+    private void rasterize(int cx, int cy) { // Begins a method or constructor with its signature.
+        int chunk = cy * chunksX + cx;
+        WritableImage image = images[chunk];
+        if (image == null) { // Begins a method or constructor with its signature.
+            if (pooled > 0) { // Begins a method or constructor with its signature.
+                image = pool[--pooled]; // Executes: image = pool[--pooled];
+                pool[pooled] = null; // Executes: pool[pooled] = null;
+            } else { // Executes: } else {
+                image = new WritableImage(CHUNK_PX, CHUNK_PX); // Executes: image = new WritableImage(CHUNK_PX, CHUNK_PX);
+            } // Closes a code block.
+            trackBuilt(chunk); // Executes: trackBuilt(chunk);
+        } // Closes a code block.
+        images[chunk] = Raster.bake(CHUNK_PX, CHUNK_PX, image, gc -> { // Begins a method or constructor with its signature.
+            // One tile of border on each side, clipped by the image, for tiles overhanging into this chunk
+            int tx0 = cx * CHUNK_TILES - 1;
+            int ty0 = cy * CHUNK_TILES - 1;
+            for (int ty = ty0; ty < ty0 + CHUNK_TILES + 2; ty++) { // Begins a method or constructor with its signature.
+                for (int tx = tx0; tx < tx0 + CHUNK_TILES + 2; tx++) { // Begins a method or constructor with its signature.
+                    if (!tileMap.isSolidTile(tx, ty)) continue; // Evaluates a conditional branch.
+                    paintTile(bakeCommands, (tx - tx0 - 1) * TileMap.TILE_SIZE, (ty - ty0 - 1) * TileMap.TILE_SIZE); // Executes: paintTile(bakeCommands, (tx - tx0 - 1) * TileMap.TILE_SIZE, (ty - ty0 - 1) * TileMap.TILE_SIZE);
+                } // Closes a code block.
+            } // Closes a code block.
+            bakeCommands.flush(gc); // Executes: bakeCommands.flush(gc);
+        }); // Executes: });
+        stale[chunk] = false; // Executes: stale[chunk] = false;
+        chunksBuilt++; // Executes: chunksBuilt++;
+    } // Closes a code block.
+
+    /**
+     * Rasterizes up to budget missing or stale chunks in the given chunk range (clamped to the map).
+     */
+    private void bakeRange(int fromX, int toX, int fromY, int toY, int budget) { // Begins a method or constructor with its signature.
+        fromX = Math.max(0, fromX); // Executes: fromX = Math.max(0, fromX);
+        toX = Math.min(chunksX - 1, toX); // Executes: toX = Math.min(chunksX - 1, toX);
+        fromY = Math.max(0, fromY); // Executes: fromY = Math.max(0, fromY);
+        toY = Math.min(chunksY - 1, toY); // Executes: toY = Math.min(chunksY - 1, toY);
+        for (int cy = fromY; cy <= toY && budget > 0; cy++) { // Begins a method or constructor with its signature.
+            for (int cx = fromX; cx <= toX && budget > 0; cx++) { // Begins a method or constructor with its signature.
+                int chunk = cy * chunksX + cx;
+                if (empty[chunk] || (images[chunk] != null && !stale[chunk])) continue; // Evaluates a conditional branch.
+                rasterize(cx, cy); // Executes: rasterize(cx, cy);
+                budget--; // Executes: budget--;
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void trackBuilt(int chunk) { // Begins a method or constructor with its signature.
+        if (builtCount == built.length) built = Arrays.copyOf(built, builtCount * 2); // Evaluates a conditional branch.
+        built[builtCount++] = chunk; // Executes: built[builtCount++] = chunk;
+    } // Closes a code block.
+
+    /**
+     * Returns the images of chunks outside columns [keepFrom, keepTo] to the pool.
+     */
+    private void releaseFarChunks(int keepFrom, int keepTo) { // Begins a method or constructor with its signature.
+        for (int i = builtCount - 1; i >= 0; i--) { // Begins a method or constructor with its signature.
+            int chunk = built[i];
+            int cx = chunk % chunksX;
+            if (cx >= keepFrom && cx <= keepTo) continue; // Evaluates a conditional branch.
+
+            if (pooled == pool.length) pool = Arrays.copyOf(pool, pooled * 2); // Evaluates a conditional branch.
+            pool[pooled++] = images[chunk]; // Executes: pool[pooled++] = images[chunk];
+            images[chunk] = null; // Executes: images[chunk] = null;
+            built[i] = built[--builtCount]; // Executes: built[i] = built[--builtCount];
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private boolean hasSolidTile(int cx, int cy) { // Begins a method or constructor with its signature.
+        // Includes the border ring: a neighbour's overhang is drawn into this chunk
+        for (int ty = cy * CHUNK_TILES - 1; ty <= (cy + 1) * CHUNK_TILES; ty++) { // Begins a method or constructor with its signature.
+            for (int tx = cx * CHUNK_TILES - 1; tx <= (cx + 1) * CHUNK_TILES; tx++) { // Begins a method or constructor with its signature.
+                if (tileMap.isSolidTile(tx, ty)) return true; // Evaluates a conditional branch.
+            } // Closes a code block.
+        } // Closes a code block.
+        return false;
+    } // Closes a code block.
+
+    /**
+     * Draws the visible tiles one by one, for when chunks can't be rasterized.
+     */
+    private void drawTiles(RenderCommandBuffer out, double offsetX, double offsetY, double viewWidth, double viewHeight) { // Begins a method or constructor with its signature.
+        final int tileSize = TileMap.TILE_SIZE;
+        int startTileX = Math.max(0, (int) (offsetX / tileSize) - 1);
+        int endTileX = Math.min(tileMap.getWidthInTiles(), (int) ((offsetX + viewWidth) / tileSize) + 2);
+        int startTileY = Math.max(0, (int) (offsetY / tileSize) - 1);
+        int endTileY = Math.min(tileMap.getHeightInTiles(), (int) ((offsetY + viewHeight) / tileSize) + 2);
+
+        for (int ty = startTileY; ty < endTileY; ty++) { // Begins a method or constructor with its signature.
+            for (int tx = startTileX; tx < endTileX; tx++) { // Begins a method or constructor with its signature.
+                if (!tileMap.isSolidTile(tx, ty)) continue; // Evaluates a conditional branch.
+                paintTile(out, tx * tileSize - offsetX, ty * tileSize - offsetY); // Executes: paintTile(out, tx * tileSize - offsetX, ty * tileSize - offsetY);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Draws one chunk's own tiles directly, for a visible chunk whose image is not ready.
+     */
+    private void drawChunkTiles(RenderCommandBuffer out, int cx, int cy, double offsetX, double offsetY) { // Begins a method or constructor with its signature.
+        final int tileSize = TileMap.TILE_SIZE;
+        int endTileX = Math.min(tileMap.getWidthInTiles(), (cx + 1) * CHUNK_TILES);
+        int endTileY = Math.min(tileMap.getHeightInTiles(), (cy + 1) * CHUNK_TILES);
+        for (int ty = cy * CHUNK_TILES; ty < endTileY; ty++) { // Begins a method or constructor with its signature.
+            for (int tx = cx * CHUNK_TILES; tx < endTileX; tx++) { // Begins a method or constructor with its signature.
+                if (!tileMap.isSolidTile(tx, ty)) continue; // Evaluates a conditional branch.
+                paintTile(out, tx * tileSize - offsetX, ty * tileSize - offsetY); // Executes: paintTile(out, tx * tileSize - offsetX, ty * tileSize - offsetY);
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * One solid tile: a bark block with a branch across it, twigs and knots.
+     */
+    private void paintTile(RenderCommandBuffer out, double x, double y) { // Begins a method or constructor with its signature.
+        final int tileSize = TileMap.TILE_SIZE;
+
+        // Background bark block
+        out.setPass(0); // Executes: out.setPass(0);
+        out.setFill(base); // Executes: out.setFill(base);
+        out.fillRoundRect(x, y, tileSize, tileSize, 10, 10); // Executes: out.fillRoundRect(x, y, tileSize, tileSize, 10, 10);
+
+        // Main branch running across the tile
+        double branchHeight = tileSize * 0.35;
+        double branchY = y + tileSize * 0.4;
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setFill(highlight); // Executes: out.setFill(highlight);
+        out.fillRoundRect(x - 2, branchY, tileSize + 4, branchHeight, 18, 18); // Executes: out.fillRoundRect(x - 2, branchY, tileSize + 4, branchHeight, 18, 18);
+
+        // Deeper bark shadows to add depth
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setFill(shadow); // Executes: out.setFill(shadow);
+        out.fillRoundRect(x - 2, branchY + branchHeight * 0.45, tileSize + 4, branchHeight * 0.35, 18, 18); // Executes: out.fillRoundRect(x - 2, branchY + branchHeight * 0.45, tileSize + 4, branchHeight * 0.35, 18, 18);
+
+        // Little twigs so collisions look like branches sticking out
+        out.setPass(3); // Executes: out.setPass(3);
+        out.setStroke(accent); // Executes: out.setStroke(accent);
+        out.setLineWidth(4); // Executes: out.setLineWidth(4);
+        out.strokeLine(x + tileSize * 0.3, branchY + branchHeight * 0.25, // Executes: out.strokeLine(x + tileSize * 0.3, branchY + branchHeight * 0.25,
+                x + tileSize * 0.15, branchY - tileSize * 0.15); // Executes: x + tileSize * 0.15, branchY - tileSize * 0.15);
+        out.strokeLine(x + tileSize * 0.65, branchY + branchHeight * 0.35, // Executes: out.strokeLine(x + tileSize * 0.65, branchY + branchHeight * 0.35,
+                x + tileSize * 0.9, branchY - tileSize * 0.1); // Executes: x + tileSize * 0.9, branchY - tileSize * 0.1);
+
+        // Knots to break up the surface
+        out.setPass(4); // Executes: out.setPass(4);
+        out.setFill(accent); // Executes: out.setFill(accent);
+        out.fillOval(x + tileSize * 0.55, branchY + branchHeight * 0.2, tileSize * 0.18, tileSize * 0.18); // Executes: out.fillOval(x + tileSize * 0.55, branchY + branchHeight * 0.2, tileSize * 0.18, tileSize * 0.18);
+        out.fillOval(x + tileSize * 0.25, branchY + branchHeight * 0.5, tileSize * 0.14, tileSize * 0.14); // Executes: out.fillOval(x + tileSize * 0.25, branchY + branchHeight * 0.5, tileSize * 0.14, tileSize * 0.14);
+    } // Closes a code block.
+} // Closes a code block.
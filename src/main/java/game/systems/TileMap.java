@@ -7,9 +7,17 @@ public class TileMap { // Defines a class.
     /** size of one tile in pixel **/
     public static final int TILE_SIZE = 32;
 
+    /**
+     * Told about every tile that {@link #setTile} changes (e.g. so cached tile images can be redrawn).
+     */
+    public interface ChangeListener { // Begins a method or constructor with its signature.
+        void tileChanged(int tileX, int tileY); // Executes: void tileChanged(int tileX, int tileY);
+    } // Closes a code block.
+
     private final int[][] tiles;
     private final int widthInTiles;
     private final int heightInTiles;
+    private ChangeListener changeListener;
 
     public TileMap(int[][] tiles) { // Begins a method or constructor with its signature.
         if (tiles == null || tiles.length == 0 || tiles[0].length == 0) { // Begins a method or constructor with its signature.
@@ -196,6 +204,32 @@ public class TileMap { // Defines a class.
                 tileY >= 0 && tileY < heightInTiles; // Executes: tileY >= 0 && tileY < heightInTiles;
     } // Closes a code block.
 
+    /**
+     * Changes one tile (e.g. a block broken from below).
+     * Logic: Ignores out-of-bounds coordinates and writes that do not change the tile; otherwise
+     * stores the new ID and tells the change listener, if any.
+     *
+     * @param tileX  X coordinate in tile units
+     * @param tileY  Y coordinate in tile units
+     * @param tileId new tile ID (0 for empty, 1 for solid)
+     */
+    public void setTile(int tileX, int tileY, int tileId) { // Begins a method or constructor with its signature.
+        if (!isInBounds(tileX, tileY) || tiles[tileY][tileX] == tileId) { // Begins a method or constructor with its signature.
+            return; // Returns a value from the method.
+        } // Closes a code block.
+        tiles[tileY][tileX] = tileId; // Executes: tiles[tileY][tileX] = tileId;
+        if (changeListener != null) { // Begins a method or constructor with its signature.
+            changeListener.tileChanged(tileX, tileY); // Executes: changeListener.tileChanged(tileX, tileY);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Sets the single listener told about {@link #setTile} changes (null to remove it).
+     */
+    public void setChangeListener(ChangeListener changeListener) { // Begins a method or constructor with its signature.
+        this.changeListener = changeListener; // Executes: this.changeListener = changeListener;
+    } // Closes a code block.
+
     /**
      * Optional: returns a copy of the internal tiles array if needed.
      * Logic: Creates a new 2D array and copies all values from the internal array.
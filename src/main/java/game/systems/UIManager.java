@@ -15,8 +15,30 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 
+import java.util.Arrays;
+
+/**
+ * Heads-up panel: score, coins, best score, theme name and one heart per life.
+ *
+ * <p>Setters only record the new value and mark it dirty; {@link #applyChanges()} (once per frame,
+ * after the frame's events) writes the dirty values into the scene graph, so a value that changes
+ * and changes back within a frame, or a frame without changes, touches no node. Hearts are a pool
+ * of nodes that are shown and hidden, never rebuilt. Every node property written is counted
+ * ({@link #getLastFrameMutations()}); {@code -Dbbmario.logHud=true} prints each frame that wrote any.
+ */
 public class UIManager { // Defines a class.
 
+    private static final boolean LOG_HUD = Boolean.getBoolean("bbmario.logHud");
+
+    private static final int SCORE = 1;
+    private static final int COINS = 1 << 1;
+    private static final int LIVES = 1 << 2;
+    private static final int BEST = 1 << 3;
+    private static final int THEME_NAME = 1 << 4;
+    private static final int THEME = 1 << 5;
+    // Node properties applyTheme writes (panel fill/stroke/width, fill and stroke of four texts, coin icon)
+    private static final int THEME_MUTATIONS = 3 + 8 + 3;
+
     private final Group node;
 
     private final Text scoreText;
@@ -27,12 +49,33 @@ public class UIManager { // Defines a class.
     private final Rectangle panelBackground;
     private final Region coinIcon;
     private final DropShadow shadow;
+    private final DropShadow heartShadow = new DropShadow(3, Color.rgb(0, 0, 0, 0.6));
 
+    // Latest values; the nodes show them after the next applyChanges()
     private int score = 0;
     private int coins = 0;
     private int lives = 3;
     private int bestScore = 0;
     private Theme theme;
+    private String themeName;
+    private int dirty = 0;
+
+    // Values the nodes currently show
+    private int shownScore = 0;
+    private int shownCoins = 0;
+    private int shownBest = 0;
+    private String shownThemeName;
+    private Theme shownTheme;
+
+    // Pooled hearts: the first visibleHearts are shown, the rest hidden (and unmanaged, so they take no room)
+    private Region[] heartPool = new Region[0];
+    private int visibleHearts = 0;
+    private Background heartBackground;
+    private Border heartBorder;
+
+    private int frameMutations = 0;
+    private int lastFrameMutations = 0;
+    private long totalMutations = 0;
 
     public UIManager(double x, double y, Theme theme) { // Begins a method or constructor with its signature.
 
@@ -59,7 +102,9 @@ public class UIManager { // Defines a class.
         bestText.setFont(Font.font("Inter", FontWeight.EXTRA_BOLD, 16)); // Executes: bestText.setFont(Font.font("Inter", FontWeight.EXTRA_BOLD, 16));
         bestText.setEffect(shadow); // Executes: bestText.setEffect(shadow);
 
-        themeText = new Text("Theme: " + theme.getDisplayName()); // Executes: themeText = new Text("Theme: " + theme.getDisplayName());
+        themeName = theme.getDisplayName(); // Executes: themeName = theme.getDisplayName();
+        shownThemeName = themeName; // Executes: shownThemeName = themeName;
+        themeText = new Text("Theme: " + themeName); // Executes: themeText = new Text("Theme: " + themeName);
         themeText.setFont(Font.font("Inter", FontWeight.BOLD, 14)); // Executes: themeText.setFont(Font.font("Inter", FontWeight.BOLD, 14));
         themeText.setEffect(shadow); // Executes: themeText.setEffect(shadow);
 
@@ -94,55 +139,38 @@ public class UIManager { // Defines a class.
         node = new Group(panel); // Executes: node = new Group(panel);
 
         applyTheme(theme); // Executes: applyTheme(theme);
-        rebuildHearts(); // Executes: rebuildHearts();
-    } // Closes a code block.
-
-    private void rebuildHearts() { // Begins a method or constructor with its signature.
-        heartsBox.getChildren().clear(); // Executes: heartsBox.getChildren().clear();
-        for (int i = 0; i < lives; i++) { // Begins a method or constructor with its signature.
-            heartsBox.getChildren().add(makeHeart()); // Executes: heartsBox.getChildren().add(makeHeart());
-        } // Closes a code block.
-    } // Closes a code block.
-
-    private Region makeHeart() { // Begins a method or constructor with its signature.
-        Region heart = new Region();
-        heart.setPrefSize(18, 18); // Executes: heart.setPrefSize(18, 18);
-        Color heartColor = theme.getCoinMid().deriveColor(0, 1, 0.95, 1);
-        heart.setBackground(new Background(new BackgroundFill(heartColor, new CornerRadii(7), Insets.EMPTY))); // Executes: heart.setBackground(new Background(new BackgroundFill(heartColor, new CornerRadii(7), Insets.EMPTY)));
-        heart.setBorder(new Border(new BorderStroke( // Executes: heart.setBorder(new Border(new BorderStroke(
-                theme.getCoinOutline().deriveColor(0, 1, 1, 0.5), // Executes: theme.getCoinOutline().deriveColor(0, 1, 1, 0.5),
-                BorderStrokeStyle.SOLID, // Executes: BorderStrokeStyle.SOLID,
-                new CornerRadii(7), // Executes: new CornerRadii(7),
-                new BorderWidths(1.2) // Executes: new BorderWidths(1.2)
-        ))); // Executes: )));
-        heart.setEffect(new DropShadow(3, Color.rgb(0, 0, 0, 0.6))); // Executes: heart.setEffect(new DropShadow(3, Color.rgb(0, 0, 0, 0.6)));
-        return heart;
+        shownTheme = theme; // Executes: shownTheme = theme;
+        showHearts(lives); // Executes: showHearts(lives);
+        frameMutations = 0; // Building the panel is not a frame's work // Executes: frameMutations = 0; // Building the panel is not a frame's work
     } // Closes a code block.
 
     // --- Public API ---
+    // Setters only mark what changed; applyChanges() writes it to the nodes once per frame.
 
     public void setScore(int score) { // Begins a method or constructor with its signature.
         this.score = Math.max(0, score); // Executes: this.score = Math.max(0, score);
-        scoreText.setText("SCORE  " + this.score); // Executes: scoreText.setText("SCORE  " + this.score);
+        markDirty(SCORE, this.score != shownScore); // Executes: markDirty(SCORE, this.score != shownScore);
     } // Closes a code block.
 
     public void setCoins(int coins) { // Begins a method or constructor with its signature.
         this.coins = Math.max(0, coins); // Executes: this.coins = Math.max(0, coins);
-        coinsText.setText("COINS  " + this.coins); // Executes: coinsText.setText("COINS  " + this.coins);
+        markDirty(COINS, this.coins != shownCoins); // Executes: markDirty(COINS, this.coins != shownCoins);
     } // Closes a code block.
 
     public void setLives(int lives) { // Begins a method or constructor with its signature.
         this.lives = Math.max(0, lives); // Executes: this.lives = Math.max(0, lives);
-        rebuildHearts(); // Executes: rebuildHearts();
+        markDirty(LIVES, this.lives != visibleHearts); // Executes: markDirty(LIVES, this.lives != visibleHearts);
     } // Closes a code block.
 
     public void setBestScore(int bestScore) { // Begins a method or constructor with its signature.
         this.bestScore = Math.max(0, bestScore); // Executes: this.bestScore = Math.max(0, bestScore);
-        bestText.setText("BEST  " + this.bestScore); // Executes: bestText.setText("BEST  " + this.bestScore);
+        markDirty(BEST, this.bestScore != shownBest); // Executes: markDirty(BEST, this.bestScore != shownBest);
     } // Closes a code block.
 
     public void setThemeName(String theme) { // Begins a method or constructor with its signature.
-        themeText.setText("Theme: " + theme); // Executes: themeText.setText("Theme: " + theme);
+        if (theme == null) return; // Evaluates a conditional branch.
+        themeName = theme; // Executes: themeName = theme;
+        markDirty(THEME_NAME, !theme.equals(shownThemeName)); // Executes: markDirty(THEME_NAME, !theme.equals(shownThemeName));
     } // Closes a code block.
 
     // If you want one call from GameWorld:
@@ -150,18 +178,120 @@ public class UIManager { // Defines a class.
         setScore(score); // Executes: setScore(score);
         setCoins(coins); // Executes: setCoins(coins);
         setLives(lives); // Executes: setLives(lives);
-        setBestScore(bestScore); // Executes: setBestScore(bestScore);
-        setThemeName(theme.getDisplayName()); // Executes: setThemeName(theme.getDisplayName());
+    } // Closes a code block.
+
+    public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
+        if (theme == null) return; // Evaluates a conditional branch.
+        this.theme = theme; // Executes: this.theme = theme;
+        markDirty(THEME, theme != shownTheme); // Executes: markDirty(THEME, theme != shownTheme);
+    } // Closes a code block.
+
+    /**
+     * Writes every value that differs from what the nodes show, then starts a new frame count.
+     * Called once per frame; does nothing (and allocates nothing) when no value changed.
+     */
+    public void applyChanges() { // Begins a method or constructor with its signature.
+        if (dirty != 0) { // Begins a method or constructor with its signature.
+            if ((dirty & THEME) != 0) { // Begins a method or constructor with its signature.
+                shownTheme = theme; // Executes: shownTheme = theme;
+                applyTheme(theme); // Executes: applyTheme(theme);
+                restyleHearts(); // Executes: restyleHearts();
+            } // Closes a code block.
+            if ((dirty & SCORE) != 0) { // Begins a method or constructor with its signature.
+                shownScore = score; // Executes: shownScore = score;
+                scoreText.setText("SCORE  " + score); // Executes: scoreText.setText("SCORE  " + score);
+                frameMutations++; // Executes: frameMutations++;
+            } // Closes a code block.
+            if ((dirty & COINS) != 0) { // Begins a method or constructor with its signature.
+                shownCoins = coins; // Executes: shownCoins = coins;
+                coinsText.setText("COINS  " + coins); // Executes: coinsText.setText("COINS  " + coins);
+                frameMutations++; // Executes: frameMutations++;
+            } // Closes a code block.
+            if ((dirty & BEST) != 0) { // Begins a method or constructor with its signature.
+                shownBest = bestScore; // Executes: shownBest = bestScore;
+                bestText.setText("BEST  " + bestScore); // Executes: bestText.setText("BEST  " + bestScore);
+                frameMutations++; // Executes: frameMutations++;
+            } // Closes a code block.
+            if ((dirty & THEME_NAME) != 0) { // Begins a method or constructor with its signature.
+                shownThemeName = themeName; // Executes: shownThemeName = themeName;
+                themeText.setText("Theme: " + themeName); // Executes: themeText.setText("Theme: " + themeName);
+                frameMutations++; // Executes: frameMutations++;
+            } // Closes a code block.
+            if ((dirty & LIVES) != 0) { // Begins a method or constructor with its signature.
+                showHearts(lives); // Executes: showHearts(lives);
+            } // Closes a code block.
+            dirty = 0; // Executes: dirty = 0;
+        } // Closes a code block.
+
+        lastFrameMutations = frameMutations; // Executes: lastFrameMutations = frameMutations;
+        totalMutations += frameMutations; // Executes: totalMutations += frameMutations;
+        frameMutations = 0; // Executes: frameMutations = 0;
+        if (LOG_HUD && lastFrameMutations > 0) { // Begins a method or constructor with its signature.
+            System.out.println("HUD: " + lastFrameMutations + " scene-graph mutations this frame"); // Executes: System.out.println("HUD: " + lastFrameMutations + " scene-graph mutations this frame");
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Node properties written by the last {@link #applyChanges()} (0 on a frame where nothing changed).
+     */
+    public int getLastFrameMutations() { // Begins a method or constructor with its signature.
+        return lastFrameMutations;
+    } // Closes a code block.
+
+    public long getTotalMutations() { // Begins a method or constructor with its signature.
+        return totalMutations;
     } // Closes a code block.
 
     public Group getNode() { // Begins a method or constructor with its signature.
         return node;
     } // Closes a code block.
 
-    public void setTheme(Theme theme) { // Begins a method or constructor with its signature.
-        this.theme = theme; // Executes: this.theme = theme;
-        applyTheme(theme); // Executes: applyTheme(theme);
-        rebuildHearts(); // Executes: rebuildHearts();
+    private void markDirty(int field, boolean changed) { // Begins a method or constructor with its signature.
+        // A value set back to what is shown clears its bit, so the frame writes nothing for it
+        dirty = changed ? dirty | field : dirty & ~field; // Executes: dirty = changed ? dirty | field : dirty & ~field;
+    } // Closes a code block.
+
+    // --- Hearts ---
+
+    /**
+     * Shows the first count hearts of the pool and hides the rest, growing the pool if needed.
+     */
+    private void showHearts(int count) { // Begins a method or constructor with its signature.
+        if (count > heartPool.length) { // Begins a method or constructor with its signature.
+            Region[] grown = Arrays.copyOf(heartPool, Math.max(count, heartPool.length * 2));
+            for (int i = heartPool.length; i < grown.length; i++) { // Begins a method or constructor with its signature.
+                grown[i] = makeHeart(); // Executes: grown[i] = makeHeart();
+                grown[i].setVisible(false); // Executes: grown[i].setVisible(false);
+                grown[i].setManaged(false); // Executes: grown[i].setManaged(false);
+                heartsBox.getChildren().add(grown[i]); // Executes: heartsBox.getChildren().add(grown[i]);
+                frameMutations += 4; // Executes: frameMutations += 4;
+            } // Closes a code block.
+            heartPool = grown; // Executes: heartPool = grown;
+        } // Closes a code block.
+        for (int i = Math.min(count, visibleHearts); i < Math.max(count, visibleHearts); i++) { // Begins a method or constructor with its signature.
+            boolean show = i < count;
+            heartPool[i].setVisible(show); // Executes: heartPool[i].setVisible(show);
+            heartPool[i].setManaged(show); // Executes: heartPool[i].setManaged(show);
+            frameMutations += 2; // Executes: frameMutations += 2;
+        } // Closes a code block.
+        visibleHearts = count; // Executes: visibleHearts = count;
+    } // Closes a code block.
+
+    private Region makeHeart() { // Begins a method or constructor with its signature.
+        Region heart = new Region();
+        heart.setPrefSize(18, 18); // Executes: heart.setPrefSize(18, 18);
+        heart.setBackground(heartBackground); // Executes: heart.setBackground(heartBackground);
+        heart.setBorder(heartBorder); // Executes: heart.setBorder(heartBorder);
+        heart.setEffect(heartShadow); // Executes: heart.setEffect(heartShadow);
+        return heart;
+    } // Closes a code block.
+
+    private void restyleHearts() { // Begins a method or constructor with its signature.
+        for (Region heart : heartPool) { // Begins a method or constructor with its signature.
+            heart.setBackground(heartBackground); // Executes: heart.setBackground(heartBackground);
+            heart.setBorder(heartBorder); // Executes: heart.setBorder(heartBorder);
+            frameMutations += 2; // Executes: frameMutations += 2;
+        } // Closes a code block.
     } // Closes a code block.
 
     private void applyTheme(Theme theme) { // Begins a method or constructor with its signature.
@@ -206,5 +336,15 @@ public class UIManager { // Defines a class.
                 new BorderWidths(1.5) // Executes: new BorderWidths(1.5)
         ))); // Executes: )));
         coinIcon.setEffect(new DropShadow(4, Color.rgb(0, 0, 0, 0.7))); // Executes: coinIcon.setEffect(new DropShadow(4, Color.rgb(0, 0, 0, 0.7)));
+
+        Color heartColor = theme.getCoinMid().deriveColor(0, 1, 0.95, 1);
+        heartBackground = new Background(new BackgroundFill(heartColor, new CornerRadii(7), Insets.EMPTY)); // Executes: heartBackground = new Background(new BackgroundFill(heartColor, new CornerRadii(7), Insets.EMPTY));
+        heartBorder = new Border(new BorderStroke( // Executes: heartBorder = new Border(new BorderStroke(
+                theme.getCoinOutline().deriveColor(0, 1, 1, 0.5), // Executes: theme.getCoinOutline().deriveColor(0, 1, 1, 0.5),
+                BorderStrokeStyle.SOLID, // Executes: BorderStrokeStyle.SOLID,
+                new CornerRadii(7), // Executes: new CornerRadii(7),
+                new BorderWidths(1.2) // Executes: new BorderWidths(1.2)
+        )); // Executes: ));
+        frameMutations += THEME_MUTATIONS; // Executes: frameMutations += THEME_MUTATIONS;
     } // Closes a code block.
 } // Closes a code block.
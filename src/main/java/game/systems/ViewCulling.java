@@ -0,0 +1,87 @@
+package game.systems; // Declares the package for this source file.
+
+/**
+ * The per-frame view rectangle entity renderers cull against, and what they drew. {@link #begin}
+ * takes the camera's view plus {@link #MARGIN} once per frame; each manager then walks only the
+ * entities its spatial structure places in that rectangle (coins, power-ups and spikes through a
+ * {@link SweepIndex} by x, enemies through their coarse {@link SpatialHash}) and reports how many it
+ * drew and how many it skipped, per layer.
+ */
+public class ViewCulling { // Defines a class.
+
+    public static final int COINS = 0;
+    public static final int POWER_UPS = 1;
+    public static final int ENEMIES = 2;
+    public static final int SPIKES = 3;
+    public static final int LAYERS = 4;
+
+    private static final String[] LAYER_NAMES = {"coins", "power-ups", "enemies", "spikes"};
+
+    // Room around the view for glows, outlines and interpolation, so nothing pops in at the edge
+    public static final double MARGIN = 48;
+
+    private double left;
+    private double top;
+    private double right;
+    private double bottom;
+
+    private final int[] visible = new int[LAYERS];
+    private final int[] culled = new int[LAYERS];
+
+    /**
+     * Starts a frame: takes the camera's view (plus the margin) and clears the counts.
+     */
+    public void begin(Camera camera) { // Begins a method or constructor with its signature.
+        left = camera.getOffsetX() - MARGIN; // Executes: left = camera.getOffsetX() - MARGIN;
+        top = camera.getOffsetY() - MARGIN; // Executes: top = camera.getOffsetY() - MARGIN;
+        right = camera.getOffsetX() + camera.getViewWidth() + MARGIN; // Executes: right = camera.getOffsetX() + camera.getViewWidth() + MARGIN;
+        bottom = camera.getOffsetY() + camera.getViewHeight() + MARGIN; // Executes: bottom = camera.getOffsetY() + camera.getViewHeight() + MARGIN;
+        for (int layer = 0; layer < LAYERS; layer++) { // Begins a method or constructor with its signature.
+            visible[layer] = 0; // Executes: visible[layer] = 0;
+            culled[layer] = 0; // Executes: culled[layer] = 0;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    public double getLeft() { // Begins a method or constructor with its signature.
+        return left;
+    } // Closes a code block.
+
+    public double getTop() { // Begins a method or constructor with its signature.
+        return top;
+    } // Closes a code block.
+
+    public double getRight() { // Begins a method or constructor with its signature.
+        return right;
+    } // Closes a code block.
+
+    public double getBottom() { // Begins a method or constructor with its signature.
+        return bottom;
+    } // Closes a code block.
+
+    /**
+     * Whether a world-space box touches the culling rectangle.
+     */
+    public boolean isVisible(double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        return x < right && x + w > left && y < bottom && y + h > top; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Records a layer's result for this frame: how many entities were drawn out of how many it has.
+     */
+    public void record(int layer, int drawn, int total) { // Begins a method or constructor with its signature.
+        visible[layer] = drawn; // Executes: visible[layer] = drawn;
+        culled[layer] = Math.max(0, total - drawn); // Executes: culled[layer] = Math.max(0, total - drawn);
+    } // Closes a code block.
+
+    public int getVisible(int layer) { // Begins a method or constructor with its signature.
+        return visible[layer]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public int getCulled(int layer) { // Begins a method or constructor with its signature.
+        return culled[layer]; // Returns a value from the method.
+    } // Closes a code block.
+
+    public static String layerName(int layer) { // Begins a method or constructor with its signature.
+        return LAYER_NAMES[layer]; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,273 @@
+package game.systems; // Declares the package for this source file.
+
+import game.utils.Theme;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+
+/**
+ * Draws a {@link GameWorld} onto the canvas overlay: backdrop, tiles, pickups, enemies,
+ * spikes and the goal. Only reads world state, so the simulation never depends on JavaFX.
+ */
+public class WorldRenderer { // Defines a class.
+
+    private static final Color FLAG_COLOR = Color.web("#FFEB3B"); // Yellow goal flag. // Executes: private static final Color FLAG_COLOR = Color.web("#FFEB3B"); // Yellow goal flag.
+
+    private final GameWorld world; // World whose state is drawn. // Executes: private final GameWorld world; // World whose state is drawn.
+    private final TileChunkCache tileCache; // Tiles pre-rasterized in chunks. // Executes: private final TileChunkCache tileCache; // Tiles pre-rasterized in chunks.
+
+    private final ParallaxBackdrop backdrop; // Sky layers pre-rendered per theme. // Executes: private final ParallaxBackdrop backdrop; // Sky layers pre-rendered per theme.
+    private final RenderCommandBuffer commands = new RenderCommandBuffer(4096); // Tiles, entities and goal, flushed sorted by paint state (sized for a full view of shapes). // Executes: private final RenderCommandBuffer commands = new RenderCommandBuffer(4096); // Tiles, entities and goal, flushed sorted by paint state (sized for a full view of shapes).
+    private final ViewCulling culling = new ViewCulling(); // View rectangle and per-layer counts, redone every frame. // Executes: private final ViewCulling culling = new ViewCulling(); // View rectangle and per-layer counts, redone every frame.
+    private boolean cullingEnabled = true; // Off: every entity is drawn (for comparisons). // Executes: private boolean cullingEnabled = true; // Off: every entity is drawn (for comparisons).
+
+    // Goal flag triangle, filled in place each frame
+    private final double[] flagXs = new double[3];
+    private final double[] flagYs = new double[3];
+
+    // The player's look, drawn over the world (null: no player on the canvas)
+    private PlayerSprite playerSprite;
+    // Sparkles, puffs and score popups, drawn over the player
+    private final EffectManager effects = new EffectManager();
+
+    // Drawing from snapshots: the camera they are seen through, and paints of their theme
+    private final Camera snapshotCamera;
+    private Theme snapshotTheme;
+    private LinearGradient coinFill;
+    private final PowerUpType[] powerUpTypes = PowerUpType.values();
+    private final Color[] rimColors = new Color[powerUpTypes.length];
+    private final Color[] glowColors = new Color[powerUpTypes.length];
+    private final double[] spikeXs = new double[3];
+    private final double[] spikeYs = new double[3];
+
+    public WorldRenderer(GameWorld world) { // Begins a method or constructor with its signature.
+        this.world = world; // Store the world to draw. // Executes: this.world = world; // Store the world to draw.
+        this.tileCache = TileChunkCache.attachTo(world.getTileMap()); // Executes: this.tileCache = TileChunkCache.attachTo(world.getTileMap());
+        tileCache.prebake(world.getCamera(), world.getTheme()); // Chunks around the level start, so its first frames only blit. // Executes: tileCache.prebake(world.getCamera(), world.getTheme()); // Chunks around the level start, so its first frames only blit.
+        this.backdrop = new ParallaxBackdrop(world.getCamera().getViewWidth(), world.getCamera().getViewHeight()); // Layers are shared per theme, built when it is picked. // Executes: this.backdrop = new ParallaxBackdrop(world.getCamera().getViewWidth(), world.getCamera().getViewHeight()); // Layers are shared per theme, built when it is picked.
+        this.snapshotCamera = new Camera(world.getCamera().getViewHeight(), world.getCamera().getViewWidth()); // Same view size as the world's camera. // Executes: this.snapshotCamera = new Camera(world.getCamera().getViewHeight(), world.getCamera().getViewWidth()); // Same view size as the world's camera.
+    } // Closes a code block.
+
+    public TileChunkCache getTileCache() { // Begins a method or constructor with its signature.
+        return tileCache;
+    } // Closes a code block.
+
+    /**
+     * Command and state change counts of the last frame (for profiling).
+     */
+    public RenderCommandBuffer getCommands() { // Begins a method or constructor with its signature.
+        return commands;
+    } // Closes a code block.
+
+    /**
+     * Per-layer visible and culled counts of the last frame (for profiling).
+     */
+    public ViewCulling getCulling() { // Begins a method or constructor with its signature.
+        return culling;
+    } // Closes a code block.
+
+    public void setCullingEnabled(boolean cullingEnabled) { // Begins a method or constructor with its signature.
+        this.cullingEnabled = cullingEnabled; // Executes: this.cullingEnabled = cullingEnabled;
+    } // Closes a code block.
+
+    // -------------------------------------------------
+    // RENDER
+    // -------------------------------------------------
+    public void render(GraphicsContext gc) { // Draw the world to the canvas. // Executes: public void render(GraphicsContext gc) { // Draw the world to the canvas.
+        render(gc, 1.0); // Executes: render(gc, 1.0);
+    } // Closes a code block.
+
+    /**
+     * Draws the world with moving things blended between the previous and current
+     * simulation step (alpha 0..1), used by the fixed-timestep loop.
+     */
+    public void render(GraphicsContext gc, double alpha) { // Begins a method or constructor with its signature.
+        if (gc == null) return; // Safety: if GraphicsContext is missing, do nothing. // Evaluates a conditional branch.
+
+        Camera camera = world.getCamera(); // View the world is drawn through. // Executes: Camera camera = world.getCamera(); // View the world is drawn through.
+        TileMap tileMap = world.getTileMap(); // Level geometry. // Executes: TileMap tileMap = world.getTileMap(); // Level geometry.
+        Theme theme = world.getTheme(); // Current colors. // Executes: Theme theme = world.getTheme(); // Current colors.
+
+        backdrop.render(gc, camera, theme); // Draw background first (sky, streaks and sparkles, scrolled by the camera). // Executes: backdrop.render(gc, camera, theme); // Draw background first (sky, streaks and sparkles, scrolled by the camera).
+
+        // ---- 1) Draw solid tiles so collisions / obstacles are visible ----
+        commands.setLayer(RenderCommandBuffer.TILES); // Everything from here on is recorded, then drawn in one flush. // Executes: commands.setLayer(RenderCommandBuffer.TILES); // Everything from here on is recorded, then drawn in one flush.
+        tileCache.render(commands, camera, theme); // Blit the chunks of collidable map tiles that overlap the view. // Executes: tileCache.render(commands, camera, theme); // Blit the chunks of collidable map tiles that overlap the view.
+
+        // ---- 2) Draw collectibles and enemies on top of tiles ----
+        SpriteAtlas atlas = SpriteAtlas.forTheme(theme); // Pre-rasterized entity looks (null until built: draw shapes). // Executes: SpriteAtlas atlas = SpriteAtlas.forTheme(theme); // Pre-rasterized entity looks (null until built: draw shapes).
+        culling.begin(camera); // View rectangle (plus margin) every layer culls against. // Executes: culling.begin(camera); // View rectangle (plus margin) every layer culls against.
+        ViewCulling cull = cullingEnabled ? culling : null; // Null: layers draw everything. // Executes: ViewCulling cull = cullingEnabled ? culling : null; // Null: layers draw everything.
+        commands.setLayer(RenderCommandBuffer.COINS); // Executes: commands.setLayer(RenderCommandBuffer.COINS);
+        world.getCoinManager().render(commands, camera, atlas, cull); // Draw coins using camera offset. // Executes: world.getCoinManager().render(commands, camera, atlas, cull); // Draw coins using camera offset.
+        if (world.getPowerUpManager() != null) { // If power-ups exist... // Evaluates a conditional branch.
+            commands.setLayer(RenderCommandBuffer.POWER_UPS); // Executes: commands.setLayer(RenderCommandBuffer.POWER_UPS);
+            world.getPowerUpManager().render(commands, camera, atlas, cull); // Draw power-ups (including STAR). // Executes: world.getPowerUpManager().render(commands, camera, atlas, cull); // Draw power-ups (including STAR).
+        } // Closes a code block.
+        commands.setLayer(RenderCommandBuffer.ENEMIES); // Executes: commands.setLayer(RenderCommandBuffer.ENEMIES);
+        world.getEnemyManager().render(commands, camera, theme, alpha, atlas, cull); // Draw enemies with theme-based colors. // Executes: world.getEnemyManager().render(commands, camera, theme, alpha, atlas, cull); // Draw enemies with theme-based colors.
+        commands.setLayer(RenderCommandBuffer.SPIKES); // Executes: commands.setLayer(RenderCommandBuffer.SPIKES);
+        world.getSpikeManager().render(commands, camera, atlas, cull); // Draw spikes. // Executes: world.getSpikeManager().render(commands, camera, atlas, cull); // Draw spikes.
+
+        // ---- 3) Draw goal flag ----
+        commands.setLayer(RenderCommandBuffer.GOAL); // Executes: commands.setLayer(RenderCommandBuffer.GOAL);
+        renderGoal(commands, camera, tileMap, theme); // Draw end-of-level goal. // Executes: renderGoal(commands, camera, tileMap, theme); // Draw end-of-level goal.
+
+        // ---- 4) Draw the player over everything ----
+        renderPlayer(camera); // Sprite placed and animated by the loop for this frame. // Executes: renderPlayer(camera); // Sprite placed and animated by the loop for this frame.
+        renderEffects(camera); // Particles and popups, moved by the loop for this frame. // Executes: renderEffects(camera); // Particles and popups, moved by the loop for this frame.
+
+        commands.flush(gc); // Draw it all, setting each fill, stroke and line width once per run. // Executes: commands.flush(gc); // Draw it all, setting each fill, stroke and line width once per run.
+    } // Closes a code block.
+
+    /**
+     * Draws a snapshot published by the simulation thread instead of the live world, blended
+     * between its previous and current step by alpha. Only the tile map and the goal position,
+     * which never change during a level, are read from the world.
+     */
+    public void render(GraphicsContext gc, WorldSnapshot snapshot, double alpha) { // Begins a method or constructor with its signature.
+        if (gc == null || !snapshot.isCaptured()) return; // Nothing published yet. // Evaluates a conditional branch.
+
+        Camera camera = placeSnapshotCamera(snapshot, alpha); // The snapshot's camera, blended like the live one. // Executes: Camera camera = placeSnapshotCamera(snapshot, alpha); // The snapshot's camera, blended like the live one.
+        Theme theme = snapshot.getTheme();
+        if (theme != snapshotTheme) cacheSnapshotPaints(theme); // Theme paints, made once per theme. // Evaluates a conditional branch.
+
+        backdrop.render(gc, camera, theme); // Executes: backdrop.render(gc, camera, theme);
+        commands.setLayer(RenderCommandBuffer.TILES); // Executes: commands.setLayer(RenderCommandBuffer.TILES);
+        tileCache.render(commands, camera, theme); // Executes: tileCache.render(commands, camera, theme);
+
+        // Entities were already picked near the view when the snapshot was taken
+        SpriteAtlas atlas = SpriteAtlas.forTheme(theme);
+        culling.begin(camera); // Executes: culling.begin(camera);
+        double ox = camera.getOffsetX();
+        double oy = camera.getOffsetY();
+
+        WorldSnapshot.Sprites coins = snapshot.getCoinSprites();
+        commands.setLayer(RenderCommandBuffer.COINS); // Executes: commands.setLayer(RenderCommandBuffer.COINS);
+        for (int i = 0; i < coins.size(); i++) { // Begins a method or constructor with its signature.
+            double w = coins.getWidth(i);
+            double h = coins.getHeight(i);
+            if (atlas != null && w == CoinManager.DEFAULT_SIZE && h == CoinManager.DEFAULT_SIZE) { // Begins a method or constructor with its signature.
+                atlas.draw(commands, SpriteAtlas.COIN, coins.getX(i) - ox, coins.getY(i) - oy); // Executes: atlas.draw(commands, SpriteAtlas.COIN, coins.getX(i) - ox, coins.getY(i) - oy);
+            } else { // Executes: } else {
+                CoinManager.paintCoin(commands, coins.getX(i) - ox, coins.getY(i) - oy, w, h, coinFill, theme.getCoinOutline()); // Executes: CoinManager.paintCoin(commands, coins.getX(i) - ox, coins.getY(i) - oy, w, h, coinFill, theme.getCoinOutline());
+            } // Closes a code block.
+        } // Closes a code block.
+        culling.record(ViewCulling.COINS, coins.size(), coins.getTotal()); // Executes: culling.record(ViewCulling.COINS, coins.size(), coins.getTotal());
+
+        WorldSnapshot.Sprites powerUps = snapshot.getPowerUpSprites();
+        commands.setLayer(RenderCommandBuffer.POWER_UPS); // Executes: commands.setLayer(RenderCommandBuffer.POWER_UPS);
+        for (int i = 0; i < powerUps.size(); i++) { // Begins a method or constructor with its signature.
+            double w = powerUps.getWidth(i);
+            double h = powerUps.getHeight(i);
+            int type = powerUps.getType(i);
+            if (atlas != null && w == PowerUpManager.DEFAULT_SIZE && h == PowerUpManager.DEFAULT_SIZE) { // Begins a method or constructor with its signature.
+                atlas.draw(commands, SpriteAtlas.POWER_UP + type, powerUps.getX(i) - ox, powerUps.getY(i) - oy); // Executes: atlas.draw(commands, SpriteAtlas.POWER_UP + type, powerUps.getX(i) - ox, powerUps.getY(i) - oy);
+            } else { // Executes: } else {
+                PowerUpManager.paintPowerUp(commands, powerUps.getX(i) - ox, powerUps.getY(i) - oy, w, h, // Executes: PowerUpManager.paintPowerUp(commands, powerUps.getX(i) - ox, powerUps.getY(i) - oy, w, h,
+                        powerUpTypes[type], rimColors[type], glowColors[type]); // Executes: powerUpTypes[type], rimColors[type], glowColors[type]);
+            } // Closes a code block.
+        } // Closes a code block.
+        culling.record(ViewCulling.POWER_UPS, powerUps.size(), powerUps.getTotal()); // Executes: culling.record(ViewCulling.POWER_UPS, powerUps.size(), powerUps.getTotal());
+
+        WorldSnapshot.Sprites enemies = snapshot.getEnemySprites();
+        commands.setLayer(RenderCommandBuffer.ENEMIES); // Executes: commands.setLayer(RenderCommandBuffer.ENEMIES);
+        for (int i = 0; i < enemies.size(); i++) { // Begins a method or constructor with its signature.
+            double screenX = enemies.getRenderX(i, alpha) - ox;
+            double screenY = enemies.getRenderY(i, alpha) - oy;
+            if (atlas != null) { // Begins a method or constructor with its signature.
+                atlas.draw(commands, SpriteAtlas.ENEMY, screenX, screenY); // Executes: atlas.draw(commands, SpriteAtlas.ENEMY, screenX, screenY);
+            } else { // Executes: } else {
+                Enemy.render(commands, screenX, screenY, theme); // Executes: Enemy.render(commands, screenX, screenY, theme);
+            } // Closes a code block.
+        } // Closes a code block.
+        culling.record(ViewCulling.ENEMIES, enemies.size(), enemies.getTotal()); // Executes: culling.record(ViewCulling.ENEMIES, enemies.size(), enemies.getTotal());
+
+        WorldSnapshot.Sprites spikes = snapshot.getSpikeSprites();
+        commands.setLayer(RenderCommandBuffer.SPIKES); // Executes: commands.setLayer(RenderCommandBuffer.SPIKES);
+        for (int i = 0; i < spikes.size(); i++) { // Begins a method or constructor with its signature.
+            if (atlas != null) { // Begins a method or constructor with its signature.
+                atlas.draw(commands, SpriteAtlas.SPIKE, spikes.getX(i) - ox, spikes.getY(i) - oy); // Executes: atlas.draw(commands, SpriteAtlas.SPIKE, spikes.getX(i) - ox, spikes.getY(i) - oy);
+            } else { // Executes: } else {
+                Spike.render(commands, spikes.getX(i) - ox, spikes.getY(i) - oy, theme, spikeXs, spikeYs); // Executes: Spike.render(commands, spikes.getX(i) - ox, spikes.getY(i) - oy, theme, spikeXs, spikeYs);
+            } // Closes a code block.
+        } // Closes a code block.
+        culling.record(ViewCulling.SPIKES, spikes.size(), spikes.getTotal()); // Executes: culling.record(ViewCulling.SPIKES, spikes.size(), spikes.getTotal());
+
+        commands.setLayer(RenderCommandBuffer.GOAL); // Executes: commands.setLayer(RenderCommandBuffer.GOAL);
+        renderGoal(commands, camera, world.getTileMap(), theme); // Executes: renderGoal(commands, camera, world.getTileMap(), theme);
+        renderPlayer(camera); // Executes: renderPlayer(camera);
+        renderEffects(camera); // Executes: renderEffects(camera);
+        commands.flush(gc); // Executes: commands.flush(gc);
+    } // Closes a code block.
+
+    /**
+     * Places the camera the snapshot is drawn through, blended between its previous and current
+     * step by alpha, and returns it. render does this itself; callers that move the scene-graph
+     * layer with the view call it first, so the layer and the canvas show the same frame.
+     */
+    public Camera placeSnapshotCamera(WorldSnapshot snapshot, double alpha) { // Begins a method or constructor with its signature.
+        snapshotCamera.setPosition(snapshot.getCameraPrevX(), snapshot.getCameraPrevY()); // Executes: snapshotCamera.setPosition(snapshot.getCameraPrevX(), snapshot.getCameraPrevY());
+        snapshotCamera.storePreviousPosition(); // Executes: snapshotCamera.storePreviousPosition();
+        snapshotCamera.setPosition(snapshot.getCameraX(), snapshot.getCameraY()); // Executes: snapshotCamera.setPosition(snapshot.getCameraX(), snapshot.getCameraY());
+        snapshotCamera.setRenderAlpha(alpha); // Executes: snapshotCamera.setRenderAlpha(alpha);
+        return snapshotCamera;
+    } // Closes a code block.
+
+    /**
+     * Draws this sprite over the world every frame; its owner places and animates it before.
+     */
+    public void setPlayerSprite(PlayerSprite playerSprite) { // Begins a method or constructor with its signature.
+        this.playerSprite = playerSprite; // Executes: this.playerSprite = playerSprite;
+    } // Closes a code block.
+
+    private void renderPlayer(Camera camera) { // Begins a method or constructor with its signature.
+        if (playerSprite == null) return; // Evaluates a conditional branch.
+        commands.setLayer(RenderCommandBuffer.PLAYER); // Executes: commands.setLayer(RenderCommandBuffer.PLAYER);
+        playerSprite.draw(commands, camera); // Executes: playerSprite.draw(commands, camera);
+    } // Closes a code block.
+
+    /**
+     * The feedback effects drawn over the world; the loop feeds it events and frame time.
+     */
+    public EffectManager getEffects() { // Begins a method or constructor with its signature.
+        return effects;
+    } // Closes a code block.
+
+    private void renderEffects(Camera camera) { // Begins a method or constructor with its signature.
+        commands.setLayer(RenderCommandBuffer.EFFECTS); // Executes: commands.setLayer(RenderCommandBuffer.EFFECTS);
+        effects.render(commands, camera); // Executes: effects.render(commands, camera);
+    } // Closes a code block.
+
+    private void cacheSnapshotPaints(Theme theme) { // Begins a method or constructor with its signature.
+        coinFill = CoinManager.goldFillFor(theme); // Executes: coinFill = CoinManager.goldFillFor(theme);
+        for (PowerUpType type : powerUpTypes) { // Begins a method or constructor with its signature.
+            rimColors[type.ordinal()] = PowerUpManager.rimColor(type, theme); // Executes: rimColors[type.ordinal()] = PowerUpManager.rimColor(type, theme);
+            glowColors[type.ordinal()] = PowerUpManager.glowColor(type, theme); // Executes: glowColors[type.ordinal()] = PowerUpManager.glowColor(type, theme);
+        } // Closes a code block.
+        snapshotTheme = theme; // Executes: snapshotTheme = theme;
+    } // Closes a code block.
+
+    private void renderGoal(RenderCommandBuffer out, Camera camera, TileMap tileMap, Theme theme) { // Draw the goal pole and flag. // Executes: private void renderGoal(RenderCommandBuffer out, Camera camera, TileMap tileMap, Theme theme) { // Draw the goal pole and flag.
+        double poleX = world.getGoalX() - camera.getOffsetX(); // Convert goal world X to screen X. // Executes: double poleX = world.getGoalX() - camera.getOffsetX(); // Convert goal world X to screen X.
+        double baseY = tileMap.getHeightInPixels() - TileMap.TILE_SIZE - camera.getOffsetY(); // Base Y near ground. // Executes: double baseY = tileMap.getHeightInPixels() - TileMap.TILE_SIZE - camera.getOffsetY(); // Base Y near ground.
+
+        // Simple goal pole + flag
+        out.setStroke(Color.WHITE); // Pole color. // Executes: out.setStroke(Color.WHITE); // Pole color.
+        out.setLineWidth(3); // Pole thickness. // Executes: out.setLineWidth(3); // Pole thickness.
+        out.strokeLine(poleX, baseY - 6 * TileMap.TILE_SIZE, poleX, baseY); // Draw pole line. // Executes: out.strokeLine(poleX, baseY - 6 * TileMap.TILE_SIZE, poleX, baseY); // Draw pole line.
+
+        out.setPass(1); // Executes: out.setPass(1);
+        out.setFill(FLAG_COLOR); // Yellow flag triangle. // Executes: out.setFill(FLAG_COLOR); // Yellow flag triangle.
+        flagXs[0] = poleX; // X points. // Executes: flagXs[0] = poleX; // X points.
+        flagXs[1] = poleX + 24; // Executes: flagXs[1] = poleX + 24;
+        flagXs[2] = poleX; // Executes: flagXs[2] = poleX;
+        flagYs[0] = baseY - 6 * TileMap.TILE_SIZE; // Y points. // Executes: flagYs[0] = baseY - 6 * TileMap.TILE_SIZE; // Y points.
+        flagYs[1] = baseY - 6 * TileMap.TILE_SIZE + 12; // Executes: flagYs[1] = baseY - 6 * TileMap.TILE_SIZE + 12;
+        flagYs[2] = baseY - 6 * TileMap.TILE_SIZE + 24; // Executes: flagYs[2] = baseY - 6 * TileMap.TILE_SIZE + 24;
+        out.fillPolygon(flagXs, flagYs, 3); // Draw triangle flag. // Executes: out.fillPolygon(flagXs, flagYs, 3); // Draw triangle flag.
+        out.setPass(2); // Executes: out.setPass(2);
+        out.setFill(theme.getTileHighlight()); // The little top cap uses theme highlight color. // Executes: out.setFill(theme.getTileHighlight()); // The little top cap uses theme highlight color.
+        out.fillOval(poleX - 4, baseY - 6 * TileMap.TILE_SIZE - 6, 12, 12); // Draw cap circle. // Executes: out.fillOval(poleX - 4, baseY - 6 * TileMap.TILE_SIZE - 6, 12, 12); // Draw cap circle.
+    } // Closes a code block.
+} // Closes a code block.
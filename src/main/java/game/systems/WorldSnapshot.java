@@ -0,0 +1,297 @@
+package game.systems; // Declares the package for this source file.
+
+import game.core.PlayerState;
+import game.utils.Theme;
+
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw one simulation step, copied out of a {@link GameWorld} so another thread
+ * can draw it while the world keeps stepping: player and camera (with their positions before the
+ * step, for blending), score, coins, lives, and the entities near the view. Entities further away
+ * are left out, so a capture costs the same on long levels as on short ones, plus one pass over
+ * the stores.
+ *
+ * <p>Snapshots are reused (see {@link game.utils.TripleBuffer}): {@link #capture} overwrites one
+ * in place and allocates nothing once its arrays have grown to the level's busiest view.
+ */
+public class WorldSnapshot { // Defines a class.
+
+    /**
+     * Entities of one kind near the view: world boxes, previous positions (enemies) and types.
+     */
+    public static final class Sprites { // Defines a class.
+        private double[] x = new double[16];
+        private double[] y = new double[16];
+        private double[] w = new double[16];
+        private double[] h = new double[16];
+        private double[] prevX = new double[16];
+        private double[] prevY = new double[16];
+        private int[] type = new int[16];
+        private int count = 0;
+        private int total = 0;
+
+        private void add(double ex, double ey, double ew, double eh, double px, double py, int entityType) { // Begins a method or constructor with its signature.
+            if (count == x.length) { // Begins a method or constructor with its signature.
+                int capacity = count * 2;
+                x = Arrays.copyOf(x, capacity); // Executes: x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity); // Executes: y = Arrays.copyOf(y, capacity);
+                w = Arrays.copyOf(w, capacity); // Executes: w = Arrays.copyOf(w, capacity);
+                h = Arrays.copyOf(h, capacity); // Executes: h = Arrays.copyOf(h, capacity);
+                prevX = Arrays.copyOf(prevX, capacity); // Executes: prevX = Arrays.copyOf(prevX, capacity);
+                prevY = Arrays.copyOf(prevY, capacity); // Executes: prevY = Arrays.copyOf(prevY, capacity);
+                type = Arrays.copyOf(type, capacity); // Executes: type = Arrays.copyOf(type, capacity);
+            } // Closes a code block.
+            x[count] = ex; // Executes: x[count] = ex;
+            y[count] = ey; // Executes: y[count] = ey;
+            w[count] = ew; // Executes: w[count] = ew;
+            h[count] = eh; // Executes: h[count] = eh;
+            prevX[count] = px; // Executes: prevX[count] = px;
+            prevY[count] = py; // Executes: prevY[count] = py;
+            type[count] = entityType; // Executes: type[count] = entityType;
+            count++; // Executes: count++;
+        } // Closes a code block.
+
+        /**
+         * Entities copied (the ones near the view).
+         */
+        public int size() { // Begins a method or constructor with its signature.
+            return count;
+        } // Closes a code block.
+
+        /**
+         * Entities of this kind in the whole level.
+         */
+        public int getTotal() { // Begins a method or constructor with its signature.
+            return total;
+        } // Closes a code block.
+
+        public double getX(int i) { // Begins a method or constructor with its signature.
+            return x[i]; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getY(int i) { // Begins a method or constructor with its signature.
+            return y[i]; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getWidth(int i) { // Begins a method or constructor with its signature.
+            return w[i]; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getHeight(int i) { // Begins a method or constructor with its signature.
+            return h[i]; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getRenderX(int i, double alpha) { // Begins a method or constructor with its signature.
+            return prevX[i] + (x[i] - prevX[i]) * alpha; // Returns a value from the method.
+        } // Closes a code block.
+
+        public double getRenderY(int i, double alpha) { // Begins a method or constructor with its signature.
+            return prevY[i] + (y[i] - prevY[i]) * alpha; // Returns a value from the method.
+        } // Closes a code block.
+
+        public int getType(int i) { // Begins a method or constructor with its signature.
+            return type[i]; // Returns a value from the method.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private final Sprites coins = new Sprites();
+    private final Sprites powerUps = new Sprites();
+    private final Sprites enemies = new Sprites();
+    private final Sprites spikes = new Sprites();
+
+    private boolean captured = false;
+    private long stepCount;
+    private long stateHash;
+    private long capturedAtNanos;
+    private Theme theme;
+    private int score;
+    private int coinCount;
+    private int lives;
+    private boolean gameOver;
+    private boolean levelComplete;
+
+    private double playerPrevX;
+    private double playerPrevY;
+    private double playerX;
+    private double playerY;
+    private double playerVelocityX;
+    private boolean playerOnGround;
+
+    private double cameraPrevX;
+    private double cameraPrevY;
+    private double cameraX;
+    private double cameraY;
+
+    // Window the entities are copied from
+    private double left;
+    private double top;
+    private double right;
+    private double bottom;
+
+    /**
+     * Copies the world as it is after a step. stepCount, stateHash and levelComplete come from the
+     * simulation that owns the world; capturedAtNanos is the {@code System.nanoTime()} of the copy.
+     */
+    public void capture(GameWorld world, PlayerState player, long stepCount, long stateHash, // Executes: public void capture(GameWorld world, PlayerState player, long stepCount, long stateHash,
+                        boolean levelComplete, long capturedAtNanos) { // Executes: boolean levelComplete, long capturedAtNanos) {
+        this.stepCount = stepCount; // Executes: this.stepCount = stepCount;
+        this.stateHash = stateHash; // Executes: this.stateHash = stateHash;
+        this.levelComplete = levelComplete; // Executes: this.levelComplete = levelComplete;
+        this.capturedAtNanos = capturedAtNanos; // Executes: this.capturedAtNanos = capturedAtNanos;
+        theme = world.getTheme(); // Executes: theme = world.getTheme();
+        score = world.getScore(); // Executes: score = world.getScore();
+        coinCount = world.getCoins(); // Executes: coinCount = world.getCoins();
+        lives = world.getLives(); // Executes: lives = world.getLives();
+        gameOver = world.isGameOver(); // Executes: gameOver = world.isGameOver();
+
+        playerPrevX = player.getRenderX(0); // Executes: playerPrevX = player.getRenderX(0);
+        playerPrevY = player.getRenderY(0); // Executes: playerPrevY = player.getRenderY(0);
+        playerX = player.getPlayerX(); // Executes: playerX = player.getPlayerX();
+        playerY = player.getPlayerY(); // Executes: playerY = player.getPlayerY();
+        playerVelocityX = player.getVelocityX(); // Executes: playerVelocityX = player.getVelocityX();
+        playerOnGround = player.isOnGround(); // Executes: playerOnGround = player.isOnGround();
+
+        Camera camera = world.getCamera();
+        cameraPrevX = camera.getPreviousX(); // Executes: cameraPrevX = camera.getPreviousX();
+        cameraPrevY = camera.getPreviousY(); // Executes: cameraPrevY = camera.getPreviousY();
+        cameraX = camera.getX(); // Executes: cameraX = camera.getX();
+        cameraY = camera.getY(); // Executes: cameraY = camera.getY();
+        // Both ends of the blend, plus the room culling leaves for glows and motion
+        left = Math.min(cameraPrevX, cameraX) - ViewCulling.MARGIN; // Executes: left = Math.min(cameraPrevX, cameraX) - ViewCulling.MARGIN;
+        top = Math.min(cameraPrevY, cameraY) - ViewCulling.MARGIN; // Executes: top = Math.min(cameraPrevY, cameraY) - ViewCulling.MARGIN;
+        right = Math.max(cameraPrevX, cameraX) + camera.getViewWidth() + ViewCulling.MARGIN; // Executes: right = Math.max(cameraPrevX, cameraX) + camera.getViewWidth() + ViewCulling.MARGIN;
+        bottom = Math.max(cameraPrevY, cameraY) + camera.getViewHeight() + ViewCulling.MARGIN; // Executes: bottom = Math.max(cameraPrevY, cameraY) + camera.getViewHeight() + ViewCulling.MARGIN;
+
+        copyNearView(world.getCoinManager().getCoins(), coins); // Executes: copyNearView(world.getCoinManager().getCoins(), coins);
+        if (world.getPowerUpManager() != null) { // Begins a method or constructor with its signature.
+            copyNearView(world.getPowerUpManager().getPowerUps(), powerUps); // Executes: copyNearView(world.getPowerUpManager().getPowerUps(), powerUps);
+        } else { // Executes: } else {
+            powerUps.count = 0; // Executes: powerUps.count = 0;
+            powerUps.total = 0; // Executes: powerUps.total = 0;
+        } // Closes a code block.
+        copyNearView(world.getSpikeManager().getSpikes(), spikes); // Executes: copyNearView(world.getSpikeManager().getSpikes(), spikes);
+
+        Bodies bodies = world.getEnemyManager().getBodies();
+        enemies.count = 0; // Executes: enemies.count = 0;
+        enemies.total = 0; // Executes: enemies.total = 0;
+        for (int i = 0; i < bodies.size(); i++) { // Begins a method or constructor with its signature.
+            if (!bodies.has(i, Bodies.ALIVE)) continue; // Evaluates a conditional branch.
+            enemies.total++; // Executes: enemies.total++;
+            if (!isNearView(bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i))) continue; // Evaluates a conditional branch.
+            enemies.add(bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i), // Executes: enemies.add(bodies.getX(i), bodies.getY(i), bodies.getWidth(i), bodies.getHeight(i),
+                    bodies.getRenderX(i, 0), bodies.getRenderY(i, 0), 0); // Executes: bodies.getRenderX(i, 0), bodies.getRenderY(i, 0), 0);
+        } // Closes a code block.
+        captured = true; // Executes: captured = true;
+    } // Closes a code block.
+
+    private void copyNearView(EntityStore store, Sprites out) { // Begins a method or constructor with its signature.
+        out.count = 0; // Executes: out.count = 0;
+        out.total = store.size(); // Executes: out.total = store.size();
+        for (int i = 0; i < store.size(); i++) { // Begins a method or constructor with its signature.
+            double ex = store.getX(i);
+            double ey = store.getY(i);
+            if (!isNearView(ex, ey, store.getWidth(i), store.getHeight(i))) continue; // Evaluates a conditional branch.
+            out.add(ex, ey, store.getWidth(i), store.getHeight(i), ex, ey, store.getType(i)); // Executes: out.add(ex, ey, store.getWidth(i), store.getHeight(i), ex, ey, store.getType(i));
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private boolean isNearView(double x, double y, double w, double h) { // Begins a method or constructor with its signature.
+        return x < right && x + w > left && y < bottom && y + h > top; // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Getters
+    // -------------------------
+
+    /**
+     * False until the first {@link #capture}.
+     */
+    public boolean isCaptured() { // Begins a method or constructor with its signature.
+        return captured;
+    } // Closes a code block.
+
+    public long getStepCount() { // Begins a method or constructor with its signature.
+        return stepCount;
+    } // Closes a code block.
+
+    public long getStateHash() { // Begins a method or constructor with its signature.
+        return stateHash;
+    } // Closes a code block.
+
+    public long getCapturedAtNanos() { // Begins a method or constructor with its signature.
+        return capturedAtNanos;
+    } // Closes a code block.
+
+    public Theme getTheme() { // Begins a method or constructor with its signature.
+        return theme;
+    } // Closes a code block.
+
+    public int getScore() { // Begins a method or constructor with its signature.
+        return score;
+    } // Closes a code block.
+
+    public int getCoins() { // Begins a method or constructor with its signature.
+        return coinCount;
+    } // Closes a code block.
+
+    public int getLives() { // Begins a method or constructor with its signature.
+        return lives;
+    } // Closes a code block.
+
+    public boolean isGameOver() { // Begins a method or constructor with its signature.
+        return gameOver;
+    } // Closes a code block.
+
+    public boolean isLevelComplete() { // Begins a method or constructor with its signature.
+        return levelComplete;
+    } // Closes a code block.
+
+    public double getPlayerRenderX(double alpha) { // Begins a method or constructor with its signature.
+        return playerPrevX + (playerX - playerPrevX) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getPlayerRenderY(double alpha) { // Begins a method or constructor with its signature.
+        return playerPrevY + (playerY - playerPrevY) * alpha; // Returns a value from the method.
+    } // Closes a code block.
+
+    public double getPlayerVelocityX() { // Begins a method or constructor with its signature.
+        return playerVelocityX;
+    } // Closes a code block.
+
+    public boolean isPlayerOnGround() { // Begins a method or constructor with its signature.
+        return playerOnGround;
+    } // Closes a code block.
+
+    public double getCameraPrevX() { // Begins a method or constructor with its signature.
+        return cameraPrevX;
+    } // Closes a code block.
+
+    public double getCameraPrevY() { // Begins a method or constructor with its signature.
+        return cameraPrevY;
+    } // Closes a code block.
+
+    public double getCameraX() { // Begins a method or constructor with its signature.
+        return cameraX;
+    } // Closes a code block.
+
+    public double getCameraY() { // Begins a method or constructor with its signature.
+        return cameraY;
+    } // Closes a code block.
+
+    public Sprites getCoinSprites() { // Begins a method or constructor with its signature.
+        return coins;
+    } // Closes a code block.
+
+    public Sprites getPowerUpSprites() { // Begins a method or constructor with its signature.
+        return powerUps;
+    } // Closes a code block.
+
+    public Sprites getEnemySprites() { // Begins a method or constructor with its signature.
+        return enemies;
+    } // Closes a code block.
+
+    public Sprites getSpikeSprites() { // Begins a method or constructor with its signature.
+        return spikes;
+    } // Closes a code block.
+} // Closes a code block.
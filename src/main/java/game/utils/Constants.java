@@ -4,6 +4,22 @@ public class Constants { // Defines a class.
 
     public static final int TILE_SIZE = 32;
     public static final double GRAVITY = 900;
+    public static final double MAX_FALL_SPEED = 1500;
     public static final double PLAYER_SPEED = 250;
     public static final int COIN_SCORE = 100;
+
+    // Window / camera view size and the ground strip at the bottom of it (shared by the game and headless runs)
+    public static final int VIEW_WIDTH = 1250;
+    public static final int VIEW_HEIGHT = 630;
+    public static final int GROUND_HEIGHT = 80;
+
+    // Campaign generated at startup (and checked by the batch runner)
+    public static final int LEVEL_COUNT = 40;
+    public static final int LEVEL_WIDTH_TILES = 110;
+    public static final int LEVEL_HEIGHT_TILES = 8;
+
+    // Fixed-timestep loop: simulation steps per second and the most steps allowed to catch up after a hitch.
+    // Override with -Dbbmario.simRate=... / -Dbbmario.maxCatchUpSteps=... (simRate 0 = variable dt).
+    public static final double SIM_RATE_HZ = 120.0;
+    public static final int MAX_CATCH_UP_STEPS = 6;
 } // Closes a code block.
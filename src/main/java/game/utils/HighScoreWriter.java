@@ -0,0 +1,146 @@
+package game.utils; // Declares the package for this source file.
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves runs to the {@link Leaderboard} from a background virtual thread, so the FX thread never waits
+ * on the disk. {@link #submit} only records the entry; the writer keeps the best score submitted for
+ * each run in between and writes at most once per flush interval, or right away after {@link #flush}
+ * (level end) and {@link #close} (shutdown).
+ */
+public class HighScoreWriter implements AutoCloseable { // Defines a class.
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 2_000;
+    // How long close() waits for the last write before giving up on it
+    private static final long CLOSE_TIMEOUT_MS = 2_000;
+
+    private final Leaderboard leaderboard;
+    private final long flushIntervalNanos;
+    private final Thread thread;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Guarded by lock: runs not written yet (one entry per run, its best score), and the writer's instructions
+    private final List<Leaderboard.Entry> pending = new ArrayList<>();
+    private boolean flushRequested = false;
+    private boolean closed = false;
+
+    private volatile int writeCount = 0;
+
+    public HighScoreWriter(Leaderboard leaderboard) { // Begins a method or constructor with its signature.
+        this(leaderboard, DEFAULT_FLUSH_INTERVAL_MS); // Executes: this(leaderboard, DEFAULT_FLUSH_INTERVAL_MS);
+    } // Closes a code block.
+
+    /**
+     * @param flushIntervalMs shortest time between two writes while scores keep coming in
+     */
+    public HighScoreWriter(Leaderboard leaderboard, long flushIntervalMs) { // Begins a method or constructor with its signature.
+        this.leaderboard = leaderboard; // Executes: this.leaderboard = leaderboard;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervalMs)); // Executes: this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervalMs));
+        this.thread = Thread.ofVirtual().name("high-score-writer").start(this::run); // Executes: this.thread = Thread.ofVirtual().name("high-score-writer").start(this::run);
+    } // Closes a code block.
+
+    /**
+     * Queues a run to be saved; a lower score than one still pending for the same run is ignored.
+     * Never blocks on IO.
+     */
+    public void submit(Leaderboard.Entry entry) { // Begins a method or constructor with its signature.
+        lock.lock(); // Executes: lock.lock();
+        try { // Attempts operations that might throw exceptions.
+            if (closed) return; // Evaluates a conditional branch.
+            for (int i = 0; i < pending.size(); i++) { // Begins a method or constructor with its signature.
+                if (pending.get(i).sameRun(entry)) { // Begins a method or constructor with its signature.
+                    if (entry.score() > pending.get(i).score()) pending.set(i, entry); // Evaluates a conditional branch.
+                    return; // Returns a value from the method.
+                } // Closes a code block.
+            } // Closes a code block.
+            pending.add(entry); // Executes: pending.add(entry);
+            changed.signal(); // Executes: changed.signal();
+        } finally { // Begins a method or constructor with its signature.
+            lock.unlock(); // Executes: lock.unlock();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Asks the writer to save the pending runs now instead of at the end of the interval. Returns immediately.
+     */
+    public void flush() { // Begins a method or constructor with its signature.
+        lock.lock(); // Executes: lock.lock();
+        try { // Attempts operations that might throw exceptions.
+            if (!pending.isEmpty()) { // Begins a method or constructor with its signature.
+                flushRequested = true; // Executes: flushRequested = true;
+                changed.signal(); // Executes: changed.signal();
+            } // Closes a code block.
+        } finally { // Begins a method or constructor with its signature.
+            lock.unlock(); // Executes: lock.unlock();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Writes whatever is pending and stops the writer. Waits a bounded time for that last write.
+     */
+    @Override // Applies an annotation to the following element.
+    public void close() { // Begins a method or constructor with its signature.
+        lock.lock(); // Executes: lock.lock();
+        try { // Attempts operations that might throw exceptions.
+            closed = true; // Executes: closed = true;
+            changed.signal(); // Executes: changed.signal();
+        } finally { // Begins a method or constructor with its signature.
+            lock.unlock(); // Executes: lock.unlock();
+        } // Closes a code block.
+        try { // Attempts operations that might throw exceptions.
+            thread.join(CLOSE_TIMEOUT_MS); // Executes: thread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) { // Begins a method or constructor with its signature.
+            Thread.currentThread().interrupt(); // Executes: Thread.currentThread().interrupt();
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Number of writes done so far (one per coalesced batch of runs).
+     */
+    public int getWriteCount() { // Begins a method or constructor with its signature.
+        return writeCount;
+    } // Closes a code block.
+
+    private void run() { // Begins a method or constructor with its signature.
+        long lastWrite = System.nanoTime() - flushIntervalNanos;
+        while (true) { // Begins a method or constructor with its signature.
+            List<Leaderboard.Entry> batch;
+            lock.lock(); // Executes: lock.lock();
+            try { // Attempts operations that might throw exceptions.
+                while (!closed && pending.isEmpty()) { // Begins a method or constructor with its signature.
+                    changed.await(); // Executes: changed.await();
+                } // Closes a code block.
+                // Hold back until the interval since the last write has passed, unless told to hurry
+                long wait;
+                while (!closed && !flushRequested && (wait = lastWrite + flushIntervalNanos - System.nanoTime()) > 0) { // Begins a method or constructor with its signature.
+                    changed.awaitNanos(wait); // Executes: changed.awaitNanos(wait);
+                } // Closes a code block.
+                if (pending.isEmpty()) return; // closed with nothing left to write // Evaluates a conditional branch.
+                batch = List.copyOf(pending); // Executes: batch = List.copyOf(pending);
+                pending.clear(); // Executes: pending.clear();
+                flushRequested = false; // Executes: flushRequested = false;
+            } catch (InterruptedException e) { // Begins a method or constructor with its signature.
+                return; // Returns a value from the method.
+            } finally { // Begins a method or constructor with its signature.
+                lock.unlock(); // Executes: lock.unlock();
+            } // Closes a code block.
+
+            for (Leaderboard.Entry entry : batch) { // Begins a method or constructor with its signature.
+                try { // Attempts operations that might throw exceptions.
+                    leaderboard.add(entry); // Executes: leaderboard.add(entry);
+                } catch (IOException e) { // Begins a method or constructor with its signature.
+                    // Failing to persist should not crash the game; the run stays in the in-memory index
+                    System.out.println("Cannot save score: " + e.getMessage()); // Executes: System.out.println("Cannot save score: " + e.getMessage());
+                } // Closes a code block.
+            } // Closes a code block.
+            lastWrite = System.nanoTime(); // Executes: lastWrite = System.nanoTime();
+            writeCount++; // Executes: writeCount++;
+        } // Closes a code block.
+    } // Closes a code block.
+} // Closes a code block.
@@ -0,0 +1,361 @@
+package game.utils; // Declares the package for this source file.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Local leaderboard: the best runs per (level, theme, seed), kept in an append-only log file with an
+ * in-memory index over it.
+ *
+ * <p>File format (big-endian): a 6-byte header (magic "BBLB", version), then fixed-size records of
+ * {@code length | payload | CRC32(payload)}; the payload is level (int), theme ordinal (byte), seed
+ * (long), score (int), start time (epoch ms, long) and run time (ms, long). New themes must be added
+ * at the end of {@link Theme} so stored ordinals keep their meaning.
+ *
+ * <p>A run is identified by its key and start time; a later record for the same run replaces the
+ * earlier one, so a run can be saved while it is still going. Only records that make the top K are
+ * appended. On open, the log is read up to the first record that is cut short or fails its CRC (a
+ * write torn by a crash) and truncated there. When superseded and evicted records outnumber the live
+ * ones the log is rewritten with the live ones only (temp file and rename), so it stays bounded.
+ * A file that is not a log of this version (wrong magic or version) is renamed aside, never
+ * overwritten, and a fresh log is started in its place; {@link #getSetAsideFile} says where it went.
+ *
+ * <p>Writes block on the disk and are meant for a background thread ({@link HighScoreWriter});
+ * {@link #best} is a map lookup and safe to call from the FX thread at any time.
+ */
+public class Leaderboard implements AutoCloseable { // Defines a class.
+
+    public static final int DEFAULT_TOP_K = 10;
+
+    private static final int MAGIC = 0x42424C42; // "BBLB" // Executes: private static final int MAGIC = 0x42424C42; // "BBLB"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 6;
+    private static final int PAYLOAD_BYTES = 4 + 1 + 8 + 4 + 8 + 8;
+    private static final int RECORD_BYTES = 4 + PAYLOAD_BYTES + 4;
+    // Compact once the log holds this many times the live records (and at least MIN_COMPACT_RECORDS)
+    private static final int COMPACT_FACTOR = 2;
+    private static final int MIN_COMPACT_RECORDS = 256;
+
+    private static final Theme[] THEMES = Theme.values();
+
+    /**
+     * One run. level is the 1-based difficulty, seed the level seed.
+     */
+    public record Entry(int level, Theme theme, long seed, int score, long startedAt, long runTimeMillis) { // Begins a method or constructor with its signature.
+
+        public boolean sameRun(Entry other) { // Begins a method or constructor with its signature.
+            return level == other.level && theme == other.theme && seed == other.seed && startedAt == other.startedAt; // Returns a value from the method.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private record Key(int level, Theme theme, long seed) { // Begins a method or constructor with its signature.
+    } // Closes a code block.
+
+    private final Path file; // null: in memory only // Executes: private final Path file; // null: in memory only
+    private final int topK;
+
+    // Guarded by this: top runs per key, best first
+    private final Map<Key, List<Entry>> top = new HashMap<>();
+    private int liveCount = 0;
+    // Best score per (level, theme) over all seeds; read without locking
+    private final Map<Long, Integer> best = new ConcurrentHashMap<>();
+
+    // Guarded by ioLock: the open log and how many records it holds
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private int logRecords = 0;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    private long recoveredBytes = 0;
+    private Path setAsideFile = null;
+
+    private Leaderboard(Path file, int topK) { // Begins a method or constructor with its signature.
+        this.file = file; // Executes: this.file = file;
+        this.topK = Math.max(1, topK); // Executes: this.topK = Math.max(1, topK);
+    } // Closes a code block.
+
+    /**
+     * Opens (or creates) the log and loads its index, dropping a torn tail.
+     */
+    public static Leaderboard open(Path file, int topK) throws IOException { // Begins a method or constructor with its signature.
+        Leaderboard board = new Leaderboard(file, topK);
+        board.load(); // Executes: board.load();
+        return board;
+    } // Closes a code block.
+
+    /**
+     * A leaderboard that keeps nothing on disk, for when the log can't be opened.
+     */
+    public static Leaderboard inMemory(int topK) { // Begins a method or constructor with its signature.
+        return new Leaderboard(null, topK); // Returns a value from the method.
+    } // Closes a code block.
+
+    public static Path defaultFile() { // Begins a method or constructor with its signature.
+        return Path.of(System.getProperty("user.home"), ".bb-mario", "leaderboard.log"); // Returns a value from the method.
+    } // Closes a code block.
+
+    // -------------------------
+    // Queries
+    // -------------------------
+
+    /**
+     * Best score for this level and theme over all seeds, 0 if none. O(1), never touches the disk.
+     */
+    public int best(int level, Theme theme) { // Begins a method or constructor with its signature.
+        Integer score = best.get(levelThemeKey(level, theme));
+        return score != null ? score : 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * The top runs for one level, theme and seed, best first.
+     */
+    public synchronized List<Entry> top(int level, Theme theme, long seed) { // Begins a method or constructor with its signature.
+        List<Entry> entries = top.get(new Key(level, theme, seed));
+        return entries != null ? List.copyOf(entries) : List.of(); // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Runs currently kept in the index.
+     */
+    public synchronized int size() { // Begins a method or constructor with its signature.
+        return liveCount;
+    } // Closes a code block.
+
+    /**
+     * Records in the log file, live or not; compaction brings it back to {@link #size()}.
+     */
+    public int getLogRecordCount() { // Begins a method or constructor with its signature.
+        synchronized (ioLock) { // Begins a method or constructor with its signature.
+            return logRecords;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Bytes dropped from the end of the log when it was opened (0 unless the last session crashed mid-write).
+     */
+    public long getRecoveredBytes() { // Begins a method or constructor with its signature.
+        return recoveredBytes;
+    } // Closes a code block.
+
+    /**
+     * True for a board from {@link #inMemory}, which keeps nothing on disk.
+     */
+    public boolean isInMemory() { // Begins a method or constructor with its signature.
+        return file == null; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Where an unreadable file found at the log's path was moved when it was opened, else null.
+     */
+    public Path getSetAsideFile() { // Begins a method or constructor with its signature.
+        return setAsideFile;
+    } // Closes a code block.
+
+    // -------------------------
+    // Updates
+    // -------------------------
+
+    /**
+     * Records a run (or a better score for a run already recorded). Returns false, without writing,
+     * if it does not make the top K or the run already has an equal or better score.
+     */
+    public boolean add(Entry entry) throws IOException { // Begins a method or constructor with its signature.
+        synchronized (ioLock) { // Begins a method or constructor with its signature.
+            synchronized (this) { // Begins a method or constructor with its signature.
+                if (!index(entry)) return false; // Evaluates a conditional branch.
+            } // Closes a code block.
+            if (channel == null) return true; // Evaluates a conditional branch.
+
+            append(entry); // Executes: append(entry);
+            if (logRecords > Math.max(MIN_COMPACT_RECORDS, COMPACT_FACTOR * size())) { // Begins a method or constructor with its signature.
+                compact(); // Executes: compact();
+            } // Closes a code block.
+            return true;
+        } // Closes a code block.
+    } // Closes a code block.
+
+    /**
+     * Rewrites the log with only the runs in the index.
+     */
+    public void compact() throws IOException { // Begins a method or constructor with its signature.
+        synchronized (ioLock) { // Begins a method or constructor with its signature.
+            if (channel == null) return; // Evaluates a conditional branch.
+
+            List<Entry> live = new ArrayList<>();
+            synchronized (this) { // Begins a method or constructor with its signature.
+                for (List<Entry> entries : top.values()) live.addAll(entries); // Executes: for (List<Entry> entries : top.values()) live.addAll(entries);
+            } // Closes a code block.
+
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, // Attempts operations that might throw exceptions.
+                    StandardOpenOption.TRUNCATE_EXISTING)) { // Executes: StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(out); // Executes: writeHeader(out);
+                for (Entry entry : live) writeRecord(out, entry); // Executes: for (Entry entry : live) writeRecord(out, entry);
+                out.force(true); // Executes: out.force(true);
+            } // Closes a code block.
+            // Some platforms can't rename over an open file. Whatever happens, reopen whichever log is
+            // at the path, so a failed move leaves the old log in use instead of a closed channel
+            channel.close(); // Executes: channel.close();
+            boolean moved = false;
+            try { // Attempts operations that might throw exceptions.
+                try { // Attempts operations that might throw exceptions.
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // Executes: Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) { // Begins a method or constructor with its signature.
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING); // Executes: Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                } // Closes a code block.
+                moved = true; // Executes: moved = true;
+            } finally { // Begins a method or constructor with its signature.
+                channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND); // Executes: channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                if (moved) { // Begins a method or constructor with its signature.
+                    logRecords = live.size(); // Executes: logRecords = live.size();
+                } else { // Executes: } else {
+                    Files.deleteIfExists(tmp); // Executes: Files.deleteIfExists(tmp);
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    @Override // Applies an annotation to the following element.
+    public void close() throws IOException { // Begins a method or constructor with its signature.
+        synchronized (ioLock) { // Begins a method or constructor with its signature.
+            if (channel != null) { // Begins a method or constructor with its signature.
+                channel.close(); // Executes: channel.close();
+                channel = null; // Executes: channel = null;
+            } // Closes a code block.
+        } // Closes a code block.
+    } // Closes a code block.
+
+    // -------------------------
+    // Internals
+    // -------------------------
+
+    /**
+     * Puts the entry into its key's top list. Returns true if it is kept there.
+     */
+    private boolean index(Entry entry) { // Begins a method or constructor with its signature.
+        List<Entry> entries = top.computeIfAbsent(new Key(entry.level(), entry.theme(), entry.seed()), k -> new ArrayList<>());
+        for (int i = 0; i < entries.size(); i++) { // Begins a method or constructor with its signature.
+            if (entries.get(i).sameRun(entry)) { // Begins a method or constructor with its signature.
+                if (entries.get(i).score() >= entry.score()) return false; // Evaluates a conditional branch.
+                entries.remove(i); // Executes: entries.remove(i);
+                liveCount--; // Executes: liveCount--;
+                break; // Breaks out of the current loop or switch.
+            } // Closes a code block.
+        } // Closes a code block.
+
+        int at = 0;
+        while (at < entries.size() && entries.get(at).score() >= entry.score()) at++; // Executes: while (at < entries.size() && entries.get(at).score() >= entry.score()) at++;
+        if (at >= topK) return false; // Evaluates a conditional branch.
+        entries.add(at, entry); // Executes: entries.add(at, entry);
+        liveCount++; // Executes: liveCount++;
+        if (entries.size() > topK) { // Begins a method or constructor with its signature.
+            entries.remove(entries.size() - 1); // Executes: entries.remove(entries.size() - 1);
+            liveCount--; // Executes: liveCount--;
+        } // Closes a code block.
+
+        best.merge(levelThemeKey(entry.level(), entry.theme()), entry.score(), Math::max); // Executes: best.merge(levelThemeKey(entry.level(), entry.theme()), entry.score(), Math::max);
+        return true;
+    } // Closes a code block.
+
+    private void load() throws IOException { // Begins a method or constructor with its signature.
+        Files.createDirectories(file.getParent()); // Executes: Files.createDirectories(file.getParent());
+        if (!Files.exists(file) || Files.size(file) < HEADER_BYTES) createEmptyLog(); // Evaluates a conditional branch.
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.getInt() != MAGIC || data.getShort() != VERSION) { // Begins a method or constructor with its signature.
+            // Another version's log, or not a log at all: keep it for inspection and start over
+            setAsideFile = file.resolveSibling(file.getFileName() + ".unreadable-" + System.currentTimeMillis()); // Executes: setAsideFile = file.resolveSibling(file.getFileName() + ".unreadable-" + System.currentTimeMillis());
+            Files.move(file, setAsideFile); // Executes: Files.move(file, setAsideFile);
+            createEmptyLog(); // Executes: createEmptyLog();
+            data = ByteBuffer.wrap(Files.readAllBytes(file)); // Executes: data = ByteBuffer.wrap(Files.readAllBytes(file));
+            data.position(HEADER_BYTES); // Executes: data.position(HEADER_BYTES);
+        } // Closes a code block.
+
+        int records = 0;
+        long goodEnd = data.position();
+        while (data.remaining() >= RECORD_BYTES) { // Begins a method or constructor with its signature.
+            int start = data.position();
+            if (data.getInt() != PAYLOAD_BYTES) break; // Evaluates a conditional branch.
+            crc.reset(); // Executes: crc.reset();
+            crc.update(data.array(), start + 4, PAYLOAD_BYTES); // Executes: crc.update(data.array(), start + 4, PAYLOAD_BYTES);
+            if ((int) crc.getValue() != data.getInt(start + 4 + PAYLOAD_BYTES)) break; // Evaluates a conditional branch.
+
+            int level = data.getInt();
+            int themeOrdinal = data.get();
+            long seed = data.getLong();
+            int score = data.getInt();
+            long startedAt = data.getLong();
+            long runTime = data.getLong();
+            data.getInt(); // CRC, checked above // Executes: data.getInt(); // CRC, checked above
+            goodEnd = data.position(); // Executes: goodEnd = data.position();
+            records++; // Executes: records++;
+
+            if (themeOrdinal >= 0 && themeOrdinal < THEMES.length) { // Begins a method or constructor with its signature.
+                synchronized (this) { // Begins a method or constructor with its signature.
+                    index(new Entry(level, THEMES[themeOrdinal], seed, score, startedAt, runTime)); // Executes: index(new Entry(level, THEMES[themeOrdinal], seed, score, startedAt, runTime));
+                } // Closes a code block.
+            } // Closes a code block.
+        } // Closes a code block.
+
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND); // Executes: channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        recoveredBytes = data.limit() - goodEnd; // Executes: recoveredBytes = data.limit() - goodEnd;
+        if (recoveredBytes > 0) { // Begins a method or constructor with its signature.
+            channel.truncate(goodEnd); // Executes: channel.truncate(goodEnd);
+            channel.force(true); // Executes: channel.force(true);
+        } // Closes a code block.
+        logRecords = records; // Executes: logRecords = records;
+    } // Closes a code block.
+
+    private void createEmptyLog() throws IOException { // Begins a method or constructor with its signature.
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, // Attempts operations that might throw exceptions.
+                StandardOpenOption.TRUNCATE_EXISTING)) { // Executes: StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out); // Executes: writeHeader(out);
+            out.force(true); // Executes: out.force(true);
+        } // Closes a code block.
+    } // Closes a code block.
+
+    private void append(Entry entry) throws IOException { // Begins a method or constructor with its signature.
+        writeRecord(channel, entry); // Executes: writeRecord(channel, entry);
+        channel.force(false); // Executes: channel.force(false);
+        logRecords++; // Executes: logRecords++;
+    } // Closes a code block.
+
+    private void writeHeader(FileChannel out) throws IOException { // Begins a method or constructor with its signature.
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort(VERSION).flip(); // Executes: header.putInt(MAGIC).putShort(VERSION).flip();
+        while (header.hasRemaining()) out.write(header); // Executes: while (header.hasRemaining()) out.write(header);
+    } // Closes a code block.
+
+    private void writeRecord(FileChannel out, Entry entry) throws IOException { // Begins a method or constructor with its signature.
+        ByteBuffer buf = recordBuffer.clear();
+        buf.putInt(PAYLOAD_BYTES); // Executes: buf.putInt(PAYLOAD_BYTES);
+        buf.putInt(entry.level()); // Executes: buf.putInt(entry.level());
+        buf.put((byte) entry.theme().ordinal()); // Executes: buf.put((byte) entry.theme().ordinal());
+        buf.putLong(entry.seed()); // Executes: buf.putLong(entry.seed());
+        buf.putInt(entry.score()); // Executes: buf.putInt(entry.score());
+        buf.putLong(entry.startedAt()); // Executes: buf.putLong(entry.startedAt());
+        buf.putLong(entry.runTimeMillis()); // Executes: buf.putLong(entry.runTimeMillis());
+        crc.reset(); // Executes: crc.reset();
+        crc.update(buf.array(), 4, PAYLOAD_BYTES); // Executes: crc.update(buf.array(), 4, PAYLOAD_BYTES);
+        buf.putInt((int) crc.getValue()); // Executes: buf.putInt((int) crc.getValue());
+        buf.flip(); // Executes: buf.flip();
+        while (buf.hasRemaining()) out.write(buf); // Executes: while (buf.hasRemaining()) out.write(buf);
+    } // Closes a code block.
+
+    private static long levelThemeKey(int level, Theme theme) { // Begins a method or constructor with its signature.
+        return ((long) level << 8) | theme.ordinal(); // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
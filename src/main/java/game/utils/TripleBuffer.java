@@ -0,0 +1,58 @@
+package game.utils; // Declares the package for this source file.
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free handoff of the latest value from one writer thread to one reader thread through three
+ * preallocated instances. The writer fills its back instance and {@link #publish}es it; the reader
+ * takes the most recently published one with {@link #latest}. Neither side ever waits for the other
+ * or touches the instance the other is using, so a published value stays unchanged until the reader
+ * lets go of it. Values the reader was too slow to take are simply overwritten by newer ones.
+ */
+public final class TripleBuffer<T> { // Defines a class.
+
+    // Low two bits: index of the middle (last published) instance; FRESH: not taken by the reader yet
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] instances;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    // Owned by the writer and the reader respectively
+    private int back = 2;
+    private int front = 0;
+
+    public TripleBuffer(Supplier<T> factory) { // Begins a method or constructor with its signature.
+        instances = new Object[]{factory.get(), factory.get(), factory.get()}; // Executes: instances = new Object[]{factory.get(), factory.get(), factory.get()};
+    } // Closes a code block.
+
+    /**
+     * The instance the writer fills next. Writer thread only.
+     */
+    @SuppressWarnings("unchecked") // Applies an annotation to the following element.
+    public T back() { // Begins a method or constructor with its signature.
+        return (T) instances[back]; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * Hands the back instance to the reader and takes the previous middle one as the new back.
+     * Writer thread only. Returns true if the value published before was never read.
+     */
+    public boolean publish() { // Begins a method or constructor with its signature.
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX_MASK; // Executes: back = previous & INDEX_MASK;
+        return (previous & FRESH) != 0; // Returns a value from the method.
+    } // Closes a code block.
+
+    /**
+     * The most recently published value; the same instance as last time when nothing new was
+     * published. Reader thread only.
+     */
+    @SuppressWarnings("unchecked") // Applies an annotation to the following element.
+    public T latest() { // Begins a method or constructor with its signature.
+        if ((middle.get() & FRESH) != 0) { // Begins a method or constructor with its signature.
+            front = middle.getAndSet(front) & INDEX_MASK; // Executes: front = middle.getAndSet(front) & INDEX_MASK;
+        } // Closes a code block.
+        return (T) instances[front]; // Returns a value from the method.
+    } // Closes a code block.
+} // Closes a code block.
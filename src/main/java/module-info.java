@@ -1,6 +1,7 @@
 module com.example.bb_mario { // Executes: module com.example.bb_mario {
     requires javafx.controls; // Executes: requires javafx.controls;
     requires javafx.fxml; // Executes: requires javafx.fxml;
+    requires jdk.management; // Executes: requires jdk.management;
 
     requires com.almasb.fxgl.all; // Executes: requires com.almasb.fxgl.all;
 